@@ -0,0 +1,61 @@
+package com.ironbucket.brazznossel.bulk;
+
+import com.ironbucket.brazznossel.model.DeleteResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * BulkDeleteEngine - Fans a stream of keys out into DeleteObjects batches.
+ *
+ * Keys are grouped into batches of at most 1000, the S3 DeleteObjects limit,
+ * and up to the configured parallelism batches run at once. Results are
+ * emitted per key as each batch finishes, so the caller can stream them back
+ * while later batches are still running. A batch that fails as a whole turns
+ * into one failed result per key instead of ending the stream.
+ */
+@Component
+public class BulkDeleteEngine {
+
+    public static final int MAX_BATCH_SIZE = 1000;
+
+    private final int parallelism;
+
+    @Autowired
+    public BulkDeleteEngine(@Value("${app.s3.bulk-delete.parallelism:4}") int parallelism) {
+        this.parallelism = Math.max(parallelism, 1);
+    }
+
+    /**
+     * Delete every key, one backend request per batch.
+     *
+     * @param keys Keys to delete
+     * @param batchDelete Deletes one batch of at most {@link #MAX_BATCH_SIZE} keys
+     * @return Per-key results in batch completion order
+     */
+    public Flux<DeleteResult> delete(Flux<String> keys, Function<List<String>, Flux<DeleteResult>> batchDelete) {
+        return keys
+                .filter(key -> key != null && !key.isEmpty())
+                .buffer(MAX_BATCH_SIZE)
+                .flatMap(batch -> batchDelete.apply(batch)
+                        .onErrorResume(error -> Flux.fromIterable(batch)
+                                .map(key -> DeleteResult.failed(key, errorCode(error), error.getMessage()))),
+                        parallelism);
+    }
+
+    private static String errorCode(Throwable error) {
+        if (error instanceof SecurityException) {
+            return "AccessDenied";
+        }
+        if (error instanceof AwsServiceException serviceException
+                && serviceException.awsErrorDetails() != null) {
+            return serviceException.awsErrorDetails().errorCode();
+        }
+        return "InternalError";
+    }
+}
@@ -0,0 +1,317 @@
+package com.ironbucket.brazznossel.bulk;
+
+import com.ironbucket.brazznossel.model.BulkJob;
+import com.ironbucket.brazznossel.model.BulkJobRequest;
+import com.ironbucket.brazznossel.model.ListObjectsQuery;
+import com.ironbucket.brazznossel.model.ListingEntry;
+import com.ironbucket.brazznossel.model.NormalizedIdentity;
+import com.ironbucket.brazznossel.model.ObjectListingPage;
+import com.ironbucket.brazznossel.service.S3ProxyService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * BulkJobService - Runs delete, copy and retag over every object under a prefix.
+ *
+ * A job walks the prefix one listing page at a time. The next page is listed
+ * while the current one is being applied, and mutations within a page run
+ * with bounded concurrency. After each page the job is checkpointed with the
+ * continuation token of the next page; on startup, jobs that were still
+ * running are resumed from that token. A page interrupted by a restart is
+ * applied again, which is safe because all three operations are idempotent.
+ * The last page completes the job in the same checkpoint, so a running job
+ * without a token has not applied any page yet.
+ *
+ * Finished jobs stay visible until more than max-finished-jobs have
+ * finished; the oldest are then dropped from the registry and the store.
+ */
+@Service
+public class BulkJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkJobService.class);
+
+    private final S3ProxyService s3ProxyService;
+    private final BulkJobStore store;
+    private final int concurrency;
+    private final int pageSize;
+    private final int maxFinishedJobs;
+    private final Clock clock;
+    private final Map<String, BulkJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, Disposable> running = new ConcurrentHashMap<>();
+
+    @Autowired
+    public BulkJobService(
+            S3ProxyService s3ProxyService,
+            BulkJobStore store,
+            @Value("${app.s3.bulk-jobs.concurrency:16}") int concurrency,
+            @Value("${app.s3.bulk-jobs.page-size:1000}") int pageSize,
+            @Value("${app.s3.bulk-jobs.max-finished-jobs:1000}") int maxFinishedJobs) {
+        this(s3ProxyService, store, concurrency, pageSize, maxFinishedJobs, Clock.systemUTC());
+    }
+
+    BulkJobService(S3ProxyService s3ProxyService, BulkJobStore store, int concurrency, int pageSize, Clock clock) {
+        this(s3ProxyService, store, concurrency, pageSize, 1000, clock);
+    }
+
+    BulkJobService(S3ProxyService s3ProxyService, BulkJobStore store, int concurrency, int pageSize, int maxFinishedJobs, Clock clock) {
+        this.s3ProxyService = s3ProxyService;
+        this.store = store;
+        this.concurrency = Math.max(concurrency, 1);
+        this.pageSize = Math.clamp(pageSize, 1, ListObjectsQuery.MAX_KEYS_LIMIT);
+        this.maxFinishedJobs = Math.max(maxFinishedJobs, 0);
+        this.clock = clock;
+    }
+
+    /**
+     * Validate the request, check the caller can reach the bucket and start the job.
+     */
+    public Mono<BulkJob> submit(String bucket, BulkJobRequest request, NormalizedIdentity identity) {
+        return Mono.fromRunnable(() -> validate(bucket, request))
+                .then(Mono.defer(() -> s3ProxyService.headBucket(bucket, identity)))
+                .then(Mono.defer(() -> request.operation() == BulkJob.Operation.COPY
+                        ? s3ProxyService.headBucket(request.targetBucket(), identity)
+                        : Mono.<String>empty()))
+                .then(Mono.fromCallable(() -> {
+                    BulkJob job = new BulkJob(
+                            UUID.randomUUID().toString(),
+                            request.operation(),
+                            BulkJob.State.RUNNING,
+                            identity.getTenantId(),
+                            identity.getUserId(),
+                            identity.getPreferredUsername(),
+                            identity.getRoles(),
+                            bucket,
+                            request.prefix(),
+                            request.targetBucket(),
+                            request.targetPrefix(),
+                            request.tags(),
+                            null,
+                            0,
+                            0,
+                            clock.instant(),
+                            clock.instant(),
+                            null);
+                    logger.info("Starting bulk {} job {} on {}/{}* for user: {}",
+                            job.operation(), job.id(), bucket, job.prefix(), identity.getPreferredUsername());
+                    start(job);
+                    return job;
+                }));
+    }
+
+    public Mono<BulkJob> get(String jobId, NormalizedIdentity identity) {
+        return Mono.fromCallable(() -> owned(jobId, identity));
+    }
+
+    public Flux<BulkJob> list(NormalizedIdentity identity) {
+        return Flux.defer(() -> Flux.fromStream(jobs.values().stream()
+                .filter(job -> job.tenantId().equals(identity.getTenantId()))
+                .sorted(Comparator.comparing(BulkJob::createdAt))));
+    }
+
+    public Mono<BulkJob> cancel(String jobId, NormalizedIdentity identity) {
+        return Mono.fromCallable(() -> {
+            BulkJob job = owned(jobId, identity);
+            Disposable run = running.remove(jobId);
+            if (run == null) {
+                return job;
+            }
+            run.dispose();
+            BulkJob cancelled = jobs.computeIfPresent(jobId, (id, current) -> current.state() == BulkJob.State.RUNNING
+                    ? current.finish(BulkJob.State.CANCELLED, null, clock.instant())
+                    : current);
+            store.save(cancelled);
+            evictFinishedJobs();
+            return cancelled;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedJobs() {
+        for (BulkJob job : store.loadAll()) {
+            jobs.put(job.id(), job);
+            if (job.state() != BulkJob.State.RUNNING) {
+                continue;
+            }
+            if (job.continuationToken() == null && job.objectsProcessed() > 0) {
+                // Checkpointed after its last page by an older version that completed the job in a separate save
+                BulkJob completed = job.finish(BulkJob.State.COMPLETED, null, clock.instant());
+                jobs.put(completed.id(), completed);
+                store.save(completed);
+                continue;
+            }
+            logger.info("Resuming bulk {} job {} after {} objects", job.operation(), job.id(), job.objectsProcessed());
+            start(job);
+        }
+        evictFinishedJobs();
+    }
+
+    @PreDestroy
+    void stop() {
+        // Running jobs stay RUNNING in the store and resume on the next start
+        running.values().forEach(Disposable::dispose);
+        running.clear();
+    }
+
+    private void start(BulkJob job) {
+        jobs.put(job.id(), job);
+        store.save(job);
+
+        NormalizedIdentity identity = job.identity();
+        AtomicReference<BulkJob> current = new AtomicReference<>(job);
+
+        // Registered before subscribing, so a job that finishes right away is not left behind as running
+        Disposable.Swap run = Disposables.swap();
+        running.put(job.id(), run);
+        run.update(pages(job, identity)
+                .concatMap(page -> apply(job, page, identity)
+                        .doOnNext(failed -> checkpoint(current, page, page.objects().size(), failed)), 1)
+                .then(Mono.fromRunnable(() -> {
+                    // Only reached without a last page when the listing came back empty
+                    if (current.get().state() == BulkJob.State.RUNNING) {
+                        finish(current, BulkJob.State.COMPLETED, null);
+                    }
+                }))
+                .onErrorResume(error -> {
+                    logger.warn("Bulk job {} failed: {}", job.id(), error.getMessage());
+                    finish(current, BulkJob.State.FAILED, error.getMessage());
+                    return Mono.empty();
+                })
+                .subscribe());
+    }
+
+    private Flux<ObjectListingPage> pages(BulkJob job, NormalizedIdentity identity) {
+        ListObjectsQuery query = new ListObjectsQuery(job.prefix(), null, null, pageSize, job.continuationToken());
+        return s3ProxyService.listObjectsPage(job.bucket(), query, identity)
+                .expand(page -> page.truncated() && page.nextContinuationToken() != null
+                        ? s3ProxyService.listObjectsPage(job.bucket(), query.withContinuationToken(page.nextContinuationToken()), identity)
+                        : Mono.empty());
+    }
+
+    /**
+     * Apply the job's operation to one page and return the number of failed objects.
+     */
+    private Mono<Long> apply(BulkJob job, ObjectListingPage page, NormalizedIdentity identity) {
+        List<String> keys = page.objects().stream().map(ListingEntry::key).toList();
+        if (keys.isEmpty()) {
+            return Mono.just(0L);
+        }
+        return switch (job.operation()) {
+            case DELETE -> s3ProxyService.deleteObjects(job.bucket(), Flux.fromIterable(keys), identity)
+                    .filter(result -> !result.deleted())
+                    .count();
+            case COPY -> countFailures(keys, key -> s3ProxyService.copyObject(
+                    job.bucket(), key, job.targetBucket(), targetKey(job, key), identity));
+            case TAG -> countFailures(keys, key -> s3ProxyService.putObjectTagging(job.bucket(), key, job.tags(), identity));
+        };
+    }
+
+    private Mono<Long> countFailures(List<String> keys, Function<String, Mono<?>> mutation) {
+        return Flux.fromIterable(keys)
+                .flatMap(key -> mutation.apply(key)
+                        .then(Mono.just(0L))
+                        .onErrorResume(error -> {
+                            logger.debug("Bulk operation failed for key {}: {}", key, error.getMessage());
+                            return Mono.just(1L);
+                        }), concurrency)
+                .reduce(0L, Long::sum);
+    }
+
+    private static String targetKey(BulkJob job, String key) {
+        if (job.targetPrefix() == null) {
+            return key;
+        }
+        return job.targetPrefix() + key.substring(job.prefix().length());
+    }
+
+    private void checkpoint(AtomicReference<BulkJob> current, ObjectListingPage page, long processed, long failed) {
+        // pages() stops after the first page without a next token
+        boolean last = !page.truncated() || page.nextContinuationToken() == null;
+        BulkJob next = current.updateAndGet(job -> {
+            BulkJob progressed = job.checkpoint(page.nextContinuationToken(), processed, failed, clock.instant());
+            return last ? progressed.finish(BulkJob.State.COMPLETED, null, clock.instant()) : progressed;
+        });
+        if (last) {
+            finished(next);
+        } else {
+            jobs.put(next.id(), next);
+            store.save(next);
+        }
+    }
+
+    private void finish(AtomicReference<BulkJob> current, BulkJob.State state, String error) {
+        finished(current.updateAndGet(job -> job.finish(state, error, clock.instant())));
+    }
+
+    private void finished(BulkJob done) {
+        jobs.put(done.id(), done);
+        running.remove(done.id());
+        store.save(done);
+        logger.info("Bulk job {} {}: {} objects processed, {} failed",
+                done.id(), done.state(), done.objectsProcessed(), done.objectsFailed());
+        evictFinishedJobs();
+    }
+
+    private void evictFinishedJobs() {
+        List<BulkJob> finished = jobs.values().stream()
+                .filter(job -> job.state() != BulkJob.State.RUNNING)
+                .sorted(Comparator.comparing(BulkJob::updatedAt))
+                .toList();
+        for (int i = 0; i < finished.size() - maxFinishedJobs; i++) {
+            BulkJob evicted = finished.get(i);
+            if (jobs.remove(evicted.id(), evicted)) {
+                store.delete(evicted.id());
+            }
+        }
+    }
+
+    private BulkJob owned(String jobId, NormalizedIdentity identity) {
+        BulkJob job = jobs.get(jobId);
+        if (job == null || !job.tenantId().equals(identity.getTenantId())) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No bulk job " + jobId);
+        }
+        return job;
+    }
+
+    private static void validate(String bucket, BulkJobRequest request) {
+        if (request == null || request.operation() == null) {
+            throw new IllegalArgumentException("operation is required");
+        }
+        if (request.prefix() == null || request.prefix().isEmpty()) {
+            throw new IllegalArgumentException("prefix is required");
+        }
+        if (request.operation() == BulkJob.Operation.COPY && (request.targetBucket() == null || request.targetBucket().isBlank())) {
+            throw new IllegalArgumentException("targetBucket is required for COPY");
+        }
+        if (request.operation() == BulkJob.Operation.COPY && request.targetBucket().equals(bucket)) {
+            // Copies landing under the source prefix would be listed and copied again
+            String targetPrefix = request.targetPrefix() == null ? request.prefix() : request.targetPrefix();
+            if (targetPrefix.startsWith(request.prefix()) || request.prefix().startsWith(targetPrefix)) {
+                throw new IllegalArgumentException("targetPrefix must not overlap prefix when copying within a bucket");
+            }
+        }
+        if (request.operation() == BulkJob.Operation.TAG && (request.tags() == null || request.tags().isEmpty())) {
+            throw new IllegalArgumentException("tags are required for TAG");
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.ironbucket.brazznossel.bulk;
+
+import com.ironbucket.brazznossel.model.BulkJob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * BulkJobStore - Persists bulk job checkpoints so jobs survive a restart.
+ *
+ * Each job is one properties file in the state directory, replaced atomically
+ * on every checkpoint. With no directory configured, jobs are kept in memory
+ * only and are not resumed after a restart.
+ */
+@Component
+public class BulkJobStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkJobStore.class);
+
+    private static final String SUFFIX = ".job";
+    private static final String TAG_PREFIX = "tag.";
+
+    private final Path directory;
+
+    @Autowired
+    public BulkJobStore(@Value("${app.s3.bulk-jobs.state-dir:}") String directory) {
+        this.directory = directory == null || directory.isBlank() ? null : Path.of(directory);
+        if (this.directory != null) {
+            try {
+                Files.createDirectories(this.directory);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot create bulk job state directory " + directory, e);
+            }
+        }
+    }
+
+    public boolean isPersistent() {
+        return directory != null;
+    }
+
+    public void save(BulkJob job) {
+        if (directory == null) {
+            return;
+        }
+        Path target = directory.resolve(job.id() + SUFFIX);
+        Path temp = directory.resolve(job.id() + SUFFIX + ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                toProperties(job).store(writer, null);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // The job keeps running; after a restart it resumes from the previous checkpoint
+            logger.warn("Failed to checkpoint bulk job {}: {}", job.id(), e.getMessage());
+        }
+    }
+
+    public void delete(String jobId) {
+        if (directory == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(directory.resolve(jobId + SUFFIX));
+        } catch (IOException e) {
+            logger.warn("Failed to delete bulk job {}: {}", jobId, e.getMessage());
+        }
+    }
+
+    public List<BulkJob> loadAll() {
+        List<BulkJob> jobs = new ArrayList<>();
+        if (directory == null) {
+            return jobs;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    Properties properties = new Properties();
+                    properties.load(reader);
+                    jobs.add(fromProperties(properties));
+                } catch (IOException | RuntimeException e) {
+                    logger.warn("Skipping unreadable bulk job file {}: {}", file, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read bulk job state directory " + directory, e);
+        }
+        return jobs;
+    }
+
+    private static Properties toProperties(BulkJob job) {
+        Properties properties = new Properties();
+        put(properties, "id", job.id());
+        put(properties, "operation", job.operation().name());
+        put(properties, "state", job.state().name());
+        put(properties, "tenantId", job.tenantId());
+        put(properties, "userId", job.userId());
+        put(properties, "username", job.username());
+        put(properties, "roles", String.join(",", job.roles()));
+        put(properties, "bucket", job.bucket());
+        put(properties, "prefix", job.prefix());
+        put(properties, "targetBucket", job.targetBucket());
+        put(properties, "targetPrefix", job.targetPrefix());
+        job.tags().forEach((key, value) -> put(properties, TAG_PREFIX + key, value));
+        put(properties, "continuationToken", job.continuationToken());
+        put(properties, "objectsProcessed", Long.toString(job.objectsProcessed()));
+        put(properties, "objectsFailed", Long.toString(job.objectsFailed()));
+        put(properties, "createdAt", job.createdAt().toString());
+        put(properties, "updatedAt", job.updatedAt().toString());
+        put(properties, "error", job.error());
+        return properties;
+    }
+
+    private static BulkJob fromProperties(Properties properties) {
+        Map<String, String> tags = new HashMap<>();
+        properties.stringPropertyNames().stream()
+                .filter(name -> name.startsWith(TAG_PREFIX))
+                .forEach(name -> tags.put(name.substring(TAG_PREFIX.length()), properties.getProperty(name)));
+        String roles = properties.getProperty("roles", "");
+        return new BulkJob(
+                properties.getProperty("id"),
+                BulkJob.Operation.valueOf(properties.getProperty("operation")),
+                BulkJob.State.valueOf(properties.getProperty("state")),
+                properties.getProperty("tenantId"),
+                properties.getProperty("userId"),
+                properties.getProperty("username"),
+                roles.isEmpty() ? List.of() : Arrays.asList(roles.split(",")),
+                properties.getProperty("bucket"),
+                properties.getProperty("prefix"),
+                properties.getProperty("targetBucket"),
+                properties.getProperty("targetPrefix"),
+                tags,
+                properties.getProperty("continuationToken"),
+                Long.parseLong(properties.getProperty("objectsProcessed", "0")),
+                Long.parseLong(properties.getProperty("objectsFailed", "0")),
+                Instant.parse(properties.getProperty("createdAt")),
+                Instant.parse(properties.getProperty("updatedAt")),
+                properties.getProperty("error"));
+    }
+
+    private static void put(Properties properties, String key, String value) {
+        if (value != null) {
+            properties.setProperty(key, value);
+        }
+    }
+}
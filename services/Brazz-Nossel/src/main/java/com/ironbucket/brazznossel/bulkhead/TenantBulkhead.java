@@ -0,0 +1,226 @@
+package com.ironbucket.brazznossel.bulkhead;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * TenantBulkhead - Per-tenant concurrency limits for backend calls.
+ *
+ * Each tenant gets its own lane with a fixed number of in-flight permits and
+ * a bounded wait queue. A call that finds the queue full is rejected at once,
+ * and a queued call that does not get a permit within the max wait is rejected
+ * as well, so one tenant can never hold every backend connection or thread.
+ *
+ * Publishes per tenant: queue depth and active calls as gauges, wait time as a
+ * timer and rejections as a counter.
+ */
+@Component
+public class TenantBulkhead {
+
+    private final int maxConcurrentPerTenant;
+    private final int maxQueuedPerTenant;
+    private final Duration maxWait;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TenantBulkhead(
+            @Value("${app.s3.bulkhead.max-concurrent-per-tenant:32}") int maxConcurrentPerTenant,
+            @Value("${app.s3.bulkhead.max-queued-per-tenant:256}") int maxQueuedPerTenant,
+            @Value("${app.s3.bulkhead.max-wait:2s}") Duration maxWait,
+            MeterRegistry meterRegistry) {
+        this.maxConcurrentPerTenant = maxConcurrentPerTenant;
+        this.maxQueuedPerTenant = Math.max(maxQueuedPerTenant, 0);
+        this.maxWait = maxWait;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public boolean isEnabled() {
+        return maxConcurrentPerTenant > 0;
+    }
+
+    /**
+     * Run the call while holding one of the tenant's permits.
+     */
+    public <T> Mono<T> execute(String tenantId, Mono<T> call) {
+        if (!isEnabled()) {
+            return call;
+        }
+        return Mono.usingWhen(
+                acquire(tenantId),
+                permit -> call,
+                permit -> Mono.fromRunnable(permit::release));
+    }
+
+    /**
+     * Acquire a permit for the tenant. The caller must release it exactly once;
+     * release is idempotent so it can be wired to every terminal signal.
+     */
+    public Mono<Permit> acquire(String tenantId) {
+        if (!isEnabled()) {
+            return Mono.just(Permit.NOOP);
+        }
+        Lane lane = lanes.computeIfAbsent(tenantId == null ? "unknown" : tenantId, this::newLane);
+        return Mono.<Permit>create(lane::enqueue)
+                .timeout(maxWait)
+                .onErrorMap(TimeoutException.class, timeout -> lane.reject("timed out waiting for a backend permit"))
+                // A permit handed over after the waiter was cancelled is discarded by Mono.create
+                .doOnDiscard(Permit.class, Permit::release);
+    }
+
+    int queueDepth(String tenantId) {
+        Lane lane = lanes.get(tenantId);
+        return lane == null ? 0 : lane.queueDepth();
+    }
+
+    int activeCalls(String tenantId) {
+        Lane lane = lanes.get(tenantId);
+        return lane == null ? 0 : lane.activeCalls();
+    }
+
+    private Lane newLane(String tenantId) {
+        Lane lane = new Lane(tenantId);
+        Gauge.builder("ironbucket.s3.bulkhead.queue.depth", lane, Lane::queueDepth)
+                .description("Backend calls waiting for a tenant permit")
+                .tag("tenant", tenantId)
+                .register(meterRegistry);
+        Gauge.builder("ironbucket.s3.bulkhead.active", lane, Lane::activeCalls)
+                .description("Backend calls currently holding a tenant permit")
+                .tag("tenant", tenantId)
+                .register(meterRegistry);
+        return lane;
+    }
+
+    public static class Permit {
+
+        static final Permit NOOP = new Permit(null);
+
+        private final Lane lane;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Lane lane) {
+            this.lane = lane;
+        }
+
+        public void release() {
+            if (lane != null && released.compareAndSet(false, true)) {
+                lane.release();
+            }
+        }
+    }
+
+    private final class Lane {
+
+        private final String tenantId;
+        private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+        private final Timer waitTimer;
+        private final Counter rejections;
+        private int active;
+
+        private Lane(String tenantId) {
+            this.tenantId = tenantId;
+            this.waitTimer = Timer.builder("ironbucket.s3.bulkhead.wait")
+                    .description("Time spent waiting for a tenant permit")
+                    .tag("tenant", tenantId)
+                    .register(meterRegistry);
+            this.rejections = Counter.builder("ironbucket.s3.bulkhead.rejected")
+                    .description("Backend calls rejected because the tenant lane was saturated")
+                    .tag("tenant", tenantId)
+                    .register(meterRegistry);
+        }
+
+        void enqueue(MonoSink<Permit> sink) {
+            long enqueuedAt = System.nanoTime();
+            boolean granted = false;
+            boolean rejected = false;
+            Waiter waiter = null;
+
+            synchronized (this) {
+                if (active < maxConcurrentPerTenant) {
+                    active++;
+                    granted = true;
+                } else if (waiters.size() >= maxQueuedPerTenant) {
+                    rejected = true;
+                } else {
+                    waiter = new Waiter(sink, enqueuedAt);
+                    waiters.addLast(waiter);
+                }
+            }
+
+            if (granted) {
+                waitTimer.record(Duration.ZERO);
+                sink.success(new Permit(this));
+            } else if (rejected) {
+                sink.error(reject("tenant queue is full"));
+            } else {
+                Waiter queued = waiter;
+                sink.onCancel(() -> cancel(queued));
+            }
+        }
+
+        void release() {
+            Waiter next;
+            synchronized (this) {
+                next = pollClaimable();
+                if (next == null) {
+                    active--;
+                }
+            }
+            if (next != null) {
+                waitTimer.record(Duration.ofNanos(System.nanoTime() - next.enqueuedAt));
+                next.sink.success(new Permit(this));
+            }
+        }
+
+        private Waiter pollClaimable() {
+            Waiter candidate;
+            while ((candidate = waiters.pollFirst()) != null) {
+                if (candidate.claimed.compareAndSet(false, true)) {
+                    return candidate;
+                }
+            }
+            return null;
+        }
+
+        private void cancel(Waiter waiter) {
+            if (waiter.claimed.compareAndSet(false, true)) {
+                synchronized (this) {
+                    waiters.remove(waiter);
+                }
+            }
+        }
+
+        TenantBulkheadFullException reject(String reason) {
+            rejections.increment();
+            return new TenantBulkheadFullException(tenantId, reason);
+        }
+
+        synchronized int queueDepth() {
+            return waiters.size();
+        }
+
+        synchronized int activeCalls() {
+            return active;
+        }
+    }
+
+    private record Waiter(MonoSink<Permit> sink, long enqueuedAt, AtomicBoolean claimed) {
+        Waiter(MonoSink<Permit> sink, long enqueuedAt) {
+            this(sink, enqueuedAt, new AtomicBoolean());
+        }
+    }
+}
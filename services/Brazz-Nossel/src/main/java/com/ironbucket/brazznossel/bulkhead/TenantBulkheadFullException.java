@@ -0,0 +1,22 @@
+package com.ironbucket.brazznossel.bulkhead;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Raised when a tenant's bulkhead lane cannot take another backend call.
+ * Maps to 503 so S3 clients back off and retry.
+ */
+public class TenantBulkheadFullException extends ResponseStatusException {
+
+    private final String tenantId;
+
+    public TenantBulkheadFullException(String tenantId, String reason) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, "Backend capacity exhausted for tenant " + tenantId + ": " + reason);
+        this.tenantId = tenantId;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+}
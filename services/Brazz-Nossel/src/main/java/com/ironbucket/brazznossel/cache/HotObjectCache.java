@@ -0,0 +1,522 @@
+package com.ironbucket.brazznossel.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.ironbucket.brazznossel.checksum.ChecksumAlgorithm;
+import com.ironbucket.brazznossel.model.StreamedObject;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HotObjectCache - Read-through cache of object bodies outside the Java heap.
+ *
+ * Objects up to memory-max-object-size are kept in off-heap memory segments;
+ * objects up to disk-max-object-size in memory-mapped files under disk-dir.
+ * Each tier has a byte capacity, and within a tier every tenant gets its own
+ * Caffeine cache bounded to tenant-share of that capacity, so eviction and
+ * W-TinyLFU admission work per tenant and one tenant's traffic cannot push
+ * another tenant's hot objects out. When the shares of a few tenants fill the
+ * tier, a new entry makes room by evicting the coldest entries of the tenants
+ * holding more than an even split of the tier, so every tenant can still get
+ * its objects cached.
+ *
+ * An entry is served only while its ETag matches the object's current ETag,
+ * which callers take from the metadata cache; writes through the proxy
+ * invalidate the entry directly. Entries are filled from the first GET that
+ * misses, as its body streams to the client. Ranges are served from cached
+ * entries but never fill them. The disk tier is rebuilt from empty on startup.
+ *
+ * Memory and files are freed once an entry has been evicted and the last
+ * response reading from it has finished.
+ */
+@Component
+public class HotObjectCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(HotObjectCache.class);
+
+    // Size of the response buffers a cached body is copied into
+    private static final int READ_CHUNK_SIZE = 64 * 1024;
+
+    private final boolean enabled;
+    private final Tier memory;
+    private final Tier disk;
+    private final Set<EntryKey> filling = ConcurrentHashMap.newKeySet();
+    private final Counter hits;
+    private final Counter misses;
+
+    @Autowired
+    public HotObjectCache(
+            @Value("${app.s3.hot-cache.enabled:false}") boolean enabled,
+            @Value("${app.s3.hot-cache.memory-capacity:256MB}") DataSize memoryCapacity,
+            @Value("${app.s3.hot-cache.memory-max-object-size:1MB}") DataSize memoryMaxObjectSize,
+            @Value("${app.s3.hot-cache.disk-dir:}") String diskDirectory,
+            @Value("${app.s3.hot-cache.disk-capacity:10GB}") DataSize diskCapacity,
+            @Value("${app.s3.hot-cache.disk-max-object-size:256MB}") DataSize diskMaxObjectSize,
+            @Value("${app.s3.hot-cache.tenant-share:0.5}") double tenantShare,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        double share = Math.min(Math.max(tenantShare, 0.0), 1.0);
+        this.memory = new Tier("memory", null, memoryCapacity.toBytes(), 1, memoryMaxObjectSize.toBytes(), share, meterRegistry);
+        Path directory = diskDirectory == null || diskDirectory.isBlank() ? null : Path.of(diskDirectory);
+        this.disk = enabled && directory != null
+                ? new Tier("disk", directory, diskCapacity.toBytes(), memoryMaxObjectSize.toBytes() + 1,
+                        diskMaxObjectSize.toBytes(), share, meterRegistry)
+                : null;
+        this.hits = counter(meterRegistry, "hit");
+        this.misses = counter(meterRegistry, "miss");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The cached object if it is held with the given ETag, or null.
+     * The returned body must be subscribed, since it holds the entry until it ends.
+     */
+    public StreamedObject get(String tenantId, String bucket, String key, String eTag, DataBufferFactory bufferFactory) {
+        Entry entry = acquire(tenantId, bucket, key, eTag);
+        if (entry == null) {
+            return null;
+        }
+        Flux<DataBuffer> body = read(entry, 0, entry.size() - 1, bufferFactory).doFinally(signal -> entry.release());
+        return new StreamedObject(entry.size(), entry.contentType(), entry.eTag(), body, entry.checksums());
+    }
+
+    /**
+     * The inclusive byte range of the cached object if it is held with the given ETag, or null.
+     * A range that does not start inside the object is left to the backend to reject.
+     */
+    public byte[] getRange(String tenantId, String bucket, String key, String eTag, long start, long end) {
+        Entry entry = acquire(tenantId, bucket, key, eTag);
+        if (entry == null) {
+            return null;
+        }
+        try {
+            if (start < 0 || start >= entry.size() || end < start) {
+                return null;
+            }
+            long last = Math.min(end, entry.size() - 1);
+            return entry.bytes().asSlice(start, last - start + 1).toArray(ValueLayout.JAVA_BYTE);
+        } finally {
+            entry.release();
+        }
+    }
+
+    /**
+     * Like {@link #getRange}, but streams the range in response-sized buffers.
+     * The returned body must be subscribed, since it holds the entry until it ends.
+     */
+    public StreamedObject getRangeStream(
+            String tenantId, String bucket, String key, String eTag, long start, long end, DataBufferFactory bufferFactory) {
+        Entry entry = acquire(tenantId, bucket, key, eTag);
+        if (entry == null) {
+            return null;
+        }
+        if (start < 0 || start >= entry.size() || end < start) {
+            entry.release();
+            return null;
+        }
+        long last = Math.min(end, entry.size() - 1);
+        Flux<DataBuffer> body = read(entry, start, last, bufferFactory).doFinally(signal -> entry.release());
+        // The stored checksums cover the whole object, not the range
+        return new StreamedObject(last - start + 1, entry.contentType(), entry.eTag(), body);
+    }
+
+    /**
+     * Cache the object as its body streams by. The entry only becomes
+     * visible once the whole body has been seen; a failed or cancelled
+     * stream leaves nothing behind, and a body that is never subscribed
+     * takes no space at all.
+     */
+    public StreamedObject fill(String tenantId, String bucket, String key, StreamedObject object) {
+        Tier tier = tierFor(object.contentLength());
+        if (tier == null || object.eTag() == null) {
+            return object;
+        }
+        EntryKey entryKey = new EntryKey(tenantId, bucket, key);
+        Flux<DataBuffer> body = Flux.defer(() -> {
+            if (!filling.add(entryKey)) {
+                // Another response is filling it already
+                return object.body();
+            }
+            Entry entry = tier.allocate(tenantId, object.contentLength(), object.eTag(), object.contentType(), object.checksums());
+            if (entry == null) {
+                filling.remove(entryKey);
+                return object.body();
+            }
+            AtomicLong written = new AtomicLong();
+            return object.body()
+                    .doOnNext(buffer -> written.set(copy(buffer, entry, written.get())))
+                    .doOnComplete(() -> {
+                        if (written.get() == entry.size()) {
+                            tier.put(tenantId, new ObjectKey(bucket, key), entry);
+                        } else {
+                            entry.release();
+                        }
+                    })
+                    .doOnError(error -> entry.release())
+                    .doOnCancel(entry::release)
+                    .doFinally(signal -> filling.remove(entryKey));
+        });
+        return object.withBody(body);
+    }
+
+    /**
+     * Drop the object from every tier after it has changed.
+     */
+    public void invalidate(String tenantId, String bucket, String key) {
+        if (!enabled) {
+            return;
+        }
+        ObjectKey objectKey = new ObjectKey(bucket, key);
+        memory.invalidate(tenantId, objectKey);
+        if (disk != null) {
+            disk.invalidate(tenantId, objectKey);
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        memory.clear();
+        if (disk != null) {
+            disk.clear();
+        }
+    }
+
+    private Entry acquire(String tenantId, String bucket, String key, String eTag) {
+        if (!enabled || eTag == null) {
+            return null;
+        }
+        ObjectKey objectKey = new ObjectKey(bucket, key);
+        Entry entry = memory.lookup(tenantId, objectKey, eTag);
+        if (entry == null && disk != null) {
+            entry = disk.lookup(tenantId, objectKey, eTag);
+        }
+        (entry == null ? misses : hits).increment();
+        return entry;
+    }
+
+    private Tier tierFor(long contentLength) {
+        if (!enabled || contentLength <= 0) {
+            return null;
+        }
+        if (memory.accepts(contentLength)) {
+            return memory;
+        }
+        return disk != null && disk.accepts(contentLength) ? disk : null;
+    }
+
+    /**
+     * Copy the buffer's readable bytes into the entry at the given offset
+     * without moving the buffer's read position.
+     *
+     * @return The offset after the copied bytes, or past the end when the body is longer than announced
+     */
+    private static long copy(DataBuffer buffer, Entry entry, long offset) {
+        long position = offset;
+        try (DataBuffer.ByteBufferIterator views = buffer.readableByteBuffers()) {
+            while (views.hasNext()) {
+                ByteBuffer view = views.next();
+                int length = view.remaining();
+                if (position + length > entry.size()) {
+                    return entry.size() + 1;
+                }
+                MemorySegment.copy(MemorySegment.ofBuffer(view), 0, entry.bytes(), position, length);
+                position += length;
+            }
+        }
+        return position;
+    }
+
+    private static Flux<DataBuffer> read(Entry entry, long start, long end, DataBufferFactory bufferFactory) {
+        return Flux.generate(() -> start, (offset, sink) -> {
+            if (offset > end) {
+                sink.complete();
+                return offset;
+            }
+            int length = (int) Math.min(READ_CHUNK_SIZE, end - offset + 1);
+            DataBuffer buffer = bufferFactory.allocateBuffer(length);
+            buffer.write(entry.bytes().asSlice(offset, length).asByteBuffer());
+            sink.next(buffer);
+            return offset + length;
+        });
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("ironbucket.s3.hot-cache.requests")
+                .description("Object reads looked up in the hot object cache")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * One storage tier: byte budget, per-tenant caches and the allocator for entries.
+     */
+    private static final class Tier {
+
+        private final String name;
+        private final Path directory;
+        private final long capacity;
+        private final long minObjectSize;
+        private final long maxObjectSize;
+        private final long tenantCapacity;
+        private final AtomicLong used = new AtomicLong();
+        private final Map<String, Cache<ObjectKey, Entry>> tenants = new ConcurrentHashMap<>();
+        private final Counter evictions;
+        private final Counter rejected;
+
+        Tier(String name, Path directory, long capacity, long minObjectSize, long maxObjectSize, double tenantShare,
+                MeterRegistry meterRegistry) {
+            this.name = name;
+            this.directory = directory;
+            this.capacity = capacity;
+            this.minObjectSize = minObjectSize;
+            this.maxObjectSize = Math.min(maxObjectSize, capacity);
+            this.tenantCapacity = (long) (capacity * tenantShare);
+            if (directory != null) {
+                clearDirectory();
+            }
+            this.evictions = Counter.builder("ironbucket.s3.hot-cache.evictions")
+                    .description("Entries evicted from the hot object cache")
+                    .tag("tier", name)
+                    .register(meterRegistry);
+            this.rejected = Counter.builder("ironbucket.s3.hot-cache.rejected")
+                    .description("Objects not cached because the tier was full")
+                    .tag("tier", name)
+                    .register(meterRegistry);
+            Gauge.builder("ironbucket.s3.hot-cache.bytes", used, AtomicLong::get)
+                    .description("Bytes held by the hot object cache, including entries still being read after eviction")
+                    .tag("tier", name)
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+        }
+
+        boolean accepts(long contentLength) {
+            return contentLength >= minObjectSize && contentLength <= maxObjectSize && contentLength <= tenantCapacity;
+        }
+
+        Entry lookup(String tenantId, ObjectKey objectKey, String eTag) {
+            Cache<ObjectKey, Entry> cache = tenants.get(tenantId);
+            Entry entry = cache == null ? null : cache.getIfPresent(objectKey);
+            if (entry == null) {
+                return null;
+            }
+            if (!entry.eTag().equals(eTag)) {
+                // Changed behind the proxy's back
+                cache.asMap().remove(objectKey, entry);
+                return null;
+            }
+            return entry.acquire() ? entry : null;
+        }
+
+        Entry allocate(String tenantId, long size, String eTag, String contentType, Map<ChecksumAlgorithm, String> checksums) {
+            if (!reserve(tenantId, size)) {
+                rejected.increment();
+                return null;
+            }
+            Arena arena = Arena.ofShared();
+            try {
+                if (directory == null) {
+                    return new Entry(this, arena, arena.allocate(size), null, eTag, contentType, checksums);
+                }
+                Path file = directory.resolve(UUID.randomUUID() + ".obj");
+                try (FileChannel channel = FileChannel.open(file,
+                        StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    // The mapping outlives the channel and is unmapped when the arena closes
+                    MemorySegment mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, size, arena);
+                    return new Entry(this, arena, mapped, file, eTag, contentType, checksums);
+                }
+            } catch (IOException | RuntimeException e) {
+                arena.close();
+                used.addAndGet(-size);
+                logger.warn("Cannot allocate {} bytes in the {} hot cache tier: {}", size, name, e.getMessage());
+                return null;
+            }
+        }
+
+        private boolean reserve(String tenantId, long size) {
+            if (used.addAndGet(size) <= capacity) {
+                return true;
+            }
+            used.addAndGet(-size);
+            reclaim(tenantId, size);
+            if (used.addAndGet(size) <= capacity) {
+                return true;
+            }
+            // Evicted entries still being read give their bytes back only when the reads finish
+            used.addAndGet(-size);
+            return false;
+        }
+
+        /**
+         * Evict the coldest entries of the tenants holding more than an even
+         * split of the tier between its tenants and the one allocating, the
+         * largest holder first, until the allocation fits.
+         */
+        private void reclaim(String tenantId, long size) {
+            int sharers = tenants.containsKey(tenantId) ? tenants.size() : tenants.size() + 1;
+            long evenShare = capacity / sharers;
+            long needed = used.get() + size - capacity;
+            while (needed > 0) {
+                Cache<ObjectKey, Entry> victim = null;
+                long held = evenShare;
+                for (Cache<ObjectKey, Entry> cache : tenants.values()) {
+                    long weight = cache.policy().eviction()
+                            .map(eviction -> eviction.weightedSize().orElse(0L))
+                            .orElse(0L);
+                    if (weight > held) {
+                        victim = cache;
+                        held = weight;
+                    }
+                }
+                if (victim == null) {
+                    return;
+                }
+                Map<ObjectKey, Entry> coldest = victim.policy().eviction()
+                        .map(eviction -> eviction.coldest(1))
+                        .orElse(Map.of());
+                if (coldest.isEmpty()) {
+                    return;
+                }
+                for (Map.Entry<ObjectKey, Entry> cold : coldest.entrySet()) {
+                    if (victim.asMap().remove(cold.getKey(), cold.getValue())) {
+                        evictions.increment();
+                        needed -= cold.getValue().size();
+                    }
+                }
+            }
+        }
+
+        void put(String tenantId, ObjectKey objectKey, Entry entry) {
+            tenants.computeIfAbsent(tenantId, ignored -> Caffeine.newBuilder()
+                            .maximumWeight(tenantCapacity)
+                            .weigher((ObjectKey k, Entry e) -> (int) Math.min(e.size(), Integer.MAX_VALUE))
+                            .removalListener((ObjectKey k, Entry e, RemovalCause cause) -> {
+                                if (e != null) {
+                                    if (cause.wasEvicted()) {
+                                        evictions.increment();
+                                    }
+                                    e.release();
+                                }
+                            })
+                            .executor(Runnable::run)
+                            .build())
+                    .put(objectKey, entry);
+        }
+
+        void invalidate(String tenantId, ObjectKey objectKey) {
+            Cache<ObjectKey, Entry> cache = tenants.get(tenantId);
+            if (cache != null) {
+                cache.invalidate(objectKey);
+            }
+        }
+
+        void clear() {
+            tenants.values().forEach(Cache::invalidateAll);
+            tenants.clear();
+        }
+
+        private void clearDirectory() {
+            try {
+                Files.createDirectories(directory);
+                try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(directory, "*.obj")) {
+                    for (Path leftover : leftovers) {
+                        Files.deleteIfExists(leftover);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot prepare hot cache directory " + directory, e);
+            }
+        }
+
+        void free(Entry entry) {
+            entry.arena().close();
+            used.addAndGet(-entry.size());
+            if (entry.file() != null) {
+                try {
+                    Files.deleteIfExists(entry.file());
+                } catch (IOException e) {
+                    logger.warn("Failed to delete hot cache file {}: {}", entry.file(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Cached bytes with a reference count: one reference for the cache, one per
+     * response reading from it. The storage is freed when the count drops to zero.
+     */
+    private record Entry(
+            Tier tier,
+            Arena arena,
+            MemorySegment bytes,
+            Path file,
+            String eTag,
+            String contentType,
+            Map<ChecksumAlgorithm, String> checksums,
+            AtomicInteger references) {
+
+        Entry(Tier tier, Arena arena, MemorySegment bytes, Path file, String eTag, String contentType,
+                Map<ChecksumAlgorithm, String> checksums) {
+            this(tier, arena, bytes, file, eTag, contentType, checksums, new AtomicInteger(1));
+        }
+
+        long size() {
+            return bytes.byteSize();
+        }
+
+        boolean acquire() {
+            int current;
+            do {
+                current = references.get();
+                if (current == 0) {
+                    return false;
+                }
+            } while (!references.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        void release() {
+            if (references.decrementAndGet() == 0) {
+                tier.free(this);
+            }
+        }
+    }
+
+    private record ObjectKey(String bucket, String key) {
+    }
+
+    private record EntryKey(String tenantId, String bucket, String key) {
+    }
+}
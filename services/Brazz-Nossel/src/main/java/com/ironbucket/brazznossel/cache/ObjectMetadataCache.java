@@ -0,0 +1,139 @@
+package com.ironbucket.brazznossel.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * ObjectMetadataCache - Read-through cache for object and bucket metadata.
+ *
+ * Holds HEAD results, tags, ACLs and bucket versioning status in the
+ * "s3-metadata" cache, keyed by tenant, bucket, key and version id. Writes
+ * made through this proxy evict the affected entries; the cache TTL bounds
+ * how long a change by an external writer can go unnoticed.
+ *
+ * A load that started before an invalidation must not write its result back
+ * afterwards. Every invalidation bumps a generation counter for the object
+ * (striped, so the counters take fixed memory), and a load only keeps its
+ * result when the generation it started under is still current.
+ */
+@Component
+public class ObjectMetadataCache {
+
+    public static final String CACHE_NAME = "s3-metadata";
+
+    public enum Kind {
+        HEAD,
+        TAGGING,
+        ACL,
+        BUCKET_VERSIONING
+    }
+
+    private static final Kind[] OBJECT_KINDS = {Kind.HEAD, Kind.TAGGING, Kind.ACL};
+    private static final int GENERATION_STRIPES = 4096;
+
+    private final Cache cache;
+    private final Map<Kind, Counter> hits = new EnumMap<>(Kind.class);
+    private final Map<Kind, Counter> misses = new EnumMap<>(Kind.class);
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    @Autowired
+    public ObjectMetadataCache(CacheManager cacheManager, MeterRegistry meterRegistry) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null) {
+            throw new IllegalStateException("Cache '" + CACHE_NAME + "' is not configured");
+        }
+        this.cache = cache;
+        for (Kind kind : Kind.values()) {
+            hits.put(kind, counter(meterRegistry, kind, "hit"));
+            misses.put(kind, counter(meterRegistry, kind, "miss"));
+        }
+    }
+
+    /**
+     * Return the cached value, or load and cache it on a miss.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> get(Kind kind, String tenantId, String bucket, String key, String versionId,
+            Supplier<Mono<T>> loader) {
+        MetadataKey cacheKey = new MetadataKey(kind, tenantId, bucket, key, versionId);
+        return Mono.defer(() -> {
+            // Each kind always stores the same value type, so the cast is safe
+            Cache.ValueWrapper cached = cache.get(cacheKey);
+            if (cached != null && cached.get() != null) {
+                hits.get(kind).increment();
+                return Mono.just((T) cached.get());
+            }
+            misses.get(kind).increment();
+            int stripe = stripe(tenantId, bucket, key);
+            long generation = generations.get(stripe);
+            return loader.get().doOnNext(value -> {
+                if (generations.get(stripe) != generation) {
+                    return;
+                }
+                cache.put(cacheKey, value);
+                // An invalidation between the check and the put bumps the generation
+                // before it evicts, so one of the two removes the stale value
+                if (generations.get(stripe) != generation) {
+                    cache.evict(cacheKey);
+                }
+            });
+        });
+    }
+
+    /**
+     * Return the cached value without loading it on a miss.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T peek(Kind kind, String tenantId, String bucket, String key) {
+        Cache.ValueWrapper cached = cache.get(new MetadataKey(kind, tenantId, bucket, key, null));
+        return cached == null ? null : (T) cached.get();
+    }
+
+    /**
+     * Evict every cached view of the object: the latest version and, when given, the specific version.
+     */
+    public void invalidateObject(String tenantId, String bucket, String key, String versionId) {
+        generations.incrementAndGet(stripe(tenantId, bucket, key));
+        for (Kind kind : OBJECT_KINDS) {
+            cache.evict(new MetadataKey(kind, tenantId, bucket, key, null));
+            if (versionId != null) {
+                cache.evict(new MetadataKey(kind, tenantId, bucket, key, versionId));
+            }
+        }
+    }
+
+    public void invalidateObject(String tenantId, String bucket, String key) {
+        invalidateObject(tenantId, bucket, key, null);
+    }
+
+    public void invalidateBucket(String tenantId, String bucket) {
+        generations.incrementAndGet(stripe(tenantId, bucket, null));
+        cache.evict(new MetadataKey(Kind.BUCKET_VERSIONING, tenantId, bucket, null, null));
+    }
+
+    private static int stripe(String tenantId, String bucket, String key) {
+        return Math.floorMod(Objects.hash(tenantId, bucket, key), GENERATION_STRIPES);
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, Kind kind, String result) {
+        return Counter.builder("ironbucket.s3.metadata-cache.requests")
+                .description("Metadata lookups served by the s3-metadata cache")
+                .tag("kind", kind.name().toLowerCase())
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record MetadataKey(Kind kind, String tenantId, String bucket, String key, String versionId) {
+    }
+}
@@ -0,0 +1,184 @@
+package com.ironbucket.brazznossel.cache;
+
+import com.ironbucket.brazznossel.model.BucketSummary;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * TenantBucketIndex - Per-tenant bucket list held in the "tenant-buckets" cache.
+ *
+ * A listing only reaches the backend on a miss. Buckets created or deleted
+ * through this proxy update the cached entry in place, and a background
+ * refresh replaces all cached entries from a single backend listing to pick
+ * up changes made by other writers.
+ *
+ * Every change stamps the entry with a new generation. A refresh, or a load
+ * on a miss, only stores entries that have not changed since its listing
+ * started, so a bucket created or deleted during the listing is not undone by it.
+ */
+@Component
+public class TenantBucketIndex {
+
+    public static final String CACHE_NAME = "tenant-buckets";
+
+    private static final Comparator<BucketSummary> BY_NAME = Comparator.comparing(BucketSummary::name);
+
+    private final Cache cache;
+    private final Counter hits;
+    private final Counter misses;
+    private final Object updateLock = new Object();
+    private final AtomicLong generations = new AtomicLong();
+
+    @Autowired
+    public TenantBucketIndex(CacheManager cacheManager, MeterRegistry meterRegistry) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null) {
+            throw new IllegalStateException("Cache '" + CACHE_NAME + "' is not configured");
+        }
+        this.cache = cache;
+        this.hits = Counter.builder("ironbucket.s3.bucket-index.requests")
+                .description("Bucket listings served by the tenant bucket index")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("ironbucket.s3.bucket-index.requests")
+                .description("Bucket listings served by the tenant bucket index")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Return the tenant's buckets, loading them from the backend on a miss.
+     */
+    public Mono<List<BucketSummary>> get(String tenantId, Supplier<Mono<List<BucketSummary>>> loader) {
+        return Mono.defer(() -> {
+            TenantBuckets cached = cache.get(tenantId, TenantBuckets.class);
+            if (cached != null) {
+                hits.increment();
+                return Mono.just(cached.buckets());
+            }
+            misses.increment();
+            long listedAt = generation();
+            return loader.get().doOnNext(buckets -> {
+                synchronized (updateLock) {
+                    putIfUnchangedSince(tenantId, new ArrayList<>(buckets), listedAt);
+                }
+            });
+        });
+    }
+
+    public void onBucketCreated(String tenantId, String bucket, Instant creationDate) {
+        synchronized (updateLock) {
+            TenantBuckets cached = cache.get(tenantId, TenantBuckets.class);
+            if (cached == null) {
+                // A listing of this tenant may be loading; it must not be cached over the change
+                generations.incrementAndGet();
+                return;
+            }
+            List<BucketSummary> updated = new ArrayList<>(cached.buckets());
+            updated.removeIf(summary -> summary.name().equals(bucket));
+            updated.add(new BucketSummary(bucket, creationDate));
+            updated.sort(BY_NAME);
+            cache.put(tenantId, new TenantBuckets(List.copyOf(updated), generations.incrementAndGet()));
+        }
+    }
+
+    public void onBucketDeleted(String tenantId, String bucket) {
+        synchronized (updateLock) {
+            TenantBuckets cached = cache.get(tenantId, TenantBuckets.class);
+            if (cached == null) {
+                // A listing of this tenant may be loading; it must not be cached over the change
+                generations.incrementAndGet();
+                return;
+            }
+            List<BucketSummary> updated = cached.buckets().stream()
+                    .filter(summary -> !summary.name().equals(bucket))
+                    .toList();
+            cache.put(tenantId, new TenantBuckets(updated, generations.incrementAndGet()));
+        }
+    }
+
+    public void replace(String tenantId, List<BucketSummary> buckets) {
+        List<BucketSummary> sorted = buckets.stream().sorted(BY_NAME).toList();
+        synchronized (updateLock) {
+            cache.put(tenantId, new TenantBuckets(sorted, generations.incrementAndGet()));
+        }
+    }
+
+    /**
+     * The current generation; take it before starting the listing passed to {@link #refreshFrom}.
+     */
+    public long generation() {
+        return generations.get();
+    }
+
+    /**
+     * Rebuild every cached tenant entry from one full backend listing.
+     *
+     * @param allBuckets Every bucket on the backends
+     * @param listedAt The {@link #generation()} taken before the listing started;
+     *                 entries changed after it are left as they are
+     */
+    public void refreshFrom(Collection<BucketSummary> allBuckets, long listedAt) {
+        Map<String, List<BucketSummary>> byTenant = new HashMap<>();
+        cachedTenants().forEach(tenant -> byTenant.put(tenant, new ArrayList<>()));
+        for (BucketSummary bucket : allBuckets) {
+            // Tenant ids may contain dashes themselves, so any dash can end the tenant prefix
+            String name = bucket.name();
+            for (int dash = name.indexOf('-'); dash > 0; dash = name.indexOf('-', dash + 1)) {
+                List<BucketSummary> owned = byTenant.get(name.substring(0, dash));
+                if (owned != null) {
+                    owned.add(bucket);
+                }
+            }
+        }
+        synchronized (updateLock) {
+            byTenant.forEach((tenantId, buckets) -> putIfUnchangedSince(tenantId, buckets, listedAt));
+        }
+    }
+
+    /**
+     * Store a listing unless the entry changed after the listing started; callers hold the update lock.
+     * Without an entry there is nothing to compare with, so any change since then keeps the listing out.
+     */
+    private void putIfUnchangedSince(String tenantId, List<BucketSummary> buckets, long listedAt) {
+        TenantBuckets cached = cache.get(tenantId, TenantBuckets.class);
+        if (cached == null ? generations.get() == listedAt : cached.generation() <= listedAt) {
+            buckets.sort(BY_NAME);
+            cache.put(tenantId, new TenantBuckets(List.copyOf(buckets), listedAt));
+        }
+    }
+
+    public Set<String> cachedTenants() {
+        Object nativeCache = cache.getNativeCache();
+        Set<?> keys;
+        if (nativeCache instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeineCache) {
+            keys = caffeineCache.asMap().keySet();
+        } else if (nativeCache instanceof ConcurrentMap<?, ?> map) {
+            keys = map.keySet();
+        } else {
+            return Set.of();
+        }
+        return keys.stream().map(String::valueOf).collect(Collectors.toUnmodifiableSet());
+    }
+
+    private record TenantBuckets(List<BucketSummary> buckets, long generation) {
+    }
+}
@@ -0,0 +1,103 @@
+package com.ironbucket.brazznossel.checksum;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
+import java.util.zip.Checksum;
+
+/**
+ * ChecksumAlgorithm - Object checksums the proxy computes while bytes stream through.
+ *
+ * Values are exchanged base64 encoded, as in the S3 checksum headers.
+ * CRC32 and CRC32C use {@link CRC32} and {@link CRC32C}, which the JIT
+ * compiles to the CPU's CRC instructions where available.
+ */
+public enum ChecksumAlgorithm {
+
+    CRC32("x-amz-checksum-crc32", "checksum-crc32", 4),
+    CRC32C("x-amz-checksum-crc32c", "checksum-crc32c", 4),
+    SHA256("x-amz-checksum-sha256", "checksum-sha256", 32),
+    MD5("Content-MD5", null, 16);
+
+    private final String headerName;
+    private final String metadataKey;
+    private final int length;
+
+    ChecksumAlgorithm(String headerName, String metadataKey, int length) {
+        this.headerName = headerName;
+        this.metadataKey = metadataKey;
+        this.length = length;
+    }
+
+    public String headerName() {
+        return headerName;
+    }
+
+    /**
+     * User metadata key the value is stored under, or null when it is not stored.
+     */
+    public String metadataKey() {
+        return metadataKey;
+    }
+
+    /**
+     * Whether the value has the size of a digest of this algorithm.
+     */
+    public boolean isWellFormed(String value) {
+        try {
+            return value != null && Base64.getDecoder().decode(value).length == length;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    public Digest newDigest() {
+        if (this == CRC32 || this == CRC32C) {
+            Checksum crc = this == CRC32 ? new CRC32() : new CRC32C();
+            return new Digest() {
+                @Override
+                public void update(ByteBuffer bytes) {
+                    crc.update(bytes);
+                }
+
+                @Override
+                public String value() {
+                    return Base64.getEncoder().encodeToString(ByteBuffer.allocate(4).putInt((int) crc.getValue()).array());
+                }
+            };
+        }
+        MessageDigest digest = messageDigest(this == SHA256 ? "SHA-256" : "MD5");
+        return new Digest() {
+            @Override
+            public void update(ByteBuffer bytes) {
+                digest.update(bytes);
+            }
+
+            @Override
+            public String value() {
+                return Base64.getEncoder().encodeToString(digest.digest());
+            }
+        };
+    }
+
+    private static MessageDigest messageDigest(String name) {
+        try {
+            return MessageDigest.getInstance(name);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(name + " is not available", e);
+        }
+    }
+
+    /**
+     * Running checksum over a stream; not thread-safe, fed by one stream in order.
+     */
+    public interface Digest {
+
+        void update(ByteBuffer bytes);
+
+        String value();
+    }
+}
@@ -0,0 +1,22 @@
+package com.ironbucket.brazznossel.checksum;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Raised when streamed bytes do not match the checksum they were sent or stored with.
+ * Maps to 400, as S3 does with its BadDigest error.
+ */
+public class ChecksumMismatchException extends ResponseStatusException {
+
+    private final ChecksumAlgorithm algorithm;
+
+    public ChecksumMismatchException(ChecksumAlgorithm algorithm, String expected, String actual) {
+        super(HttpStatus.BAD_REQUEST, "BadDigest: " + algorithm + " was " + actual + ", expected " + expected);
+        this.algorithm = algorithm;
+    }
+
+    public ChecksumAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+}
@@ -1,11 +1,147 @@
 package com.ironbucket.brazznossel.checksum;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * ChecksumTranslator - Maps object checksums between HTTP headers and stored metadata.
+ *
+ * Clients send x-amz-checksum-crc32, x-amz-checksum-crc32c,
+ * x-amz-checksum-sha256 or Content-MD5; CRC32, CRC32C and SHA-256 values are
+ * kept as user metadata on the object so they
+ * can be returned and verified on later reads. Content-MD5 only guards the
+ * upload and is not stored.
+ */
 public class ChecksumTranslator {
 
-    public String translateChecksum(String value, String digestAlgorithm) {
+    private ChecksumTranslator() {
+    }
+
+    public static String translateChecksum(String value, String digestAlgorithm) {
         if (value == null || digestAlgorithm == null) {
             return "";
         }
-        return digestAlgorithm.toLowerCase() + ":" + value;
+        return digestAlgorithm.toLowerCase(Locale.ROOT) + ":" + value;
+    }
+
+    /**
+     * Checksums supplied with a request. A malformed value is rejected rather
+     * than ignored, so the client never believes an unverified upload was checked.
+     */
+    public static Map<ChecksumAlgorithm, String> fromHeaders(HttpHeaders headers) {
+        Map<ChecksumAlgorithm, String> checksums = new EnumMap<>(ChecksumAlgorithm.class);
+        for (ChecksumAlgorithm algorithm : ChecksumAlgorithm.values()) {
+            String value = headers.getFirst(algorithm.headerName());
+            if (value == null) {
+                continue;
+            }
+            if (!algorithm.isWellFormed(value.trim())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "InvalidDigest: malformed " + algorithm.headerName());
+            }
+            checksums.put(algorithm, value.trim());
+        }
+        return checksums;
+    }
+
+    /**
+     * User metadata entries for the checksums that are stored with an object.
+     */
+    public static Map<String, String> toMetadata(Map<ChecksumAlgorithm, String> checksums) {
+        Map<String, String> metadata = new LinkedHashMap<>();
+        checksums.forEach((algorithm, value) -> {
+            if (algorithm.metadataKey() != null) {
+                metadata.put(algorithm.metadataKey(), value);
+            }
+        });
+        return metadata;
+    }
+
+    /**
+     * Sends the checksums with a backend PutObject, so the backend itself
+     * refuses a body that does not match them.
+     */
+    public static PutObjectRequest.Builder applyTo(PutObjectRequest.Builder request, Map<ChecksumAlgorithm, String> checksums) {
+        checksums.forEach((algorithm, value) -> {
+            switch (algorithm) {
+                case CRC32 -> request.checksumCRC32(value);
+                case CRC32C -> request.checksumCRC32C(value);
+                case SHA256 -> request.checksumSHA256(value);
+                case MD5 -> request.contentMD5(value);
+            }
+        });
+        return request;
+    }
+
+    /**
+     * Sends the checksums with a backend UploadPart, as for PutObject.
+     */
+    public static UploadPartRequest.Builder applyTo(UploadPartRequest.Builder request, Map<ChecksumAlgorithm, String> checksums) {
+        checksums.forEach((algorithm, value) -> {
+            switch (algorithm) {
+                case CRC32 -> request.checksumCRC32(value);
+                case CRC32C -> request.checksumCRC32C(value);
+                case SHA256 -> request.checksumSHA256(value);
+                case MD5 -> request.contentMD5(value);
+            }
+        });
+        return request;
+    }
+
+    /**
+     * Asks the SDK to compute {@code trailing} over the body and send it as a
+     * trailer of the backend PutObject. Used when the client sent its checksum
+     * in an aws-chunked trailer, which arrives after the backend request has
+     * started: the proxy has checked the client's value against the same bytes,
+     * so the backend stores and checks the same checksum. MD5 has no trailing
+     * form and is left to the proxy.
+     */
+    public static PutObjectRequest.Builder applyTrailing(PutObjectRequest.Builder request, ChecksumAlgorithm trailing) {
+        software.amazon.awssdk.services.s3.model.ChecksumAlgorithm sdk = sdkAlgorithm(trailing);
+        return sdk == null ? request : request.checksumAlgorithm(sdk);
+    }
+
+    /**
+     * Asks the SDK to send {@code trailing} with a backend UploadPart, as for PutObject.
+     */
+    public static UploadPartRequest.Builder applyTrailing(UploadPartRequest.Builder request, ChecksumAlgorithm trailing) {
+        software.amazon.awssdk.services.s3.model.ChecksumAlgorithm sdk = sdkAlgorithm(trailing);
+        return sdk == null ? request : request.checksumAlgorithm(sdk);
+    }
+
+    private static software.amazon.awssdk.services.s3.model.ChecksumAlgorithm sdkAlgorithm(ChecksumAlgorithm algorithm) {
+        if (algorithm == null) {
+            return null;
+        }
+        return switch (algorithm) {
+            case CRC32 -> software.amazon.awssdk.services.s3.model.ChecksumAlgorithm.CRC32;
+            case CRC32C -> software.amazon.awssdk.services.s3.model.ChecksumAlgorithm.CRC32_C;
+            case SHA256 -> software.amazon.awssdk.services.s3.model.ChecksumAlgorithm.SHA256;
+            case MD5 -> null;
+        };
+    }
+
+    /**
+     * Checksums stored with an object, read back from its user metadata.
+     */
+    public static Map<ChecksumAlgorithm, String> fromMetadata(Map<String, String> metadata) {
+        Map<ChecksumAlgorithm, String> checksums = new EnumMap<>(ChecksumAlgorithm.class);
+        if (metadata == null || metadata.isEmpty()) {
+            return checksums;
+        }
+        for (ChecksumAlgorithm algorithm : ChecksumAlgorithm.values()) {
+            String value = algorithm.metadataKey() == null ? null : metadata.get(algorithm.metadataKey());
+            if (algorithm.isWellFormed(value)) {
+                checksums.put(algorithm, value);
+            }
+        }
+        return checksums;
     }
 }
@@ -0,0 +1,122 @@
+package com.ironbucket.brazznossel.checksum;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * StreamingChecksumVerifier - Checks a body against expected checksums as it streams.
+ *
+ * Each buffer is fed to the digests through read-only views of its readable
+ * bytes, so the buffer itself is passed on untouched and nothing is copied or
+ * read twice. When the body ends, the digests are compared with the expected
+ * values. The last buffer is held back until then, so on a mismatch the
+ * stream ends with {@link ChecksumMismatchException} before its final bytes:
+ * an upload framed by Content-Length never reaches its declared length and
+ * is not stored, and a download never hands the client a complete body.
+ *
+ * Publishes verified and mismatched streams per direction.
+ */
+@Component
+public class StreamingChecksumVerifier {
+
+    public enum Direction {
+        UPLOAD,
+        DOWNLOAD
+    }
+
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public StreamingChecksumVerifier(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public Flux<DataBuffer> verify(Flux<DataBuffer> body, Map<ChecksumAlgorithm, String> expected, Direction direction) {
+        if (expected.isEmpty()) {
+            return body;
+        }
+        // Fresh digests per subscription, so a retried upload starts from zero
+        return Flux.defer(() -> {
+            Map<ChecksumAlgorithm, ChecksumAlgorithm.Digest> digests = new EnumMap<>(ChecksumAlgorithm.class);
+            expected.keySet().forEach(algorithm -> digests.put(algorithm, algorithm.newDigest()));
+            return holdLastUntil(body.doOnNext(buffer -> update(digests, buffer)), () -> {
+                for (Map.Entry<ChecksumAlgorithm, ChecksumAlgorithm.Digest> digest : digests.entrySet()) {
+                    String actual = digest.getValue().value();
+                    String wanted = expected.get(digest.getKey());
+                    if (!actual.equals(wanted)) {
+                        count(direction, "mismatch");
+                        throw new ChecksumMismatchException(digest.getKey(), wanted, actual);
+                    }
+                }
+                count(direction, "verified");
+            });
+        });
+    }
+
+    /**
+     * Passes each buffer on only once the next one has arrived, and the last one
+     * only after {@code check} returns when the body completes. A check that
+     * throws fails the stream with its exception and the last buffer is released
+     * unseen, so a receiver framed by a declared length never gets a complete body.
+     */
+    public static Flux<DataBuffer> holdLastUntil(Flux<DataBuffer> body, Runnable check) {
+        return Flux.defer(() -> {
+            DataBuffer[] held = new DataBuffer[1];
+            return body
+                    .<DataBuffer>handle((buffer, sink) -> {
+                        DataBuffer previous = held[0];
+                        held[0] = buffer;
+                        if (previous != null) {
+                            sink.next(previous);
+                        }
+                    })
+                    .concatWith(Mono.defer(() -> {
+                        DataBuffer last = held[0];
+                        held[0] = null;
+                        try {
+                            check.run();
+                        } catch (RuntimeException e) {
+                            if (last != null) {
+                                DataBufferUtils.release(last);
+                            }
+                            return Mono.error(e);
+                        }
+                        return Mono.justOrEmpty(last);
+                    }))
+                    .doFinally(signal -> {
+                        // Cancelled or failed before the check
+                        if (held[0] != null) {
+                            DataBufferUtils.release(held[0]);
+                            held[0] = null;
+                        }
+                    });
+        });
+    }
+
+    private static void update(Map<ChecksumAlgorithm, ChecksumAlgorithm.Digest> digests, DataBuffer buffer) {
+        try (DataBuffer.ByteBufferIterator views = buffer.readableByteBuffers()) {
+            while (views.hasNext()) {
+                ByteBuffer view = views.next();
+                for (ChecksumAlgorithm.Digest digest : digests.values()) {
+                    // Each digest advances the view's position, so every digest gets its own
+                    digest.update(view.duplicate());
+                }
+            }
+        }
+    }
+
+    private void count(Direction direction, String result) {
+        meterRegistry.counter("ironbucket.s3.checksum.streams",
+                "direction", direction.name().toLowerCase(),
+                "result", result).increment();
+    }
+}
@@ -0,0 +1,251 @@
+package com.ironbucket.brazznossel.coalesce;
+
+import com.ironbucket.brazznossel.model.StreamedObject;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * RequestCoalescer - Shares one backend fetch between concurrent identical reads.
+ *
+ * The first GET or HEAD of a tenant/bucket/key starts a flight; requests for
+ * the same object that arrive while it is in the air wait for it instead of
+ * going to the backend themselves. A flight is forgotten as soon as it ends,
+ * so nothing is served after the backend call has finished; writes through
+ * the proxy forget it immediately.
+ *
+ * A GET body is only shared when another request joined the flight before
+ * the backend answered. Otherwise the first request streams the backend body
+ * straight through, at its client's pace and without copying, and the flight
+ * ends there. A shared body is copied once into heap chunks and replayed to
+ * every subscriber, each at its own pace, so a slow client does not hold back
+ * the others. Only objects up to max-object-size are shared, which bounds the
+ * replay buffer per flight; requests that cannot share fetch on their own.
+ *
+ * Publishes requests per operation and result (leader, joined, bypassed);
+ * joined over all requests is the coalescing ratio.
+ */
+@Component
+public class RequestCoalescer {
+
+    public enum Operation {
+        GET,
+        HEAD
+    }
+
+    private final boolean enabled;
+    private final long maxObjectSize;
+    private final Map<FlightKey, HeadFlight> heads = new ConcurrentHashMap<>();
+    private final Map<FlightKey, GetFlight> gets = new ConcurrentHashMap<>();
+    private final Counter getLeaders;
+    private final Counter getJoined;
+    private final Counter getBypassed;
+    private final Counter headLeaders;
+    private final Counter headJoined;
+
+    @Autowired
+    public RequestCoalescer(
+            @Value("${app.s3.coalescing.enabled:true}") boolean enabled,
+            @Value("${app.s3.coalescing.max-object-size:8MB}") DataSize maxObjectSize,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxObjectSize = maxObjectSize.toBytes();
+        this.getLeaders = counter(meterRegistry, Operation.GET, "leader");
+        this.getJoined = counter(meterRegistry, Operation.GET, "joined");
+        this.getBypassed = counter(meterRegistry, Operation.GET, "bypassed");
+        this.headLeaders = counter(meterRegistry, Operation.HEAD, "leader");
+        this.headJoined = counter(meterRegistry, Operation.HEAD, "joined");
+        Gauge.builder("ironbucket.s3.coalescing.in-flight", this, coalescer -> coalescer.gets.size() + coalescer.heads.size())
+                .description("Backend reads currently shared by concurrent requests")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run the HEAD, or join the identical one already running.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> head(String tenantId, String bucket, String key, Supplier<Mono<T>> loader) {
+        if (!enabled) {
+            return Mono.defer(loader);
+        }
+        return Mono.defer(() -> {
+            FlightKey flightKey = new FlightKey(tenantId, bucket, key);
+            HeadFlight started = new HeadFlight();
+            HeadFlight flight = heads.computeIfAbsent(flightKey, ignored -> {
+                started.result = Mono.defer(loader)
+                        .doFinally(signal -> heads.remove(flightKey, started))
+                        .cache();
+                return started;
+            });
+            (flight == started ? headLeaders : headJoined).increment();
+            // Only HEAD results are ever stored under a key, so the type matches
+            return (Mono<T>) flight.result;
+        });
+    }
+
+    /**
+     * Stream the object, or join the identical GET already running.
+     *
+     * @param bufferFactory Factory for the buffers handed to this subscriber
+     * @param loader Opens the backend stream; called once per flight
+     */
+    public Mono<StreamedObject> get(
+            String tenantId,
+            String bucket,
+            String key,
+            DataBufferFactory bufferFactory,
+            Supplier<Mono<StreamedObject>> loader) {
+        if (!enabled) {
+            return Mono.defer(loader);
+        }
+        return Mono.defer(() -> {
+            FlightKey flightKey = new FlightKey(tenantId, bucket, key);
+            GetFlight started = new GetFlight();
+            GetFlight flight = gets.computeIfAbsent(flightKey, ignored -> {
+                started.result = Mono.defer(loader)
+                        .map(object -> share(flightKey, started, object))
+                        .doOnError(error -> gets.remove(flightKey, started))
+                        .cache();
+                return started;
+            });
+            if (flight != started) {
+                getJoined.increment();
+                if (!flight.join()) {
+                    // The leader already took the backend stream for itself
+                    getBypassed.increment();
+                    return Mono.defer(loader);
+                }
+                return flight.result.flatMap(fetched -> {
+                    if (fetched.body() != null) {
+                        return Mono.just(fetched.copyFor(bufferFactory));
+                    }
+                    getBypassed.increment();
+                    return Mono.defer(loader);
+                });
+            }
+            getLeaders.increment();
+            return started.result
+                    .flatMap(fetched -> {
+                        if (fetched.body() != null) {
+                            return Mono.just(fetched.copyFor(bufferFactory));
+                        }
+                        return started.claimBody() ? Mono.just(fetched.object()) : Mono.empty();
+                    })
+                    // The cached fetch keeps running without us; an unshared body nobody reads must still be closed
+                    .doOnCancel(() -> started.result.subscribe(fetched -> {
+                        if (fetched.body() == null && started.claimBody()) {
+                            fetched.object().body().subscribe(DataBufferUtils::release).dispose();
+                        }
+                    }, error -> { }));
+        });
+    }
+
+    /**
+     * Stop sharing in-flight reads of an object that has just been changed.
+     */
+    public void forget(String tenantId, String bucket, String key) {
+        if (enabled) {
+            FlightKey flightKey = new FlightKey(tenantId, bucket, key);
+            heads.remove(flightKey);
+            gets.remove(flightKey);
+        }
+    }
+
+    private Fetched share(FlightKey flightKey, GetFlight flight, StreamedObject object) {
+        if (!flight.seal(object.contentLength() >= 0 && object.contentLength() <= maxObjectSize)) {
+            gets.remove(flightKey, flight);
+            return new Fetched(object, null);
+        }
+        // Connected right away so the backend stream is always drained and
+        // closed, whether or not the subscribers stay
+        Flux<byte[]> body = object.body()
+                .map(RequestCoalescer::copyAndRelease)
+                .doFinally(signal -> gets.remove(flightKey, flight))
+                .replay()
+                .autoConnect(0);
+        return new Fetched(object, body);
+    }
+
+    private static byte[] copyAndRelease(DataBuffer buffer) {
+        try {
+            byte[] bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+            return bytes;
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, Operation operation, String result) {
+        return Counter.builder("ironbucket.s3.coalescing.requests")
+                .description("Object reads by whether they started, joined or could not join a shared backend fetch")
+                .tag("operation", operation.name().toLowerCase())
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record FlightKey(String tenantId, String bucket, String key) {
+    }
+
+    private static final class HeadFlight {
+        Mono<?> result;
+    }
+
+    private static final class GetFlight {
+        Mono<Fetched> result;
+        private final AtomicBoolean bodyClaimed = new AtomicBoolean();
+        private int joiners;
+        private Boolean shared;
+
+        /**
+         * Count a request that wants the body; false once the backend has
+         * answered and the body was left to the leader.
+         */
+        synchronized boolean join() {
+            if (Boolean.FALSE.equals(shared)) {
+                return false;
+            }
+            joiners++;
+            return true;
+        }
+
+        /**
+         * Decide, once the backend has answered, whether the body is shared.
+         */
+        synchronized boolean seal(boolean shareable) {
+            shared = shareable && joiners > 0;
+            return shared;
+        }
+
+        boolean claimBody() {
+            return bodyClaimed.compareAndSet(false, true);
+        }
+    }
+
+    /**
+     * @param body Shared chunks of the object, or null when it is too large to share
+     */
+    private record Fetched(StreamedObject object, Flux<byte[]> body) {
+
+        /**
+         * The shared object for one subscriber; the chunks are wrapped, not copied.
+         */
+        StreamedObject copyFor(DataBufferFactory bufferFactory) {
+            return object.withBody(body.map(bufferFactory::wrap));
+        }
+    }
+}
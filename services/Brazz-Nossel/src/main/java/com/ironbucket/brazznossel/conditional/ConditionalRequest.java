@@ -0,0 +1,142 @@
+package com.ironbucket.brazznossel.conditional;
+
+import com.ironbucket.brazznossel.model.ObjectMetadata;
+import org.springframework.http.HttpHeaders;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * ConditionalRequest - The If-* preconditions sent with an object request.
+ *
+ * Preconditions are evaluated against the object's current metadata in the
+ * order RFC 9110 section 13.2.2 gives: If-Match, else If-Unmodified-Since,
+ * then If-None-Match, else If-Modified-Since. Date conditions are ignored when
+ * the backend did not report a modification time.
+ *
+ * @param ifMatch Entity tags from If-Match, empty when absent
+ * @param ifNoneMatch Entity tags from If-None-Match, empty when absent
+ * @param ifModifiedSince If-Modified-Since, may be null
+ * @param ifUnmodifiedSince If-Unmodified-Since, may be null
+ */
+public record ConditionalRequest(
+    List<String> ifMatch,
+    List<String> ifNoneMatch,
+    Instant ifModifiedSince,
+    Instant ifUnmodifiedSince
+) {
+
+    private static final String ANY = "*";
+
+    public enum Outcome {
+        /** All preconditions hold, serve the request */
+        PROCEED,
+        /** A GET or HEAD whose cached representation is still current, answer 304 */
+        NOT_MODIFIED,
+        /** A precondition failed, answer 412 */
+        PRECONDITION_FAILED
+    }
+
+    public ConditionalRequest {
+        ifMatch = ifMatch == null ? List.of() : List.copyOf(ifMatch);
+        ifNoneMatch = ifNoneMatch == null ? List.of() : List.copyOf(ifNoneMatch);
+    }
+
+    public static ConditionalRequest fromHeaders(HttpHeaders headers) {
+        return new ConditionalRequest(
+                headers.getIfMatch(),
+                headers.getIfNoneMatch(),
+                toInstant(headers.getIfModifiedSince()),
+                toInstant(headers.getIfUnmodifiedSince()));
+    }
+
+    /**
+     * Whether the request carries any precondition at all.
+     */
+    public boolean isPresent() {
+        return !ifMatch.isEmpty() || !ifNoneMatch.isEmpty() || ifModifiedSince != null || ifUnmodifiedSince != null;
+    }
+
+    /**
+     * Whether the preconditions can only hold when the object exists, so a
+     * missing object fails them. If-None-Match: * is the one that asks for absence.
+     */
+    public boolean requiresExistingObject() {
+        return !ifMatch.isEmpty() || ifUnmodifiedSince != null;
+    }
+
+    /**
+     * Evaluates the preconditions against the current object.
+     *
+     * @param current The object's metadata
+     * @param safeMethod true for GET and HEAD, where a matching If-None-Match
+     *                   means not modified rather than failed
+     */
+    public Outcome evaluate(ObjectMetadata current, boolean safeMethod) {
+        Instant lastModified = current.lastModified() == null
+                ? null
+                // HTTP dates carry whole seconds only
+                : current.lastModified().truncatedTo(ChronoUnit.SECONDS);
+
+        if (!ifMatch.isEmpty()) {
+            if (!matches(ifMatch, current.eTag(), false)) {
+                return Outcome.PRECONDITION_FAILED;
+            }
+        } else if (ifUnmodifiedSince != null && lastModified != null && lastModified.isAfter(ifUnmodifiedSince)) {
+            return Outcome.PRECONDITION_FAILED;
+        }
+
+        if (!ifNoneMatch.isEmpty()) {
+            if (matches(ifNoneMatch, current.eTag(), true)) {
+                return safeMethod ? Outcome.NOT_MODIFIED : Outcome.PRECONDITION_FAILED;
+            }
+        } else if (safeMethod && ifModifiedSince != null && lastModified != null && !lastModified.isAfter(ifModifiedSince)) {
+            return Outcome.NOT_MODIFIED;
+        }
+        return Outcome.PROCEED;
+    }
+
+    /**
+     * Evaluates the preconditions for an object that does not exist.
+     */
+    public Outcome evaluateMissing() {
+        return requiresExistingObject() ? Outcome.PRECONDITION_FAILED : Outcome.PROCEED;
+    }
+
+    private static boolean matches(List<String> candidates, String eTag, boolean weak) {
+        if (eTag == null) {
+            return false;
+        }
+        String current = opaqueTag(eTag, weak);
+        for (String candidate : candidates) {
+            if (ANY.equals(candidate.trim())) {
+                return true;
+            }
+            // Strong comparison never matches a weak tag
+            if (!weak && (candidate.startsWith("W/") || eTag.startsWith("W/"))) {
+                continue;
+            }
+            if (opaqueTag(candidate, weak).equals(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Backends return ETags quoted and clients do not always send them that way
+    private static String opaqueTag(String eTag, boolean weak) {
+        String tag = eTag.trim();
+        if (weak && tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        return tag;
+    }
+
+    private static Instant toInstant(long epochMillis) {
+        return epochMillis < 0 ? null : Instant.ofEpochMilli(epochMillis);
+    }
+}
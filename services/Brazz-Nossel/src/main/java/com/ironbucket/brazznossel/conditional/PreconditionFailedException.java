@@ -0,0 +1,15 @@
+package com.ironbucket.brazznossel.conditional;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Raised when an If-Match, If-None-Match or If-Unmodified-Since precondition
+ * does not hold for the current object. Maps to 412, as S3's PreconditionFailed.
+ */
+public class PreconditionFailedException extends ResponseStatusException {
+
+    public PreconditionFailedException(String bucket, String key) {
+        super(HttpStatus.PRECONDITION_FAILED, "PreconditionFailed: " + bucket + "/" + key);
+    }
+}
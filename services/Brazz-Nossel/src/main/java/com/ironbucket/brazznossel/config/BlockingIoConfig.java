@@ -0,0 +1,32 @@
+package com.ironbucket.brazznossel.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Executors;
+
+/**
+ * Blocking I/O Configuration
+ *
+ * Provides the scheduler that runs blocking S3Client calls in sync client mode.
+ * Uses virtual threads when spring.threads.virtual.enabled is set, otherwise a
+ * bounded elastic pool with a capped task queue.
+ */
+@Configuration
+public class BlockingIoConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public Scheduler s3BlockingScheduler(
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            @Value("${app.s3.blocking.thread-cap:64}") int threadCap,
+            @Value("${app.s3.blocking.queued-task-cap:1000}") int queuedTaskCap) {
+
+        if (virtualThreads) {
+            return Schedulers.fromExecutorService(Executors.newVirtualThreadPerTaskExecutor(), "s3-blocking");
+        }
+        return Schedulers.newBoundedElastic(threadCap, queuedTaskCap, "s3-blocking");
+    }
+}
@@ -1,12 +1,14 @@
 package com.ironbucket.brazznossel.config;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -21,11 +23,17 @@ public class CacheConfig {
     
     /**
      * Configure Caffeine cache manager with appropriate expiration times
+     * 
+     * Object metadata gets its own short TTL: writes through the proxy evict
+     * entries directly, so the TTL only bounds staleness from external writers.
      */
     @Bean
-    public CacheManager cacheManager() {
+    public CacheManager cacheManager(
+            @Value("${app.s3.metadata-cache.ttl:30s}") Duration metadataTtl,
+            @Value("${app.s3.metadata-cache.max-size:100000}") long metadataMaxSize) {
         CaffeineCacheManager cacheManager = new CaffeineCacheManager(
             "s3-metadata",     // Cache S3 object metadata
+            "tenant-buckets",  // Cache per-tenant bucket index
             "policies",        // Cache policy evaluations
             "permissions"      // Cache permission checks
         );
@@ -35,6 +43,12 @@ public class CacheConfig {
             .expireAfterWrite(5, TimeUnit.MINUTES)  // Expire after 5 minutes
             .recordStats()  // Collect cache statistics
         );
+
+        cacheManager.registerCustomCache("s3-metadata", Caffeine.newBuilder()
+            .maximumSize(metadataMaxSize)
+            .expireAfterWrite(metadataTtl)
+            .recordStats()
+            .build());
         
         return cacheManager;
     }
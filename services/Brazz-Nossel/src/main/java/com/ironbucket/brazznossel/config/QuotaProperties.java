@@ -0,0 +1,86 @@
+package com.ironbucket.brazznossel.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Tenant storage quotas.
+ *
+ * The top-level limits apply to every tenant; entries under
+ * app.s3.quota.tenants override them per tenant id. A negative or missing
+ * limit means unlimited.
+ */
+@ConfigurationProperties(prefix = "app.s3.quota")
+public class QuotaProperties {
+
+    private boolean enabled;
+    private long maxBytes = -1;
+    private long maxObjects = -1;
+    private Map<String, Limit> tenants = new LinkedHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public long getMaxObjects() {
+        return maxObjects;
+    }
+
+    public void setMaxObjects(long maxObjects) {
+        this.maxObjects = maxObjects;
+    }
+
+    public Map<String, Limit> getTenants() {
+        return tenants;
+    }
+
+    public void setTenants(Map<String, Limit> tenants) {
+        this.tenants = tenants;
+    }
+
+    public long maxBytesFor(String tenantId) {
+        Limit limit = tenants.get(tenantId);
+        return limit != null && limit.getMaxBytes() != null ? limit.getMaxBytes() : maxBytes;
+    }
+
+    public long maxObjectsFor(String tenantId) {
+        Limit limit = tenants.get(tenantId);
+        return limit != null && limit.getMaxObjects() != null ? limit.getMaxObjects() : maxObjects;
+    }
+
+    public static class Limit {
+
+        private Long maxBytes;
+        private Long maxObjects;
+
+        public Long getMaxBytes() {
+            return maxBytes;
+        }
+
+        public void setMaxBytes(Long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        public Long getMaxObjects() {
+            return maxObjects;
+        }
+
+        public void setMaxObjects(Long maxObjects) {
+            this.maxObjects = maxObjects;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.ironbucket.brazznossel.config;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Native S3 API front end.
+ *
+ * Requests signed with SigV4 are served as S3 REST calls next to the JWT API.
+ * Entries under app.s3.api.credentials are keyed by access key and say which
+ * tenant and user the key acts as. With a domain set, requests for
+ * {bucket}.{domain} are served virtual-host style as well.
+ *
+ * Every key must name its secret and tenant; startup fails otherwise, since a
+ * key without a tenant would act on buckets outside any tenant's namespace.
+ */
+@Validated
+@ConfigurationProperties(prefix = "app.s3.api")
+public class S3ApiProperties {
+
+    private boolean enabled;
+    private String domain;
+    private Duration maxClockSkew = Duration.ofMinutes(15);
+    private Map<String, @Valid Credential> credentials = new LinkedHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getDomain() {
+        return domain;
+    }
+
+    public void setDomain(String domain) {
+        this.domain = domain;
+    }
+
+    public Duration getMaxClockSkew() {
+        return maxClockSkew;
+    }
+
+    public void setMaxClockSkew(Duration maxClockSkew) {
+        this.maxClockSkew = maxClockSkew;
+    }
+
+    public Map<String, Credential> getCredentials() {
+        return credentials;
+    }
+
+    public void setCredentials(Map<String, Credential> credentials) {
+        this.credentials = credentials;
+    }
+
+    public static class Credential {
+
+        @NotBlank
+        private String secretKey;
+        @NotBlank
+        private String tenant;
+        private String username;
+        private List<String> roles = new ArrayList<>();
+
+        public String getSecretKey() {
+            return secretKey;
+        }
+
+        public void setSecretKey(String secretKey) {
+            this.secretKey = secretKey;
+        }
+
+        public String getTenant() {
+            return tenant;
+        }
+
+        public void setTenant(String tenant) {
+            this.tenant = tenant;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public List<String> getRoles() {
+            return roles;
+        }
+
+        public void setRoles(List<String> roles) {
+            this.roles = roles;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.ironbucket.brazznossel.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * S3 Backend Configuration
+ *
+ * Binds the per-provider backend settings used to build the S3 client pool,
+ * the tenant quota limits enforced on writes and the native S3 API access keys.
+ */
+@Configuration
+@EnableConfigurationProperties({S3BackendProperties.class, QuotaProperties.class, S3ApiProperties.class})
+public class S3BackendConfig {
+}
@@ -0,0 +1,86 @@
+package com.ironbucket.brazznossel.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-provider backend connections.
+ *
+ * Each entry under app.s3.backends is keyed by provider name (aws-s3, gcs,
+ * azure-blob, local-filesystem) and gets its own client and connection pool.
+ * Unset fields fall back to the top-level app.s3 settings, and providers
+ * without an entry share the default backend.
+ */
+@ConfigurationProperties(prefix = "app.s3")
+public class S3BackendProperties {
+
+    private Map<String, Backend> backends = new LinkedHashMap<>();
+
+    public Map<String, Backend> getBackends() {
+        return backends;
+    }
+
+    public void setBackends(Map<String, Backend> backends) {
+        this.backends = backends;
+    }
+
+    public static class Backend {
+
+        private String endpoint;
+        private String accessKey;
+        private String secretKey;
+        private String region;
+        private Integer maxConnections;
+        private Integer maxPendingConnectionAcquires;
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        public void setEndpoint(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        public String getAccessKey() {
+            return accessKey;
+        }
+
+        public void setAccessKey(String accessKey) {
+            this.accessKey = accessKey;
+        }
+
+        public String getSecretKey() {
+            return secretKey;
+        }
+
+        public void setSecretKey(String secretKey) {
+            this.secretKey = secretKey;
+        }
+
+        public String getRegion() {
+            return region;
+        }
+
+        public void setRegion(String region) {
+            this.region = region;
+        }
+
+        public Integer getMaxConnections() {
+            return maxConnections;
+        }
+
+        public void setMaxConnections(Integer maxConnections) {
+            this.maxConnections = maxConnections;
+        }
+
+        public Integer getMaxPendingConnectionAcquires() {
+            return maxPendingConnectionAcquires;
+        }
+
+        public void setMaxPendingConnectionAcquires(Integer maxPendingConnectionAcquires) {
+            this.maxPendingConnectionAcquires = maxPendingConnectionAcquires;
+        }
+    }
+}
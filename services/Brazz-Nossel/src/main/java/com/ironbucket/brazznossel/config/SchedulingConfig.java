@@ -0,0 +1,14 @@
+package com.ironbucket.brazznossel.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Scheduling Configuration
+ * 
+ * Enables background jobs such as cache refreshes and maintenance sweeps
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,83 @@
+package com.ironbucket.brazznossel.controller;
+
+import com.ironbucket.brazznossel.bulk.BulkJobService;
+import com.ironbucket.brazznossel.model.BulkJob;
+import com.ironbucket.brazznossel.model.BulkJobRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * API for prefix-scoped bulk jobs.
+ * 
+ * Submitting a job returns immediately; progress is polled through the job
+ * id. Jobs are visible to every user of the submitting tenant.
+ */
+@RestController
+@RequestMapping("/s3/jobs")
+public class BulkJobController {
+
+	private final BulkJobService bulkJobService;
+
+	public BulkJobController(BulkJobService bulkJobService) {
+		this.bulkJobService = bulkJobService;
+	}
+
+	@PostMapping(path="/{bucket}")
+	@ResponseStatus(HttpStatus.ACCEPTED)
+	public Mono<BulkJob> submit(
+			@PathVariable String bucket,
+			@RequestBody BulkJobRequest request,
+			@AuthenticationPrincipal Jwt principal) {
+
+		if (principal == null) {
+			return Mono.error(new IllegalStateException("No authentication principal found"));
+		}
+
+		return bulkJobService.submit(bucket, request, JwtIdentityMapper.toIdentity(principal));
+	}
+
+	@GetMapping
+	public Flux<BulkJob> list(@AuthenticationPrincipal Jwt principal) {
+		if (principal == null) {
+			return Flux.error(new IllegalStateException("No authentication principal found"));
+		}
+
+		return bulkJobService.list(JwtIdentityMapper.toIdentity(principal));
+	}
+
+	@GetMapping(path="/{id}")
+	public Mono<BulkJob> get(
+			@PathVariable String id,
+			@AuthenticationPrincipal Jwt principal) {
+
+		if (principal == null) {
+			return Mono.error(new IllegalStateException("No authentication principal found"));
+		}
+
+		return bulkJobService.get(id, JwtIdentityMapper.toIdentity(principal));
+	}
+
+	@DeleteMapping(path="/{id}")
+	public Mono<BulkJob> cancel(
+			@PathVariable String id,
+			@AuthenticationPrincipal Jwt principal) {
+
+		if (principal == null) {
+			return Mono.error(new IllegalStateException("No authentication principal found"));
+		}
+
+		return bulkJobService.cancel(id, JwtIdentityMapper.toIdentity(principal));
+	}
+}
@@ -0,0 +1,82 @@
+package com.ironbucket.brazznossel.controller;
+
+import com.ironbucket.brazznossel.cutover.DualWriteService;
+import com.ironbucket.brazznossel.model.CutoverRequest;
+import com.ironbucket.brazznossel.model.CutoverStatus;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import reactor.core.publisher.Mono;
+
+import static com.ironbucket.brazznossel.controller.RoutingAdminController.requireAdmin;
+
+/**
+ * Admin API for moving a tenant to another backend without downtime.
+ * 
+ * Starting a cutover mirrors the tenant's writes to the target and backfills
+ * its existing objects; the status shows backfill progress and divergences.
+ * The cutover itself switches the tenant's routing once both are clean.
+ */
+@RestController
+@RequestMapping("/s3/admin/cutover")
+public class CutoverAdminController {
+
+	private final DualWriteService dualWriteService;
+
+	public CutoverAdminController(DualWriteService dualWriteService) {
+		this.dualWriteService = dualWriteService;
+	}
+
+	@PostMapping(path="/{tenant}")
+	@ResponseStatus(HttpStatus.ACCEPTED)
+	public Mono<CutoverStatus> start(
+			@PathVariable String tenant,
+			@RequestBody CutoverRequest request,
+			@AuthenticationPrincipal Jwt principal) {
+		return Mono.fromCallable(() -> {
+			requireAdmin(principal);
+			return dualWriteService.start(tenant, request);
+		});
+	}
+
+	@GetMapping(path="/{tenant}")
+	public Mono<CutoverStatus> status(
+			@PathVariable String tenant,
+			@AuthenticationPrincipal Jwt principal) {
+		return Mono.fromCallable(() -> {
+			requireAdmin(principal);
+			return dualWriteService.status(tenant);
+		});
+	}
+
+	@PostMapping(path="/{tenant}/cutover")
+	public Mono<CutoverStatus> cutover(
+			@PathVariable String tenant,
+			@RequestParam(defaultValue="false") boolean force,
+			@AuthenticationPrincipal Jwt principal) {
+		return Mono.fromCallable(() -> {
+			requireAdmin(principal);
+			return dualWriteService.cutover(tenant, force);
+		});
+	}
+
+	@DeleteMapping(path="/{tenant}")
+	public Mono<CutoverStatus> abort(
+			@PathVariable String tenant,
+			@AuthenticationPrincipal Jwt principal) {
+		return Mono.fromCallable(() -> {
+			requireAdmin(principal);
+			return dualWriteService.abort(tenant);
+		});
+	}
+}
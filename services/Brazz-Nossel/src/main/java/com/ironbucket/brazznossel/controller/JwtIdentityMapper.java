@@ -0,0 +1,113 @@
+package com.ironbucket.brazznossel.controller;
+
+import com.ironbucket.brazznossel.model.NormalizedIdentity;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps an authenticated JWT to the NormalizedIdentity passed to the proxy service.
+ * Shared by every controller, and by filters that act per tenant, so tenant
+ * resolution is identical across endpoints.
+ */
+public final class JwtIdentityMapper {
+
+	private JwtIdentityMapper() {
+	}
+
+	/**
+	 * Convert JWT to NormalizedIdentity
+	 */
+	public static NormalizedIdentity toIdentity(Jwt jwt) {
+		String username = jwt.getClaimAsString("preferred_username");
+		if (username == null) {
+			username = jwt.getSubject();
+		}
+		
+		String tenant = resolveTenant(jwt);
+		
+		List<String> roles = jwt.getClaimAsStringList("roles");
+		if (roles == null) {
+			roles = Collections.emptyList();
+		}
+		
+		return NormalizedIdentity.builder()
+				.userId(jwt.getSubject())
+				.tenantId(tenant)
+				.preferredUsername(username)
+				.email(jwt.getClaimAsString("email"))
+				.roles(roles)
+				.region(jwt.getClaimAsString("region"))
+				.build();
+	}
+
+	private static String resolveTenant(Jwt jwt) {
+		String tenant = firstNonBlank(
+				jwt.getClaimAsString("tenant"),
+				jwt.getClaimAsString("tenant_id"),
+				jwt.getClaimAsString("tenantId"));
+		if (tenant != null) {
+			return tenant;
+		}
+
+		Object organizationClaim = jwt.getClaims().get("organization");
+		if (organizationClaim instanceof String org && !org.isBlank()) {
+			return org;
+		}
+		if (organizationClaim instanceof Map<?, ?> organizationMap) {
+			Object id = organizationMap.get("id");
+			if (id instanceof String idValue && !idValue.isBlank()) {
+				return idValue;
+			}
+			Object name = organizationMap.get("name");
+			if (name instanceof String nameValue && !nameValue.isBlank()) {
+				return nameValue;
+			}
+		}
+
+		String orgAlias = firstNonBlank(
+				jwt.getClaimAsString("organization_id"),
+				jwt.getClaimAsString("org"),
+				jwt.getClaimAsString("org_id"),
+				jwt.getClaimAsString("kc_org"));
+		if (orgAlias != null) {
+			return orgAlias;
+		}
+
+		List<String> organizations = jwt.getClaimAsStringList("organizations");
+		if (organizations != null && !organizations.isEmpty() && organizations.get(0) != null && !organizations.get(0).isBlank()) {
+			return organizations.get(0);
+		}
+
+		List<String> groups = jwt.getClaimAsStringList("groups");
+		if (groups != null) {
+			for (String group : groups) {
+				if (group == null || group.isBlank()) {
+					continue;
+				}
+				if (group.startsWith("org:")) {
+					return group.substring("org:".length());
+				}
+				if (group.startsWith("/org/")) {
+					return group.substring("/org/".length());
+				}
+				if (group.startsWith("/orgs/")) {
+					return group.substring("/orgs/".length());
+				}
+			}
+		}
+
+		return "default";
+	}
+
+	private static String firstNonBlank(String... values) {
+		for (String value : values) {
+			if (value != null && !value.isBlank()) {
+				return value;
+			}
+		}
+		return null;
+	}
+}
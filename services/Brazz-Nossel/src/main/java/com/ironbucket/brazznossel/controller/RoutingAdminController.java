@@ -0,0 +1,64 @@
+package com.ironbucket.brazznossel.controller;
+
+import com.ironbucket.brazznossel.model.RoutingRules;
+import com.ironbucket.brazznossel.service.BackendRouter;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Admin API for the backend routing table.
+ * 
+ * Lets operators move a tenant or bucket to another provider at runtime.
+ * The new table is swapped in atomically; requests already in flight finish
+ * on the provider they were routed to.
+ */
+@RestController
+@RequestMapping("/s3/admin/routing")
+public class RoutingAdminController {
+
+	static final String ADMIN_ROLE = "s3:admin";
+
+	private final BackendRouter backendRouter;
+
+	public RoutingAdminController(BackendRouter backendRouter) {
+		this.backendRouter = backendRouter;
+	}
+
+	@GetMapping
+	public Mono<RoutingRules> getRouting(@AuthenticationPrincipal Jwt principal) {
+		return Mono.fromCallable(() -> {
+			requireAdmin(principal);
+			return backendRouter.rules();
+		});
+	}
+
+	@PutMapping
+	public Mono<RoutingRules> replaceRouting(
+			@RequestBody RoutingRules rules,
+			@AuthenticationPrincipal Jwt principal) {
+		return Mono.fromCallable(() -> {
+			requireAdmin(principal);
+			return backendRouter.replace(rules);
+		});
+	}
+
+	static void requireAdmin(Jwt principal) {
+		if (principal == null) {
+			throw new IllegalStateException("No authentication principal found");
+		}
+		List<String> roles = principal.getClaimAsStringList("roles");
+		if (roles == null || !roles.contains(ADMIN_ROLE)) {
+			throw new AccessDeniedException("Backend administration requires the " + ADMIN_ROLE + " role");
+		}
+	}
+}
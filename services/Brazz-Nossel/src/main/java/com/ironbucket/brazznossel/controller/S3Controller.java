@@ -1,122 +1,62 @@
 package com.ironbucket.brazznossel.controller;
 
+import com.ironbucket.brazznossel.checksum.ChecksumTranslator;
+import com.ironbucket.brazznossel.conditional.ConditionalRequest;
+import com.ironbucket.brazznossel.conditional.ConditionalWriteGuard;
+import com.ironbucket.brazznossel.conditional.PreconditionFailedException;
+import com.ironbucket.brazznossel.listing.ListingFormat;
+import com.ironbucket.brazznossel.listing.S3ListingWriter;
+import com.ironbucket.brazznossel.model.DeleteResult;
+import com.ironbucket.brazznossel.model.ListObjectsQuery;
+import com.ironbucket.brazznossel.model.ListingEntry;
 import com.ironbucket.brazznossel.model.NormalizedIdentity;
+import com.ironbucket.brazznossel.model.ObjectMetadata;
+import com.ironbucket.brazznossel.model.ObjectListingPage;
 import com.ironbucket.brazznossel.service.S3ProxyService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import software.amazon.awssdk.services.s3.model.CompletedPart;
 
-import java.util.Collections;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.Map;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/s3")
 public class S3Controller {
 	
+	private static final String CHECKSUM_MODE_HEADER = "x-amz-checksum-mode";
+	
 	private final S3ProxyService s3ProxyService;
+	private final ConditionalWriteGuard writeGuard;
 	
 	// Constructor injection for testability
 	public S3Controller(S3ProxyService s3ProxyService) {
+		this(s3ProxyService, new ConditionalWriteGuard());
+	}
+	
+	@Autowired
+	public S3Controller(S3ProxyService s3ProxyService, ConditionalWriteGuard writeGuard) {
 		this.s3ProxyService = s3ProxyService;
+		this.writeGuard = writeGuard;
 	}
 	
 	/**
 	 * Convert JWT to NormalizedIdentity
 	 */
 	private NormalizedIdentity extractIdentity(Jwt jwt) {
-		String username = jwt.getClaimAsString("preferred_username");
-		if (username == null) {
-			username = jwt.getSubject();
-		}
-		
-		String tenant = resolveTenant(jwt);
-		
-		List<String> roles = jwt.getClaimAsStringList("roles");
-		if (roles == null) {
-			roles = Collections.emptyList();
-		}
-		
-		return NormalizedIdentity.builder()
-				.userId(jwt.getSubject())
-				.tenantId(tenant)
-				.preferredUsername(username)
-				.email(jwt.getClaimAsString("email"))
-				.roles(roles)
-				.region(jwt.getClaimAsString("region"))
-				.build();
-	}
-
-	private String resolveTenant(Jwt jwt) {
-		String tenant = firstNonBlank(
-				jwt.getClaimAsString("tenant"),
-				jwt.getClaimAsString("tenant_id"),
-				jwt.getClaimAsString("tenantId"));
-		if (tenant != null) {
-			return tenant;
-		}
-
-		Object organizationClaim = jwt.getClaims().get("organization");
-		if (organizationClaim instanceof String org && !org.isBlank()) {
-			return org;
-		}
-		if (organizationClaim instanceof Map<?, ?> organizationMap) {
-			Object id = organizationMap.get("id");
-			if (id instanceof String idValue && !idValue.isBlank()) {
-				return idValue;
-			}
-			Object name = organizationMap.get("name");
-			if (name instanceof String nameValue && !nameValue.isBlank()) {
-				return nameValue;
-			}
-		}
-
-		String orgAlias = firstNonBlank(
-				jwt.getClaimAsString("organization_id"),
-				jwt.getClaimAsString("org"),
-				jwt.getClaimAsString("org_id"),
-				jwt.getClaimAsString("kc_org"));
-		if (orgAlias != null) {
-			return orgAlias;
-		}
-
-		List<String> organizations = jwt.getClaimAsStringList("organizations");
-		if (organizations != null && !organizations.isEmpty() && organizations.get(0) != null && !organizations.get(0).isBlank()) {
-			return organizations.get(0);
-		}
-
-		List<String> groups = jwt.getClaimAsStringList("groups");
-		if (groups != null) {
-			for (String group : groups) {
-				if (group == null || group.isBlank()) {
-					continue;
-				}
-				if (group.startsWith("org:")) {
-					return group.substring("org:".length());
-				}
-				if (group.startsWith("/org/")) {
-					return group.substring("/org/".length());
-				}
-				if (group.startsWith("/orgs/")) {
-					return group.substring("/orgs/".length());
-				}
-			}
-		}
-
-		return "default";
-	}
-
-	private String firstNonBlank(String... values) {
-		for (String value : values) {
-			if (value != null && !value.isBlank()) {
-				return value;
-			}
-		}
-		return null;
+		return JwtIdentityMapper.toIdentity(jwt);
 	}
 	
 	@GetMapping(path="/dev")
@@ -130,16 +70,31 @@ public class S3Controller {
 	}
 	
 	/**
-	 * List buckets for the authenticated user's tenant
+	 * List buckets for the authenticated user's tenant.
+	 * Accept: application/xml returns ListAllMyBucketsResult and application/json
+	 * its JSON equivalent, both streamed; anything else gets the text listing.
 	 */
 	@GetMapping(path="/buckets")
-	public Mono<String> listBuckets(@AuthenticationPrincipal Jwt principal) {
+	public Mono<ResponseEntity<Flux<DataBuffer>>> listBuckets(
+			ServerWebExchange exchange,
+			@AuthenticationPrincipal Jwt principal) {
 		if (principal == null) {
 			return Mono.error(new IllegalStateException("No authentication principal found"));
 		}
 		
 		NormalizedIdentity identity = extractIdentity(principal);
-		return s3ProxyService.listBuckets(identity);
+		ListingFormat format = ListingFormat.negotiate(exchange.getRequest().getHeaders());
+		if (format == ListingFormat.TEXT) {
+			return s3ProxyService.listBuckets(identity).map(listing -> textListing(listing, exchange));
+		}
+		return Mono.just(ResponseEntity.ok()
+				.contentType(format.mediaType())
+				.body(S3ListingWriter.buckets(
+						format,
+						identity.getTenantId(),
+						identity.getPreferredUsername(),
+						s3ProxyService.listBucketSummaries(identity),
+						exchange.getResponse().bufferFactory())));
 	}
 
 	@PostMapping(path="/bucket/{bucket}")
@@ -181,9 +136,63 @@ public class S3Controller {
 		return s3ProxyService.headBucket(bucket, identity);
 	}
 
+	/**
+	 * List every object in the bucket, following continuation tokens.
+	 * Accept: application/xml returns one ListBucketResult and application/json
+	 * its JSON equivalent, written page by page as the backend is read;
+	 * anything else gets the keys one per line.
+	 */
 	@GetMapping(path="/objects/{bucket}")
-	public Mono<String> listObjects(
+	public Mono<ResponseEntity<Flux<DataBuffer>>> listObjects(
+			@PathVariable String bucket,
+			@RequestParam(required = false) String prefix,
+			@RequestParam(required = false) String delimiter,
+			@RequestParam(name = "start-after", required = false) String startAfter,
+			ServerWebExchange exchange,
+			@AuthenticationPrincipal Jwt principal) {
+
+		if (principal == null) {
+			return Mono.error(new IllegalStateException("No authentication principal found"));
+		}
+
+		NormalizedIdentity identity = extractIdentity(principal);
+		ListObjectsQuery query = new ListObjectsQuery(prefix, delimiter, startAfter, null, null);
+		ListingFormat format = ListingFormat.negotiate(exchange.getRequest().getHeaders());
+		if (format == ListingFormat.TEXT) {
+			Mono<String> keys = query.equals(ListObjectsQuery.all())
+					? s3ProxyService.listObjects(bucket, identity)
+					: s3ProxyService.listObjectsStream(bucket, query, identity)
+							.map(ListingEntry::key)
+							.collect(Collectors.joining("\n"));
+			return keys.map(listing -> textListing(listing, exchange));
+		}
+		return Mono.just(ResponseEntity.ok()
+				.contentType(format.mediaType())
+				.body(S3ListingWriter.objects(
+						format,
+						bucket,
+						query,
+						s3ProxyService.listObjectPages(bucket, query, identity),
+						exchange.getResponse().bufferFactory())));
+	}
+	
+	private static ResponseEntity<Flux<DataBuffer>> textListing(String listing, ServerWebExchange exchange) {
+		return ResponseEntity.ok()
+				.contentType(MediaType.TEXT_PLAIN)
+				.body(Flux.just(exchange.getResponse().bufferFactory().wrap(listing.getBytes(StandardCharsets.UTF_8))));
+	}
+
+	/**
+	 * List one page of objects using ListObjectsV2 parameters
+	 */
+	@GetMapping(path="/objects/{bucket}/page")
+	public Mono<ObjectListingPage> listObjectsPage(
 			@PathVariable String bucket,
+			@RequestParam(required = false) String prefix,
+			@RequestParam(required = false) String delimiter,
+			@RequestParam(name = "start-after", required = false) String startAfter,
+			@RequestParam(name = "max-keys", required = false) Integer maxKeys,
+			@RequestParam(name = "continuation-token", required = false) String continuationToken,
 			@AuthenticationPrincipal Jwt principal) {
 
 		if (principal == null) {
@@ -191,16 +200,43 @@ public class S3Controller {
 		}
 
 		NormalizedIdentity identity = extractIdentity(principal);
-		return s3ProxyService.listObjects(bucket, identity);
+		ListObjectsQuery query = new ListObjectsQuery(prefix, delimiter, startAfter, maxKeys, continuationToken);
+		return s3ProxyService.listObjectsPage(bucket, query, identity);
+	}
+
+	/**
+	 * Stream every matching entry as NDJSON, fetching pages as the client reads
+	 */
+	@GetMapping(path="/objects/{bucket}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public Flux<ListingEntry> listObjectsStream(
+			@PathVariable String bucket,
+			@RequestParam(required = false) String prefix,
+			@RequestParam(required = false) String delimiter,
+			@RequestParam(name = "start-after", required = false) String startAfter,
+			@RequestParam(name = "max-keys", required = false) Integer maxKeys,
+			@AuthenticationPrincipal Jwt principal) {
+
+		if (principal == null) {
+			return Flux.error(new IllegalStateException("No authentication principal found"));
+		}
+
+		NormalizedIdentity identity = extractIdentity(principal);
+		ListObjectsQuery query = new ListObjectsQuery(prefix, delimiter, startAfter, maxKeys, null);
+		return s3ProxyService.listObjectsStream(bucket, query, identity);
 	}
 	
 	/**
-	 * Get object from S3
+	 * Get object from S3, streamed chunk by chunk from the backend.
+	 * With x-amz-checksum-mode: ENABLED the body is checked against the
+	 * checksum stored at upload and the stream fails on a mismatch.
+	 * If-None-Match and If-Modified-Since are answered with 304 from the
+	 * object's metadata, which is usually cached, without fetching the body.
 	 */
 	@GetMapping(path="/object/{bucket}/{key}")
-	public Mono<byte[]> getObject(
+	public Mono<ResponseEntity<Flux<DataBuffer>>> getObject(
 			@PathVariable String bucket,
 			@PathVariable String key,
+			ServerWebExchange exchange,
 			@AuthenticationPrincipal Jwt principal) {
 		
 		if (principal == null) {
@@ -208,13 +244,72 @@ public class S3Controller {
 		}
 		
 		NormalizedIdentity identity = extractIdentity(principal);
-		return s3ProxyService.getObject(bucket, key, identity);
+		ConditionalRequest conditions = ConditionalRequest.fromHeaders(exchange.getRequest().getHeaders());
+		if (!conditions.isPresent()) {
+			return streamObject(bucket, key, exchange, identity);
+		}
+		return s3ProxyService.headObjectMetadata(bucket, key, identity)
+				.flatMap(current -> conditionalGet(bucket, key, exchange, conditions, current, identity));
+	}
+	
+	private Mono<ResponseEntity<Flux<DataBuffer>>> conditionalGet(
+			String bucket,
+			String key,
+			ServerWebExchange exchange,
+			ConditionalRequest conditions,
+			ObjectMetadata current,
+			NormalizedIdentity identity) {
+		
+		return switch (conditions.evaluate(current, true)) {
+			case NOT_MODIFIED -> Mono.just(notModified(current));
+			case PRECONDITION_FAILED -> Mono.error(new PreconditionFailedException(bucket, key));
+			case PROCEED -> streamObject(bucket, key, exchange, identity);
+		};
+	}
+	
+	private static ResponseEntity<Flux<DataBuffer>> notModified(ObjectMetadata current) {
+		ResponseEntity.HeadersBuilder<?> builder = ResponseEntity.status(HttpStatus.NOT_MODIFIED);
+		if (current.eTag() != null) {
+			builder.eTag(current.eTag());
+		}
+		if (current.lastModified() != null) {
+			builder.lastModified(current.lastModified());
+		}
+		return builder.build();
+	}
+	
+	private Mono<ResponseEntity<Flux<DataBuffer>>> streamObject(
+			String bucket,
+			String key,
+			ServerWebExchange exchange,
+			NormalizedIdentity identity) {
+		
+		boolean verifyChecksum = "ENABLED".equalsIgnoreCase(exchange.getRequest().getHeaders().getFirst(CHECKSUM_MODE_HEADER));
+		return s3ProxyService.getObjectStream(bucket, key, exchange.getResponse().bufferFactory(), verifyChecksum, identity)
+				.map(object -> {
+					ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+							.contentType(object.contentType() == null
+									? MediaType.APPLICATION_OCTET_STREAM
+									: MediaType.parseMediaType(object.contentType()));
+					if (object.contentLength() >= 0) {
+						builder.contentLength(object.contentLength());
+					}
+					if (object.eTag() != null) {
+						builder.eTag(object.eTag());
+					}
+					object.checksums().forEach((algorithm, value) -> builder.header(algorithm.headerName(), value));
+					return builder.body(object.body());
+				});
 	}
 
+	/**
+	 * Head object, answering with its ETag. Preconditions are evaluated as for GET.
+	 */
 	@RequestMapping(path="/object/{bucket}/{key}", method = RequestMethod.HEAD)
 	public Mono<String> headObject(
 			@PathVariable String bucket,
 			@PathVariable String key,
+			ServerWebExchange exchange,
 			@AuthenticationPrincipal Jwt principal) {
 
 		if (principal == null) {
@@ -222,7 +317,22 @@ public class S3Controller {
 		}
 
 		NormalizedIdentity identity = extractIdentity(principal);
-		return s3ProxyService.headObject(bucket, key, identity);
+		ConditionalRequest conditions = ConditionalRequest.fromHeaders(exchange.getRequest().getHeaders());
+		if (!conditions.isPresent()) {
+			return s3ProxyService.headObject(bucket, key, identity);
+		}
+		return s3ProxyService.headObjectMetadata(bucket, key, identity)
+				.flatMap(current -> switch (conditions.evaluate(current, true)) {
+					case NOT_MODIFIED -> {
+						exchange.getResponse().setStatusCode(HttpStatus.NOT_MODIFIED);
+						if (current.eTag() != null) {
+							exchange.getResponse().getHeaders().setETag(current.eTag());
+						}
+						yield Mono.<String>empty();
+					}
+					case PRECONDITION_FAILED -> Mono.<String>error(new PreconditionFailedException(bucket, key));
+					case PROCEED -> Mono.just(current.eTag());
+				});
 	}
 
 	@GetMapping(path="/object/{bucket}/{key}/range")
@@ -242,13 +352,18 @@ public class S3Controller {
 	}
 	
 	/**
-	 * Put object to S3
+	 * Put object to S3, piping the request body to the backend as it arrives.
+	 * Supplied x-amz-checksum-* and Content-MD5 values are verified as the body streams.
+	 * If-Match (optimistic concurrency) and If-None-Match: * (create only) are
+	 * checked against the object's metadata read from the backend, before any
+	 * of the body is read; a failed precondition is a 412. Writes to the same
+	 * key run one at a time, so two writers cannot both pass the same check.
 	 */
 	@PostMapping(path="/object/{bucket}/{key}")
 	public Mono<String> putObject(
 			@PathVariable String bucket,
 			@PathVariable String key,
-			@RequestBody byte[] content,
+			ServerHttpRequest request,
 			@AuthenticationPrincipal Jwt principal) {
 		
 		if (principal == null) {
@@ -256,11 +371,16 @@ public class S3Controller {
 		}
 		
 		NormalizedIdentity identity = extractIdentity(principal);
-		return s3ProxyService.putObject(bucket, key, content, identity);
+		ConditionalRequest conditions = ConditionalRequest.fromHeaders(request.getHeaders());
+		return writeGuard.write(identity.getTenantId(), bucket, key, conditions,
+				() -> s3ProxyService.headObjectMetadataUncached(bucket, key, identity),
+				() -> Mono.fromCallable(() -> ChecksumTranslator.fromHeaders(request.getHeaders()))
+						.flatMap(checksums -> s3ProxyService.putObjectStream(
+								bucket, key, request.getBody(), request.getHeaders().getContentLength(), checksums, identity)));
 	}
 	
 	/**
-	 * Delete object from S3
+	 * Delete object from S3, in turn with other writes to the key
 	 */
 	@DeleteMapping(path="/object/{bucket}/{key}")
 	public Mono<Void> deleteObject(
@@ -273,7 +393,24 @@ public class S3Controller {
 		}
 		
 		NormalizedIdentity identity = extractIdentity(principal);
-		return s3ProxyService.deleteObject(bucket, key, identity);
+		return writeGuard.write(identity.getTenantId(), bucket, key, () -> s3ProxyService.deleteObject(bucket, key, identity));
+	}
+
+	/**
+	 * Delete many objects; the body is a JSON array of keys, results stream back as NDJSON
+	 */
+	@PostMapping(path="/objects/{bucket}/delete", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public Flux<DeleteResult> deleteObjects(
+			@PathVariable String bucket,
+			@RequestBody Flux<String> keys,
+			@AuthenticationPrincipal Jwt principal) {
+
+		if (principal == null) {
+			return Flux.error(new IllegalStateException("No authentication principal found"));
+		}
+
+		NormalizedIdentity identity = extractIdentity(principal);
+		return s3ProxyService.deleteObjects(bucket, keys, identity);
 	}
 
 	@GetMapping(path="/object/{bucket}/{key}/version/{versionId}")
@@ -303,7 +440,8 @@ public class S3Controller {
 		}
 
 		NormalizedIdentity identity = extractIdentity(principal);
-		return s3ProxyService.deleteObjectVersion(bucket, key, versionId, identity);
+		return writeGuard.write(identity.getTenantId(), bucket, key,
+				() -> s3ProxyService.deleteObjectVersion(bucket, key, versionId, identity));
 	}
 
 	@GetMapping(path="/object-versions/{bucket}")
@@ -363,7 +501,8 @@ public class S3Controller {
 		}
 
 		NormalizedIdentity identity = extractIdentity(principal);
-		return s3ProxyService.completeMultipartUpload(bucket, key, uploadId, parts, identity);
+		return writeGuard.write(identity.getTenantId(), bucket, key,
+				() -> s3ProxyService.completeMultipartUpload(bucket, key, uploadId, parts, identity));
 	}
 
 	@DeleteMapping(path="/multipart/{bucket}/{key}/{uploadId}")
@@ -0,0 +1,104 @@
+package com.ironbucket.brazznossel.copy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * CopyEngine - Plans server-side copies of large objects.
+ *
+ * CopyObject is limited to 5 GB per request. Objects at or above the multipart
+ * threshold are instead copied with UploadPartCopy over part-size source
+ * ranges, up to max-concurrency parts at a time, so the backend moves the
+ * bytes and nothing passes through the gateway. A failed part aborts the
+ * upload.
+ */
+@Component
+public class CopyEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(CopyEngine.class);
+
+    // S3 limits for UploadPartCopy: parts between 5 MiB and 5 GiB, at most 10,000 of them
+    static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+    static final long MAX_PART_SIZE = 5L * 1024 * 1024 * 1024;
+    static final int MAX_PARTS = 10_000;
+
+    private final long multipartThreshold;
+    private final long partSize;
+    private final int maxConcurrency;
+
+    @Autowired
+    public CopyEngine(
+            @Value("${app.s3.copy.multipart-threshold:1GB}") DataSize multipartThreshold,
+            @Value("${app.s3.copy.part-size:256MB}") DataSize partSize,
+            @Value("${app.s3.copy.max-concurrency:8}") int maxConcurrency) {
+        // Above 5 GB a single CopyObject is not an option, whatever the configuration says
+        this.multipartThreshold = Math.min(multipartThreshold.toBytes(), MAX_PART_SIZE + 1);
+        this.partSize = Math.clamp(partSize.toBytes(), MIN_PART_SIZE, MAX_PART_SIZE);
+        this.maxConcurrency = Math.max(maxConcurrency, 1);
+    }
+
+    public boolean requiresMultipart(long contentLength) {
+        return contentLength >= multipartThreshold;
+    }
+
+    /**
+     * Copy an object of the given length through the target's multipart operations.
+     *
+     * @param contentLength Source object length in bytes
+     * @param target Backend operations bound to one source and destination
+     * @return A Mono containing the ETag of the completed copy
+     */
+    public Mono<String> multipartCopy(long contentLength, MultipartCopyTarget target) {
+        long size = Math.max(partSize, (contentLength + MAX_PARTS - 1) / MAX_PARTS);
+        int parts = Math.toIntExact((contentLength + size - 1) / size);
+
+        return target.initiate().flatMap(uploadId -> {
+            logger.info("Multipart copy uploadId={}: {} bytes in {} parts of {} bytes", uploadId, contentLength, parts, size);
+            return Flux.range(1, parts)
+                    .flatMap(partNumber -> {
+                        long start = (partNumber - 1) * size;
+                        long end = Math.min(start + size, contentLength) - 1;
+                        return target.copyPart(uploadId, partNumber, start, end)
+                                .map(eTag -> CompletedPart.builder().partNumber(partNumber).eTag(eTag).build());
+                    }, maxConcurrency)
+                    .collectSortedList(Comparator.comparing(CompletedPart::partNumber))
+                    .flatMap(completed -> target.complete(uploadId, completed))
+                    .onErrorResume(error -> abort(target, uploadId).then(Mono.error(error)))
+                    .doOnCancel(() -> abort(target, uploadId).subscribe());
+        });
+    }
+
+    private Mono<Void> abort(MultipartCopyTarget target, String uploadId) {
+        return target.abort(uploadId).onErrorResume(abortError -> {
+            logger.error("Failed to abort multipart copy uploadId={}: {}", uploadId, abortError.getMessage());
+            return Mono.empty();
+        });
+    }
+
+    /**
+     * Multipart operations for one copy, bound to its source and destination.
+     */
+    public interface MultipartCopyTarget {
+
+        Mono<String> initiate();
+
+        /**
+         * Copy the inclusive source byte range [start, end] into the given part.
+         */
+        Mono<String> copyPart(String uploadId, int partNumber, long start, long end);
+
+        Mono<String> complete(String uploadId, List<CompletedPart> parts);
+
+        Mono<Void> abort(String uploadId);
+    }
+}
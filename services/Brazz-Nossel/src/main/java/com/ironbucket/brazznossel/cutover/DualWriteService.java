@@ -1,10 +1,368 @@
 package com.ironbucket.brazznossel.cutover;
 
+import com.ironbucket.brazznossel.model.CutoverRequest;
+import com.ironbucket.brazznossel.model.CutoverStatus;
+import com.ironbucket.brazznossel.model.CutoverStatus.BackfillState;
+import com.ironbucket.brazznossel.model.CutoverStatus.Phase;
+import com.ironbucket.brazznossel.model.ListingEntry;
+import com.ironbucket.brazznossel.model.RoutingRules;
+import com.ironbucket.brazznossel.service.BackendRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * DualWriteService - Moves a tenant to another backend while it stays online.
+ *
+ * Starting a migration puts the tenant in dual-write: every write through the
+ * proxy is applied to the backend it is routed to and mirrored to the target,
+ * and a sample of reads is compared against the target. Meanwhile a backfill
+ * copies the objects that existed before the migration started. Once the
+ * backfill has completed without divergences, cutover points the tenant's
+ * routing at the target in one table swap.
+ *
+ * Migration state lives in memory; a restart drops in-flight migrations and
+ * they are started again, which the backfill tolerates by skipping objects
+ * that are already on the target.
+ */
+@Component
 public class DualWriteService {
 
-    public boolean validateDualWriteCutover(boolean sourceConsistent, boolean targetConsistent) {
-        String mode = "dual";
-        String phase = "cutover";
-        return mode.equals("dual") && phase.equals("cutover") && sourceConsistent && targetConsistent;
+    private static final Logger logger = LoggerFactory.getLogger(DualWriteService.class);
+
+    static final String DEFAULT_SOURCE = "default";
+
+    private final BackendRouter router;
+    private final boolean enabled;
+    private final int backfillConcurrency;
+    private final double shadowReadSampleRate;
+    private final Clock clock;
+    private final Counter writeDivergences;
+    private final Counter shadowReadMismatches;
+    private final Counter objectsCopied;
+    private final Map<String, Migration> migrations = new ConcurrentHashMap<>();
+
+    @Autowired
+    public DualWriteService(
+            BackendRouter router,
+            @Value("${app.s3.cutover.enabled:true}") boolean enabled,
+            @Value("${app.s3.cutover.backfill-concurrency:8}") int backfillConcurrency,
+            @Value("${app.s3.cutover.shadow-read-sample-rate:0.01}") double shadowReadSampleRate,
+            MeterRegistry meterRegistry) {
+        this(router, enabled, backfillConcurrency, shadowReadSampleRate, meterRegistry, Clock.systemUTC());
+    }
+
+    DualWriteService(
+            BackendRouter router,
+            boolean enabled,
+            int backfillConcurrency,
+            double shadowReadSampleRate,
+            MeterRegistry meterRegistry,
+            Clock clock) {
+        this.router = router;
+        this.enabled = enabled;
+        this.backfillConcurrency = Math.max(backfillConcurrency, 1);
+        this.shadowReadSampleRate = Math.clamp(shadowReadSampleRate, 0.0, 1.0);
+        this.clock = clock;
+        this.writeDivergences = Counter.builder("ironbucket.s3.cutover.divergences")
+                .description("Writes or backfilled objects that ended up different on the source and target backend")
+                .register(meterRegistry);
+        this.shadowReadMismatches = Counter.builder("ironbucket.s3.cutover.shadow-read.mismatches")
+                .description("Sampled reads whose object on the target backend differed from the source")
+                .register(meterRegistry);
+        this.objectsCopied = Counter.builder("ironbucket.s3.cutover.backfill.copied")
+                .description("Objects copied to the target backend by cutover backfills")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Cutover is only safe once both sides agree: the backfill has copied every
+     * pre-existing object and no mirrored write has diverged.
+     */
+    public boolean validateDualWriteCutover(boolean backfillComplete, boolean writesConverged) {
+        return backfillComplete && writesConverged;
+    }
+
+    public CutoverStatus start(String tenantId, CutoverRequest request) {
+        if (!enabled) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Backend cutover is disabled");
+        }
+        if (tenantId == null || tenantId.isBlank() || tenantId.contains("/")) {
+            throw new IllegalArgumentException("Invalid tenant id: " + tenantId);
+        }
+        if (request == null || request.targetProvider() == null || request.targetProvider().isBlank()) {
+            throw new IllegalArgumentException("targetProvider is required");
+        }
+        String target = BackendRouter.parseProvider(request.targetProvider()).name();
+        String source = router.rules().tenantDefaults().getOrDefault(tenantId, DEFAULT_SOURCE);
+        if (target.equals(source)) {
+            throw new IllegalArgumentException("Tenant " + tenantId + " is already routed to " + target);
+        }
+
+        Migration migration = new Migration(tenantId, source, target, Boolean.TRUE.equals(request.shadowReads()), clock.instant());
+        Migration existing = migrations.compute(tenantId, (id, current) ->
+                current != null && current.phase == Phase.DUAL_WRITE ? current : migration);
+        if (existing != migration) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Tenant " + tenantId + " is already migrating to " + existing.target);
+        }
+        logger.info("Cutover of tenant {} from {} to {} started; writes are now mirrored", tenantId, source, target);
+        return migration.status();
+    }
+
+    public CutoverStatus status(String tenantId) {
+        return migration(tenantId).status();
+    }
+
+    /**
+     * Provider writes of the tenant must be mirrored to, or null when it is not migrating.
+     */
+    public String dualWriteTarget(String tenantId) {
+        Migration migration = migrations.get(tenantId);
+        return migration != null && migration.phase == Phase.DUAL_WRITE ? migration.target : null;
+    }
+
+    /**
+     * Whether this read should also be checked against the migration target.
+     */
+    public boolean sampleShadowRead(String tenantId) {
+        Migration migration = migrations.get(tenantId);
+        return migration != null
+                && migration.phase == Phase.DUAL_WRITE
+                && migration.shadowReads
+                && ThreadLocalRandom.current().nextDouble() < shadowReadSampleRate;
+    }
+
+    public void recordWriteDivergence(String tenantId, String bucket, String key, String reason) {
+        Migration migration = migrations.get(tenantId);
+        if (migration == null || migration.phase != Phase.DUAL_WRITE) {
+            return;
+        }
+        migration.divergences.increment();
+        writeDivergences.increment();
+        logger.warn("Cutover of tenant {}: {} diverged on {}: {}",
+                tenantId, key == null ? bucket : bucket + "/" + key, migration.target, reason);
+    }
+
+    public void recordShadowRead(String tenantId, String bucket, String key, boolean matched) {
+        Migration migration = migrations.get(tenantId);
+        if (migration == null) {
+            return;
+        }
+        migration.shadowReadsCompared.increment();
+        if (!matched) {
+            migration.shadowReadMismatches.increment();
+            shadowReadMismatches.increment();
+            logger.warn("Cutover of tenant {}: shadow read of {}/{} differs on {}", tenantId, bucket, key, migration.target);
+        }
+    }
+
+    /**
+     * Route the tenant to the target. The tenant default moves and its bucket
+     * overrides are dropped, because the backfill copied every bucket to the
+     * target. Without force, the backfill must be complete and divergence free.
+     */
+    public synchronized CutoverStatus cutover(String tenantId, boolean force) {
+        Migration migration = migration(tenantId);
+        if (migration.phase != Phase.DUAL_WRITE) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Cutover of tenant " + tenantId + " is " + migration.phase);
+        }
+        boolean backfilled = migration.backfill == BackfillState.COMPLETED;
+        boolean converged = migration.divergences.sum() == 0;
+        if (!force && !validateDualWriteCutover(backfilled, converged)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, backfilled
+                    ? migration.divergences.sum() + " divergent writes; resolve them or force the cutover"
+                    : "Backfill is " + migration.backfill + "; wait for it to complete or force the cutover");
+        }
+
+        RoutingRules current = router.rules();
+        Map<String, String> tenantDefaults = new HashMap<>(current.tenantDefaults());
+        tenantDefaults.put(tenantId, migration.target);
+        Map<String, String> bucketOverrides = new HashMap<>(current.bucketOverrides());
+        bucketOverrides.keySet().removeIf(tenantBucket -> tenantBucket.startsWith(tenantId + "/"));
+        router.replace(new RoutingRules(tenantDefaults, bucketOverrides));
+
+        migration.finish(Phase.CUT_OVER, clock.instant());
+        logger.info("Tenant {} cut over from {} to {}{}", tenantId, migration.source, migration.target, force ? " (forced)" : "");
+        return migration.status();
+    }
+
+    /**
+     * Stop mirroring and backfilling. Routing is left unchanged; objects already
+     * copied to the target stay there.
+     */
+    public CutoverStatus abort(String tenantId) {
+        Migration migration = migration(tenantId);
+        if (migration.phase == Phase.DUAL_WRITE) {
+            migration.finish(Phase.ABORTED, clock.instant());
+            logger.info("Cutover of tenant {} to {} aborted", tenantId, migration.target);
+        }
+        return migration.status();
+    }
+
+    /**
+     * Start the backfill of every migration that does not have one running yet.
+     */
+    public Mono<Void> runPendingBackfills(BackfillTarget target) {
+        return Mono.fromRunnable(() -> migrations.values().stream()
+                .filter(migration -> migration.phase == Phase.DUAL_WRITE && migration.backfill == BackfillState.PENDING)
+                .forEach(migration -> backfill(migration, target)));
+    }
+
+    @PreDestroy
+    void stop() {
+        migrations.values().forEach(Migration::cancelBackfill);
+    }
+
+    private void backfill(Migration migration, BackfillTarget target) {
+        migration.updateBackfill(BackfillState.RUNNING, null, clock.instant());
+        logger.info("Backfilling tenant {} from {} to {}", migration.tenantId, migration.source, migration.target);
+        migration.run = target.buckets(migration.tenantId)
+                .concatMap(bucket -> target.prepareBucket(migration.tenantId, bucket, migration.target)
+                        .thenMany(target.objects(migration.tenantId, bucket))
+                        .filter(entry -> !entry.commonPrefix())
+                        .flatMap(entry -> target.copy(migration.tenantId, bucket, entry, migration.target)
+                                .doOnNext(outcome -> count(migration, bucket, entry, outcome)), backfillConcurrency), 1)
+                .then(Mono.fromRunnable(() -> {
+                    migration.updateBackfill(BackfillState.COMPLETED, null, clock.instant());
+                    logger.info("Backfill of tenant {} completed: {} copied, {} skipped, {} divergences",
+                            migration.tenantId, migration.copied.sum(), migration.skipped.sum(), migration.divergences.sum());
+                }))
+                .onErrorResume(error -> {
+                    logger.warn("Backfill of tenant {} failed: {}", migration.tenantId, error.getMessage());
+                    migration.updateBackfill(BackfillState.FAILED, error.getMessage(), clock.instant());
+                    return Mono.empty();
+                })
+                .subscribe();
+    }
+
+    private void count(Migration migration, String bucket, ListingEntry entry, CopyOutcome outcome) {
+        switch (outcome) {
+            case COPIED -> {
+                migration.copied.increment();
+                migration.bytesCopied.add(entry.size() == null ? 0 : entry.size());
+                objectsCopied.increment();
+            }
+            case SKIPPED -> migration.skipped.increment();
+            case DIVERGED -> recordWriteDivergence(migration.tenantId, bucket, entry.key(), "changed on the source while being copied");
+        }
+    }
+
+    private Migration migration(String tenantId) {
+        Migration migration = migrations.get(tenantId);
+        if (migration == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No cutover for tenant " + tenantId);
+        }
+        return migration;
+    }
+
+    /**
+     * Backend operations a backfill runs against.
+     */
+    public interface BackfillTarget {
+
+        Flux<String> buckets(String tenantId);
+
+        /**
+         * Create the bucket on the target provider unless it already exists there.
+         */
+        Mono<Void> prepareBucket(String tenantId, String bucket, String targetProvider);
+
+        Flux<ListingEntry> objects(String tenantId, String bucket);
+
+        /**
+         * Copy one object from the backend the bucket is routed to onto the target provider.
+         */
+        Mono<CopyOutcome> copy(String tenantId, String bucket, ListingEntry object, String targetProvider);
+    }
+
+    public enum CopyOutcome {
+        COPIED,
+        SKIPPED,
+        DIVERGED
+    }
+
+    private static final class Migration {
+
+        final String tenantId;
+        final String source;
+        final String target;
+        final boolean shadowReads;
+        final Instant startedAt;
+        final LongAdder copied = new LongAdder();
+        final LongAdder skipped = new LongAdder();
+        final LongAdder bytesCopied = new LongAdder();
+        final LongAdder divergences = new LongAdder();
+        final LongAdder shadowReadsCompared = new LongAdder();
+        final LongAdder shadowReadMismatches = new LongAdder();
+        volatile Phase phase = Phase.DUAL_WRITE;
+        volatile BackfillState backfill = BackfillState.PENDING;
+        volatile Instant updatedAt;
+        volatile String error;
+        volatile Disposable run;
+
+        Migration(String tenantId, String source, String target, boolean shadowReads, Instant startedAt) {
+            this.tenantId = tenantId;
+            this.source = source;
+            this.target = target;
+            this.shadowReads = shadowReads;
+            this.startedAt = startedAt;
+            this.updatedAt = startedAt;
+        }
+
+        void updateBackfill(BackfillState state, String error, Instant now) {
+            this.backfill = state;
+            this.error = error;
+            this.updatedAt = now;
+        }
+
+        void finish(Phase phase, Instant now) {
+            this.phase = phase;
+            this.updatedAt = now;
+            cancelBackfill();
+        }
+
+        void cancelBackfill() {
+            Disposable current = run;
+            if (current != null) {
+                current.dispose();
+            }
+        }
+
+        CutoverStatus status() {
+            return new CutoverStatus(
+                    tenantId,
+                    source,
+                    target,
+                    phase,
+                    backfill,
+                    shadowReads,
+                    copied.sum(),
+                    skipped.sum(),
+                    bytesCopied.sum(),
+                    divergences.sum(),
+                    shadowReadsCompared.sum(),
+                    shadowReadMismatches.sum(),
+                    startedAt,
+                    updatedAt,
+                    error);
+        }
     }
 }
@@ -0,0 +1,72 @@
+package com.ironbucket.brazznossel.download;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * ParallelRangeDownloader - Fetches a large object as concurrent byte ranges.
+ *
+ * The object is split into part-size ranges, up to max-concurrency of which
+ * are fetched at once. Parts are emitted strictly in order; a part that
+ * finishes early waits for the ones before it. Read-ahead is therefore
+ * bounded to max-concurrency parts plus the one being written out, and the
+ * next range is only requested once a slot frees up.
+ */
+@Component
+public class ParallelRangeDownloader {
+
+    private final boolean enabled;
+    private final long threshold;
+    private final long partSize;
+    private final int maxConcurrency;
+
+    @Autowired
+    public ParallelRangeDownloader(
+            @Value("${app.s3.parallel-get.enabled:false}") boolean enabled,
+            @Value("${app.s3.parallel-get.threshold:64MB}") DataSize threshold,
+            @Value("${app.s3.parallel-get.part-size:8MB}") DataSize partSize,
+            @Value("${app.s3.parallel-get.max-concurrency:4}") int maxConcurrency) {
+        this.enabled = enabled;
+        this.threshold = threshold.toBytes();
+        this.partSize = Math.max(partSize.toBytes(), 1);
+        this.maxConcurrency = Math.max(maxConcurrency, 1);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean appliesTo(long contentLength) {
+        return enabled && contentLength >= threshold && contentLength > partSize;
+    }
+
+    /**
+     * Stream the object by fetching its ranges concurrently.
+     *
+     * @param contentLength Total object length in bytes
+     * @param rangeFetcher Fetches the inclusive byte range [start, end] as one buffer
+     * @return The object body, in order
+     */
+    public Flux<DataBuffer> download(long contentLength, RangeFetcher rangeFetcher) {
+        long parts = (contentLength + partSize - 1) / partSize;
+        return Flux.range(0, Math.toIntExact(parts))
+                .flatMapSequential(part -> {
+                    long start = part * partSize;
+                    long end = Math.min(start + partSize, contentLength) - 1;
+                    return rangeFetcher.fetch(start, end);
+                }, maxConcurrency, 1)
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+    }
+
+    @FunctionalInterface
+    public interface RangeFetcher {
+
+        Mono<DataBuffer> fetch(long start, long end);
+    }
+}
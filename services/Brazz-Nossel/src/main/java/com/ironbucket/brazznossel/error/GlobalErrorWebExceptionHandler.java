@@ -2,6 +2,8 @@ package com.ironbucket.brazznossel.error;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ironbucket.brazznossel.ratelimit.SlowDownException;
+import com.ironbucket.brazznossel.s3api.S3ApiXml;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.UUID;
@@ -41,8 +43,12 @@ public class GlobalErrorWebExceptionHandler implements WebExceptionHandler, Orde
             return Mono.error(ex);
         }
 
-        HttpStatus status = resolveStatus(ex);
         String correlationId = resolveCorrelationId(exchange);
+        if (ex instanceof SlowDownException slowDown) {
+            return slowDown(exchange, slowDown, correlationId);
+        }
+
+        HttpStatus status = resolveStatus(ex);
         String traceId = MDC.get("traceId");
         String path = exchange.getRequest().getURI().getPath();
 
@@ -65,6 +71,10 @@ public class GlobalErrorWebExceptionHandler implements WebExceptionHandler, Orde
         );
 
         exchange.getResponse().setStatusCode(status);
+        if (ex instanceof ResponseStatusException responseStatusException) {
+            // Carries hints such as Retry-After on throttled requests
+            exchange.getResponse().getHeaders().addAll(responseStatusException.getHeaders());
+        }
         exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
         exchange.getResponse().getHeaders().set(CORRELATION_ID_HEADER, correlationId);
         exchange.getResponse().getHeaders().set(REQUEST_ID_HEADER, correlationId);
@@ -73,6 +83,22 @@ public class GlobalErrorWebExceptionHandler implements WebExceptionHandler, Orde
         return exchange.getResponse().writeWith(Mono.just(exchange.getResponse().bufferFactory().wrap(body)));
     }
 
+    /**
+     * Throttling is answered the way S3 does it, so SDK clients back off and retry
+     * instead of failing on a JSON body they cannot parse.
+     */
+    private Mono<Void> slowDown(ServerWebExchange exchange, SlowDownException ex, String correlationId) {
+        LOGGER.warn("Request throttled: tenant={}, path={}, correlationId={}, retryAfter={}",
+            ex.getTenantId(), exchange.getRequest().getURI().getPath(), correlationId, ex.getRetryAfter());
+        exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        exchange.getResponse().getHeaders().addAll(ex.getHeaders());
+        exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_XML);
+        exchange.getResponse().getHeaders().set(CORRELATION_ID_HEADER, correlationId);
+        exchange.getResponse().getHeaders().set(REQUEST_ID_HEADER, correlationId);
+        return exchange.getResponse().writeWith(Mono.just(S3ApiXml.error(exchange.getResponse().bufferFactory(),
+            "SlowDown", ex.getReason(), exchange.getRequest().getURI().getPath(), correlationId)));
+    }
+
     private String resolveCorrelationId(ServerWebExchange exchange) {
         String correlationId = exchange.getRequest().getHeaders().getFirst(CORRELATION_ID_HEADER);
         if (correlationId == null || correlationId.isBlank()) {
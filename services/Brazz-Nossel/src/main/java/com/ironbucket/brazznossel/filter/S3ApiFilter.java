@@ -0,0 +1,42 @@
+package com.ironbucket.brazznossel.filter;
+
+import com.ironbucket.brazznossel.s3api.S3ApiHandler;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * S3 API Filter
+ *
+ * Hands SigV4-signed and virtual-host requests to the native S3 API instead
+ * of the JWT API. Runs ahead of Spring Security, whose filter chain sits at
+ * order -100: these requests authenticate with their signature, not a bearer
+ * token. Everything else continues down the chain untouched.
+ */
+@Component
+public class S3ApiFilter implements WebFilter, Ordered {
+
+    static final int ORDER = -200;
+
+    private final S3ApiHandler handler;
+
+    public S3ApiFilter(S3ApiHandler handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!handler.claims(exchange.getRequest())) {
+            return chain.filter(exchange);
+        }
+        return handler.handle(exchange);
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+}
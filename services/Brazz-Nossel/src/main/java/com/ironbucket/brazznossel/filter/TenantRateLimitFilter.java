@@ -0,0 +1,72 @@
+package com.ironbucket.brazznossel.filter;
+
+import com.ironbucket.brazznossel.controller.JwtIdentityMapper;
+import com.ironbucket.brazznossel.ratelimit.TenantRateLimiter;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+
+/**
+ * Tenant Rate Limit Filter
+ * 
+ * Applies the tenant's request rate limit to every authenticated request and
+ * shapes both the request and the response body to the tenant's bandwidth.
+ * Runs after Spring Security so the JWT, and with it the tenant, is known.
+ */
+@Component
+public class TenantRateLimitFilter implements WebFilter {
+
+    private final TenantRateLimiter rateLimiter;
+
+    public TenantRateLimitFilter(TenantRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!rateLimiter.isEnabled()) {
+            return chain.filter(exchange);
+        }
+        return exchange.getPrincipal()
+                .filter(JwtAuthenticationToken.class::isInstance)
+                .map(principal -> Optional.of(JwtIdentityMapper.toIdentity(((JwtAuthenticationToken) principal).getToken()).getTenantId()))
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(tenant -> tenant.isEmpty()
+                        ? chain.filter(exchange)
+                        : Mono.defer(() -> {
+                            rateLimiter.checkRequest(tenant.get());
+                            return chain.filter(shaped(exchange, tenant.get()));
+                        }));
+    }
+
+    private ServerWebExchange shaped(ServerWebExchange exchange, String tenantId) {
+        ServerHttpRequestDecorator request = new ServerHttpRequestDecorator(exchange.getRequest()) {
+            @Override
+            public Flux<DataBuffer> getBody() {
+                return rateLimiter.shape(tenantId, super.getBody());
+            }
+        };
+        ServerHttpResponseDecorator response = new ServerHttpResponseDecorator(exchange.getResponse()) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                return super.writeWith(rateLimiter.shape(tenantId, Flux.from(body)));
+            }
+
+            @Override
+            public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+                return super.writeAndFlushWith(Flux.from(body).map(chunk -> rateLimiter.shape(tenantId, Flux.from(chunk))));
+            }
+        };
+        return exchange.mutate().request(request).response(response).build();
+    }
+}
@@ -0,0 +1,69 @@
+package com.ironbucket.brazznossel.listing;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+import java.io.OutputStream;
+
+/**
+ * Output stream that serializers write into directly, in buffers taken from
+ * the response's factory. Each {@link #take()} hands over what was written
+ * since the previous one, so a document leaves as a series of chunks and is
+ * never held whole.
+ */
+final class DataBufferOutputStream extends OutputStream {
+
+    private static final int INITIAL_CAPACITY = 8 * 1024;
+
+    private final DataBufferFactory bufferFactory;
+    private DataBuffer current;
+
+    DataBufferOutputStream(DataBufferFactory bufferFactory) {
+        this.bufferFactory = bufferFactory;
+    }
+
+    @Override
+    public void write(int b) {
+        writable(1).write((byte) b);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        writable(length).write(bytes, offset, length);
+    }
+
+    /**
+     * The bytes written since the last call, or null when there are none.
+     * Ownership of the buffer passes to the caller.
+     */
+    DataBuffer take() {
+        DataBuffer taken = current;
+        current = null;
+        return taken;
+    }
+
+    /**
+     * Releases bytes that were written but never taken.
+     */
+    void discard() {
+        DataBuffer pending = take();
+        if (pending != null) {
+            DataBufferUtils.release(pending);
+        }
+    }
+
+    // Serializers flush and close their target, which has nothing to do here
+    @Override
+    public void close() {
+    }
+
+    private DataBuffer writable(int length) {
+        if (current == null) {
+            current = bufferFactory.allocateBuffer(Math.max(INITIAL_CAPACITY, length));
+        } else {
+            current.ensureWritable(length);
+        }
+        return current;
+    }
+}
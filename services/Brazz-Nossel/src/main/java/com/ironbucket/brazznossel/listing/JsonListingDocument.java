@@ -0,0 +1,109 @@
+package com.ironbucket.brazznossel.listing;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.ironbucket.brazznossel.model.BucketSummary;
+import com.ironbucket.brazznossel.model.ListObjectsQuery;
+import com.ironbucket.brazznossel.model.ListingEntry;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+
+/**
+ * JSON listings written with a Jackson generator.
+ *
+ * Fields mirror the S3 XML elements in camel case. Objects and common prefixes
+ * share one "entries" array in listing order, with the same fields as the
+ * NDJSON listing stream, since a streaming writer cannot go back to a second
+ * array once the first has been closed.
+ */
+final class JsonListingDocument implements ListingDocument {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final JsonGenerator generator;
+
+    JsonListingDocument(OutputStream target) throws IOException {
+        this.generator = JSON_FACTORY.createGenerator(target, JsonEncoding.UTF8);
+    }
+
+    @Override
+    public void startBuckets(String ownerId, String ownerName) throws IOException {
+        generator.writeStartObject();
+        generator.writeObjectFieldStart("owner");
+        field("id", ownerId);
+        field("displayName", ownerName);
+        generator.writeEndObject();
+        generator.writeArrayFieldStart("buckets");
+    }
+
+    @Override
+    public void bucket(BucketSummary bucket) throws IOException {
+        generator.writeStartObject();
+        field("name", bucket.name());
+        field("creationDate", bucket.creationDate());
+        generator.writeEndObject();
+    }
+
+    @Override
+    public void endBuckets() throws IOException {
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.close();
+    }
+
+    @Override
+    public void startObjects(String bucket, ListObjectsQuery query) throws IOException {
+        generator.writeStartObject();
+        field("name", bucket);
+        field("prefix", query.prefix() == null ? "" : query.prefix());
+        field("delimiter", query.delimiter());
+        field("startAfter", query.startAfter());
+        field("continuationToken", query.continuationToken());
+        generator.writeNumberField("maxKeys", query.maxKeys() == null ? ListObjectsQuery.MAX_KEYS_LIMIT : query.maxKeys());
+        generator.writeArrayFieldStart("entries");
+    }
+
+    @Override
+    public void entry(ListingEntry entry) throws IOException {
+        generator.writeStartObject();
+        field("key", entry.key());
+        if (entry.size() != null) {
+            generator.writeNumberField("size", entry.size());
+        }
+        field("eTag", entry.eTag());
+        field("lastModified", entry.lastModified());
+        field("storageClass", entry.storageClass());
+        generator.writeBooleanField("commonPrefix", entry.commonPrefix());
+        generator.writeEndObject();
+    }
+
+    @Override
+    public void endObjects(long keyCount, boolean truncated, String nextContinuationToken) throws IOException {
+        generator.writeEndArray();
+        generator.writeNumberField("keyCount", keyCount);
+        generator.writeBooleanField("isTruncated", truncated);
+        field("nextContinuationToken", nextContinuationToken);
+        generator.writeEndObject();
+        generator.close();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        generator.flush();
+    }
+
+    private void field(String name, String value) throws IOException {
+        if (value != null) {
+            generator.writeStringField(name, value);
+        }
+    }
+
+    private void field(String name, Instant value) throws IOException {
+        if (value != null) {
+            generator.writeStringField(name, value.toString());
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.ironbucket.brazznossel.listing;
+
+import com.ironbucket.brazznossel.model.BucketSummary;
+import com.ironbucket.brazznossel.model.ListObjectsQuery;
+import com.ironbucket.brazznossel.model.ListingEntry;
+
+import java.io.IOException;
+
+/**
+ * A listing document written element by element by a streaming serializer.
+ * Nothing is kept once it has been written to the serializer's target.
+ */
+interface ListingDocument {
+
+    void startBuckets(String ownerId, String ownerName) throws IOException;
+
+    void bucket(BucketSummary bucket) throws IOException;
+
+    void endBuckets() throws IOException;
+
+    void startObjects(String bucket, ListObjectsQuery query) throws IOException;
+
+    void entry(ListingEntry entry) throws IOException;
+
+    /**
+     * Closes an object listing with what is only known once every entry has been written.
+     */
+    void endObjects(long keyCount, boolean truncated, String nextContinuationToken) throws IOException;
+
+    /**
+     * Pushes anything the serializer still buffers to its target.
+     */
+    void flush() throws IOException;
+}
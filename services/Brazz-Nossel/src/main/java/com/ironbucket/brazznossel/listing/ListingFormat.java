@@ -0,0 +1,47 @@
+package com.ironbucket.brazznossel.listing;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+/**
+ * ListingFormat - Representation of a bucket or object listing.
+ *
+ * XML is the S3 wire format (ListAllMyBucketsResult, ListBucketResult), JSON
+ * carries the same fields for clients that would rather not parse XML, and
+ * TEXT is the original human-readable listing, kept as the default so
+ * existing callers see no change.
+ */
+public enum ListingFormat {
+    TEXT(MediaType.TEXT_PLAIN),
+    XML(MediaType.APPLICATION_XML),
+    JSON(MediaType.APPLICATION_JSON);
+
+    private final MediaType mediaType;
+
+    ListingFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    /**
+     * The format named by the first Accept entry that asks for XML or JSON
+     * explicitly; wildcards and anything else fall back to TEXT.
+     */
+    public static ListingFormat negotiate(HttpHeaders headers) {
+        for (MediaType accepted : headers.getAccept()) {
+            if (accepted.isWildcardType() || accepted.isWildcardSubtype()) {
+                continue;
+            }
+            if (MediaType.APPLICATION_XML.isCompatibleWith(accepted) || MediaType.TEXT_XML.isCompatibleWith(accepted)) {
+                return XML;
+            }
+            if (MediaType.APPLICATION_JSON.isCompatibleWith(accepted)) {
+                return JSON;
+            }
+        }
+        return TEXT;
+    }
+}
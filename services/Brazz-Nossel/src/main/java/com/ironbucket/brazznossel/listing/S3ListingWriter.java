@@ -0,0 +1,138 @@
+package com.ironbucket.brazznossel.listing;
+
+import com.ironbucket.brazznossel.model.BucketSummary;
+import com.ironbucket.brazznossel.model.ListObjectsQuery;
+import com.ironbucket.brazznossel.model.ListingEntry;
+import com.ironbucket.brazznossel.model.ObjectListingPage;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.util.function.Function;
+
+/**
+ * S3ListingWriter - Serializes bucket and object listings straight into response buffers.
+ *
+ * Listings are written as ListAllMyBucketsResult / ListBucketResult XML or
+ * their JSON equivalent by a streaming serializer. Each backend page is
+ * written and handed to the response as one chunk before the next page is
+ * requested, so a listing of any size costs about one page of memory and is
+ * never built up as a String.
+ */
+public final class S3ListingWriter {
+
+    @FunctionalInterface
+    private interface DocumentStep {
+        void write(ListingDocument document) throws IOException;
+    }
+
+    private S3ListingWriter() {
+    }
+
+    /**
+     * A ListAllMyBucketsResult document for the given owner.
+     */
+    public static Flux<DataBuffer> buckets(
+            ListingFormat format,
+            String ownerId,
+            String ownerName,
+            Flux<BucketSummary> buckets,
+            DataBufferFactory bufferFactory) {
+        return write(format, bufferFactory,
+                document -> document.startBuckets(ownerId, ownerName),
+                session -> Flux.concat(
+                        buckets.buffer(ListObjectsQuery.MAX_KEYS_LIMIT).concatMap(batch -> session.chunk(document -> {
+                            for (BucketSummary bucket : batch) {
+                                document.bucket(bucket);
+                            }
+                        }), 1),
+                        Mono.defer(() -> session.chunk(ListingDocument::endBuckets))));
+    }
+
+    /**
+     * A ListBucketResult document with the entries of every page. KeyCount
+     * counts objects and common prefixes, and the document is truncated when
+     * the last page was.
+     */
+    public static Flux<DataBuffer> objects(
+            ListingFormat format,
+            String bucket,
+            ListObjectsQuery query,
+            Flux<ObjectListingPage> pages,
+            DataBufferFactory bufferFactory) {
+        return write(format, bufferFactory,
+                document -> document.startObjects(bucket, query),
+                session -> {
+                    long[] keyCount = new long[1];
+                    ObjectListingPage[] last = new ObjectListingPage[1];
+                    return Flux.concat(
+                            pages.concatMap(page -> session.chunk(document -> {
+                                for (ListingEntry entry : page.entries()) {
+                                    document.entry(entry);
+                                    keyCount[0]++;
+                                }
+                                last[0] = page;
+                            }), 1),
+                            Mono.defer(() -> session.chunk(document -> document.endObjects(
+                                    keyCount[0],
+                                    last[0] != null && last[0].truncated(),
+                                    last[0] == null ? null : last[0].nextContinuationToken()))));
+                });
+    }
+
+    private static Flux<DataBuffer> write(
+            ListingFormat format,
+            DataBufferFactory bufferFactory,
+            DocumentStep start,
+            Function<Session, Flux<DataBuffer>> body) {
+        return Flux.defer(() -> {
+            Session session = new Session(new DataBufferOutputStream(bufferFactory));
+            try {
+                session.document = open(format, session.output);
+                // The opening elements go out with the first chunk of entries
+                start.write(session.document);
+            } catch (IOException e) {
+                session.output.discard();
+                return Flux.error(e);
+            }
+            return body.apply(session)
+                    .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                    .doFinally(signal -> session.output.discard());
+        });
+    }
+
+    private static ListingDocument open(ListingFormat format, DataBufferOutputStream output) throws IOException {
+        return switch (format) {
+            case XML -> new XmlListingDocument(output);
+            case JSON -> new JsonListingDocument(output);
+            case TEXT -> throw new IllegalArgumentException("Text listings are not streamed");
+        };
+    }
+
+    /**
+     * One document being written; steps run one at a time, in order.
+     */
+    private static final class Session {
+
+        private final DataBufferOutputStream output;
+        private ListingDocument document;
+
+        private Session(DataBufferOutputStream output) {
+            this.output = output;
+        }
+
+        /**
+         * Runs a step and emits everything written since the previous chunk.
+         */
+        Mono<DataBuffer> chunk(DocumentStep step) {
+            return Mono.fromCallable(() -> {
+                step.write(document);
+                document.flush();
+                return output.take();
+            });
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.ironbucket.brazznossel.listing;
+
+import com.ironbucket.brazznossel.model.BucketSummary;
+import com.ironbucket.brazznossel.model.ListObjectsQuery;
+import com.ironbucket.brazznossel.model.ListingEntry;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * S3 wire-format listings written with a StAX stream writer.
+ *
+ * Element names and order follow the S3 REST API, so SDKs and tools parse the
+ * responses as they would S3's own. KeyCount and IsTruncated are written after
+ * the entries because they are only known once the last page has been read;
+ * XML clients look elements up by name, so the position does not matter.
+ */
+final class XmlListingDocument implements ListingDocument {
+
+    private static final String S3_NAMESPACE = "http://s3.amazonaws.com/doc/2006-03-01/";
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newFactory();
+    // S3 always writes milliseconds, which Instant.toString drops when they are zero
+    private static final DateTimeFormatter TIMESTAMP =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
+
+    @FunctionalInterface
+    private interface XmlWrite {
+        void run() throws XMLStreamException;
+    }
+
+    private final XMLStreamWriter writer;
+
+    XmlListingDocument(OutputStream target) throws IOException {
+        try {
+            this.writer = OUTPUT_FACTORY.createXMLStreamWriter(target, "UTF-8");
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void startBuckets(String ownerId, String ownerName) throws IOException {
+        write(() -> {
+            startDocument("ListAllMyBucketsResult");
+            writer.writeStartElement("Owner");
+            element("ID", ownerId);
+            element("DisplayName", ownerName);
+            writer.writeEndElement();
+            writer.writeStartElement("Buckets");
+        });
+    }
+
+    @Override
+    public void bucket(BucketSummary bucket) throws IOException {
+        write(() -> {
+            writer.writeStartElement("Bucket");
+            element("Name", bucket.name());
+            element("CreationDate", timestamp(bucket.creationDate()));
+            writer.writeEndElement();
+        });
+    }
+
+    @Override
+    public void endBuckets() throws IOException {
+        write(() -> {
+            writer.writeEndElement();
+            endDocument();
+        });
+    }
+
+    @Override
+    public void startObjects(String bucket, ListObjectsQuery query) throws IOException {
+        write(() -> {
+            startDocument("ListBucketResult");
+            element("Name", bucket);
+            element("Prefix", query.prefix() == null ? "" : query.prefix());
+            element("Delimiter", query.delimiter());
+            element("StartAfter", query.startAfter());
+            element("ContinuationToken", query.continuationToken());
+            element("MaxKeys", String.valueOf(query.maxKeys() == null ? ListObjectsQuery.MAX_KEYS_LIMIT : query.maxKeys()));
+        });
+    }
+
+    @Override
+    public void entry(ListingEntry entry) throws IOException {
+        write(() -> {
+            if (entry.commonPrefix()) {
+                writer.writeStartElement("CommonPrefixes");
+                element("Prefix", entry.key());
+                writer.writeEndElement();
+                return;
+            }
+            writer.writeStartElement("Contents");
+            element("Key", entry.key());
+            element("LastModified", timestamp(entry.lastModified()));
+            element("ETag", entry.eTag());
+            element("Size", entry.size() == null ? null : String.valueOf(entry.size()));
+            element("StorageClass", entry.storageClass());
+            writer.writeEndElement();
+        });
+    }
+
+    @Override
+    public void endObjects(long keyCount, boolean truncated, String nextContinuationToken) throws IOException {
+        write(() -> {
+            element("KeyCount", String.valueOf(keyCount));
+            element("IsTruncated", String.valueOf(truncated));
+            element("NextContinuationToken", nextContinuationToken);
+            endDocument();
+        });
+    }
+
+    @Override
+    public void flush() throws IOException {
+        write(writer::flush);
+    }
+
+    private void startDocument(String root) throws XMLStreamException {
+        writer.writeStartDocument("UTF-8", "1.0");
+        writer.writeStartElement(root);
+        writer.writeDefaultNamespace(S3_NAMESPACE);
+    }
+
+    private void endDocument() throws XMLStreamException {
+        writer.writeEndElement();
+        writer.writeEndDocument();
+        writer.close();
+    }
+
+    // Absent values are left out, as S3 does, rather than written empty
+    private void element(String name, String value) throws XMLStreamException {
+        if (value == null) {
+            return;
+        }
+        writer.writeStartElement(name);
+        writer.writeCharacters(value);
+        writer.writeEndElement();
+    }
+
+    private static String timestamp(Instant instant) {
+        return instant == null ? null : TIMESTAMP.format(instant);
+    }
+
+    private static void write(XmlWrite action) throws IOException {
+        try {
+            action.run();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+}
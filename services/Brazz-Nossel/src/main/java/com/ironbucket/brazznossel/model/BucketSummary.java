@@ -0,0 +1,15 @@
+package com.ironbucket.brazznossel.model;
+
+import java.time.Instant;
+
+/**
+ * BucketSummary - Bucket name and creation date as listed by the backend.
+ *
+ * @param name Bucket name, prefixed with the owning tenant
+ * @param creationDate When the bucket was created, may be null
+ */
+public record BucketSummary(
+    String name,
+    Instant creationDate
+) {
+}
@@ -0,0 +1,93 @@
+package com.ironbucket.brazznossel.model;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BulkJob - State of a prefix-scoped bulk operation.
+ *
+ * The continuation token marks the first listing page that has not been fully
+ * applied yet, so a restarted job picks up from there.
+ *
+ * @param id Job id
+ * @param operation What is applied to every object under the prefix
+ * @param state Current lifecycle state
+ * @param tenantId Owning tenant
+ * @param userId Submitting user
+ * @param username Submitting user's display name
+ * @param roles Roles of the submitting user, reused when the job resumes
+ * @param bucket Source bucket
+ * @param prefix Key prefix the job applies to
+ * @param targetBucket Destination bucket for copies, null otherwise
+ * @param targetPrefix Prefix that replaces {@code prefix} in copied keys, null to keep keys
+ * @param tags Tags to set for retag jobs, empty otherwise
+ * @param continuationToken Listing token to resume from, null at the start
+ * @param objectsProcessed Objects the operation has been applied to
+ * @param objectsFailed Objects for which the operation failed
+ * @param createdAt Submission time
+ * @param updatedAt Time of the last checkpoint
+ * @param error Failure reason when the job failed, null otherwise
+ */
+public record BulkJob(
+    String id,
+    Operation operation,
+    State state,
+    String tenantId,
+    String userId,
+    String username,
+    List<String> roles,
+    String bucket,
+    String prefix,
+    String targetBucket,
+    String targetPrefix,
+    Map<String, String> tags,
+    String continuationToken,
+    long objectsProcessed,
+    long objectsFailed,
+    Instant createdAt,
+    Instant updatedAt,
+    String error
+) {
+
+    public enum Operation {
+        DELETE,
+        COPY,
+        TAG
+    }
+
+    public enum State {
+        RUNNING,
+        COMPLETED,
+        FAILED,
+        CANCELLED
+    }
+
+    public BulkJob {
+        roles = roles == null ? List.of() : List.copyOf(roles);
+        tags = tags == null ? Map.of() : Map.copyOf(tags);
+    }
+
+    public NormalizedIdentity identity() {
+        return NormalizedIdentity.builder()
+            .userId(userId)
+            .tenantId(tenantId)
+            .preferredUsername(username)
+            .roles(roles)
+            .build();
+    }
+
+    /**
+     * The job after one more listing page has been applied.
+     */
+    public BulkJob checkpoint(String nextContinuationToken, long processed, long failed, Instant now) {
+        return new BulkJob(id, operation, state, tenantId, userId, username, roles, bucket, prefix, targetBucket,
+            targetPrefix, tags, nextContinuationToken, objectsProcessed + processed, objectsFailed + failed,
+            createdAt, now, error);
+    }
+
+    public BulkJob finish(State finalState, String failure, Instant now) {
+        return new BulkJob(id, operation, finalState, tenantId, userId, username, roles, bucket, prefix, targetBucket,
+            targetPrefix, tags, continuationToken, objectsProcessed, objectsFailed, createdAt, now, failure);
+    }
+}
@@ -0,0 +1,21 @@
+package com.ironbucket.brazznossel.model;
+
+import java.util.Map;
+
+/**
+ * BulkJobRequest - Submission of a prefix-scoped bulk operation.
+ *
+ * @param operation DELETE, COPY or TAG
+ * @param prefix Key prefix to apply the operation to
+ * @param targetBucket Destination bucket, required for COPY
+ * @param targetPrefix Replacement for {@code prefix} in copied keys, optional
+ * @param tags Tags to set, required for TAG
+ */
+public record BulkJobRequest(
+    BulkJob.Operation operation,
+    String prefix,
+    String targetBucket,
+    String targetPrefix,
+    Map<String, String> tags
+) {
+}
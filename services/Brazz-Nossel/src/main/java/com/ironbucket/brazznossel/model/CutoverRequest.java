@@ -0,0 +1,13 @@
+package com.ironbucket.brazznossel.model;
+
+/**
+ * CutoverRequest - Start of a live migration of one tenant to another backend.
+ *
+ * @param targetProvider Provider the tenant moves to (aws-s3, gcs, azure-blob, local-filesystem)
+ * @param shadowReads Whether reads are also sent to the target and compared, false when null
+ */
+public record CutoverRequest(
+    String targetProvider,
+    Boolean shadowReads
+) {
+}
@@ -0,0 +1,54 @@
+package com.ironbucket.brazznossel.model;
+
+import java.time.Instant;
+
+/**
+ * CutoverStatus - Progress of a tenant's live backend migration.
+ *
+ * @param tenantId Migrating tenant
+ * @param sourceProvider Tenant default provider when the migration started, "default" when unset
+ * @param targetProvider Provider the tenant moves to
+ * @param phase DUAL_WRITE while both backends receive writes, then CUT_OVER or ABORTED
+ * @param backfill State of the copy of pre-existing objects
+ * @param shadowReads Whether reads are compared against the target
+ * @param objectsCopied Objects the backfill copied to the target
+ * @param objectsSkipped Objects the backfill found already present on the target
+ * @param bytesCopied Bytes the backfill copied
+ * @param writeDivergences Writes that succeeded on one backend but not the other
+ * @param shadowReadsCompared Reads compared against the target
+ * @param shadowReadMismatches Compared reads whose target object differed
+ * @param startedAt Start of the migration
+ * @param updatedAt Last phase or backfill state change
+ * @param error Reason the backfill failed, null otherwise
+ */
+public record CutoverStatus(
+    String tenantId,
+    String sourceProvider,
+    String targetProvider,
+    Phase phase,
+    BackfillState backfill,
+    boolean shadowReads,
+    long objectsCopied,
+    long objectsSkipped,
+    long bytesCopied,
+    long writeDivergences,
+    long shadowReadsCompared,
+    long shadowReadMismatches,
+    Instant startedAt,
+    Instant updatedAt,
+    String error
+) {
+
+    public enum Phase {
+        DUAL_WRITE,
+        CUT_OVER,
+        ABORTED
+    }
+
+    public enum BackfillState {
+        PENDING,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+}
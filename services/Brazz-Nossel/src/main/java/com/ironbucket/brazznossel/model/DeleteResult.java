@@ -0,0 +1,27 @@
+package com.ironbucket.brazznossel.model;
+
+/**
+ * DeleteResult - Outcome for one key of a multi-object delete.
+ *
+ * @param key The object key
+ * @param deleted Whether the backend reported the key as deleted
+ * @param versionId Version id of the delete (or delete marker), may be null
+ * @param errorCode S3 error code when the delete failed, null otherwise
+ * @param message Error message when the delete failed, null otherwise
+ */
+public record DeleteResult(
+    String key,
+    boolean deleted,
+    String versionId,
+    String errorCode,
+    String message
+) {
+
+    public static DeleteResult deleted(String key, String versionId) {
+        return new DeleteResult(key, true, versionId, null, null);
+    }
+
+    public static DeleteResult failed(String key, String errorCode, String message) {
+        return new DeleteResult(key, false, null, errorCode, message);
+    }
+}
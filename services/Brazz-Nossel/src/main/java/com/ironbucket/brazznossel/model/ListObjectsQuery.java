@@ -0,0 +1,38 @@
+package com.ironbucket.brazznossel.model;
+
+/**
+ * ListObjectsQuery - ListObjectsV2 parameters accepted by the proxy.
+ *
+ * @param prefix Only keys starting with this prefix, may be null
+ * @param delimiter Groups keys sharing a prefix up to the delimiter into common prefixes, may be null
+ * @param startAfter Start listing after this key, may be null
+ * @param maxKeys Maximum keys per page (1-1000), null for the backend default
+ * @param continuationToken Token from the previous page, null for the first page
+ */
+public record ListObjectsQuery(
+    String prefix,
+    String delimiter,
+    String startAfter,
+    Integer maxKeys,
+    String continuationToken
+) {
+
+    public static final int MAX_KEYS_LIMIT = 1000;
+
+    public ListObjectsQuery {
+        if (maxKeys != null && (maxKeys < 1 || maxKeys > MAX_KEYS_LIMIT)) {
+            throw new IllegalArgumentException("max-keys must be between 1 and " + MAX_KEYS_LIMIT);
+        }
+    }
+
+    /**
+     * Query for every key in the bucket.
+     */
+    public static ListObjectsQuery all() {
+        return new ListObjectsQuery(null, null, null, null, null);
+    }
+
+    public ListObjectsQuery withContinuationToken(String token) {
+        return new ListObjectsQuery(prefix, delimiter, startAfter, maxKeys, token);
+    }
+}
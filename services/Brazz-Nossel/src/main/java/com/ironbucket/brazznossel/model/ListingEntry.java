@@ -0,0 +1,31 @@
+package com.ironbucket.brazznossel.model;
+
+import java.time.Instant;
+
+/**
+ * ListingEntry - One line of an object listing: either an object or a common prefix.
+ *
+ * @param key Object key, or the common prefix when {@code commonPrefix} is true
+ * @param size Object size in bytes, null for common prefixes
+ * @param eTag Object ETag, null for common prefixes
+ * @param lastModified Last modification time, null for common prefixes
+ * @param storageClass Backend storage class, null for common prefixes
+ * @param commonPrefix Whether this entry is a delimiter-grouped prefix
+ */
+public record ListingEntry(
+    String key,
+    Long size,
+    String eTag,
+    Instant lastModified,
+    String storageClass,
+    boolean commonPrefix
+) {
+
+    public static ListingEntry object(String key, Long size, String eTag, Instant lastModified, String storageClass) {
+        return new ListingEntry(key, size, eTag, lastModified, storageClass, false);
+    }
+
+    public static ListingEntry prefix(String prefix) {
+        return new ListingEntry(prefix, null, null, null, null, true);
+    }
+}
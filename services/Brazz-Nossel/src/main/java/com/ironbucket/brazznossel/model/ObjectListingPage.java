@@ -0,0 +1,30 @@
+package com.ironbucket.brazznossel.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ObjectListingPage - One ListObjectsV2 page as returned by the backend.
+ *
+ * @param objects Objects on this page
+ * @param commonPrefixes Common prefixes on this page when a delimiter was given
+ * @param truncated Whether more pages follow
+ * @param nextContinuationToken Token for the next page, null on the last page
+ */
+public record ObjectListingPage(
+    List<ListingEntry> objects,
+    List<String> commonPrefixes,
+    boolean truncated,
+    String nextContinuationToken
+) {
+
+    /**
+     * Objects followed by common prefixes, in the order they are streamed to clients.
+     */
+    public List<ListingEntry> entries() {
+        List<ListingEntry> entries = new ArrayList<>(objects.size() + commonPrefixes.size());
+        entries.addAll(objects);
+        commonPrefixes.forEach(prefix -> entries.add(ListingEntry.prefix(prefix)));
+        return entries;
+    }
+}
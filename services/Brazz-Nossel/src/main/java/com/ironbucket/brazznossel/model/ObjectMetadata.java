@@ -0,0 +1,21 @@
+package com.ironbucket.brazznossel.model;
+
+import java.time.Instant;
+
+/**
+ * ObjectMetadata - Result of a HEAD on an object.
+ *
+ * @param eTag Backend ETag
+ * @param contentLength Object size in bytes, or -1 when unknown
+ * @param contentType Backend content type, may be null
+ * @param lastModified Last modification time, may be null
+ * @param versionId Version id when the bucket is versioned, may be null
+ */
+public record ObjectMetadata(
+    String eTag,
+    long contentLength,
+    String contentType,
+    Instant lastModified,
+    String versionId
+) {
+}
@@ -0,0 +1,19 @@
+package com.ironbucket.brazznossel.model;
+
+import java.util.Map;
+
+/**
+ * RoutingRules - Backend routing configuration as exchanged with the admin API.
+ *
+ * @param tenantDefaults Provider name per tenant id
+ * @param bucketOverrides Provider name per "tenant/bucket" key
+ */
+public record RoutingRules(
+    Map<String, String> tenantDefaults,
+    Map<String, String> bucketOverrides
+) {
+    public RoutingRules {
+        tenantDefaults = tenantDefaults == null ? Map.of() : Map.copyOf(tenantDefaults);
+        bucketOverrides = bucketOverrides == null ? Map.of() : Map.copyOf(bucketOverrides);
+    }
+}
@@ -0,0 +1,41 @@
+package com.ironbucket.brazznossel.model;
+
+import com.ironbucket.brazznossel.checksum.ChecksumAlgorithm;
+import org.springframework.core.io.buffer.DataBuffer;
+import reactor.core.publisher.Flux;
+
+import java.util.Map;
+
+/**
+ * StreamedObject - Object payload that is piped through the proxy chunk by chunk.
+ *
+ * Carries the backend response metadata needed to build the HTTP response
+ * together with a body publisher that is only read once it is subscribed,
+ * so the object never has to be held on the heap as a whole.
+ *
+ * @param contentLength Object size in bytes, or -1 when unknown
+ * @param contentType Backend content type, may be null
+ * @param eTag Backend ETag, may be null
+ * @param body The object bytes as a cold stream of buffers
+ * @param checksums Checksums stored with the object, empty when it was uploaded without any
+ */
+public record StreamedObject(
+    long contentLength,
+    String contentType,
+    String eTag,
+    Flux<DataBuffer> body,
+    Map<ChecksumAlgorithm, String> checksums
+) {
+
+    public StreamedObject {
+        checksums = checksums == null ? Map.of() : Map.copyOf(checksums);
+    }
+
+    public StreamedObject(long contentLength, String contentType, String eTag, Flux<DataBuffer> body) {
+        this(contentLength, contentType, eTag, body, Map.of());
+    }
+
+    public StreamedObject withBody(Flux<DataBuffer> body) {
+        return new StreamedObject(contentLength, contentType, eTag, body, checksums);
+    }
+}
@@ -0,0 +1,224 @@
+package com.ironbucket.brazznossel.multipart;
+
+import com.ironbucket.brazznossel.model.NormalizedIdentity;
+import com.ironbucket.brazznossel.service.S3ProxyService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * AutoMultipartUploader - Turns a large streamed PUT into a parallel multipart upload.
+ *
+ * The request body is cut into fixed-size parts as it arrives and the parts
+ * are uploaded concurrently. At most max-in-flight-parts parts are uploading
+ * at once, further capped so that in-flight parts plus the part being filled
+ * fit in the memory budget; the request body is only read as fast as parts
+ * complete. If any part fails, or the caller goes away, the upload is aborted
+ * so no orphaned parts are left behind.
+ */
+@Component
+public class AutoMultipartUploader {
+
+    private static final Logger logger = LoggerFactory.getLogger(AutoMultipartUploader.class);
+
+    // S3 limits: every part but the last must be at least 5 MiB, and an upload has at most 10,000 parts
+    static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+    static final int MAX_PARTS = 10_000;
+    // Parts are held as byte arrays
+    static final long MAX_PART_SIZE = Integer.MAX_VALUE - 8;
+
+    private final boolean enabled;
+    private final long threshold;
+    private final long partSize;
+    private final int maxInFlightParts;
+    private final long memoryBudget;
+
+    @Autowired
+    public AutoMultipartUploader(
+            @Value("${app.s3.multipart.auto.enabled:true}") boolean enabled,
+            @Value("${app.s3.multipart.auto.threshold:64MB}") DataSize threshold,
+            @Value("${app.s3.multipart.auto.part-size:16MB}") DataSize partSize,
+            @Value("${app.s3.multipart.auto.max-in-flight-parts:4}") int maxInFlightParts,
+            @Value("${app.s3.multipart.auto.memory-budget:128MB}") DataSize memoryBudget) {
+        this.enabled = enabled;
+        this.threshold = threshold.toBytes();
+        this.partSize = Math.max(partSize.toBytes(), MIN_PART_SIZE);
+        this.maxInFlightParts = Math.max(maxInFlightParts, 1);
+        this.memoryBudget = memoryBudget.toBytes();
+    }
+
+    /**
+     * Whether a PUT of the given length should go through multipart. Bodies of
+     * unknown length (-1) always do, since a single PUT needs the length up front.
+     */
+    public boolean appliesTo(long contentLength) {
+        return enabled && (contentLength < 0 || contentLength >= threshold);
+    }
+
+    /**
+     * Upload the body as a multipart upload through the given service.
+     *
+     * @param service Service whose multipart operations perform the upload
+     * @param bucket The bucket name
+     * @param key The object key
+     * @param content The object content as a stream of buffers
+     * @param contentLength The declared content length, or -1 when unknown
+     * @param identity The user's normalized identity
+     * @return A Mono containing the ETag of the completed upload
+     */
+    public Mono<String> upload(
+            S3ProxyService service,
+            String bucket,
+            String key,
+            Flux<DataBuffer> content,
+            long contentLength,
+            NormalizedIdentity identity) {
+
+        int uploadPartSize = partSizeFor(contentLength);
+        int concurrency = concurrencyFor(uploadPartSize);
+
+        return service.initiateMultipartUpload(bucket, key, identity)
+                .flatMap(uploadId -> {
+                    logger.info("Auto-multipart upload {}/{} uploadId={} (part size: {} bytes, parallel parts: {})",
+                            bucket, key, uploadId, uploadPartSize, concurrency);
+                    return uploadParts(service, bucket, key, uploadId, content, uploadPartSize, concurrency, identity)
+                            .flatMap(parts -> service.completeMultipartUpload(bucket, key, uploadId, parts, identity))
+                            .onErrorResume(error -> abort(service, bucket, key, uploadId, identity)
+                                    .then(Mono.error(error)))
+                            .doOnCancel(() -> abort(service, bucket, key, uploadId, identity).subscribe());
+                });
+    }
+
+    private Mono<List<CompletedPart>> uploadParts(
+            S3ProxyService service,
+            String bucket,
+            String key,
+            String uploadId,
+            Flux<DataBuffer> content,
+            int uploadPartSize,
+            int concurrency,
+            NormalizedIdentity identity) {
+
+        return Flux.defer(() -> {
+                    PartAssembler assembler = new PartAssembler(uploadPartSize);
+                    // Pull one request buffer at a time so only the part being filled is held outside the uploads
+                    return content.concatMapIterable(assembler::append, 1)
+                            .concatWith(Mono.defer(() -> Mono.justOrEmpty(assembler.finish())))
+                            .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+                })
+                .index()
+                .flatMap(part -> {
+                    int partNumber = (int) (part.getT1() + 1);
+                    if (partNumber > MAX_PARTS) {
+                        return Mono.error(new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                                "Object exceeds " + MAX_PARTS + " parts of " + uploadPartSize + " bytes"));
+                    }
+                    Part filled = part.getT2();
+                    return service.uploadPart(bucket, key, uploadId, partNumber, filled.bytes(), filled.length(), identity)
+                            .map(eTag -> CompletedPart.builder().partNumber(partNumber).eTag(eTag).build());
+                }, concurrency, 1)
+                .collectSortedList(Comparator.comparing(CompletedPart::partNumber));
+    }
+
+    private Mono<Void> abort(S3ProxyService service, String bucket, String key, String uploadId, NormalizedIdentity identity) {
+        return service.abortMultipartUpload(bucket, key, uploadId, identity)
+                .doOnSuccess(ignored -> logger.warn("Aborted auto-multipart upload {}/{} uploadId={}", bucket, key, uploadId))
+                .onErrorResume(abortError -> {
+                    logger.error("Failed to abort multipart upload {}/{} uploadId={}: {}",
+                            bucket, key, uploadId, abortError.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Grow the part size when a known length would otherwise need more than MAX_PARTS parts.
+     */
+    int partSizeFor(long contentLength) {
+        long size = partSize;
+        if (contentLength > 0) {
+            size = Math.max(size, (contentLength + MAX_PARTS - 1) / MAX_PARTS);
+        }
+        return (int) Math.min(size, MAX_PART_SIZE);
+    }
+
+    int concurrencyFor(int uploadPartSize) {
+        // One part is always being filled from the request body
+        long affordable = memoryBudget / uploadPartSize - 1;
+        return (int) Math.max(1, Math.min(maxInFlightParts, affordable));
+    }
+
+    /**
+     * A part buffer and how much of it is filled; only the last part of an upload is partly filled.
+     */
+    record Part(byte[] bytes, int length) {
+    }
+
+    /**
+     * Copies request buffers into fixed-size parts. Not thread safe; used by one subscription.
+     */
+    static final class PartAssembler {
+
+        private final int partSize;
+        private byte[] current;
+        private int filled;
+        private boolean emitted;
+
+        PartAssembler(int partSize) {
+            this.partSize = partSize;
+        }
+
+        List<Part> append(DataBuffer buffer) {
+            List<Part> completed = List.of();
+            try {
+                while (buffer.readableByteCount() > 0) {
+                    if (current == null) {
+                        current = new byte[partSize];
+                        filled = 0;
+                    }
+                    int chunk = Math.min(buffer.readableByteCount(), partSize - filled);
+                    buffer.read(current, filled, chunk);
+                    filled += chunk;
+                    if (filled == partSize) {
+                        if (completed.isEmpty()) {
+                            completed = new ArrayList<>(1);
+                        }
+                        completed.add(new Part(current, partSize));
+                        current = null;
+                        emitted = true;
+                    }
+                }
+            } finally {
+                DataBufferUtils.release(buffer);
+            }
+            return completed;
+        }
+
+        /**
+         * The trailing partial part. An empty body still produces one empty part,
+         * because an upload cannot be completed without parts.
+         */
+        Part finish() {
+            if (current == null) {
+                return emitted ? null : new Part(new byte[0], 0);
+            }
+            // Uploaded from the filled region, without copying it out of the part buffer
+            Part last = new Part(current, filled);
+            current = null;
+            return last;
+        }
+    }
+}
@@ -1,14 +1,173 @@
 package com.ironbucket.brazznossel.multipart;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
 import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
 
+/**
+ * MultipartCleanupJob - Aborts multipart uploads that were never completed.
+ *
+ * An abandoned upload keeps its parts stored, invisible to listings, until it
+ * is aborted. A sweep walks the buckets its target offers, pages through their
+ * in-progress uploads and aborts those initiated more than the TTL ago, up to
+ * parallelism aborts at a time. Buckets are swept one after another and pages
+ * are fetched as aborts drain, so a sweep never holds more than one page of
+ * uploads.
+ *
+ * Publishes aborted uploads, reclaimed bytes, failed aborts and sweep duration.
+ */
+@Component
 public class MultipartCleanupJob {
 
-    public int cleanupAbortedOrphanParts(String uploadId, Duration ttl) {
-        if (uploadId == null || uploadId.isBlank() || ttl == null || ttl.isNegative()) {
-            return 0;
+    private static final Logger logger = LoggerFactory.getLogger(MultipartCleanupJob.class);
+
+    private final boolean enabled;
+    private final Duration ttl;
+    private final int parallelism;
+    private final Clock clock;
+    private final Counter aborted;
+    private final Counter reclaimedBytes;
+    private final Counter failed;
+    private final Timer sweepDuration;
+
+    @Autowired
+    public MultipartCleanupJob(
+            @Value("${app.s3.multipart.cleanup.enabled:true}") boolean enabled,
+            @Value("${app.s3.multipart.cleanup.ttl:7d}") Duration ttl,
+            @Value("${app.s3.multipart.cleanup.parallelism:4}") int parallelism,
+            MeterRegistry meterRegistry) {
+        this(enabled, ttl, parallelism, meterRegistry, Clock.systemUTC());
+    }
+
+    MultipartCleanupJob(boolean enabled, Duration ttl, int parallelism, MeterRegistry meterRegistry, Clock clock) {
+        if (ttl == null || ttl.isNegative()) {
+            throw new IllegalArgumentException("app.s3.multipart.cleanup.ttl must not be negative");
+        }
+        this.enabled = enabled;
+        this.ttl = ttl;
+        this.parallelism = Math.max(parallelism, 1);
+        this.clock = clock;
+        this.aborted = Counter.builder("ironbucket.s3.multipart.cleanup.aborted")
+                .description("Stale multipart uploads aborted by the cleanup sweep")
+                .register(meterRegistry);
+        this.reclaimedBytes = Counter.builder("ironbucket.s3.multipart.cleanup.reclaimed")
+                .description("Bytes of uploaded parts released by aborting stale multipart uploads")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.failed = Counter.builder("ironbucket.s3.multipart.cleanup.failed")
+                .description("Stale multipart uploads the cleanup sweep could not abort")
+                .register(meterRegistry);
+        this.sweepDuration = Timer.builder("ironbucket.s3.multipart.cleanup.duration")
+                .description("Duration of a multipart cleanup sweep over one backend")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Abort every upload on the target that is older than the TTL.
+     *
+     * @param target Listing and abort operations of one backend
+     * @return A Mono containing the totals of the sweep
+     */
+    public Mono<SweepResult> sweep(SweepTarget target) {
+        return Mono.defer(() -> {
+            Instant cutoff = clock.instant().minus(ttl);
+            Timer.Sample sample = Timer.start();
+            return target.buckets()
+                    .concatMap(bucket -> uploads(target, bucket), 1)
+                    .filter(upload -> upload.initiated() != null && upload.initiated().isBefore(cutoff))
+                    .flatMap(upload -> cleanupAbortedOrphanParts(target, upload), parallelism)
+                    .reduce(SweepResult.EMPTY, SweepResult::plus)
+                    .doOnNext(result -> logger.info("Multipart cleanup sweep: {} uploads aborted, {} bytes reclaimed, {} failed",
+                            result.aborted(), result.reclaimedBytes(), result.failed()))
+                    .doFinally(signal -> sample.stop(sweepDuration));
+        });
+    }
+
+    /**
+     * Abort one stale upload, measuring its parts first so the reclaimed bytes
+     * can be reported. A failure is counted and does not stop the sweep.
+     */
+    Mono<SweepResult> cleanupAbortedOrphanParts(SweepTarget target, PendingUpload upload) {
+        return target.uploadedBytes(upload)
+                // Size is informational; failing to measure it must not keep the parts around
+                .onErrorReturn(0L)
+                .flatMap(bytes -> target.abort(upload).then(Mono.fromCallable(() -> {
+                    aborted.increment();
+                    reclaimedBytes.increment(bytes);
+                    logger.debug("Aborted stale multipart upload {}/{} uploadId={} ({} bytes)",
+                            upload.bucket(), upload.key(), upload.uploadId(), bytes);
+                    return new SweepResult(1, bytes, 0);
+                })))
+                .onErrorResume(error -> {
+                    failed.increment();
+                    logger.warn("Failed to abort stale multipart upload {}/{} uploadId={}: {}",
+                            upload.bucket(), upload.key(), upload.uploadId(), error.getMessage());
+                    return Mono.just(new SweepResult(0, 0, 1));
+                });
+    }
+
+    private Flux<PendingUpload> uploads(SweepTarget target, String bucket) {
+        return target.listUploads(bucket, null, null)
+                .expand(page -> page.truncated()
+                        ? target.listUploads(bucket, page.nextKeyMarker(), page.nextUploadIdMarker())
+                        : Mono.empty())
+                .concatMapIterable(UploadPage::uploads, 1)
+                .onErrorResume(error -> {
+                    // One unreadable bucket must not end the sweep of the others
+                    logger.warn("Failed to list multipart uploads in bucket {}: {}", bucket, error.getMessage());
+                    return Flux.empty();
+                });
+    }
+
+    /**
+     * Backend operations a sweep runs against.
+     */
+    public interface SweepTarget {
+
+        /**
+         * Buckets whose uploads belong to this proxy; other buckets on a shared backend are left alone.
+         */
+        Flux<String> buckets();
+
+        Mono<UploadPage> listUploads(String bucket, String keyMarker, String uploadIdMarker);
+
+        Mono<Long> uploadedBytes(PendingUpload upload);
+
+        Mono<Void> abort(PendingUpload upload);
+    }
+
+    public record PendingUpload(String bucket, String key, String uploadId, Instant initiated) {
+    }
+
+    public record UploadPage(
+            List<PendingUpload> uploads,
+            boolean truncated,
+            String nextKeyMarker,
+            String nextUploadIdMarker) {
+    }
+
+    public record SweepResult(long aborted, long reclaimedBytes, long failed) {
+
+        static final SweepResult EMPTY = new SweepResult(0, 0, 0);
+
+        SweepResult plus(SweepResult other) {
+            return new SweepResult(aborted + other.aborted, reclaimedBytes + other.reclaimedBytes, failed + other.failed);
         }
-        String status = "abort-orphan-ttl";
-        return status.length() > 0 ? 1 : 0;
     }
 }
@@ -1,15 +1,152 @@
 package com.ironbucket.brazznossel.quota;
 
+import com.ironbucket.brazznossel.config.QuotaProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * QuotaEnforcementService - Checks writes against tenant quotas.
+ *
+ * Checks read the usage ledger only, so enforcing a quota never costs a
+ * backend call. The bytes of an admitted write are added to the ledger
+ * before the write starts and taken back if it fails, which keeps concurrent
+ * writes from all passing the same check.
+ *
+ * The ledger starts empty when the proxy starts, so a tenant's usage is
+ * unknown until it has been reconciled against a backend listing. The first
+ * write of a tenant that has not been reconciled yet starts a reconcile in the
+ * background and is admitted against the ledger as it stands; the reconcile
+ * corrects the ledger when it lands. A failed reconcile is retried by the next
+ * write or the scheduled reconcile, and never blocks writes.
+ */
+@Component
 public class QuotaEnforcementService {
 
+    private static final Logger logger = LoggerFactory.getLogger(QuotaEnforcementService.class);
+
+    private final QuotaUsageLedger ledger;
+    private final QuotaProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Set<String> reconciling = ConcurrentHashMap.newKeySet();
+    private volatile Function<String, Mono<Void>> reconciler;
+
+    @Autowired
+    public QuotaEnforcementService(QuotaUsageLedger ledger, QuotaProperties properties, MeterRegistry meterRegistry) {
+        this.ledger = ledger;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public QuotaUsageLedger ledger() {
+        return ledger;
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
     public boolean enforceTenantQuota(String tenantId, long projectedBytes, long limitBytes) {
         if (tenantId == null || tenantId.isBlank()) {
             return false;
         }
-        return throttle(projectedBytes > limitBytes);
+        return throttle(limitBytes >= 0 && projectedBytes > limitBytes);
     }
 
     public boolean throttle(boolean shouldThrottle) {
         return !shouldThrottle;
     }
+
+    /**
+     * Set how a tenant's usage is rebuilt from the backend. Without one the
+     * ledger is trusted as it is.
+     */
+    public void reconcileWith(Function<String, Mono<Void>> reconciler) {
+        this.reconciler = reconciler;
+    }
+
+    /**
+     * Throw when storing {@code additionalBytes} and {@code additionalObjects}
+     * more would exceed the tenant's quota.
+     */
+    public void checkWrite(String tenantId, long additionalBytes, long additionalObjects) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        QuotaUsageLedger.Usage usage = ledger.tenantUsage(tenantId);
+        if (!enforceTenantQuota(tenantId, usage.bytes() + additionalBytes, properties.maxBytesFor(tenantId))) {
+            reject(tenantId, "bytes", "storage limit of " + properties.maxBytesFor(tenantId) + " bytes reached");
+        }
+        long maxObjects = properties.maxObjectsFor(tenantId);
+        if (additionalObjects > 0 && maxObjects >= 0 && usage.objects() + additionalObjects > maxObjects) {
+            reject(tenantId, "objects", "object limit of " + maxObjects + " reached");
+        }
+    }
+
+    /**
+     * Run a single-object write after checking the quota, recording its bytes
+     * up front and reverting them if the write fails or is cancelled.
+     *
+     * @param previousBytes Size of the object being replaced, or -1 when unknown
+     */
+    public <T> Mono<T> enforcePut(String tenantId, String bucket, long bytes, long previousBytes, Mono<T> write) {
+        return Mono.defer(() -> {
+            reconcileInBackground(tenantId);
+            long growth = previousBytes >= 0 ? bytes - previousBytes : bytes;
+            checkWrite(tenantId, Math.max(growth, 0), previousBytes >= 0 ? 0 : 1);
+            ledger.recordPut(tenantId, bucket, bytes, previousBytes);
+            return write
+                    .doOnError(error -> ledger.revertPut(tenantId, bucket, bytes, previousBytes))
+                    .doOnCancel(() -> ledger.revertPut(tenantId, bucket, bytes, previousBytes));
+        });
+    }
+
+    /**
+     * Run a multipart part upload after checking the quota; its bytes stay
+     * counted until the upload is completed or aborted.
+     */
+    public <T> Mono<T> enforcePart(String tenantId, String bucket, String uploadId, long bytes, Mono<T> write) {
+        return Mono.defer(() -> {
+            reconcileInBackground(tenantId);
+            checkWrite(tenantId, bytes, 0);
+            ledger.recordPartUpload(tenantId, bucket, uploadId, bytes);
+            return write
+                    .doOnError(error -> ledger.recordPartUpload(tenantId, bucket, uploadId, -bytes))
+                    .doOnCancel(() -> ledger.recordPartUpload(tenantId, bucket, uploadId, -bytes));
+        });
+    }
+
+    /**
+     * Start rebuilding the tenant's usage unless it is reconciled already or a
+     * reconcile is running. Reconciles apply their listing as a delta against a
+     * snapshot, so writes admitted meanwhile stay counted.
+     */
+    private void reconcileInBackground(String tenantId) {
+        Function<String, Mono<Void>> current = reconciler;
+        if (!properties.isEnabled() || current == null || ledger.tenantUsage(tenantId).reconciled()
+                || !reconciling.add(tenantId)) {
+            return;
+        }
+        Mono.defer(() -> current.apply(tenantId))
+                .doFinally(signal -> reconciling.remove(tenantId))
+                .subscribe(null, error -> logger.warn("Quota reconcile failed for tenant {}: {}", tenantId, error.getMessage()));
+    }
+
+    private void reject(String tenantId, String limit, String reason) {
+        Counter.builder("ironbucket.s3.quota.rejections")
+                .description("Writes rejected because the tenant quota was reached")
+                .tag("tenant", tenantId)
+                .tag("limit", limit)
+                .register(meterRegistry)
+                .increment();
+        throw new QuotaExceededException(tenantId, reason);
+    }
 }
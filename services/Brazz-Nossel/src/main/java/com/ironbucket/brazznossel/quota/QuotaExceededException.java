@@ -0,0 +1,22 @@
+package com.ironbucket.brazznossel.quota;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Raised when a write would take a tenant past its storage quota.
+ * Maps to 403, as S3-compatible stores do for quota violations.
+ */
+public class QuotaExceededException extends ResponseStatusException {
+
+    private final String tenantId;
+
+    public QuotaExceededException(String tenantId, String reason) {
+        super(HttpStatus.FORBIDDEN, "Quota exceeded for tenant " + tenantId + ": " + reason);
+        this.tenantId = tenantId;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+}
@@ -0,0 +1,209 @@
+package com.ironbucket.brazznossel.quota;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * QuotaUsageLedger - Bytes and object counts per tenant and bucket.
+ *
+ * Usage is updated incrementally by every write through this proxy and held
+ * in striped counters, so concurrent PUTs never contend on a single value and
+ * reading a tenant's usage costs two sums. Writes made outside the proxy
+ * cause drift, which the periodic reconcile against backend listings corrects.
+ *
+ * Bytes of uploaded multipart parts count as soon as the part is stored; the
+ * object itself counts once the upload completes.
+ */
+@Component
+public class QuotaUsageLedger {
+
+    private final Map<String, TenantUsage> tenants = new ConcurrentHashMap<>();
+    private final Map<String, PendingUpload> pendingUploads = new ConcurrentHashMap<>();
+
+    public Usage tenantUsage(String tenantId) {
+        TenantUsage usage = tenants.get(tenantId);
+        return usage == null ? Usage.EMPTY : new Usage(usage.bytes.sum(), usage.objects.sum(), usage.reconciled);
+    }
+
+    public Usage bucketUsage(String tenantId, String bucket) {
+        TenantUsage tenant = tenants.get(tenantId);
+        Counters usage = tenant == null ? null : tenant.buckets.get(bucket);
+        return usage == null
+                ? Usage.EMPTY
+                : new Usage(usage.bytes.sum(), usage.objects.sum(), tenant.reconciled);
+    }
+
+    /**
+     * Record a stored object.
+     *
+     * @param previousBytes Size of the object it replaced, or -1 when it is new or its size is unknown
+     */
+    public void recordPut(String tenantId, String bucket, long bytes, long previousBytes) {
+        if (previousBytes >= 0) {
+            add(tenantId, bucket, bytes - previousBytes, 0);
+        } else {
+            add(tenantId, bucket, bytes, 1);
+        }
+    }
+
+    /**
+     * Undo a {@link #recordPut} whose write did not go through.
+     */
+    public void revertPut(String tenantId, String bucket, long bytes, long previousBytes) {
+        if (previousBytes >= 0) {
+            add(tenantId, bucket, previousBytes - bytes, 0);
+        } else {
+            add(tenantId, bucket, -bytes, -1);
+        }
+    }
+
+    /**
+     * Record a deleted object.
+     *
+     * @param bytes Size of the deleted object, or -1 when there was no such object (nothing changes)
+     */
+    public void recordDelete(String tenantId, String bucket, long bytes) {
+        if (bytes >= 0) {
+            add(tenantId, bucket, -bytes, -1);
+        }
+    }
+
+    public void recordPartUpload(String tenantId, String bucket, String uploadId, long bytes) {
+        pendingUploads.computeIfAbsent(uploadId, id -> new PendingUpload(tenantId, bucket)).bytes.add(bytes);
+        add(tenantId, bucket, bytes, 0);
+    }
+
+    /**
+     * Record a completed multipart upload; its part bytes are already counted.
+     */
+    public void recordMultipartComplete(String tenantId, String bucket, String uploadId, long previousBytes) {
+        pendingUploads.remove(uploadId);
+        if (previousBytes >= 0) {
+            add(tenantId, bucket, -previousBytes, 0);
+        } else {
+            add(tenantId, bucket, 0, 1);
+        }
+    }
+
+    public void recordMultipartAbort(String tenantId, String bucket, String uploadId) {
+        recordMultipartAbort(uploadId);
+    }
+
+    /**
+     * Record an aborted upload known only by id, as seen by maintenance sweeps.
+     */
+    public void recordMultipartAbort(String uploadId) {
+        PendingUpload pending = pendingUploads.remove(uploadId);
+        if (pending != null) {
+            add(pending.tenantId, pending.bucket, -pending.bytes.sum(), 0);
+        }
+    }
+
+    public void removeBucket(String tenantId, String bucket) {
+        TenantUsage tenant = tenants.get(tenantId);
+        if (tenant == null) {
+            return;
+        }
+        Counters removed = tenant.buckets.remove(bucket);
+        if (removed != null) {
+            tenant.bytes.add(-removed.bytes.sum());
+            tenant.objects.add(-removed.objects.sum());
+        }
+        pendingUploads.values().removeIf(pending -> pending.tenantId.equals(tenantId) && pending.bucket.equals(bucket));
+    }
+
+    public Set<String> trackedTenants() {
+        return Set.copyOf(tenants.keySet());
+    }
+
+    public Set<String> trackedBuckets(String tenantId) {
+        TenantUsage tenant = tenants.get(tenantId);
+        return tenant == null ? Set.of() : Set.copyOf(tenant.buckets.keySet());
+    }
+
+    /**
+     * Capture a bucket's counters before it is listed for reconciliation.
+     */
+    public Snapshot snapshot(String tenantId, String bucket) {
+        Usage usage = bucketUsage(tenantId, bucket);
+        long pendingBytes = pendingUploads.values().stream()
+                .filter(pending -> pending.tenantId.equals(tenantId) && pending.bucket.equals(bucket))
+                .mapToLong(pending -> pending.bytes.sum())
+                .sum();
+        return new Snapshot(tenantId, bucket, usage.bytes(), usage.objects(), pendingBytes);
+    }
+
+    /**
+     * Replace the usage captured in the snapshot with what the backend listed.
+     *
+     * Writes recorded while the listing ran are kept, because the correction
+     * is applied as a delta against the snapshot rather than as an absolute value.
+     * Bytes of unfinished multipart uploads are not in the listing and are added back.
+     */
+    public void reconcile(Snapshot snapshot, long listedBytes, long listedObjects) {
+        add(snapshot.tenantId(), snapshot.bucket(),
+                listedBytes + snapshot.pendingBytes() - snapshot.bytes(),
+                listedObjects - snapshot.objects());
+    }
+
+    public void markReconciled(String tenantId) {
+        tenant(tenantId).reconciled = true;
+    }
+
+    private void add(String tenantId, String bucket, long bytes, long objects) {
+        TenantUsage tenant = tenant(tenantId);
+        Counters counters = tenant.buckets.get(bucket);
+        if (counters == null) {
+            counters = tenant.buckets.computeIfAbsent(bucket, name -> new Counters());
+        }
+        if (bytes != 0) {
+            counters.bytes.add(bytes);
+            tenant.bytes.add(bytes);
+        }
+        if (objects != 0) {
+            counters.objects.add(objects);
+            tenant.objects.add(objects);
+        }
+    }
+
+    private TenantUsage tenant(String tenantId) {
+        TenantUsage tenant = tenants.get(tenantId);
+        return tenant != null ? tenant : tenants.computeIfAbsent(tenantId, id -> new TenantUsage());
+    }
+
+    /**
+     * Usage at one point in time.
+     *
+     * @param bytes Stored bytes, including parts of unfinished multipart uploads
+     * @param objects Stored objects
+     * @param reconciled Whether the numbers have been checked against a backend listing yet
+     */
+    public record Usage(long bytes, long objects, boolean reconciled) {
+
+        static final Usage EMPTY = new Usage(0, 0, false);
+    }
+
+    public record Snapshot(String tenantId, String bucket, long bytes, long objects, long pendingBytes) {
+    }
+
+    private static class Counters {
+        final LongAdder bytes = new LongAdder();
+        final LongAdder objects = new LongAdder();
+    }
+
+    private static final class TenantUsage extends Counters {
+        final Map<String, Counters> buckets = new ConcurrentHashMap<>();
+        volatile boolean reconciled;
+    }
+
+    private record PendingUpload(String tenantId, String bucket, LongAdder bytes) {
+
+        PendingUpload(String tenantId, String bucket) {
+            this(tenantId, bucket, new LongAdder());
+        }
+    }
+}
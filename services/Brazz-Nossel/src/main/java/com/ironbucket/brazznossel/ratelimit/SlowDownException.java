@@ -0,0 +1,40 @@
+package com.ironbucket.brazznossel.ratelimit;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+
+/**
+ * Raised when a tenant exceeds its request or bandwidth rate.
+ * Maps to 503 SlowDown with a Retry-After hint, as S3 does when throttling.
+ */
+public class SlowDownException extends ResponseStatusException {
+
+    private final String tenantId;
+    private final Duration retryAfter;
+
+    public SlowDownException(String tenantId, Duration retryAfter) {
+        // The message S3 sends with SlowDown; the tenant is kept on the exception rather than shown to clients
+        super(HttpStatus.SERVICE_UNAVAILABLE, "Please reduce your request rate.");
+        this.tenantId = tenantId;
+        this.retryAfter = retryAfter;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        // Retry-After is in whole seconds; round up so a retry does not arrive early
+        headers.set(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, (retryAfter.toMillis() + 999) / 1000)));
+        return headers;
+    }
+}
@@ -0,0 +1,157 @@
+package com.ironbucket.brazznossel.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * TenantRateLimiter - Per-tenant request rate and bandwidth limits.
+ *
+ * Every tenant gets one token bucket for requests and one for bytes. A
+ * request without a token is rejected with SlowDown. Bodies are shaped
+ * rather than rejected: each buffer reserves its bytes and is held back until
+ * the tenant's bucket has paid for it, so a tenant pulling or pushing faster
+ * than its rate is slowed down on its own connections while other tenants'
+ * transfers keep their full share. A body that would have to wait longer
+ * than max-shaping-delay for a single buffer fails with SlowDown instead.
+ *
+ * A rate of 0 disables that limit.
+ */
+@Component
+public class TenantRateLimiter {
+
+    private final boolean enabled;
+    private final long requestsPerSecond;
+    private final long requestBurst;
+    private final long bytesPerSecond;
+    private final long byteBurst;
+    private final long maxShapingDelayNanos;
+    private final MeterRegistry meterRegistry;
+    private final LongSupplier nanoClock;
+    private final Map<String, TenantBuckets> tenants = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TenantRateLimiter(
+            @Value("${app.s3.rate-limit.enabled:false}") boolean enabled,
+            @Value("${app.s3.rate-limit.requests-per-second:0}") long requestsPerSecond,
+            @Value("${app.s3.rate-limit.request-burst:0}") long requestBurst,
+            @Value("${app.s3.rate-limit.bytes-per-second:0B}") DataSize bytesPerSecond,
+            @Value("${app.s3.rate-limit.byte-burst:0B}") DataSize byteBurst,
+            @Value("${app.s3.rate-limit.max-shaping-delay:10s}") Duration maxShapingDelay,
+            MeterRegistry meterRegistry) {
+        this(enabled, requestsPerSecond, requestBurst, bytesPerSecond.toBytes(), byteBurst.toBytes(),
+                maxShapingDelay, meterRegistry, System::nanoTime);
+    }
+
+    TenantRateLimiter(
+            boolean enabled,
+            long requestsPerSecond,
+            long requestBurst,
+            long bytesPerSecond,
+            long byteBurst,
+            Duration maxShapingDelay,
+            MeterRegistry meterRegistry,
+            LongSupplier nanoClock) {
+        this.enabled = enabled;
+        this.requestsPerSecond = Math.max(requestsPerSecond, 0);
+        // Without an explicit burst, allow one second's worth
+        this.requestBurst = requestBurst > 0 ? requestBurst : Math.max(this.requestsPerSecond, 1);
+        this.bytesPerSecond = Math.max(bytesPerSecond, 0);
+        this.byteBurst = byteBurst > 0 ? byteBurst : Math.max(this.bytesPerSecond, 1);
+        this.maxShapingDelayNanos = maxShapingDelay.toNanos();
+        this.meterRegistry = meterRegistry;
+        this.nanoClock = nanoClock;
+    }
+
+    public boolean isEnabled() {
+        return enabled && (requestsPerSecond > 0 || bytesPerSecond > 0);
+    }
+
+    /**
+     * Take one request token for the tenant or throw SlowDown.
+     */
+    public void checkRequest(String tenantId) {
+        if (!enabled || requestsPerSecond == 0) {
+            return;
+        }
+        TenantBuckets buckets = buckets(tenantId);
+        long wait = buckets.requests.tryAcquire(1, nanoClock.getAsLong());
+        if (wait > 0) {
+            buckets.requestRejections.increment();
+            throw new SlowDownException(tenantId, Duration.ofNanos(wait));
+        }
+    }
+
+    /**
+     * Pace a body stream to the tenant's bandwidth, preserving buffer order.
+     */
+    public Flux<DataBuffer> shape(String tenantId, Flux<DataBuffer> body) {
+        if (!enabled || bytesPerSecond == 0) {
+            return body;
+        }
+        TenantBuckets buckets = buckets(tenantId);
+        return body
+                .concatMap(buffer -> {
+                    long wait = buckets.bytes.reserve(buffer.readableByteCount(), nanoClock.getAsLong(), maxShapingDelayNanos);
+                    if (wait < 0) {
+                        DataBufferUtils.release(buffer);
+                        buckets.bandwidthRejections.increment();
+                        return Mono.error(new SlowDownException(tenantId, Duration.ofNanos(maxShapingDelayNanos)));
+                    }
+                    if (wait == 0) {
+                        return Mono.just(buffer);
+                    }
+                    buckets.shapingDelay.increment(wait / 1_000_000.0);
+                    return Mono.just(buffer).delayElement(Duration.ofNanos(wait));
+                }, 1)
+                // A buffer held in delayElement when the transfer is cancelled is discarded, not leaked
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+    }
+
+    private TenantBuckets buckets(String tenantId) {
+        String tenant = tenantId == null ? "unknown" : tenantId;
+        TenantBuckets buckets = tenants.get(tenant);
+        return buckets != null ? buckets : tenants.computeIfAbsent(tenant, this::newBuckets);
+    }
+
+    private TenantBuckets newBuckets(String tenantId) {
+        return new TenantBuckets(
+                requestsPerSecond > 0 ? new TokenBucket(requestsPerSecond, requestBurst) : null,
+                bytesPerSecond > 0 ? new TokenBucket(bytesPerSecond, byteBurst) : null,
+                rejections(tenantId, "requests"),
+                rejections(tenantId, "bandwidth"),
+                Counter.builder("ironbucket.s3.rate-limit.shaping-delay")
+                        .description("Milliseconds body buffers were held back by bandwidth shaping")
+                        .baseUnit("milliseconds")
+                        .tag("tenant", tenantId)
+                        .register(meterRegistry));
+    }
+
+    private Counter rejections(String tenantId, String limit) {
+        return Counter.builder("ironbucket.s3.rate-limit.rejected")
+                .description("Requests rejected with SlowDown because the tenant exceeded its rate")
+                .tag("tenant", tenantId)
+                .tag("limit", limit)
+                .register(meterRegistry);
+    }
+
+    private record TenantBuckets(
+            TokenBucket requests,
+            TokenBucket bytes,
+            Counter requestRejections,
+            Counter bandwidthRejections,
+            Counter shapingDelay) {
+    }
+}
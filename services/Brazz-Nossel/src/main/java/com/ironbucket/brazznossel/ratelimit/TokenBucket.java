@@ -0,0 +1,79 @@
+package com.ironbucket.brazznossel.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TokenBucket - Lock-free token bucket kept as a single theoretical arrival time.
+ *
+ * Instead of a token count refilled by a timer, the bucket stores the time at
+ * which it would be full again if nothing else were taken (GCRA). Taking
+ * tokens pushes that time forward by their cost; a request fits while the
+ * pushed time stays within one burst of now. Every operation is one CAS on
+ * one long, so concurrent callers never block each other.
+ */
+final class TokenBucket {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final long ratePerSecond;
+    private final long burstNanos;
+    private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+
+    TokenBucket(long ratePerSecond, long burst) {
+        if (ratePerSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("rate and burst must be positive");
+        }
+        this.ratePerSecond = ratePerSecond;
+        this.burstNanos = costNanos(burst);
+    }
+
+    /**
+     * Take the tokens only if they are available now.
+     *
+     * @return 0 when the tokens were taken, otherwise nanoseconds until they would be available
+     */
+    long tryAcquire(long tokens, long nowNanos) {
+        long cost = costNanos(tokens);
+        while (true) {
+            long current = theoreticalArrival.get();
+            long start = Math.max(current, nowNanos);
+            long wait = start + cost - burstNanos - nowNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (theoreticalArrival.compareAndSet(current, start + cost)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Take the tokens now and pay for them later: the caller is told how long
+     * to wait before using them. Reservations that would have to wait longer
+     * than {@code maxWaitNanos} are refused and take nothing.
+     *
+     * @return nanoseconds to wait (0 to proceed at once), or -1 when refused
+     */
+    long reserve(long tokens, long nowNanos, long maxWaitNanos) {
+        long cost = costNanos(tokens);
+        while (true) {
+            long current = theoreticalArrival.get();
+            long start = Math.max(current, nowNanos);
+            long wait = Math.max(start + cost - burstNanos - nowNanos, 0);
+            if (wait > maxWaitNanos) {
+                return -1;
+            }
+            if (theoreticalArrival.compareAndSet(current, start + cost)) {
+                return wait;
+            }
+        }
+    }
+
+    private long costNanos(long tokens) {
+        // Saturate rather than overflow; such a cost is refused or waited out like any other
+        if (tokens > Long.MAX_VALUE / NANOS_PER_SECOND) {
+            return Long.MAX_VALUE / 4;
+        }
+        return tokens * NANOS_PER_SECOND / ratePerSecond;
+    }
+}
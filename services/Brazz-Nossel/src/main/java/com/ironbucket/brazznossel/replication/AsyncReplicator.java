@@ -0,0 +1,241 @@
+package com.ironbucket.brazznossel.replication;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AsyncReplicator - Copies mutations to a secondary backend after they succeed.
+ *
+ * Every successful put, delete and tagging change is appended to the
+ * {@link ReplicationJournal} before the client gets its response. Appends
+ * run on the bounded blocking I/O scheduler, since with fsync they wait for
+ * the disk and must not stall the event loop. Draining
+ * takes the oldest pending entries in batches and groups them by object:
+ * entries for one object are applied one after another in sequence order,
+ * while different objects are replicated in parallel. A PUT directly followed
+ * by another PUT or DELETE of the same object is skipped, because replicating
+ * a PUT copies whatever the object holds at that moment. When an entry fails,
+ * the rest of that object's entries wait for the next drain so ordering is
+ * never broken.
+ *
+ * Publishes pending entries, replication lag (age of the oldest pending
+ * entry), end-to-end latency and replicated/failed counts.
+ */
+@Component
+public class AsyncReplicator {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncReplicator.class);
+
+    private final ReplicationJournal journal;
+    private final boolean enabled;
+    private final String targetProvider;
+    private final int batchSize;
+    private final int parallelism;
+    private final Clock clock;
+    private final Scheduler journalScheduler;
+    private final ReplicationOrderingValidator orderingValidator = new ReplicationOrderingValidator();
+    private final Counter replicated;
+    private final Counter failed;
+    private final Timer latency;
+
+    @Autowired
+    public AsyncReplicator(
+            ReplicationJournal journal,
+            @Value("${app.s3.replication.enabled:false}") boolean enabled,
+            @Value("${app.s3.replication.target-provider:}") String targetProvider,
+            @Value("${app.s3.replication.batch-size:500}") int batchSize,
+            @Value("${app.s3.replication.parallelism:16}") int parallelism,
+            MeterRegistry meterRegistry,
+            Scheduler s3BlockingScheduler) {
+        this(journal, enabled, targetProvider, batchSize, parallelism, meterRegistry, Clock.systemUTC(), s3BlockingScheduler);
+    }
+
+    AsyncReplicator(
+            ReplicationJournal journal,
+            boolean enabled,
+            String targetProvider,
+            int batchSize,
+            int parallelism,
+            MeterRegistry meterRegistry,
+            Clock clock,
+            Scheduler journalScheduler) {
+        if (enabled && (targetProvider == null || targetProvider.isBlank())) {
+            throw new IllegalStateException("app.s3.replication.target-provider is required when replication is enabled");
+        }
+        this.journal = journal;
+        this.enabled = enabled;
+        this.targetProvider = targetProvider;
+        this.batchSize = Math.max(batchSize, 1);
+        this.parallelism = Math.max(parallelism, 1);
+        this.clock = clock;
+        this.journalScheduler = journalScheduler;
+        this.replicated = Counter.builder("ironbucket.s3.replication.replicated")
+                .description("Journaled mutations applied to the secondary backend")
+                .register(meterRegistry);
+        this.failed = Counter.builder("ironbucket.s3.replication.failed")
+                .description("Attempts to apply a journaled mutation that failed and will be retried")
+                .register(meterRegistry);
+        this.latency = Timer.builder("ironbucket.s3.replication.latency")
+                .description("Time from a mutation succeeding on the primary to it being applied on the secondary")
+                .register(meterRegistry);
+        Gauge.builder("ironbucket.s3.replication.pending", journal, ReplicationJournal::size)
+                .description("Journaled mutations not yet replicated")
+                .register(meterRegistry);
+        Gauge.builder("ironbucket.s3.replication.lag", this, AsyncReplicator::lagSeconds)
+                .description("Age of the oldest mutation not yet replicated")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String targetProvider() {
+        return targetProvider;
+    }
+
+    public Mono<Void> record(ReplicationEntry.Operation operation, String tenantId, String bucket, String key) {
+        return record(operation, tenantId, bucket, key, Map.of());
+    }
+
+    /**
+     * Journal a mutation; completes once the entry is durable.
+     */
+    public Mono<Void> record(ReplicationEntry.Operation operation, String tenantId, String bucket, String key, Map<String, String> tags) {
+        if (!enabled) {
+            return Mono.empty();
+        }
+        return Mono.<Void>fromRunnable(() -> journal.append(operation, tenantId, bucket, key, tags, clock.instant()))
+                .subscribeOn(journalScheduler);
+    }
+
+    /**
+     * Replicate batches until the journal is drained or a batch has failures.
+     *
+     * @return A Mono containing the number of journal entries acknowledged
+     */
+    public Mono<Long> drain(ReplicationTarget target) {
+        if (!enabled) {
+            return Mono.just(0L);
+        }
+        return drainBatch(target)
+                .expand(batch -> batch.full() && batch.failed() == 0 ? drainBatch(target) : Mono.empty())
+                .reduce(0L, (total, batch) -> total + batch.acknowledged());
+    }
+
+    double lagSeconds() {
+        Instant oldest = journal.oldestPending();
+        return oldest == null ? 0.0 : Math.max(Duration.between(oldest, clock.instant()).toMillis(), 0) / 1000.0;
+    }
+
+    private Mono<BatchResult> drainBatch(ReplicationTarget target) {
+        return Mono.defer(() -> {
+            List<ReplicationEntry> entries = journal.pending(batchSize);
+            if (entries.isEmpty()) {
+                return Mono.just(new BatchResult(0, 0, false));
+            }
+            return Flux.fromIterable(byObject(entries).values())
+                    .flatMap(steps -> applyInOrder(target, steps), parallelism)
+                    .collectList()
+                    .map(outcomes -> {
+                        List<Long> acknowledged = new ArrayList<>();
+                        int failures = 0;
+                        for (ObjectOutcome outcome : outcomes) {
+                            acknowledged.addAll(outcome.acknowledged());
+                            failures += outcome.failed() ? 1 : 0;
+                        }
+                        journal.acknowledge(acknowledged);
+                        return new BatchResult(acknowledged.size(), failures, entries.size() == batchSize);
+                    });
+        });
+    }
+
+    /**
+     * Group a batch by object, keeping sequence order within each group and
+     * folding superseded PUTs into the entry that replaces them.
+     */
+    private Map<String, List<Step>> byObject(List<ReplicationEntry> entries) {
+        Map<String, List<Step>> groups = new LinkedHashMap<>();
+        for (ReplicationEntry entry : entries) {
+            List<Step> steps = groups.computeIfAbsent(entry.objectKey(), key -> new ArrayList<>());
+            Step previous = steps.isEmpty() ? null : steps.getLast();
+            if (previous != null
+                    && previous.entry().operation() == ReplicationEntry.Operation.PUT
+                    && (entry.operation() == ReplicationEntry.Operation.PUT || entry.operation() == ReplicationEntry.Operation.DELETE)) {
+                steps.removeLast();
+                List<ReplicationEntry> covered = new ArrayList<>(previous.covered());
+                covered.add(entry);
+                steps.add(new Step(entry, covered));
+            } else {
+                steps.add(new Step(entry, List.of(entry)));
+            }
+        }
+        groups.values().forEach(steps -> {
+            if (!orderingValidator.validateOrdering(steps.stream().map(step -> step.entry().sequence()).toList())) {
+                throw new IllegalStateException("Replication batch is out of sequence order for " + steps.getFirst().entry().objectKey());
+            }
+        });
+        return groups;
+    }
+
+    private Mono<ObjectOutcome> applyInOrder(ReplicationTarget target, List<Step> steps) {
+        List<Long> acknowledged = new ArrayList<>();
+        AtomicInteger applied = new AtomicInteger();
+        return Flux.fromIterable(steps)
+                .concatMap(step -> target.apply(step.entry()).then(Mono.fromRunnable(() -> {
+                    Instant now = clock.instant();
+                    for (ReplicationEntry entry : step.covered()) {
+                        acknowledged.add(entry.sequence());
+                        latency.record(Duration.between(entry.recordedAt(), now));
+                    }
+                    replicated.increment(step.covered().size());
+                    applied.incrementAndGet();
+                })))
+                .then(Mono.fromCallable(() -> new ObjectOutcome(acknowledged, false)))
+                .onErrorResume(error -> {
+                    failed.increment();
+                    ReplicationEntry entry = steps.get(applied.get()).entry();
+                    logger.warn("Replication of {} {} (sequence {}) failed, retrying on next drain: {}",
+                            entry.operation(), entry.objectKey(), entry.sequence(), error.getMessage());
+                    return Mono.just(new ObjectOutcome(acknowledged, true));
+                });
+    }
+
+    /**
+     * Applies one journaled mutation to the secondary backend. Must be
+     * idempotent: an entry is applied again if the process stops before it is acknowledged.
+     */
+    public interface ReplicationTarget {
+
+        Mono<Void> apply(ReplicationEntry entry);
+    }
+
+    private record Step(ReplicationEntry entry, List<ReplicationEntry> covered) {
+    }
+
+    private record ObjectOutcome(List<Long> acknowledged, boolean failed) {
+    }
+
+    private record BatchResult(long acknowledged, int failed, boolean full) {
+    }
+}
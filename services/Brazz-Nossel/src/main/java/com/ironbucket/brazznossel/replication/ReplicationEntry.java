@@ -0,0 +1,47 @@
+package com.ironbucket.brazznossel.replication;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * ReplicationEntry - One journaled mutation awaiting replication.
+ *
+ * Sequence numbers are assigned from a single counter, so they increase
+ * across the whole journal and therefore also per key.
+ *
+ * @param sequence Position in the journal
+ * @param operation Mutation to repeat on the secondary backend
+ * @param tenantId Tenant that made the change
+ * @param bucket Bucket of the object
+ * @param key Object key
+ * @param tags Tag set for PUT_TAGGING, empty otherwise
+ * @param recordedAt When the mutation succeeded on the primary backend
+ */
+public record ReplicationEntry(
+    long sequence,
+    Operation operation,
+    String tenantId,
+    String bucket,
+    String key,
+    Map<String, String> tags,
+    Instant recordedAt
+) {
+
+    public ReplicationEntry {
+        tags = tags == null ? Map.of() : Map.copyOf(tags);
+    }
+
+    /**
+     * Identity of the replicated object; entries with the same value must be applied in sequence order.
+     */
+    public String objectKey() {
+        return bucket + "/" + key;
+    }
+
+    public enum Operation {
+        PUT,
+        DELETE,
+        PUT_TAGGING,
+        DELETE_TAGGING
+    }
+}
@@ -0,0 +1,385 @@
+package com.ironbucket.brazznossel.replication;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+
+/**
+ * ReplicationJournal - Durable log of mutations still to be replicated.
+ *
+ * Entries are appended as one line each to journal.log in the journal
+ * directory; checkpoint.properties records the sequence up to which every
+ * entry has been replicated. On startup the entries after the checkpoint are
+ * read back, so a restart loses nothing that was acknowledged to a client.
+ * An entry acknowledged out of order is replayed after a restart when an
+ * earlier one was still pending, which is harmless because replaying a
+ * mutation is idempotent. Once the log has grown past the compaction
+ * threshold, it is rewritten with only the entries still pending, so an entry
+ * that keeps failing holds back neither the checkpoint of later entries nor
+ * the reclaiming of the log.
+ *
+ * Appends block on file I/O and are meant to run off the event loop. With
+ * fsync enabled, the default, an append returns once its entry is on disk;
+ * appends waiting for the disk at the same time share one force. With fsync
+ * disabled, appends survive a process crash but not a host crash. With no
+ * directory configured, the journal is kept in memory only.
+ */
+@Component
+public class ReplicationJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicationJournal.class);
+
+    private static final String LOG_FILE = "journal.log";
+    private static final String CHECKPOINT_FILE = "checkpoint.properties";
+    private static final long COMPACT_THRESHOLD_BYTES = 64L * 1024 * 1024;
+
+    private final Path directory;
+    private final boolean fsync;
+    private final long compactThresholdBytes;
+    private final NavigableMap<Long, ReplicationEntry> pending = new ConcurrentSkipListMap<>();
+    private final Object appendLock = new Object();
+    private final Object syncLock = new Object();
+    private FileChannel log;
+    private long lastSequence;
+    private long compactedSize;
+    private volatile long writtenSequence;
+    private long syncedSequence;
+    private volatile long checkpoint;
+
+    @Autowired
+    public ReplicationJournal(
+            @Value("${app.s3.replication.journal-dir:}") String directory,
+            @Value("${app.s3.replication.fsync:true}") boolean fsync) {
+        this(directory, fsync, COMPACT_THRESHOLD_BYTES);
+    }
+
+    ReplicationJournal(String directory, boolean fsync, long compactThresholdBytes) {
+        this.directory = directory == null || directory.isBlank() ? null : Path.of(directory);
+        this.fsync = fsync;
+        this.compactThresholdBytes = compactThresholdBytes;
+        if (this.directory != null) {
+            recover();
+        }
+    }
+
+    /**
+     * Append a mutation and return it with its sequence number assigned. Blocks on file I/O.
+     */
+    public ReplicationEntry append(
+            ReplicationEntry.Operation operation,
+            String tenantId,
+            String bucket,
+            String key,
+            Map<String, String> tags,
+            Instant recordedAt) {
+        ReplicationEntry entry;
+        synchronized (appendLock) {
+            entry = new ReplicationEntry(++lastSequence, operation, tenantId, bucket, key, tags, recordedAt);
+            if (log != null) {
+                try {
+                    write(log, entry);
+                } catch (IOException e) {
+                    lastSequence--;
+                    throw new UncheckedIOException("Cannot append to replication journal", e);
+                }
+                writtenSequence = entry.sequence();
+            }
+            pending.put(entry.sequence(), entry);
+        }
+        if (fsync) {
+            sync(entry.sequence());
+        }
+        return entry;
+    }
+
+    /**
+     * Force the log to disk up to {@code sequence}. The force covers every entry
+     * written before it started, so appends that queued up behind it return
+     * without forcing again.
+     */
+    private void sync(long sequence) {
+        synchronized (syncLock) {
+            if (syncedSequence >= sequence || log == null) {
+                return;
+            }
+            long written = writtenSequence;
+            try {
+                log.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot sync replication journal", e);
+            }
+            syncedSequence = written;
+        }
+    }
+
+    /**
+     * The oldest pending entries, in sequence order.
+     */
+    public List<ReplicationEntry> pending(int max) {
+        return pending.values().stream().limit(max).toList();
+    }
+
+    public int size() {
+        return pending.size();
+    }
+
+    /**
+     * When the oldest pending entry was recorded, or null when nothing is pending.
+     */
+    public Instant oldestPending() {
+        Map.Entry<Long, ReplicationEntry> oldest = pending.firstEntry();
+        return oldest == null ? null : oldest.getValue().recordedAt();
+    }
+
+    public long checkpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * Mark entries as replicated and move the checkpoint past every entry
+     * before the oldest one still pending.
+     */
+    public void acknowledge(Collection<Long> sequences) {
+        if (sequences.isEmpty()) {
+            return;
+        }
+        sequences.forEach(pending::remove);
+        synchronized (appendLock) {
+            Map.Entry<Long, ReplicationEntry> oldest = pending.firstEntry();
+            long replicatedUpTo = oldest == null ? lastSequence : oldest.getKey() - 1;
+            if (replicatedUpTo > checkpoint) {
+                checkpoint = replicatedUpTo;
+                saveCheckpoint();
+            }
+            compact();
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        synchronized (appendLock) {
+            if (log != null) {
+                try {
+                    log.close();
+                } catch (IOException e) {
+                    logger.warn("Failed to close replication journal: {}", e.getMessage());
+                }
+                synchronized (syncLock) {
+                    log = null;
+                }
+            }
+        }
+    }
+
+    private void recover() {
+        try {
+            Files.createDirectories(directory);
+            Path checkpointFile = directory.resolve(CHECKPOINT_FILE);
+            if (Files.exists(checkpointFile)) {
+                try (Reader reader = Files.newBufferedReader(checkpointFile, StandardCharsets.UTF_8)) {
+                    Properties properties = new Properties();
+                    properties.load(reader);
+                    checkpoint = Long.parseLong(properties.getProperty("replicated", "0"));
+                    lastSequence = Long.parseLong(properties.getProperty("sequence", "0"));
+                }
+            }
+            // A compacted log may no longer hold the highest sequence handed out
+            lastSequence = Math.max(lastSequence, checkpoint);
+            Path logFile = directory.resolve(LOG_FILE);
+            if (Files.exists(logFile)) {
+                try (BufferedReader reader = Files.newBufferedReader(logFile, StandardCharsets.UTF_8)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        ReplicationEntry entry = parse(line);
+                        if (entry == null) {
+                            continue;
+                        }
+                        lastSequence = Math.max(lastSequence, entry.sequence());
+                        if (entry.sequence() > checkpoint) {
+                            pending.put(entry.sequence(), entry);
+                        }
+                    }
+                }
+            }
+            log = openLog(logFile);
+            terminateTornLine();
+            compactedSize = log.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open replication journal in " + directory, e);
+        }
+        if (!pending.isEmpty()) {
+            logger.info("Replication journal recovered {} pending entries after sequence {}", pending.size(), checkpoint);
+        }
+    }
+
+    /**
+     * End a line left incomplete by a crash, so the next append starts on a line of its own.
+     */
+    private void terminateTornLine() throws IOException {
+        long size = log.size();
+        if (size == 0) {
+            return;
+        }
+        ByteBuffer last = ByteBuffer.allocate(1);
+        log.read(last, size - 1);
+        if (last.get(0) != '\n') {
+            log.write(ByteBuffer.wrap(new byte[] {'\n'}));
+        }
+    }
+
+    private void saveCheckpoint() {
+        if (directory == null) {
+            return;
+        }
+        Path target = directory.resolve(CHECKPOINT_FILE);
+        Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                Properties properties = new Properties();
+                properties.setProperty("replicated", Long.toString(checkpoint));
+                properties.setProperty("sequence", Long.toString(lastSequence));
+                properties.store(writer, null);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Entries after the previous checkpoint are replayed after a restart, which is safe
+            logger.warn("Failed to save replication checkpoint {}: {}", checkpoint, e.getMessage());
+        }
+    }
+
+    /**
+     * Rewrite the log with only the entries still pending once it has grown
+     * past the threshold and to at least twice its size after the last
+     * rewrite, which keeps the cost of rewriting proportional to what was
+     * appended since. Called with the append lock held, so no entry can be
+     * written while the log is swapped.
+     */
+    private void compact() {
+        if (log == null) {
+            return;
+        }
+        try {
+            if (log.size() < Math.max(compactThresholdBytes, 2 * compactedSize)) {
+                return;
+            }
+            Path logFile = directory.resolve(LOG_FILE);
+            Path temp = directory.resolve(LOG_FILE + ".tmp");
+            try (FileChannel rewritten = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (ReplicationEntry entry : pending.values()) {
+                    write(rewritten, entry);
+                }
+                rewritten.force(false);
+            }
+            // Recorded before the swap, so sequences dropped with the old log are never handed out again
+            saveCheckpoint();
+            synchronized (syncLock) {
+                Files.move(temp, logFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                log.close();
+                log = openLog(logFile);
+                compactedSize = log.size();
+            }
+            logger.debug("Replication journal compacted to {} pending entries at checkpoint {}", pending.size(), checkpoint);
+        } catch (IOException e) {
+            logger.warn("Failed to compact replication journal: {}", e.getMessage());
+        }
+    }
+
+    private static FileChannel openLog(Path logFile) throws IOException {
+        return FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static void write(FileChannel channel, ReplicationEntry entry) throws IOException {
+        ByteBuffer line = StandardCharsets.UTF_8.encode(format(entry));
+        while (line.hasRemaining()) {
+            channel.write(line);
+        }
+    }
+
+    static String format(ReplicationEntry entry) {
+        String tags = entry.tags().entrySet().stream()
+                .map(tag -> encode(tag.getKey()) + "=" + encode(tag.getValue()))
+                .collect(Collectors.joining("&"));
+        return String.join("\t",
+                Long.toString(entry.sequence()),
+                entry.operation().name(),
+                encode(entry.tenantId()),
+                encode(entry.bucket()),
+                encode(entry.key()),
+                Long.toString(entry.recordedAt().toEpochMilli()),
+                tags) + "\n";
+    }
+
+    static ReplicationEntry parse(String line) {
+        String[] fields = line.split("\t", -1);
+        if (fields.length != 7) {
+            // A torn final line from a crash mid-append; its write was never acknowledged
+            logger.warn("Skipping malformed replication journal line");
+            return null;
+        }
+        try {
+            Map<String, String> tags = new LinkedHashMap<>();
+            if (!fields[6].isEmpty()) {
+                for (String tag : fields[6].split("&")) {
+                    String[] pair = tag.split("=", 2);
+                    tags.put(decode(pair[0]), pair.length == 2 ? decode(pair[1]) : "");
+                }
+            }
+            return new ReplicationEntry(
+                    Long.parseLong(fields[0]),
+                    ReplicationEntry.Operation.valueOf(fields[1]),
+                    decode(fields[2]),
+                    decode(fields[3]),
+                    decode(fields[4]),
+                    tags,
+                    Instant.ofEpochMilli(Long.parseLong(fields[5])));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Skipping malformed replication journal line: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static String decode(String value) {
+        return URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Sequences currently pending, for tests.
+     */
+    List<Long> pendingSequences() {
+        return new ArrayList<>(pending.keySet());
+    }
+}
@@ -0,0 +1,278 @@
+package com.ironbucket.brazznossel.s3api;
+
+import com.ironbucket.brazznossel.checksum.ChecksumAlgorithm;
+import com.ironbucket.brazznossel.checksum.ChecksumMismatchException;
+import com.ironbucket.brazznossel.checksum.StreamingChecksumVerifier;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import reactor.core.publisher.Flux;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * AwsChunkedDecoder - Strips aws-chunked framing from an upload and verifies it as it streams.
+ *
+ * The decoder is a small state machine fed one request buffer at a time.
+ * Chunk data is handed on as slices of the request buffers, so the payload
+ * is never copied or gathered; only the chunk header and trailer lines are
+ * read byte by byte. Each chunk signature signs the SHA-256 of its data and
+ * the previous signature, starting from the request signature, and is checked
+ * as soon as the last byte of its chunk has passed. The last data slice is
+ * held back until the final chunk and the trailer have been verified, so a
+ * bad signature, checksum or framing ends the stream with an error before the
+ * body reaches its declared length, which aborts the backend upload before
+ * the object is stored.
+ */
+final class AwsChunkedDecoder {
+
+    private static final int MAX_LINE_LENGTH = 4096;
+    private static final String SIGNATURE_EXTENSION = "chunk-signature=";
+    private static final String TRAILER_SIGNATURE = "x-amz-trailer-signature";
+
+    private enum State {
+        HEADER,
+        DATA,
+        DATA_END,
+        TRAILER,
+        DONE
+    }
+
+    private final SigV4Verifier.SigningContext signing;
+    private final boolean signedTrailer;
+    private final ChecksumAlgorithm trailerChecksum;
+    private final ChecksumAlgorithm.Digest checksumDigest;
+    private final long decodedLength;
+    private final MessageDigest chunkDigest;
+    private final StringBuilder line = new StringBuilder(128);
+    private final StringBuilder canonicalTrailers = new StringBuilder();
+    private final Map<String, String> trailers = new HashMap<>();
+
+    private State state = State.HEADER;
+    private String previousSignature;
+    private String chunkSignature;
+    private String trailerSignature;
+    private long remaining;
+    private long decoded;
+
+    private AwsChunkedDecoder(
+            SigV4Verifier.SigningContext signing,
+            boolean signedTrailer,
+            ChecksumAlgorithm trailerChecksum,
+            long decodedLength) {
+        this.signing = signing;
+        this.signedTrailer = signedTrailer;
+        this.trailerChecksum = trailerChecksum;
+        this.checksumDigest = trailerChecksum == null ? null : trailerChecksum.newDigest();
+        this.decodedLength = decodedLength;
+        this.chunkDigest = signing == null ? null : SigV4Verifier.newSha256();
+        this.previousSignature = signing == null ? null : signing.seedSignature();
+    }
+
+    /**
+     * Decodes an aws-chunked body.
+     *
+     * @param signing Context the chunk signatures are checked against, or null for unsigned chunks
+     * @param signedTrailer Whether the trailer carries x-amz-trailer-signature
+     * @param trailerChecksum Checksum the trailer carries and the data is checked against, or null
+     * @param decodedLength The x-amz-decoded-content-length, or -1 when not declared
+     */
+    static Flux<DataBuffer> decode(
+            Flux<DataBuffer> body,
+            SigV4Verifier.SigningContext signing,
+            boolean signedTrailer,
+            ChecksumAlgorithm trailerChecksum,
+            long decodedLength) {
+        // Fresh state per subscription, so a retried upload starts from the first chunk
+        return Flux.defer(() -> {
+            AwsChunkedDecoder decoder = new AwsChunkedDecoder(signing, signedTrailer, trailerChecksum, decodedLength);
+            return StreamingChecksumVerifier.holdLastUntil(body.concatMapIterable(decoder::feed), decoder::finish)
+                    .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+        });
+    }
+
+    private List<DataBuffer> feed(DataBuffer buffer) {
+        List<DataBuffer> data = new ArrayList<>(2);
+        try {
+            while (buffer.readableByteCount() > 0) {
+                if (state == State.DONE) {
+                    throw S3ApiException.invalidRequest("Unexpected data after the final aws-chunked chunk");
+                }
+                if (state == State.DATA) {
+                    int readable = buffer.readableByteCount();
+                    if (remaining >= readable) {
+                        // The rest of the buffer is chunk data and goes on as it is
+                        consume(buffer, readable);
+                        data.add(buffer);
+                        return data;
+                    }
+                    DataBuffer slice = buffer.split(buffer.readPosition() + (int) remaining);
+                    data.add(slice);
+                    consume(slice, slice.readableByteCount());
+                } else if (readLine(buffer)) {
+                    String text = line.toString();
+                    line.setLength(0);
+                    onLine(text);
+                }
+            }
+            DataBufferUtils.release(buffer);
+            return data;
+        } catch (RuntimeException e) {
+            data.forEach(DataBufferUtils::release);
+            DataBufferUtils.release(buffer);
+            throw e;
+        }
+    }
+
+    private void consume(DataBuffer chunk, int length) {
+        decoded += length;
+        if (decodedLength >= 0 && decoded > decodedLength) {
+            throw incompleteBody();
+        }
+        if (chunkDigest != null || checksumDigest != null) {
+            try (DataBuffer.ByteBufferIterator views = chunk.readableByteBuffers()) {
+                while (views.hasNext()) {
+                    ByteBuffer view = views.next();
+                    if (chunkDigest != null) {
+                        chunkDigest.update(view.duplicate());
+                    }
+                    if (checksumDigest != null) {
+                        checksumDigest.update(view.duplicate());
+                    }
+                }
+            }
+        }
+        remaining -= length;
+        if (remaining == 0) {
+            verifyChunk();
+            state = State.DATA_END;
+        }
+    }
+
+    private boolean readLine(DataBuffer buffer) {
+        while (buffer.readableByteCount() > 0) {
+            byte next = buffer.read();
+            if (next == '\n') {
+                int last = line.length() - 1;
+                if (last >= 0 && line.charAt(last) == '\r') {
+                    line.setLength(last);
+                }
+                return true;
+            }
+            if (line.length() >= MAX_LINE_LENGTH) {
+                throw S3ApiException.invalidRequest("aws-chunked header line is too long");
+            }
+            line.append((char) (next & 0xff));
+        }
+        return false;
+    }
+
+    private void onLine(String text) {
+        switch (state) {
+            case HEADER -> {
+                // <hex size>[;chunk-signature=<signature>]
+                int extension = text.indexOf(';');
+                try {
+                    remaining = Long.parseLong((extension < 0 ? text : text.substring(0, extension)).trim(), 16);
+                } catch (NumberFormatException e) {
+                    throw S3ApiException.invalidRequest("Malformed aws-chunked chunk header");
+                }
+                if (remaining < 0) {
+                    throw S3ApiException.invalidRequest("Malformed aws-chunked chunk header");
+                }
+                int signature = text.indexOf(SIGNATURE_EXTENSION);
+                chunkSignature = signature < 0 ? null : text.substring(signature + SIGNATURE_EXTENSION.length()).trim();
+                if (signing != null && chunkSignature == null) {
+                    throw new S3ApiException(HttpStatus.FORBIDDEN, "IncompleteSignature", "aws-chunked chunk is not signed");
+                }
+                if (remaining == 0) {
+                    verifyChunk();
+                    state = State.TRAILER;
+                } else {
+                    state = State.DATA;
+                }
+            }
+            case DATA_END -> {
+                if (!text.isEmpty()) {
+                    throw S3ApiException.invalidRequest("aws-chunked chunk is longer than its declared size");
+                }
+                state = State.HEADER;
+            }
+            case TRAILER -> {
+                if (text.isEmpty()) {
+                    verifyTrailer();
+                    state = State.DONE;
+                } else {
+                    addTrailer(text);
+                }
+            }
+            default -> throw new IllegalStateException("No line expected in state " + state);
+        }
+    }
+
+    private void verifyChunk() {
+        if (signing == null) {
+            return;
+        }
+        String expected = signing.chunkSignature(previousSignature, SigV4Verifier.hex(chunkDigest.digest()));
+        if (!SigV4Verifier.constantTimeEquals(expected, chunkSignature)) {
+            throw S3ApiException.signatureDoesNotMatch();
+        }
+        previousSignature = expected;
+    }
+
+    private void addTrailer(String text) {
+        int colon = text.indexOf(':');
+        if (colon <= 0) {
+            throw S3ApiException.invalidRequest("Malformed aws-chunked trailer");
+        }
+        String name = text.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+        String value = text.substring(colon + 1).trim();
+        if (TRAILER_SIGNATURE.equals(name)) {
+            trailerSignature = value;
+            return;
+        }
+        trailers.put(name, value);
+        canonicalTrailers.append(name).append(':').append(value).append('\n');
+    }
+
+    private void verifyTrailer() {
+        if (signedTrailer) {
+            if (trailerSignature == null) {
+                throw new S3ApiException(HttpStatus.FORBIDDEN, "IncompleteSignature", "aws-chunked trailer is not signed");
+            }
+            String trailerHash = SigV4Verifier.hex(SigV4Verifier.sha256(canonicalTrailers.toString().getBytes(StandardCharsets.UTF_8)));
+            if (!SigV4Verifier.constantTimeEquals(signing.trailerSignature(previousSignature, trailerHash), trailerSignature)) {
+                throw S3ApiException.signatureDoesNotMatch();
+            }
+        }
+        if (checksumDigest != null) {
+            String expected = trailers.get(trailerChecksum.headerName().toLowerCase(Locale.ROOT));
+            if (expected == null) {
+                throw S3ApiException.invalidRequest("The trailer does not carry the declared " + trailerChecksum.headerName());
+            }
+            String actual = checksumDigest.value();
+            if (!actual.equals(expected)) {
+                throw new ChecksumMismatchException(trailerChecksum, expected, actual);
+            }
+        }
+    }
+
+    private void finish() {
+        if (state != State.DONE || (decodedLength >= 0 && decoded != decodedLength)) {
+            throw incompleteBody();
+        }
+    }
+
+    private static S3ApiException incompleteBody() {
+        return new S3ApiException(HttpStatus.BAD_REQUEST, "IncompleteBody",
+                "The request body does not match x-amz-decoded-content-length or ends before the final chunk");
+    }
+}
@@ -0,0 +1,38 @@
+package com.ironbucket.brazznossel.s3api;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * An S3 protocol error, carrying the S3 error code returned in the XML error document.
+ */
+public class S3ApiException extends ResponseStatusException {
+
+    private final String code;
+
+    public S3ApiException(HttpStatus status, String code, String message) {
+        super(status, message);
+        this.code = code;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    static S3ApiException accessDenied(String message) {
+        return new S3ApiException(HttpStatus.FORBIDDEN, "AccessDenied", message);
+    }
+
+    static S3ApiException signatureDoesNotMatch() {
+        return new S3ApiException(HttpStatus.FORBIDDEN, "SignatureDoesNotMatch",
+                "The request signature we calculated does not match the signature you provided.");
+    }
+
+    static S3ApiException invalidRequest(String message) {
+        return new S3ApiException(HttpStatus.BAD_REQUEST, "InvalidRequest", message);
+    }
+
+    static S3ApiException notImplemented(String operation) {
+        return new S3ApiException(HttpStatus.NOT_IMPLEMENTED, "NotImplemented", operation + " is not implemented by this gateway");
+    }
+}
@@ -0,0 +1,598 @@
+package com.ironbucket.brazznossel.s3api;
+
+import com.ironbucket.brazznossel.checksum.ChecksumMismatchException;
+import com.ironbucket.brazznossel.checksum.ChecksumTranslator;
+import com.ironbucket.brazznossel.conditional.ConditionalRequest;
+import com.ironbucket.brazznossel.conditional.ConditionalWriteGuard;
+import com.ironbucket.brazznossel.conditional.PreconditionFailedException;
+import com.ironbucket.brazznossel.config.S3ApiProperties;
+import com.ironbucket.brazznossel.listing.ListingFormat;
+import com.ironbucket.brazznossel.listing.S3ListingWriter;
+import com.ironbucket.brazznossel.model.ListObjectsQuery;
+import com.ironbucket.brazznossel.model.NormalizedIdentity;
+import com.ironbucket.brazznossel.model.ObjectMetadata;
+import com.ironbucket.brazznossel.ratelimit.TenantRateLimiter;
+import com.ironbucket.brazznossel.service.S3ProxyService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * S3ApiHandler - Serves S3 REST requests signed with SigV4.
+ *
+ * Each request is verified by {@link SigV4Verifier}, which also maps the
+ * access key to the tenant identity, and then dispatched into the same
+ * {@link S3ProxyService} operations the JWT API uses, so tenant checks,
+ * quotas, bulkheads, caches and replication apply unchanged. Upload bodies
+ * go to the backend as they arrive, checked the way they were signed by
+ * {@link SignedPayload}. Responses and errors are written in the S3 wire
+ * format, so SDKs, the AWS CLI and other S3 tools can point at the gateway.
+ *
+ * Operations outside the supported set answer NotImplemented.
+ */
+@Component
+public class S3ApiHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(S3ApiHandler.class);
+
+    // CompleteMultipartUpload with 10,000 parts and a 1,000-key Delete both fit comfortably
+    private static final int MAX_XML_BODY = 4 * 1024 * 1024;
+    private static final int MAX_PART_NUMBER = 10_000;
+    private static final String COPY_SOURCE_HEADER = "x-amz-copy-source";
+    private static final String CHECKSUM_MODE_HEADER = "x-amz-checksum-mode";
+    private static final String VERSION_ID_HEADER = "x-amz-version-id";
+    private static final String REQUEST_ID_HEADER = "x-amz-request-id";
+    private static final Set<String> UNSUPPORTED_SUBRESOURCES = Set.of(
+            "accelerate", "acl", "analytics", "attributes", "cors", "encryption", "intelligent-tiering",
+            "inventory", "legal-hold", "lifecycle", "logging", "metrics", "notification", "object-lock",
+            "ownershipControls", "policy", "policyStatus", "publicAccessBlock", "replication",
+            "requestPayment", "restore", "retention", "select", "tagging", "torrent", "uploads",
+            "uploadId", "versions", "website");
+
+    private final S3ProxyService s3ProxyService;
+    private final SigV4Verifier verifier;
+    private final TenantRateLimiter rateLimiter;
+    private final ConditionalWriteGuard writeGuard;
+    private final S3ApiProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    public S3ApiHandler(
+            S3ProxyService s3ProxyService,
+            SigV4Verifier verifier,
+            TenantRateLimiter rateLimiter,
+            ConditionalWriteGuard writeGuard,
+            S3ApiProperties properties,
+            MeterRegistry meterRegistry) {
+        this.s3ProxyService = s3ProxyService;
+        this.verifier = verifier;
+        this.rateLimiter = rateLimiter;
+        this.writeGuard = writeGuard;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Whether the request is meant for the S3 API rather than the JWT API:
+     * it is SigV4-signed, or addressed to a bucket subdomain.
+     */
+    public boolean claims(ServerHttpRequest request) {
+        return properties.isEnabled()
+                && (SigV4Verifier.isSigned(request) || S3ApiRequest.virtualHostBucket(request, properties.getDomain()) != null);
+    }
+
+    public Mono<Void> handle(ServerWebExchange exchange) {
+        ServerHttpRequest request = exchange.getRequest();
+        S3ApiRequest target = S3ApiRequest.of(request, properties.getDomain());
+        String operation = operation(request, target);
+        exchange.getResponse().getHeaders().set(REQUEST_ID_HEADER, request.getId());
+        return Mono.defer(() -> {
+            SigV4Verifier.Verified verified = verifier.verify(request);
+            if (operation == null) {
+                throw S3ApiException.notImplemented(request.getMethod().name() + " " + target.resource()
+                        + (request.getQueryParams().isEmpty() ? "" : "?" + String.join("&", request.getQueryParams().keySet())));
+            }
+            rateLimiter.checkRequest(verified.identity().getTenantId());
+            return dispatch(new Call(exchange, target, verified), operation);
+        })
+                .doOnSuccess(done -> count(operation, "success"))
+                .onErrorResume(error -> {
+                    count(operation, "error");
+                    return writeError(exchange, target, error);
+                });
+    }
+
+    /**
+     * The S3 operation a request maps to, or null when it is not supported.
+     */
+    static String operation(ServerHttpRequest request, S3ApiRequest target) {
+        MultiValueMap<String, String> query = request.getQueryParams();
+        String method = request.getMethod().name();
+        if (target.bucket() == null) {
+            return "GET".equals(method) ? "ListBuckets" : null;
+        }
+        if (target.key() == null) {
+            return switch (method) {
+                case "GET" -> query.containsKey("location") ? "GetBucketLocation"
+                        : query.containsKey("versioning") ? "GetBucketVersioning"
+                        : isSubresource(query) ? null
+                        : "ListObjects";
+                case "HEAD" -> "HeadBucket";
+                case "PUT" -> isSubresource(query) || query.containsKey("versioning") ? null : "CreateBucket";
+                case "DELETE" -> isSubresource(query) ? null : "DeleteBucket";
+                case "POST" -> query.containsKey("delete") ? "DeleteObjects" : null;
+                default -> null;
+            };
+        }
+        boolean copy = request.getHeaders().getFirst(COPY_SOURCE_HEADER) != null;
+        return switch (method) {
+            case "GET" -> isSubresource(query) ? null : "GetObject";
+            case "HEAD" -> isSubresource(query) || query.containsKey("versionId") ? null : "HeadObject";
+            case "PUT" -> query.containsKey("uploadId") && query.containsKey("partNumber")
+                    ? (copy ? null : "UploadPart")
+                    : isSubresource(query) ? null
+                    : copy ? "CopyObject"
+                    : "PutObject";
+            case "DELETE" -> query.containsKey("uploadId") ? "AbortMultipartUpload"
+                    : isSubresource(query) ? null
+                    : "DeleteObject";
+            case "POST" -> query.containsKey("uploads") ? "CreateMultipartUpload"
+                    : query.containsKey("uploadId") ? "CompleteMultipartUpload"
+                    : null;
+            default -> null;
+        };
+    }
+
+    private static boolean isSubresource(MultiValueMap<String, String> query) {
+        for (String name : query.keySet()) {
+            if (UNSUPPORTED_SUBRESOURCES.contains(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Mono<Void> dispatch(Call call, String operation) {
+        return switch (operation) {
+            case "ListBuckets" -> listBuckets(call);
+            case "ListObjects" -> listObjects(call);
+            case "GetBucketLocation" -> s3ProxyService.getBucketLocation(call.bucket(), call.identity())
+                    .flatMap(region -> xml(call, HttpStatus.OK, S3ApiXml.locationConstraint(call.bufferFactory(), region)));
+            case "GetBucketVersioning" -> s3ProxyService.getBucketVersioning(call.bucket(), call.identity())
+                    .defaultIfEmpty("")
+                    .flatMap(status -> xml(call, HttpStatus.OK,
+                            S3ApiXml.versioningConfiguration(call.bufferFactory(), status.isEmpty() ? null : status)));
+            case "CreateBucket" -> s3ProxyService.createBucket(call.bucket(), call.identity())
+                    .then(Mono.defer(() -> {
+                        call.response().getHeaders().setLocation(URI.create("/" + call.bucket()));
+                        return empty(call, HttpStatus.OK);
+                    }));
+            case "DeleteBucket" -> s3ProxyService.deleteBucket(call.bucket(), call.identity())
+                    .then(empty(call, HttpStatus.NO_CONTENT));
+            case "HeadBucket" -> s3ProxyService.headBucket(call.bucket(), call.identity())
+                    .then(empty(call, HttpStatus.OK));
+            case "DeleteObjects" -> deleteObjects(call);
+            case "GetObject" -> getObject(call);
+            case "HeadObject" -> headObject(call);
+            case "PutObject" -> putObject(call);
+            case "CopyObject" -> copyObject(call);
+            case "DeleteObject" -> deleteObject(call);
+            case "CreateMultipartUpload" -> s3ProxyService.initiateMultipartUpload(call.bucket(), call.key(), call.identity())
+                    .flatMap(uploadId -> xml(call, HttpStatus.OK,
+                            S3ApiXml.initiateMultipartUploadResult(call.bufferFactory(), call.bucket(), call.key(), uploadId)));
+            case "UploadPart" -> uploadPart(call);
+            case "CompleteMultipartUpload" -> completeMultipartUpload(call);
+            case "AbortMultipartUpload" -> s3ProxyService.abortMultipartUpload(call.bucket(), call.key(), call.param("uploadId"), call.identity())
+                    .then(empty(call, HttpStatus.NO_CONTENT));
+            default -> Mono.error(S3ApiException.notImplemented(operation));
+        };
+    }
+
+    private Mono<Void> listBuckets(Call call) {
+        NormalizedIdentity identity = call.identity();
+        return body(call, HttpStatus.OK, MediaType.APPLICATION_XML, S3ListingWriter.buckets(ListingFormat.XML,
+                identity.getTenantId(), identity.getPreferredUsername(),
+                s3ProxyService.listBucketSummaries(identity), call.bufferFactory()));
+    }
+
+    /**
+     * One ListObjectsV2 page. Version 1 requests are served by the same listing,
+     * with the marker as start-after; without a NextMarker, v1 clients continue
+     * from the last key returned.
+     */
+    private Mono<Void> listObjects(Call call) {
+        boolean v2 = "2".equals(call.param("list-type"));
+        ListObjectsQuery query = new ListObjectsQuery(
+                call.param("prefix"),
+                call.param("delimiter"),
+                v2 ? call.param("start-after") : call.param("marker"),
+                maxKeys(call.param("max-keys")),
+                v2 ? call.param("continuation-token") : null);
+        return body(call, HttpStatus.OK, MediaType.APPLICATION_XML, S3ListingWriter.objects(ListingFormat.XML,
+                call.bucket(), query, s3ProxyService.listObjectsPage(call.bucket(), query, call.identity()).flux(),
+                call.bufferFactory()));
+    }
+
+    private Mono<Void> deleteObjects(Call call) {
+        return xmlRequest(call)
+                .map(S3ApiXml::deleteRequest)
+                .flatMap(delete -> {
+                    if (delete.keys().size() > ListObjectsQuery.MAX_KEYS_LIMIT) {
+                        return Mono.error(new S3ApiException(HttpStatus.BAD_REQUEST, "MalformedXML",
+                                "A Delete request may name at most " + ListObjectsQuery.MAX_KEYS_LIMIT + " keys"));
+                    }
+                    return s3ProxyService.deleteObjects(call.bucket(), Flux.fromIterable(delete.keys()), call.identity())
+                            .collectList()
+                            .flatMap(results -> xml(call, HttpStatus.OK,
+                                    S3ApiXml.deleteResult(call.bufferFactory(), results, delete.quiet())));
+                });
+    }
+
+    private Mono<Void> getObject(Call call) {
+        String versionId = call.param("versionId");
+        if (versionId != null) {
+            return s3ProxyService.getObjectVersion(call.bucket(), call.key(), versionId, call.identity())
+                    .flatMap(bytes -> {
+                        call.response().getHeaders().set(VERSION_ID_HEADER, versionId);
+                        call.response().getHeaders().setContentLength(bytes.length);
+                        return body(call, HttpStatus.OK, MediaType.APPLICATION_OCTET_STREAM,
+                                Flux.just(call.bufferFactory().wrap(bytes)));
+                    });
+        }
+        HttpHeaders headers = call.request().getHeaders();
+        ConditionalRequest conditions = ConditionalRequest.fromHeaders(headers);
+        List<HttpRange> ranges = headers.getRange();
+        if (!conditions.isPresent() && ranges.size() != 1) {
+            return streamObject(call);
+        }
+        return s3ProxyService.headObjectMetadata(call.bucket(), call.key(), call.identity())
+                .flatMap(current -> switch (conditions.evaluate(current, true)) {
+                    case NOT_MODIFIED -> notModified(call, current);
+                    case PRECONDITION_FAILED -> Mono.<Void>error(new PreconditionFailedException(call.bucket(), call.key()));
+                    // Multiple ranges are not supported by S3 either; the whole object is returned
+                    case PROCEED -> ranges.size() == 1 ? rangedObject(call, ranges.get(0), current) : streamObject(call);
+                });
+    }
+
+    private Mono<Void> streamObject(Call call) {
+        boolean verifyChecksum = "ENABLED".equalsIgnoreCase(call.request().getHeaders().getFirst(CHECKSUM_MODE_HEADER));
+        return s3ProxyService.getObjectStream(call.bucket(), call.key(), call.bufferFactory(), verifyChecksum, call.identity())
+                .flatMap(object -> {
+                    HttpHeaders headers = call.response().getHeaders();
+                    if (object.contentLength() >= 0) {
+                        headers.setContentLength(object.contentLength());
+                    }
+                    if (object.eTag() != null) {
+                        headers.setETag(object.eTag());
+                    }
+                    object.checksums().forEach((algorithm, value) -> headers.set(algorithm.headerName(), value));
+                    return body(call, HttpStatus.OK, contentType(object.contentType()), object.body());
+                });
+    }
+
+    private Mono<Void> rangedObject(Call call, HttpRange range, ObjectMetadata current) {
+        long start;
+        long end;
+        try {
+            start = range.getRangeStart(current.contentLength());
+            end = range.getRangeEnd(current.contentLength());
+        } catch (IllegalArgumentException e) {
+            return Mono.error(new S3ApiException(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, "InvalidRange",
+                    "The requested range is not satisfiable"));
+        }
+        // Pinned to the ETag the headers below describe; a concurrent overwrite fails with 412
+        return s3ProxyService.getObjectRangeStream(call.bucket(), call.key(), current.eTag(), start, end,
+                        call.bufferFactory(), call.identity())
+                .flatMap(object -> {
+                    HttpHeaders headers = call.response().getHeaders();
+                    headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + current.contentLength());
+                    headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+                    headers.setContentLength(end - start + 1);
+                    if (current.eTag() != null) {
+                        headers.setETag(current.eTag());
+                    }
+                    return body(call, HttpStatus.PARTIAL_CONTENT, contentType(current.contentType()), object.body());
+                });
+    }
+
+    private Mono<Void> headObject(Call call) {
+        ConditionalRequest conditions = ConditionalRequest.fromHeaders(call.request().getHeaders());
+        return s3ProxyService.headObjectMetadata(call.bucket(), call.key(), call.identity())
+                .flatMap(current -> switch (conditions.evaluate(current, true)) {
+                    case NOT_MODIFIED -> notModified(call, current);
+                    case PRECONDITION_FAILED -> Mono.<Void>error(new PreconditionFailedException(call.bucket(), call.key()));
+                    case PROCEED -> {
+                        HttpHeaders headers = call.response().getHeaders();
+                        if (current.contentLength() >= 0) {
+                            headers.setContentLength(current.contentLength());
+                        }
+                        headers.setContentType(contentType(current.contentType()));
+                        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+                        describe(headers, current);
+                        yield empty(call, HttpStatus.OK);
+                    }
+                });
+    }
+
+    private Mono<Void> notModified(Call call, ObjectMetadata current) {
+        describe(call.response().getHeaders(), current);
+        return empty(call, HttpStatus.NOT_MODIFIED);
+    }
+
+    private static void describe(HttpHeaders headers, ObjectMetadata current) {
+        if (current.eTag() != null) {
+            headers.setETag(current.eTag());
+        }
+        if (current.lastModified() != null) {
+            headers.setLastModified(current.lastModified());
+        }
+        if (current.versionId() != null) {
+            headers.set(VERSION_ID_HEADER, current.versionId());
+        }
+    }
+
+    private Mono<Void> putObject(Call call) {
+        HttpHeaders requestHeaders = call.request().getHeaders();
+        // Checked against the backend and serialized with other writes to the key, as the JWT API does
+        return writeGuard.write(call.identity().getTenantId(), call.bucket(), call.key(),
+                        ConditionalRequest.fromHeaders(requestHeaders),
+                        () -> s3ProxyService.headObjectMetadataUncached(call.bucket(), call.key(), call.identity()),
+                        () -> Mono.fromCallable(() -> ChecksumTranslator.fromHeaders(requestHeaders))
+                                .flatMap(checksums -> s3ProxyService.putObjectStream(call.bucket(), call.key(), payload(call),
+                                        SignedPayload.contentLength(call.verified(), requestHeaders), checksums,
+                                        SignedPayload.trailingChecksum(call.verified(), requestHeaders), call.identity())))
+                .flatMap(eTag -> {
+                    call.response().getHeaders().setETag(eTag);
+                    return empty(call, HttpStatus.OK);
+                });
+    }
+
+    private Mono<Void> copyObject(Call call) {
+        String source = UriUtils.decode(call.request().getHeaders().getFirst(COPY_SOURCE_HEADER), StandardCharsets.UTF_8);
+        if (source.startsWith("/")) {
+            source = source.substring(1);
+        }
+        int slash = source.indexOf('/');
+        if (slash <= 0 || slash == source.length() - 1) {
+            return Mono.error(new S3ApiException(HttpStatus.BAD_REQUEST, "InvalidArgument",
+                    "x-amz-copy-source must be {bucket}/{key}"));
+        }
+        if (source.contains("?versionId=")) {
+            return Mono.error(S3ApiException.notImplemented("Copying an object version"));
+        }
+        String sourceBucket = source.substring(0, slash);
+        String sourceKey = source.substring(slash + 1);
+        return writeGuard.write(call.identity().getTenantId(), call.bucket(), call.key(),
+                        () -> s3ProxyService.copyObject(sourceBucket, sourceKey, call.bucket(), call.key(), call.identity()))
+                .flatMap(eTag -> xml(call, HttpStatus.OK, S3ApiXml.copyObjectResult(call.bufferFactory(), eTag, Instant.now())));
+    }
+
+    private Mono<Void> deleteObject(Call call) {
+        String versionId = call.param("versionId");
+        Mono<Void> delete = versionId == null
+                ? s3ProxyService.deleteObject(call.bucket(), call.key(), call.identity())
+                : s3ProxyService.deleteObjectVersion(call.bucket(), call.key(), versionId, call.identity());
+        return writeGuard.write(call.identity().getTenantId(), call.bucket(), call.key(), () -> delete)
+                .then(empty(call, HttpStatus.NO_CONTENT));
+    }
+
+    private Mono<Void> uploadPart(Call call) {
+        int partNumber = partNumber(call.param("partNumber"));
+        if (partNumber < 1 || partNumber > MAX_PART_NUMBER) {
+            return Mono.error(new S3ApiException(HttpStatus.BAD_REQUEST, "InvalidArgument",
+                    "Part number must be an integer between 1 and " + MAX_PART_NUMBER));
+        }
+        HttpHeaders requestHeaders = call.request().getHeaders();
+        return Mono.fromCallable(() -> ChecksumTranslator.fromHeaders(requestHeaders))
+                .flatMap(checksums -> s3ProxyService.uploadPartStream(call.bucket(), call.key(), call.param("uploadId"), partNumber,
+                        payload(call), SignedPayload.contentLength(call.verified(), requestHeaders), checksums,
+                        SignedPayload.trailingChecksum(call.verified(), requestHeaders), call.identity()))
+                .flatMap(eTag -> {
+                    call.response().getHeaders().setETag(eTag);
+                    return empty(call, HttpStatus.OK);
+                });
+    }
+
+    private static int partNumber(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private Mono<Void> completeMultipartUpload(Call call) {
+        return xmlRequest(call)
+                .map(S3ApiXml::completedParts)
+                .flatMap(parts -> writeGuard.write(call.identity().getTenantId(), call.bucket(), call.key(),
+                        () -> s3ProxyService.completeMultipartUpload(
+                                call.bucket(), call.key(), call.param("uploadId"), parts, call.identity())))
+                .flatMap(eTag -> xml(call, HttpStatus.OK, S3ApiXml.completeMultipartUploadResult(
+                        call.bufferFactory(), call.target().resource(), call.bucket(), call.key(), eTag)));
+    }
+
+    /**
+     * The request body as the backend should receive it: verified, unframed and shaped to the tenant's bandwidth.
+     */
+    private Flux<DataBuffer> payload(Call call) {
+        ServerHttpRequest request = call.request();
+        return rateLimiter.shape(call.identity().getTenantId(),
+                SignedPayload.body(request.getBody(), call.verified(), request.getHeaders()));
+    }
+
+    private Mono<byte[]> xmlRequest(Call call) {
+        return DataBufferUtils.join(payload(call), MAX_XML_BODY)
+                .map(buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    DataBufferUtils.release(buffer);
+                    return bytes;
+                })
+                .switchIfEmpty(Mono.error(new S3ApiException(HttpStatus.BAD_REQUEST, "MissingRequestBodyError",
+                        "Request body is empty.")));
+    }
+
+    private Mono<Void> xml(Call call, HttpStatus status, DataBuffer document) {
+        call.response().getHeaders().setContentLength(document.readableByteCount());
+        return body(call, status, MediaType.APPLICATION_XML, Flux.just(document));
+    }
+
+    private Mono<Void> body(Call call, HttpStatus status, MediaType contentType, Flux<DataBuffer> body) {
+        ServerHttpResponse response = call.response();
+        response.setStatusCode(status);
+        response.getHeaders().setContentType(contentType);
+        return response.writeWith(rateLimiter.shape(call.identity().getTenantId(), body));
+    }
+
+    private static Mono<Void> empty(Call call, HttpStatus status) {
+        call.response().setStatusCode(status);
+        return call.response().setComplete();
+    }
+
+    private Mono<Void> writeError(ServerWebExchange exchange, S3ApiRequest target, Throwable error) {
+        ServerHttpResponse response = exchange.getResponse();
+        if (response.isCommitted()) {
+            // Too late for an error document; the connection is closed mid-body instead
+            return Mono.error(error);
+        }
+        HttpStatus status = HttpStatus.INTERNAL_SERVER_ERROR;
+        String code = "InternalError";
+        String message = error.getMessage();
+        if (error instanceof S3ApiException apiError) {
+            status = HttpStatus.valueOf(apiError.getStatusCode().value());
+            code = apiError.getCode();
+            message = apiError.getReason();
+        } else if (error instanceof S3Exception backendError) {
+            status = HttpStatus.resolve(backendError.statusCode()) == null
+                    ? HttpStatus.INTERNAL_SERVER_ERROR
+                    : HttpStatus.valueOf(backendError.statusCode());
+            if (backendError.awsErrorDetails() != null) {
+                code = backendError.awsErrorDetails().errorCode();
+                message = backendError.awsErrorDetails().errorMessage();
+            }
+        } else if (error instanceof SecurityException) {
+            status = HttpStatus.FORBIDDEN;
+            code = "AccessDenied";
+        } else if (error instanceof DataBufferLimitException) {
+            status = HttpStatus.BAD_REQUEST;
+            code = "MaxMessageLengthExceeded";
+        } else if (error instanceof IllegalArgumentException) {
+            status = HttpStatus.BAD_REQUEST;
+            code = "InvalidArgument";
+        } else if (error instanceof ResponseStatusException statusError) {
+            HttpStatus resolved = HttpStatus.resolve(statusError.getStatusCode().value());
+            status = resolved == null ? HttpStatus.INTERNAL_SERVER_ERROR : resolved;
+            code = errorCode(statusError, status);
+            message = statusError.getReason();
+            response.getHeaders().addAll(statusError.getHeaders());
+        }
+        if (status.is5xxServerError() && !(error instanceof ResponseStatusException)) {
+            logger.error("S3 API request {} {} failed", exchange.getRequest().getMethod(), target.resource(), error);
+        }
+        response.setStatusCode(status);
+        response.getHeaders().setContentType(MediaType.APPLICATION_XML);
+        response.getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+        if ("HEAD".equals(exchange.getRequest().getMethod().name())) {
+            // HEAD responses carry no body, so the status is all the client gets
+            return response.setComplete();
+        }
+        return response.writeWith(Mono.just(S3ApiXml.error(response.bufferFactory(), code, message,
+                target.resource(), exchange.getRequest().getId())));
+    }
+
+    private static String errorCode(ResponseStatusException error, HttpStatus status) {
+        if (error instanceof PreconditionFailedException) {
+            return "PreconditionFailed";
+        }
+        if (error instanceof ChecksumMismatchException) {
+            return "BadDigest";
+        }
+        return switch (status) {
+            case SERVICE_UNAVAILABLE -> "SlowDown";
+            case NOT_FOUND -> "NoSuchKey";
+            case FORBIDDEN -> "AccessDenied";
+            case LENGTH_REQUIRED -> "MissingContentLength";
+            case BAD_REQUEST -> "InvalidRequest";
+            default -> "InternalError";
+        };
+    }
+
+    private static Integer maxKeys(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            // S3 never returns more than 1,000 keys per page, whatever is asked for
+            return Math.clamp(Long.parseLong(value), 1, ListObjectsQuery.MAX_KEYS_LIMIT);
+        } catch (NumberFormatException e) {
+            throw new S3ApiException(HttpStatus.BAD_REQUEST, "InvalidArgument", "max-keys must be an integer");
+        }
+    }
+
+    private static MediaType contentType(String contentType) {
+        return contentType == null ? MediaType.APPLICATION_OCTET_STREAM : MediaType.parseMediaType(contentType);
+    }
+
+    private void count(String operation, String result) {
+        meterRegistry.counter("ironbucket.s3.api.requests",
+                "operation", operation == null ? "unsupported" : operation,
+                "result", result).increment();
+    }
+
+    /**
+     * One verified request being served.
+     */
+    private record Call(ServerWebExchange exchange, S3ApiRequest target, SigV4Verifier.Verified verified) {
+
+        ServerHttpRequest request() {
+            return exchange.getRequest();
+        }
+
+        ServerHttpResponse response() {
+            return exchange.getResponse();
+        }
+
+        DataBufferFactory bufferFactory() {
+            return exchange.getResponse().bufferFactory();
+        }
+
+        NormalizedIdentity identity() {
+            return verified.identity();
+        }
+
+        String bucket() {
+            return target.bucket();
+        }
+
+        String key() {
+            return target.key();
+        }
+
+        String param(String name) {
+            return exchange.getRequest().getQueryParams().getFirst(name);
+        }
+    }
+}
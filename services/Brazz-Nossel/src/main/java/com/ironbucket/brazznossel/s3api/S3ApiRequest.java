@@ -0,0 +1,77 @@
+package com.ironbucket.brazznossel.s3api;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.util.UriUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * S3ApiRequest - The bucket and key an S3 REST request addresses.
+ *
+ * With a configured domain, a Host of {bucket}.{domain} is virtual-host style
+ * and the whole path is the key. Otherwise the request is path-style and the
+ * first path segment is the bucket.
+ *
+ * @param bucket The bucket, or null for service-level requests
+ * @param key The object key, or null for bucket-level requests
+ */
+record S3ApiRequest(String bucket, String key) {
+
+    static S3ApiRequest of(ServerHttpRequest request, String domain) {
+        String rawPath = request.getURI().getRawPath();
+        String path = rawPath == null ? "" : UriUtils.decode(rawPath, StandardCharsets.UTF_8);
+        if (path.startsWith("/")) {
+            path = path.substring(1);
+        }
+        String virtualBucket = virtualHostBucket(request, domain);
+        if (virtualBucket != null) {
+            return new S3ApiRequest(virtualBucket, emptyToNull(path));
+        }
+        int slash = path.indexOf('/');
+        if (slash < 0) {
+            return new S3ApiRequest(emptyToNull(path), null);
+        }
+        return new S3ApiRequest(path.substring(0, slash), emptyToNull(path.substring(slash + 1)));
+    }
+
+    /**
+     * The bucket named by the Host header, when it is a subdomain of the configured domain.
+     */
+    static String virtualHostBucket(ServerHttpRequest request, String domain) {
+        if (domain == null || domain.isBlank()) {
+            return null;
+        }
+        String host = request.getHeaders().getFirst(HttpHeaders.HOST);
+        if (host == null) {
+            host = request.getURI().getHost();
+        }
+        if (host == null) {
+            return null;
+        }
+        int port = host.lastIndexOf(':');
+        if (port > host.lastIndexOf(']')) {
+            host = host.substring(0, port);
+        }
+        host = host.toLowerCase(Locale.ROOT);
+        String suffix = "." + domain.toLowerCase(Locale.ROOT);
+        return host.endsWith(suffix) && host.length() > suffix.length()
+                ? host.substring(0, host.length() - suffix.length())
+                : null;
+    }
+
+    /**
+     * The resource named in S3 error documents.
+     */
+    String resource() {
+        if (bucket == null) {
+            return "/";
+        }
+        return key == null ? "/" + bucket : "/" + bucket + "/" + key;
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,247 @@
+package com.ironbucket.brazznossel.s3api;
+
+import com.ironbucket.brazznossel.model.DeleteResult;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.HttpStatus;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * S3ApiXml - The small request and response documents of the S3 REST API.
+ *
+ * Listings are streamed by {@link com.ironbucket.brazznossel.listing.S3ListingWriter};
+ * everything here is a few hundred bytes, or a bounded request body, and is
+ * handled in one piece with StAX. DTDs and external entities are refused when
+ * reading client documents.
+ */
+public final class S3ApiXml {
+
+    private static final String S3_NAMESPACE = "http://s3.amazonaws.com/doc/2006-03-01/";
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newFactory();
+    private static final XMLInputFactory INPUT_FACTORY = inputFactory();
+    private static final DateTimeFormatter TIMESTAMP =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
+
+    @FunctionalInterface
+    private interface XmlWrite {
+        void write(XMLStreamWriter writer) throws XMLStreamException;
+    }
+
+    /**
+     * A parsed multi-object Delete request.
+     */
+    record DeleteRequest(List<String> keys, boolean quiet) {
+    }
+
+    private S3ApiXml() {
+    }
+
+    /**
+     * An S3 Error document, also used for errors of the proxy's own REST API that S3 clients must understand.
+     */
+    public static DataBuffer error(DataBufferFactory bufferFactory, String code, String message, String resource, String requestId) {
+        // Error documents are the one S3 response without the namespace
+        return document(bufferFactory, "Error", false, writer -> {
+            element(writer, "Code", code);
+            element(writer, "Message", message);
+            element(writer, "Resource", resource);
+            element(writer, "RequestId", requestId);
+        });
+    }
+
+    static DataBuffer locationConstraint(DataBufferFactory bufferFactory, String region) {
+        return document(bufferFactory, "LocationConstraint", true, writer -> {
+            // us-east-1 is reported as an empty constraint
+            if (region != null && !"us-east-1".equals(region)) {
+                writer.writeCharacters(region);
+            }
+        });
+    }
+
+    static DataBuffer versioningConfiguration(DataBufferFactory bufferFactory, String status) {
+        return document(bufferFactory, "VersioningConfiguration", true, writer -> element(writer, "Status", status));
+    }
+
+    static DataBuffer initiateMultipartUploadResult(DataBufferFactory bufferFactory, String bucket, String key, String uploadId) {
+        return document(bufferFactory, "InitiateMultipartUploadResult", true, writer -> {
+            element(writer, "Bucket", bucket);
+            element(writer, "Key", key);
+            element(writer, "UploadId", uploadId);
+        });
+    }
+
+    static DataBuffer completeMultipartUploadResult(DataBufferFactory bufferFactory, String location, String bucket, String key, String eTag) {
+        return document(bufferFactory, "CompleteMultipartUploadResult", true, writer -> {
+            element(writer, "Location", location);
+            element(writer, "Bucket", bucket);
+            element(writer, "Key", key);
+            element(writer, "ETag", eTag);
+        });
+    }
+
+    static DataBuffer copyObjectResult(DataBufferFactory bufferFactory, String eTag, Instant lastModified) {
+        return document(bufferFactory, "CopyObjectResult", true, writer -> {
+            element(writer, "LastModified", TIMESTAMP.format(lastModified));
+            element(writer, "ETag", eTag);
+        });
+    }
+
+    static DataBuffer deleteResult(DataBufferFactory bufferFactory, List<DeleteResult> results, boolean quiet) {
+        return document(bufferFactory, "DeleteResult", true, writer -> {
+            for (DeleteResult result : results) {
+                if (result.deleted()) {
+                    // Quiet mode only reports the keys that could not be deleted
+                    if (!quiet) {
+                        writer.writeStartElement("Deleted");
+                        element(writer, "Key", result.key());
+                        element(writer, "VersionId", result.versionId());
+                        writer.writeEndElement();
+                    }
+                } else {
+                    writer.writeStartElement("Error");
+                    element(writer, "Key", result.key());
+                    element(writer, "Code", result.errorCode());
+                    element(writer, "Message", result.message());
+                    writer.writeEndElement();
+                }
+            }
+        });
+    }
+
+    /**
+     * The parts of a CompleteMultipartUpload request, in document order.
+     */
+    static List<CompletedPart> completedParts(byte[] xml) {
+        List<CompletedPart> parts = new ArrayList<>();
+        read(xml, (reader, element) -> {
+            if ("Part".equals(element)) {
+                CompletedPart.Builder part = CompletedPart.builder();
+                readChildren(reader, (child, text) -> {
+                    switch (child) {
+                        case "PartNumber" -> part.partNumber(Integer.parseInt(text.trim()));
+                        case "ETag" -> part.eTag(text.trim());
+                        default -> {
+                        }
+                    }
+                });
+                parts.add(part.build());
+            }
+        });
+        return parts;
+    }
+
+    static DeleteRequest deleteRequest(byte[] xml) {
+        List<String> keys = new ArrayList<>();
+        boolean[] quiet = new boolean[1];
+        read(xml, (reader, element) -> {
+            if ("Object".equals(element)) {
+                readChildren(reader, (child, text) -> {
+                    if ("Key".equals(child)) {
+                        keys.add(text);
+                    }
+                });
+            } else if ("Quiet".equals(element)) {
+                quiet[0] = Boolean.parseBoolean(reader.getElementText().trim());
+            }
+        });
+        return new DeleteRequest(keys, quiet[0]);
+    }
+
+    @FunctionalInterface
+    private interface ElementVisitor {
+        void visit(XMLStreamReader reader, String element) throws XMLStreamException;
+    }
+
+    @FunctionalInterface
+    private interface ChildVisitor {
+        void visit(String element, String text);
+    }
+
+    private static void read(byte[] xml, ElementVisitor visitor) {
+        XMLStreamReader reader = null;
+        try {
+            reader = INPUT_FACTORY.createXMLStreamReader(new ByteArrayInputStream(xml));
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                    visitor.visit(reader, reader.getLocalName());
+                }
+            }
+        } catch (XMLStreamException | NumberFormatException e) {
+            throw new S3ApiException(HttpStatus.BAD_REQUEST, "MalformedXML",
+                    "The XML you provided was not well-formed or did not validate against our published schema.");
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                    // Nothing is held open for a byte array
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the text of each child element up to the end of the current element.
+     */
+    private static void readChildren(XMLStreamReader reader, ChildVisitor visitor) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String name = reader.getLocalName();
+                // getElementText consumes the end tag, so depth does not change
+                visitor.visit(name, reader.getElementText());
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private static DataBuffer document(DataBufferFactory bufferFactory, String root, boolean namespaced, XmlWrite body) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(256);
+        try {
+            XMLStreamWriter writer = OUTPUT_FACTORY.createXMLStreamWriter(output, "UTF-8");
+            writer.writeStartDocument("UTF-8", "1.0");
+            writer.writeStartElement(root);
+            if (namespaced) {
+                writer.writeDefaultNamespace(S3_NAMESPACE);
+            }
+            body.write(writer);
+            writer.writeEndElement();
+            writer.writeEndDocument();
+            writer.close();
+        } catch (XMLStreamException e) {
+            throw new IllegalStateException("Could not write " + root, e);
+        }
+        return bufferFactory.wrap(output.toByteArray());
+    }
+
+    private static void element(XMLStreamWriter writer, String name, String value) throws XMLStreamException {
+        if (value != null) {
+            writer.writeStartElement(name);
+            writer.writeCharacters(value);
+            writer.writeEndElement();
+        }
+    }
+
+    private static XMLInputFactory inputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+}
@@ -0,0 +1,378 @@
+package com.ironbucket.brazznossel.s3api;
+
+import com.ironbucket.brazznossel.config.S3ApiProperties;
+import com.ironbucket.brazznossel.model.NormalizedIdentity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.util.UriUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * SigV4Verifier - Checks AWS Signature Version 4 on native S3 requests.
+ *
+ * Both the Authorization header form and presigned URLs are accepted. The
+ * canonical request is rebuilt from the request as received, signed with the
+ * secret of the access key from app.s3.api.credentials and compared in
+ * constant time. The payload itself is not read here: the result carries the
+ * declared payload hash and, for streaming uploads, the signing key and seed
+ * signature the chunk signatures chain from.
+ */
+@Component
+public class SigV4Verifier {
+
+    static final String ALGORITHM = "AWS4-HMAC-SHA256";
+    static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+    static final String STREAMING_PAYLOAD = "STREAMING-AWS4-HMAC-SHA256-PAYLOAD";
+    static final String STREAMING_PAYLOAD_TRAILER = "STREAMING-AWS4-HMAC-SHA256-PAYLOAD-TRAILER";
+    static final String STREAMING_UNSIGNED_PAYLOAD_TRAILER = "STREAMING-UNSIGNED-PAYLOAD-TRAILER";
+    static final String EMPTY_SHA256 = "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
+
+    static final String CONTENT_SHA256_HEADER = "x-amz-content-sha256";
+    private static final String DATE_HEADER = "x-amz-date";
+    private static final String SERVICE = "s3";
+    private static final String TERMINATOR = "aws4_request";
+    // Presigned URLs may be valid for at most seven days
+    private static final long MAX_EXPIRES_SECONDS = 604_800;
+    private static final DateTimeFormatter AMZ_DATE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final S3ApiProperties properties;
+    private final Clock clock;
+
+    @Autowired
+    public SigV4Verifier(S3ApiProperties properties) {
+        this(properties, Clock.systemUTC());
+    }
+
+    SigV4Verifier(S3ApiProperties properties, Clock clock) {
+        this.properties = properties;
+        this.clock = clock;
+    }
+
+    /**
+     * Whether the request carries a SigV4 signature, in a header or in the query.
+     */
+    public static boolean isSigned(ServerHttpRequest request) {
+        String authorization = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        return (authorization != null && authorization.startsWith(ALGORITHM))
+                || ALGORITHM.equals(request.getQueryParams().getFirst("X-Amz-Algorithm"));
+    }
+
+    /**
+     * Verifies the signature of the request.
+     *
+     * @throws S3ApiException when the request is unsigned, malformed, expired or signed with another key
+     */
+    public Verified verify(ServerHttpRequest request) {
+        Authorization authorization = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION) != null
+                ? fromHeader(request)
+                : fromQuery(request);
+
+        S3ApiProperties.Credential credential = properties.getCredentials().get(authorization.accessKey());
+        // Keys without a tenant are refused here as well as at startup, whatever bound the properties
+        if (credential == null || credential.getSecretKey() == null
+                || credential.getTenant() == null || credential.getTenant().isBlank()) {
+            throw new S3ApiException(HttpStatus.FORBIDDEN, "InvalidAccessKeyId",
+                    "The AWS Access Key Id you provided does not exist in our records.");
+        }
+        if (!authorization.signedHeaders().contains("host")) {
+            throw S3ApiException.invalidRequest("The host header must be signed");
+        }
+
+        String canonicalRequest = canonicalRequest(request, authorization);
+        String stringToSign = ALGORITHM + "\n"
+                + authorization.amzDate() + "\n"
+                + authorization.scope() + "\n"
+                + hex(sha256(canonicalRequest.getBytes(StandardCharsets.UTF_8)));
+        byte[] signingKey = signingKey(credential.getSecretKey(), authorization.date(), authorization.region());
+        String expected = hex(hmac(signingKey, stringToSign));
+        if (!constantTimeEquals(expected, authorization.signature())) {
+            throw S3ApiException.signatureDoesNotMatch();
+        }
+
+        NormalizedIdentity identity = NormalizedIdentity.builder()
+                .userId(credential.getUsername() == null ? authorization.accessKey() : credential.getUsername())
+                .preferredUsername(credential.getUsername() == null ? authorization.accessKey() : credential.getUsername())
+                .tenantId(credential.getTenant())
+                .region(authorization.region())
+                .roles(List.copyOf(credential.getRoles()))
+                .groups(List.of())
+                .services(List.of())
+                .build();
+        SigningContext signing = new SigningContext(signingKey, authorization.amzDate(), authorization.scope(), expected);
+        return new Verified(identity, signing, authorization.payloadHash());
+    }
+
+    private Authorization fromHeader(ServerHttpRequest request) {
+        HttpHeaders headers = request.getHeaders();
+        String header = headers.getFirst(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.startsWith(ALGORITHM + " ")) {
+            throw S3ApiException.accessDenied("Only AWS4-HMAC-SHA256 signatures are supported");
+        }
+        Map<String, String> fields = new TreeMap<>();
+        for (String part : header.substring(ALGORITHM.length() + 1).split(",")) {
+            int equals = part.indexOf('=');
+            if (equals > 0) {
+                fields.put(part.substring(0, equals).trim(), part.substring(equals + 1).trim());
+            }
+        }
+        String payloadHash = headers.getFirst(CONTENT_SHA256_HEADER);
+        if (payloadHash == null) {
+            throw S3ApiException.invalidRequest("Missing required header for this request: x-amz-content-sha256");
+        }
+
+        String amzDate = headers.getFirst(DATE_HEADER);
+        if (amzDate == null && headers.getFirst(HttpHeaders.DATE) != null) {
+            amzDate = AMZ_DATE.format(Instant.ofEpochMilli(headers.getFirstDate(HttpHeaders.DATE)));
+        }
+        Instant signedAt = parseAmzDate(amzDate);
+        Duration skew = Duration.between(signedAt, clock.instant()).abs();
+        if (skew.compareTo(properties.getMaxClockSkew()) > 0) {
+            throw new S3ApiException(HttpStatus.FORBIDDEN, "RequestTimeTooSkewed",
+                    "The difference between the request time and the current time is too large.");
+        }
+        return authorization(fields.get("Credential"), fields.get("SignedHeaders"), fields.get("Signature"), amzDate, payloadHash);
+    }
+
+    private Authorization fromQuery(ServerHttpRequest request) {
+        MultiValueMap<String, String> query = request.getQueryParams();
+        if (!ALGORITHM.equals(query.getFirst("X-Amz-Algorithm"))) {
+            throw S3ApiException.accessDenied("Request is not signed");
+        }
+        String amzDate = query.getFirst("X-Amz-Date");
+        Instant signedAt = parseAmzDate(amzDate);
+        long expires;
+        try {
+            expires = Long.parseLong(String.valueOf(query.getFirst("X-Amz-Expires")));
+        } catch (NumberFormatException e) {
+            throw new S3ApiException(HttpStatus.BAD_REQUEST, "AuthorizationQueryParametersError",
+                    "X-Amz-Expires must be a number of seconds");
+        }
+        if (expires < 0 || expires > MAX_EXPIRES_SECONDS) {
+            throw new S3ApiException(HttpStatus.BAD_REQUEST, "AuthorizationQueryParametersError",
+                    "X-Amz-Expires must be between 0 and 604800 seconds");
+        }
+        Instant now = clock.instant();
+        if (now.isAfter(signedAt.plusSeconds(expires))) {
+            throw S3ApiException.accessDenied("Request has expired");
+        }
+        if (signedAt.isAfter(now.plus(properties.getMaxClockSkew()))) {
+            throw new S3ApiException(HttpStatus.FORBIDDEN, "RequestTimeTooSkewed",
+                    "The difference between the request time and the current time is too large.");
+        }
+        String payloadHash = request.getHeaders().getFirst(CONTENT_SHA256_HEADER);
+        return authorization(query.getFirst("X-Amz-Credential"), query.getFirst("X-Amz-SignedHeaders"),
+                query.getFirst("X-Amz-Signature"), amzDate, payloadHash == null ? UNSIGNED_PAYLOAD : payloadHash);
+    }
+
+    private static Authorization authorization(String credential, String signedHeaders, String signature, String amzDate, String payloadHash) {
+        if (credential == null || signedHeaders == null || signature == null) {
+            throw S3ApiException.invalidRequest("Authorization must carry Credential, SignedHeaders and Signature");
+        }
+        // Credential = <access key>/<yyyyMMdd>/<region>/s3/aws4_request
+        String[] scope = credential.split("/");
+        if (scope.length != 5 || !SERVICE.equals(scope[3]) || !TERMINATOR.equals(scope[4])) {
+            throw new S3ApiException(HttpStatus.BAD_REQUEST, "AuthorizationHeaderMalformed",
+                    "The authorization credential is malformed: " + credential);
+        }
+        if (!amzDate.startsWith(scope[1])) {
+            throw new S3ApiException(HttpStatus.BAD_REQUEST, "AuthorizationHeaderMalformed",
+                    "The credential date does not match the request date");
+        }
+        return new Authorization(scope[0], scope[1], scope[2], List.of(signedHeaders.split(";")), signature, amzDate, payloadHash);
+    }
+
+    private static Instant parseAmzDate(String amzDate) {
+        if (amzDate == null) {
+            throw S3ApiException.accessDenied("AWS authentication requires a valid Date or x-amz-date header");
+        }
+        try {
+            return ZonedDateTime.parse(amzDate, AMZ_DATE).toInstant();
+        } catch (DateTimeParseException e) {
+            throw S3ApiException.accessDenied("AWS authentication requires a valid Date or x-amz-date header");
+        }
+    }
+
+    static String canonicalRequest(ServerHttpRequest request, Authorization authorization) {
+        StringBuilder canonical = new StringBuilder(256)
+                .append(request.getMethod().name()).append('\n')
+                .append(canonicalUri(request.getURI().getRawPath())).append('\n')
+                .append(canonicalQuery(request.getURI().getRawQuery())).append('\n');
+        HttpHeaders headers = request.getHeaders();
+        for (String name : authorization.signedHeaders()) {
+            List<String> values = headers.getOrEmpty(name);
+            canonical.append(name).append(':');
+            for (int i = 0; i < values.size(); i++) {
+                if (i > 0) {
+                    canonical.append(',');
+                }
+                canonical.append(values.get(i).trim().replaceAll(" +", " "));
+            }
+            canonical.append('\n');
+        }
+        return canonical.append('\n')
+                .append(String.join(";", authorization.signedHeaders())).append('\n')
+                .append(authorization.payloadHash())
+                .toString();
+    }
+
+    private static String canonicalUri(String rawPath) {
+        if (rawPath == null || rawPath.isEmpty()) {
+            return "/";
+        }
+        // Clients encode each segment once; decoding first makes the form they sent irrelevant
+        return uriEncode(UriUtils.decode(rawPath, StandardCharsets.UTF_8), false);
+    }
+
+    private static String canonicalQuery(String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return "";
+        }
+        List<String[]> parameters = new ArrayList<>();
+        for (String pair : rawQuery.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int equals = pair.indexOf('=');
+            String name = UriUtils.decode(equals < 0 ? pair : pair.substring(0, equals), StandardCharsets.UTF_8);
+            String value = equals < 0 ? "" : UriUtils.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+            if (!"X-Amz-Signature".equals(name)) {
+                parameters.add(new String[] {uriEncode(name, true), uriEncode(value, true)});
+            }
+        }
+        parameters.sort((a, b) -> a[0].equals(b[0]) ? a[1].compareTo(b[1]) : a[0].compareTo(b[0]));
+        StringBuilder query = new StringBuilder();
+        for (String[] parameter : parameters) {
+            if (!query.isEmpty()) {
+                query.append('&');
+            }
+            query.append(parameter[0]).append('=').append(parameter[1]);
+        }
+        return query.toString();
+    }
+
+    /**
+     * Percent-encodes everything except the RFC 3986 unreserved characters.
+     */
+    static String uriEncode(String value, boolean encodeSlash) {
+        StringBuilder encoded = new StringBuilder(value.length() + 16);
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xff);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~' || (c == '/' && !encodeSlash)) {
+                encoded.append(c);
+            } else {
+                encoded.append('%').append(Character.toUpperCase(Character.forDigit(c >> 4, 16)))
+                        .append(Character.toUpperCase(Character.forDigit(c & 0xf, 16)));
+            }
+        }
+        return encoded.toString();
+    }
+
+    static byte[] signingKey(String secretKey, String date, String region) {
+        byte[] key = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), date);
+        key = hmac(key, region);
+        key = hmac(key, SERVICE);
+        return hmac(key, TERMINATOR);
+    }
+
+    static byte[] hmac(byte[] key, String data) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    static byte[] sha256(byte[] data) {
+        return newSha256().digest(data);
+    }
+
+    static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    static String hex(byte[] bytes) {
+        return HEX.formatHex(bytes);
+    }
+
+    static boolean constantTimeEquals(String expected, String actual) {
+        return actual != null && MessageDigest.isEqual(
+                expected.getBytes(StandardCharsets.US_ASCII),
+                actual.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    record Authorization(
+            String accessKey,
+            String date,
+            String region,
+            List<String> signedHeaders,
+            String signature,
+            String amzDate,
+            String payloadHash) {
+
+        String scope() {
+            return date + "/" + region + "/" + SERVICE + "/" + TERMINATOR;
+        }
+    }
+
+    /**
+     * A request whose signature checked out.
+     *
+     * @param identity The tenant and user the access key acts as
+     * @param signing What chunk and trailer signatures are verified with
+     * @param payloadHash The declared x-amz-content-sha256 value
+     */
+    public record Verified(NormalizedIdentity identity, SigningContext signing, String payloadHash) {
+    }
+
+    /**
+     * Signing key and seed signature of a verified request. Each chunk
+     * signature of a streaming upload signs the previous one, starting
+     * from the signature of the request itself.
+     */
+    public record SigningContext(byte[] signingKey, String amzDate, String scope, String seedSignature) {
+
+        String chunkSignature(String previousSignature, String chunkSha256) {
+            return sign("AWS4-HMAC-SHA256-PAYLOAD", previousSignature, EMPTY_SHA256 + "\n" + chunkSha256);
+        }
+
+        String trailerSignature(String previousSignature, String trailerSha256) {
+            return sign("AWS4-HMAC-SHA256-TRAILER", previousSignature, trailerSha256);
+        }
+
+        private String sign(String algorithm, String previousSignature, String payload) {
+            String stringToSign = algorithm + "\n" + amzDate + "\n" + scope + "\n" + previousSignature + "\n" + payload;
+            return hex(hmac(signingKey, stringToSign));
+        }
+    }
+}
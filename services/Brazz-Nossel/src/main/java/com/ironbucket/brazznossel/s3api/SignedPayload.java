@@ -0,0 +1,114 @@
+package com.ironbucket.brazznossel.s3api;
+
+import com.ironbucket.brazznossel.checksum.ChecksumAlgorithm;
+import com.ironbucket.brazznossel.checksum.StreamingChecksumVerifier;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import reactor.core.publisher.Flux;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Locale;
+
+/**
+ * SignedPayload - The request body of a verified S3 request, checked the way it was signed.
+ *
+ * x-amz-content-sha256 says how: UNSIGNED-PAYLOAD bodies pass as they are,
+ * STREAMING-* bodies are aws-chunked and decoded by {@link AwsChunkedDecoder},
+ * and a hex digest is compared with the SHA-256 of the body before its last
+ * buffer is passed on, so a body that does not match never reaches its
+ * declared length and the backend upload is aborted.
+ */
+final class SignedPayload {
+
+    private static final String DECODED_LENGTH_HEADER = "x-amz-decoded-content-length";
+    private static final String TRAILER_HEADER = "x-amz-trailer";
+
+    private SignedPayload() {
+    }
+
+    static Flux<DataBuffer> body(Flux<DataBuffer> body, SigV4Verifier.Verified verified, HttpHeaders headers) {
+        String payloadHash = verified.payloadHash();
+        return switch (payloadHash) {
+            case SigV4Verifier.UNSIGNED_PAYLOAD -> body;
+            case SigV4Verifier.STREAMING_PAYLOAD ->
+                    AwsChunkedDecoder.decode(body, verified.signing(), false, null, decodedLength(headers));
+            case SigV4Verifier.STREAMING_PAYLOAD_TRAILER ->
+                    AwsChunkedDecoder.decode(body, verified.signing(), true, trailerChecksum(headers), decodedLength(headers));
+            case SigV4Verifier.STREAMING_UNSIGNED_PAYLOAD_TRAILER ->
+                    AwsChunkedDecoder.decode(body, null, false, trailerChecksum(headers), decodedLength(headers));
+            default -> verifySha256(body, payloadHash);
+        };
+    }
+
+    /**
+     * Length of the object data: the decoded length for aws-chunked bodies, Content-Length otherwise.
+     */
+    static long contentLength(SigV4Verifier.Verified verified, HttpHeaders headers) {
+        return verified.payloadHash().startsWith("STREAMING-") ? decodedLength(headers) : headers.getContentLength();
+    }
+
+    /**
+     * Algorithm of the checksum an aws-chunked trailer carries and the body is verified against, or null.
+     */
+    static ChecksumAlgorithm trailingChecksum(SigV4Verifier.Verified verified, HttpHeaders headers) {
+        return switch (verified.payloadHash()) {
+            case SigV4Verifier.STREAMING_PAYLOAD_TRAILER, SigV4Verifier.STREAMING_UNSIGNED_PAYLOAD_TRAILER -> trailerChecksum(headers);
+            default -> null;
+        };
+    }
+
+    private static Flux<DataBuffer> verifySha256(Flux<DataBuffer> body, String payloadHash) {
+        if (payloadHash.length() != 64 || !payloadHash.chars().allMatch(HexFormat::isHexDigit)) {
+            return Flux.error(new S3ApiException(HttpStatus.BAD_REQUEST, "InvalidArgument",
+                    "x-amz-content-sha256 must be UNSIGNED-PAYLOAD, STREAMING-* or a hex SHA-256"));
+        }
+        return Flux.defer(() -> {
+            MessageDigest digest = SigV4Verifier.newSha256();
+            return StreamingChecksumVerifier.holdLastUntil(body.doOnNext(buffer -> {
+                        try (DataBuffer.ByteBufferIterator views = buffer.readableByteBuffers()) {
+                            while (views.hasNext()) {
+                                ByteBuffer view = views.next();
+                                digest.update(view);
+                            }
+                        }
+                    }), () -> {
+                        if (!SigV4Verifier.constantTimeEquals(SigV4Verifier.hex(digest.digest()), payloadHash)) {
+                            throw new S3ApiException(HttpStatus.BAD_REQUEST, "XAmzContentSHA256Mismatch",
+                                    "The provided x-amz-content-sha256 header does not match what was computed.");
+                        }
+                    })
+                    .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+        });
+    }
+
+    private static long decodedLength(HttpHeaders headers) {
+        String value = headers.getFirst(DECODED_LENGTH_HEADER);
+        try {
+            return value == null ? -1 : Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw S3ApiException.invalidRequest("Malformed " + DECODED_LENGTH_HEADER);
+        }
+    }
+
+    /**
+     * The trailer checksum the data is checked against. A trailer the proxy
+     * cannot compute, such as x-amz-checksum-crc64nvme, is rejected rather than
+     * passed through unchecked.
+     */
+    private static ChecksumAlgorithm trailerChecksum(HttpHeaders headers) {
+        String trailer = headers.getFirst(TRAILER_HEADER);
+        if (trailer == null) {
+            return null;
+        }
+        for (ChecksumAlgorithm algorithm : ChecksumAlgorithm.values()) {
+            if (algorithm.headerName().toLowerCase(Locale.ROOT).equals(trailer.trim().toLowerCase(Locale.ROOT))) {
+                return algorithm;
+            }
+        }
+        throw S3ApiException.invalidRequest("Unsupported " + TRAILER_HEADER + ": " + trailer.trim());
+    }
+}
@@ -0,0 +1,167 @@
+package com.ironbucket.brazznossel.service;
+
+import com.ironbucket.brazznossel.model.RoutingRules;
+import com.ironbucket.brazznossel.service.S3ProxyServiceImpl.BackendProvider;
+import com.ironbucket.brazznossel.service.S3ProxyServiceImpl.RequiredCapability;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * BackendRouter - Resolves which backend provider serves a request.
+ *
+ * Holds the current {@link RoutingTable}. The table is rebuilt and swapped in
+ * whole when the routing properties change (for example after an actuator
+ * refresh) or when an administrator replaces the rules, so lookups never see
+ * a half-applied update and never take a lock.
+ */
+@Component
+public class BackendRouter {
+
+    private static final Logger logger = LoggerFactory.getLogger(BackendRouter.class);
+
+    static final String TENANT_DEFAULTS_PROPERTY = "app.s3.routing.tenant-defaults";
+    static final String BUCKET_OVERRIDES_PROPERTY = "app.s3.routing.bucket-overrides";
+    private static final String ROUTING_PROPERTY_PREFIX = "app.s3.routing.";
+
+    private final Environment environment;
+    private volatile RoutingTable table;
+
+    @Autowired
+    public BackendRouter(Environment environment) {
+        this.environment = environment;
+        reload(environment.getProperty(TENANT_DEFAULTS_PROPERTY, ""), environment.getProperty(BUCKET_OVERRIDES_PROPERTY, ""));
+    }
+
+    public BackendRouter(String tenantDefaults, String bucketOverrides) {
+        this.environment = null;
+        reload(tenantDefaults, bucketOverrides);
+    }
+
+    BackendProvider resolve(String tenantId, String bucket, RequiredCapability capability) {
+        BackendProvider provider = table.resolve(tenantId, bucket, capability);
+        if (provider == null) {
+            throw new IllegalStateException(
+                "No provider supports capability " + capability + " for tenant " + tenantId + " and bucket " + bucket
+            );
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Resolved provider '{}' for tenant='{}', bucket='{}', capability='{}'",
+                    provider, tenantId, bucket, capability);
+        }
+        return provider;
+    }
+
+    /**
+     * Rebuild the table from the comma separated property format, skipping malformed tokens.
+     */
+    public void reload(String tenantDefaults, String bucketOverrides) {
+        table = RoutingTable.compile(parseRoutingMap(tenantDefaults, false), parseRoutingMap(bucketOverrides, true));
+    }
+
+    /**
+     * Replace the routing rules. Unlike a config reload, any malformed entry rejects the whole update.
+     */
+    public RoutingRules replace(RoutingRules rules) {
+        Map<String, BackendProvider> tenantDefaults = new HashMap<>();
+        rules.tenantDefaults().forEach((tenant, provider) -> {
+            if (tenant.isBlank() || tenant.contains("/")) {
+                throw new IllegalArgumentException("Tenant default must use tenant key only: " + tenant);
+            }
+            tenantDefaults.put(tenant, parseProvider(provider));
+        });
+
+        Map<String, BackendProvider> bucketOverrides = new HashMap<>();
+        rules.bucketOverrides().forEach((tenantBucket, provider) -> {
+            int separator = tenantBucket.indexOf('/');
+            if (separator <= 0 || separator == tenantBucket.length() - 1) {
+                throw new IllegalArgumentException("Bucket override must use tenant/bucket key: " + tenantBucket);
+            }
+            bucketOverrides.put(tenantBucket, parseProvider(provider));
+        });
+
+        table = RoutingTable.compile(tenantDefaults, bucketOverrides);
+        logger.info("Routing table replaced: {} tenant defaults, {} bucket overrides",
+                tenantDefaults.size(), bucketOverrides.size());
+        return rules();
+    }
+
+    public RoutingRules rules() {
+        RoutingTable current = table;
+        return new RoutingRules(names(current.tenantDefaults()), names(current.bucketOverrides()));
+    }
+
+    @EventListener
+    public void onEnvironmentChange(EnvironmentChangeEvent event) {
+        if (environment == null || event.getKeys().stream().noneMatch(key -> key.startsWith(ROUTING_PROPERTY_PREFIX))) {
+            return;
+        }
+        reload(environment.getProperty(TENANT_DEFAULTS_PROPERTY, ""), environment.getProperty(BUCKET_OVERRIDES_PROPERTY, ""));
+        logger.info("Routing table reloaded from configuration");
+    }
+
+    private static Map<String, String> names(Map<String, BackendProvider> routes) {
+        return routes.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().name()));
+    }
+
+    private static Map<String, BackendProvider> parseRoutingMap(String raw, boolean expectBucketKey) {
+        Map<String, BackendProvider> parsed = new HashMap<>();
+        if (raw == null || raw.isBlank()) {
+            return parsed;
+        }
+
+        for (String entry : raw.split(",")) {
+            String token = entry.trim();
+            if (token.isBlank()) {
+                continue;
+            }
+
+            String[] parts = token.split("=", 2);
+            if (parts.length != 2) {
+                logger.warn("Ignoring malformed routing token: {}", token);
+                continue;
+            }
+
+            String key = parts[0].trim();
+            String providerRaw = parts[1].trim();
+            if (key.isBlank() || providerRaw.isBlank()) {
+                logger.warn("Ignoring malformed routing token: {}", token);
+                continue;
+            }
+
+            if (expectBucketKey && !key.contains("/")) {
+                logger.warn("Bucket override must use tenant/bucket key, ignoring token: {}", token);
+                continue;
+            }
+
+            if (!expectBucketKey && key.contains("/")) {
+                logger.warn("Tenant default must use tenant key only, ignoring token: {}", token);
+                continue;
+            }
+
+            try {
+                parsed.put(key, parseProvider(providerRaw));
+            } catch (IllegalArgumentException illegalArgumentException) {
+                logger.warn("Ignoring unknown provider '{}' in routing token: {}", providerRaw, token);
+            }
+        }
+
+        return parsed;
+    }
+
+    public static BackendProvider parseProvider(String rawProvider) {
+        if (rawProvider == null) {
+            throw new IllegalArgumentException("Provider is required");
+        }
+        return BackendProvider.valueOf(rawProvider.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+    }
+}
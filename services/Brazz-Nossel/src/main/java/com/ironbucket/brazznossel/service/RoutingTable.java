@@ -0,0 +1,133 @@
+package com.ironbucket.brazznossel.service;
+
+import com.ironbucket.brazznossel.service.S3ProxyServiceImpl.BackendProvider;
+import com.ironbucket.brazznossel.service.S3ProxyServiceImpl.RequiredCapability;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * RoutingTable - Provider for every (tenant, bucket, capability), computed up front.
+ *
+ * Each route is an array indexed by capability ordinal, resolved once from the
+ * bucket override, the tenant default and the provider fallback order. A lookup
+ * is two map reads and an array index; it allocates nothing. Instances are never
+ * mutated after construction, so a new table can be swapped in while requests
+ * are reading the old one.
+ */
+final class RoutingTable {
+
+    private static final RequiredCapability[] CAPABILITIES = RequiredCapability.values();
+
+    private static final Set<RequiredCapability> LOCAL_FILESYSTEM_CAPABILITIES = EnumSet.of(
+            RequiredCapability.OBJECT_READ,
+            RequiredCapability.OBJECT_WRITE,
+            RequiredCapability.OBJECT_DELETE);
+
+    private final BackendProvider[] fallbackRoute;
+    private final Map<String, TenantRoutes> tenants;
+    private final Map<String, BackendProvider> tenantDefaults;
+    private final Map<String, BackendProvider> bucketOverrides;
+
+    private RoutingTable(
+            BackendProvider[] fallbackRoute,
+            Map<String, TenantRoutes> tenants,
+            Map<String, BackendProvider> tenantDefaults,
+            Map<String, BackendProvider> bucketOverrides) {
+        this.fallbackRoute = fallbackRoute;
+        this.tenants = tenants;
+        this.tenantDefaults = tenantDefaults;
+        this.bucketOverrides = bucketOverrides;
+    }
+
+    /**
+     * Compile routing rules into a table.
+     *
+     * @param tenantDefaults Provider per tenant id
+     * @param bucketOverrides Provider per "tenant/bucket" key
+     */
+    static RoutingTable compile(Map<String, BackendProvider> tenantDefaults, Map<String, BackendProvider> bucketOverrides) {
+        BackendProvider[] fallbackRoute = route(null, null);
+
+        // Plain HashMaps rather than Map.copyOf so a lookup with a null tenant returns null instead of throwing
+        Map<String, TenantRoutes> tenants = new HashMap<>();
+        tenantDefaults.forEach((tenant, provider) ->
+                tenants.put(tenant, new TenantRoutes(route(null, provider), new HashMap<>())));
+
+        bucketOverrides.forEach((tenantBucket, provider) -> {
+            int separator = tenantBucket.indexOf('/');
+            String tenant = tenantBucket.substring(0, separator);
+            String bucket = tenantBucket.substring(separator + 1);
+            TenantRoutes routes = tenants.computeIfAbsent(tenant,
+                    ignored -> new TenantRoutes(fallbackRoute, new HashMap<>()));
+            routes.buckets().put(bucket, route(provider, tenantDefaults.get(tenant)));
+        });
+
+        return new RoutingTable(fallbackRoute, tenants, Map.copyOf(tenantDefaults), Map.copyOf(bucketOverrides));
+    }
+
+    /**
+     * Resolve the provider for a request, or null when no provider supports the capability.
+     */
+    BackendProvider resolve(String tenantId, String bucket, RequiredCapability capability) {
+        TenantRoutes routes = tenants.get(tenantId);
+        if (routes == null) {
+            return fallbackRoute[capability.ordinal()];
+        }
+        BackendProvider[] route = routes.buckets().get(bucket);
+        return (route != null ? route : routes.defaultRoute())[capability.ordinal()];
+    }
+
+    Map<String, BackendProvider> tenantDefaults() {
+        return tenantDefaults;
+    }
+
+    Map<String, BackendProvider> bucketOverrides() {
+        return bucketOverrides;
+    }
+
+    static boolean supports(BackendProvider provider, RequiredCapability capability) {
+        return switch (provider) {
+            case AWS_S3 -> true;
+            case GCS -> true;
+            case AZURE_BLOB -> capability != RequiredCapability.VERSIONING;
+            case LOCAL_FILESYSTEM -> LOCAL_FILESYSTEM_CAPABILITIES.contains(capability);
+        };
+    }
+
+    /**
+     * Candidates are tried in order: bucket override, tenant default, then every provider in declaration order.
+     */
+    private static BackendProvider[] route(BackendProvider bucketOverride, BackendProvider tenantDefault) {
+        List<BackendProvider> candidates = new ArrayList<>();
+        if (bucketOverride != null) {
+            candidates.add(bucketOverride);
+        }
+        if (tenantDefault != null && !candidates.contains(tenantDefault)) {
+            candidates.add(tenantDefault);
+        }
+        for (BackendProvider fallback : BackendProvider.values()) {
+            if (!candidates.contains(fallback)) {
+                candidates.add(fallback);
+            }
+        }
+
+        BackendProvider[] route = new BackendProvider[CAPABILITIES.length];
+        for (RequiredCapability capability : CAPABILITIES) {
+            for (BackendProvider candidate : candidates) {
+                if (supports(candidate, capability)) {
+                    route[capability.ordinal()] = candidate;
+                    break;
+                }
+            }
+        }
+        return route;
+    }
+
+    private record TenantRoutes(BackendProvider[] defaultRoute, Map<String, BackendProvider[]> buckets) {
+    }
+}
@@ -0,0 +1,272 @@
+package com.ironbucket.brazznossel.service;
+
+import com.ironbucket.brazznossel.checksum.ChecksumTranslator;
+import com.ironbucket.brazznossel.model.StreamedObject;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * S3BackendClient - Connection to a single S3-compatible backend.
+ *
+ * In ASYNC mode every call goes through an S3AsyncClient that owns its own
+ * Netty connection pool, so no gateway thread ever waits on backend I/O.
+ * SYNC mode keeps the blocking S3Client as a fallback and runs each call on
+ * the bounded blocking scheduler, never on the WebFlux event loop.
+ *
+ * With zero-copy GET enabled in ASYNC mode, object bodies are read through a
+ * {@link ZeroCopyObjectReader} instead of the SDK.
+ */
+final class S3BackendClient implements AutoCloseable {
+
+    enum Mode {
+        SYNC,
+        ASYNC;
+
+        static Mode parse(String raw) {
+            return raw == null || raw.isBlank() ? ASYNC : valueOf(raw.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    // Chunk size used when reading backend object streams into response buffers
+    static final int STREAM_CHUNK_SIZE = 64 * 1024;
+    // Number of request buffers requested ahead while feeding an upload to the backend
+    static final int STREAM_UPLOAD_PREFETCH = 4;
+
+    private final Mode mode;
+    private final S3Client syncClient;
+    private final S3AsyncClient asyncClient;
+    private final Scheduler blockingScheduler;
+    private final ZeroCopyObjectReader objectReader;
+
+    private S3BackendClient(
+            Mode mode,
+            S3Client syncClient,
+            S3AsyncClient asyncClient,
+            Scheduler blockingScheduler,
+            ZeroCopyObjectReader objectReader) {
+        this.mode = mode;
+        this.syncClient = syncClient;
+        this.asyncClient = asyncClient;
+        this.blockingScheduler = blockingScheduler;
+        this.objectReader = objectReader;
+    }
+
+    static S3BackendClient create(
+            Mode mode,
+            String endpoint,
+            String accessKey,
+            String secretKey,
+            String region,
+            int maxConnections,
+            int maxPendingConnectionAcquires,
+            boolean zeroCopyGet,
+            Scheduler blockingScheduler) {
+
+        StaticCredentialsProvider credentials = StaticCredentialsProvider.create(
+                AwsBasicCredentials.create(accessKey, secretKey));
+
+        if (mode == Mode.SYNC) {
+            S3Client client = S3Client.builder()
+                    .endpointOverride(URI.create(endpoint))
+                    .credentialsProvider(credentials)
+                    .region(Region.of(region))
+                    .forcePathStyle(true) // Required for MinIO
+                    .build();
+            return new S3BackendClient(mode, client, null, blockingScheduler, null);
+        }
+
+        S3AsyncClient client = S3AsyncClient.builder()
+                .endpointOverride(URI.create(endpoint))
+                .credentialsProvider(credentials)
+                .region(Region.of(region))
+                .forcePathStyle(true) // Required for MinIO
+                .httpClientBuilder(NettyNioAsyncHttpClient.builder()
+                        .maxConcurrency(maxConnections)
+                        .maxPendingConnectionAcquires(maxPendingConnectionAcquires)
+                        .connectionAcquisitionTimeout(Duration.ofSeconds(10)))
+                .build();
+        ZeroCopyObjectReader objectReader = zeroCopyGet
+                ? new ZeroCopyObjectReader(endpoint, accessKey, secretKey, region, maxConnections, maxPendingConnectionAcquires)
+                : null;
+        return new S3BackendClient(mode, null, client, blockingScheduler, objectReader);
+    }
+
+    Mode mode() {
+        return mode;
+    }
+
+    /**
+     * Run a backend call with the client matching the configured mode.
+     *
+     * Both call shapes are given because S3Client and S3AsyncClient share
+     * method names but not return types.
+     */
+    <T> Mono<T> execute(Function<S3Client, T> syncCall, Function<S3AsyncClient, CompletableFuture<T>> asyncCall) {
+        if (mode == Mode.ASYNC) {
+            return Mono.fromFuture(() -> asyncCall.apply(asyncClient));
+        }
+        return onBlockingScheduler(Mono.fromCallable(() -> syncCall.apply(syncClient)));
+    }
+
+    /**
+     * Open the object and return its metadata with a body that streams it.
+     * The body must be subscribed once the Mono has emitted, since it holds a
+     * backend connection until it ends.
+     */
+    Mono<StreamedObject> getObjectStream(GetObjectRequest request, DataBufferFactory bufferFactory) {
+        if (objectReader != null && ZeroCopyObjectReader.supports(request)) {
+            return objectReader.getObjectStream(request, bufferFactory);
+        }
+        if (mode == Mode.ASYNC) {
+            return Mono.fromFuture(() -> asyncClient.getObject(request, AsyncResponseTransformer.toPublisher()))
+                    .map(publisher -> toStreamedObject(publisher.response(), Flux.from(publisher).map(bufferFactory::wrap)));
+        }
+
+        return onBlockingScheduler(Mono.fromCallable(() -> syncClient.getObject(request)))
+                // A stream opened after the caller has cancelled is never read, so give its connection back
+                .doOnDiscard(ResponseInputStream.class, ResponseInputStream::abort)
+                .map(stream -> {
+                    // readInputStream only pulls the next chunk on demand and closes the stream on completion or cancel
+                    Flux<DataBuffer> body = DataBufferUtils.readInputStream(() -> stream, bufferFactory, STREAM_CHUNK_SIZE)
+                            .subscribeOn(blockingScheduler);
+                    return toStreamedObject(stream.response(), body);
+                });
+    }
+
+    Mono<PutObjectResponse> putObjectStream(PutObjectRequest request, Flux<DataBuffer> content, long contentLength) {
+        if (mode == Mode.ASYNC) {
+            Flux<ByteBuffer> body = byteBufferViews(content);
+            return Mono.fromFuture(() -> asyncClient.putObject(request, AsyncRequestBody.fromPublisher(body)));
+        }
+
+        return onBlockingScheduler(Mono.fromCallable(() -> {
+            // The subscriber input stream requests a few buffers at a time, so at most
+            // STREAM_UPLOAD_PREFETCH request chunks are held while the backend consumes them
+            try (InputStream input = DataBufferUtils.subscriberInputStream(content, STREAM_UPLOAD_PREFETCH)) {
+                return syncClient.putObject(request, RequestBody.fromInputStream(input, contentLength));
+            }
+        }));
+    }
+
+    Mono<UploadPartResponse> uploadPartStream(UploadPartRequest request, Flux<DataBuffer> content, long contentLength) {
+        if (mode == Mode.ASYNC) {
+            Flux<ByteBuffer> body = byteBufferViews(content);
+            return Mono.fromFuture(() -> asyncClient.uploadPart(request, AsyncRequestBody.fromPublisher(body)));
+        }
+
+        return onBlockingScheduler(Mono.fromCallable(() -> {
+            try (InputStream input = DataBufferUtils.subscriberInputStream(content, STREAM_UPLOAD_PREFETCH)) {
+                return syncClient.uploadPart(request, RequestBody.fromInputStream(input, contentLength));
+            }
+        }));
+    }
+
+    @Override
+    public void close() {
+        if (syncClient != null) {
+            syncClient.close();
+        }
+        if (asyncClient != null) {
+            asyncClient.close();
+        }
+        if (objectReader != null) {
+            objectReader.close();
+        }
+    }
+
+    private <T> Mono<T> onBlockingScheduler(Mono<T> blockingCall) {
+        return blockingCall
+                .subscribeOn(blockingScheduler)
+                .onErrorMap(RejectedExecutionException.class, rejected -> new ResponseStatusException(
+                        HttpStatus.SERVICE_UNAVAILABLE, "Blocking S3 scheduler is saturated", rejected));
+    }
+
+    private static StreamedObject toStreamedObject(GetObjectResponse response, Flux<DataBuffer> body) {
+        long contentLength = response.contentLength() == null ? -1L : response.contentLength();
+        return new StreamedObject(contentLength, response.contentType(), response.eTag(), body,
+                ChecksumTranslator.fromMetadata(response.metadata()));
+    }
+
+    /**
+     * Hand the SDK views of the request buffers rather than heap copies. The
+     * async client asks for the next buffer only once it has written the
+     * previous one, so each buffer is released when the next one arrives, and
+     * the last one when the body ends.
+     */
+    private static Flux<ByteBuffer> byteBufferViews(Flux<DataBuffer> content) {
+        AtomicReference<LentBuffer> lent = new AtomicReference<>();
+        return content
+                .map(buffer -> {
+                    LentBuffer next = LentBuffer.of(buffer);
+                    LentBuffer previous = lent.getAndSet(next);
+                    if (previous != null) {
+                        previous.release();
+                    }
+                    return next.view();
+                })
+                .doFinally(signal -> {
+                    LentBuffer last = lent.getAndSet(null);
+                    if (last != null) {
+                        last.release();
+                    }
+                })
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+    }
+
+    /**
+     * A request buffer whose bytes the SDK is reading through {@code view}.
+     * The views of a buffer are only valid while its iterator is open, so the
+     * iterator is closed together with the buffer.
+     */
+    private record LentBuffer(DataBuffer buffer, DataBuffer.ByteBufferIterator views, ByteBuffer view) {
+
+        static LentBuffer of(DataBuffer buffer) {
+            DataBuffer.ByteBufferIterator views = buffer.readableByteBuffers();
+            ByteBuffer first = views.hasNext() ? views.next() : ByteBuffer.allocate(0);
+            if (!views.hasNext()) {
+                return new LentBuffer(buffer, views, first);
+            }
+            // A composite buffer has one view per component; join those into one copy
+            ByteBuffer joined = ByteBuffer.allocate(buffer.readableByteCount()).put(first);
+            views.forEachRemaining(joined::put);
+            return new LentBuffer(buffer, views, joined.flip());
+        }
+
+        void release() {
+            views.close();
+            DataBufferUtils.release(buffer);
+        }
+    }
+}
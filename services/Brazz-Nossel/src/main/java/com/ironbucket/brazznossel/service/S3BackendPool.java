@@ -0,0 +1,131 @@
+package com.ironbucket.brazznossel.service;
+
+import com.ironbucket.brazznossel.config.S3BackendProperties;
+import com.ironbucket.brazznossel.service.S3ProxyServiceImpl.BackendProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * S3BackendPool - One long-lived client per backend provider.
+ *
+ * Providers configured under app.s3.backends get a dedicated client with its
+ * own endpoint, credentials and connection pool. Every other provider shares
+ * the default client built from the top-level app.s3 settings.
+ */
+final class S3BackendPool implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(S3BackendPool.class);
+
+    private final S3BackendClient defaultClient;
+    private final Map<BackendProvider, S3BackendClient> clients;
+    private final List<S3BackendClient> distinctClients;
+
+    private S3BackendPool(S3BackendClient defaultClient, Map<BackendProvider, S3BackendClient> clients) {
+        this.defaultClient = defaultClient;
+        this.clients = clients;
+
+        Set<S3BackendClient> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+        distinct.add(defaultClient);
+        distinct.addAll(clients.values());
+        this.distinctClients = List.copyOf(distinct);
+    }
+
+    static S3BackendPool create(
+            S3BackendClient.Mode mode,
+            BackendSettings defaults,
+            Map<String, S3BackendProperties.Backend> backends,
+            Scheduler blockingScheduler) {
+
+        if (defaults.zeroCopyGet() && mode != S3BackendClient.Mode.ASYNC) {
+            logger.warn("Zero-copy GET needs the async client mode and stays off in {} mode", mode);
+        }
+        S3BackendClient defaultClient = defaults.connect(mode, blockingScheduler);
+        Map<BackendProvider, S3BackendClient> clients = new EnumMap<>(BackendProvider.class);
+        try {
+            backends.forEach((name, backend) -> {
+                BackendProvider provider = BackendRouter.parseProvider(name);
+                BackendSettings settings = defaults.overriddenBy(backend);
+                logger.info("Backend provider {} uses endpoint {} (max connections: {})",
+                        provider, settings.endpoint(), settings.maxConnections());
+                clients.put(provider, settings.connect(mode, blockingScheduler));
+            });
+        } catch (RuntimeException invalid) {
+            defaultClient.close();
+            clients.values().forEach(S3BackendClient::close);
+            throw new IllegalStateException("Invalid app.s3.backends configuration: " + invalid.getMessage(), invalid);
+        }
+        return new S3BackendPool(defaultClient, clients);
+    }
+
+    S3BackendClient client(BackendProvider provider) {
+        return clients.getOrDefault(provider, defaultClient);
+    }
+
+    S3BackendClient defaultClient() {
+        return defaultClient;
+    }
+
+    /**
+     * Every distinct client, for operations that have to look at all backends.
+     */
+    List<S3BackendClient> distinctClients() {
+        return distinctClients;
+    }
+
+    @Override
+    public void close() {
+        List<RuntimeException> failures = new ArrayList<>();
+        for (S3BackendClient client : distinctClients) {
+            try {
+                client.close();
+            } catch (RuntimeException closeFailure) {
+                failures.add(closeFailure);
+            }
+        }
+        if (!failures.isEmpty()) {
+            logger.warn("Failed to close {} backend client(s): {}", failures.size(), failures.get(0).getMessage());
+        }
+    }
+
+    record BackendSettings(
+            String endpoint,
+            String accessKey,
+            String secretKey,
+            String region,
+            int maxConnections,
+            int maxPendingConnectionAcquires,
+            boolean zeroCopyGet) {
+
+        BackendSettings overriddenBy(S3BackendProperties.Backend backend) {
+            return new BackendSettings(
+                    orDefault(backend.getEndpoint(), endpoint),
+                    orDefault(backend.getAccessKey(), accessKey),
+                    orDefault(backend.getSecretKey(), secretKey),
+                    orDefault(backend.getRegion(), region),
+                    backend.getMaxConnections() == null ? maxConnections : backend.getMaxConnections(),
+                    backend.getMaxPendingConnectionAcquires() == null
+                            ? maxPendingConnectionAcquires
+                            : backend.getMaxPendingConnectionAcquires(),
+                    zeroCopyGet);
+        }
+
+        S3BackendClient connect(S3BackendClient.Mode mode, Scheduler blockingScheduler) {
+            return S3BackendClient.create(mode, endpoint, accessKey, secretKey, region,
+                    maxConnections, maxPendingConnectionAcquires, zeroCopyGet && mode == S3BackendClient.Mode.ASYNC,
+                    blockingScheduler);
+        }
+
+        private static String orDefault(String value, String fallback) {
+            return value == null || value.isBlank() ? fallback : value;
+        }
+    }
+}
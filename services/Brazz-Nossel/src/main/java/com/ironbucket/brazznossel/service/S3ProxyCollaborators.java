@@ -0,0 +1,43 @@
+package com.ironbucket.brazznossel.service;
+
+import com.ironbucket.brazznossel.bulk.BulkDeleteEngine;
+import com.ironbucket.brazznossel.bulkhead.TenantBulkhead;
+import com.ironbucket.brazznossel.cache.HotObjectCache;
+import com.ironbucket.brazznossel.cache.ObjectMetadataCache;
+import com.ironbucket.brazznossel.cache.TenantBucketIndex;
+import com.ironbucket.brazznossel.checksum.StreamingChecksumVerifier;
+import com.ironbucket.brazznossel.coalesce.RequestCoalescer;
+import com.ironbucket.brazznossel.copy.CopyEngine;
+import com.ironbucket.brazznossel.cutover.DualWriteService;
+import com.ironbucket.brazznossel.download.ParallelRangeDownloader;
+import com.ironbucket.brazznossel.multipart.AutoMultipartUploader;
+import com.ironbucket.brazznossel.multipart.MultipartCleanupJob;
+import com.ironbucket.brazznossel.quota.QuotaEnforcementService;
+import com.ironbucket.brazznossel.replication.AsyncReplicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * S3ProxyCollaborators - The components S3ProxyServiceImpl hands requests to.
+ *
+ * Injected as one bean, so a new capability adds a component here rather
+ * than another constructor parameter to the service. Whether each one is
+ * active is its own configuration's business.
+ */
+@Component
+public record S3ProxyCollaborators(
+    TenantBulkhead bulkhead,
+    TenantBucketIndex bucketIndex,
+    ObjectMetadataCache metadataCache,
+    AutoMultipartUploader multipartUploader,
+    ParallelRangeDownloader rangeDownloader,
+    CopyEngine copyEngine,
+    BulkDeleteEngine bulkDeleteEngine,
+    QuotaEnforcementService quota,
+    MultipartCleanupJob multipartCleanupJob,
+    DualWriteService cutover,
+    AsyncReplicator replicator,
+    StreamingChecksumVerifier checksumVerifier,
+    RequestCoalescer coalescer,
+    HotObjectCache hotCache
+) {
+}
@@ -1,8 +1,21 @@
 package com.ironbucket.brazznossel.service;
 
+import com.ironbucket.brazznossel.checksum.ChecksumAlgorithm;
+import com.ironbucket.brazznossel.model.BucketSummary;
+import com.ironbucket.brazznossel.model.DeleteResult;
+import com.ironbucket.brazznossel.model.ListObjectsQuery;
+import com.ironbucket.brazznossel.model.ListingEntry;
 import com.ironbucket.brazznossel.model.NormalizedIdentity;
+import com.ironbucket.brazznossel.model.ObjectListingPage;
+import com.ironbucket.brazznossel.model.ObjectMetadata;
+import com.ironbucket.brazznossel.model.StreamedObject;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import software.amazon.awssdk.services.s3.model.CompletedPart;
@@ -24,11 +37,62 @@ public interface S3ProxyService {
      */
     Mono<String> listBuckets(NormalizedIdentity identity);
 
+    /**
+     * List the tenant's buckets as structured entries.
+     * 
+     * @param identity The user's normalized identity
+     * @return A Flux of the tenant's buckets with their creation dates
+     */
+    Flux<BucketSummary> listBucketSummaries(NormalizedIdentity identity);
+
     Mono<String> createBucket(String bucket, NormalizedIdentity identity);
 
     Mono<Void> deleteBucket(String bucket, NormalizedIdentity identity);
 
     Mono<String> listObjects(String bucket, NormalizedIdentity identity);
+
+    /**
+     * List a single page of objects (ListObjectsV2 semantics).
+     * 
+     * @param bucket The bucket name
+     * @param query Prefix, delimiter, start-after, max-keys and continuation token
+     * @param identity The user's normalized identity
+     * @return A Mono containing the page and the token for the next one
+     */
+    Mono<ObjectListingPage> listObjectsPage(String bucket, ListObjectsQuery query, NormalizedIdentity identity);
+
+    /**
+     * Stream every entry matching the query, following continuation tokens.
+     * 
+     * Pages are fetched one at a time as the subscriber requests more entries,
+     * so memory stays at roughly one page regardless of bucket size.
+     * 
+     * @param bucket The bucket name
+     * @param query Listing parameters; max-keys sets the page size
+     * @param identity The user's normalized identity
+     * @return A Flux of objects and common prefixes in listing order
+     */
+    default Flux<ListingEntry> listObjectsStream(String bucket, ListObjectsQuery query, NormalizedIdentity identity) {
+        return listObjectPages(bucket, query, identity)
+                .concatMapIterable(ObjectListingPage::entries, 1);
+    }
+
+    /**
+     * Stream every page matching the query, following continuation tokens.
+     * 
+     * The next page is only fetched once the subscriber has taken the previous one.
+     * 
+     * @param bucket The bucket name
+     * @param query Listing parameters; max-keys sets the page size
+     * @param identity The user's normalized identity
+     * @return A Flux of pages, the last one untruncated
+     */
+    default Flux<ObjectListingPage> listObjectPages(String bucket, ListObjectsQuery query, NormalizedIdentity identity) {
+        return listObjectsPage(bucket, query, identity)
+                .expand(page -> page.truncated() && page.nextContinuationToken() != null
+                        ? listObjectsPage(bucket, query.withContinuationToken(page.nextContinuationToken()), identity)
+                        : Mono.empty());
+    }
     
     /**
      * Get an object from a bucket.
@@ -40,8 +104,68 @@ public interface S3ProxyService {
      */
     Mono<byte[]> getObject(String bucket, String key, NormalizedIdentity identity);
 
+    /**
+     * Stream an object from a bucket without buffering it in memory.
+     * 
+     * The default implementation adapts {@link #getObject} and is only meant
+     * for small objects; backend implementations should override it.
+     * 
+     * @param bucket The bucket name
+     * @param key The object key
+     * @param bufferFactory Factory used to allocate the outgoing buffers
+     * @param identity The user's normalized identity
+     * @return A Mono containing the object metadata and its body stream
+     */
+    default Mono<StreamedObject> getObjectStream(String bucket, String key, DataBufferFactory bufferFactory, NormalizedIdentity identity) {
+        return getObject(bucket, key, identity)
+                .map(bytes -> new StreamedObject(bytes.length, null, null, Flux.just(bufferFactory.wrap(bytes))));
+    }
+
+    /**
+     * Stream an object, optionally verifying the body against the checksum
+     * stored with it while it streams.
+     * 
+     * The default implementation does not verify and delegates to
+     * {@link #getObjectStream(String, String, DataBufferFactory, NormalizedIdentity)}.
+     * 
+     * @param verifyChecksum Whether to fail the stream when the bytes do not match the stored checksum
+     */
+    default Mono<StreamedObject> getObjectStream(
+            String bucket,
+            String key,
+            DataBufferFactory bufferFactory,
+            boolean verifyChecksum,
+            NormalizedIdentity identity) {
+        return getObjectStream(bucket, key, bufferFactory, identity);
+    }
+
     Mono<String> headObject(String bucket, String key, NormalizedIdentity identity);
 
+    /**
+     * HEAD an object and return its full metadata.
+     * 
+     * The default implementation adapts {@link #headObject} and only fills in the ETag.
+     * 
+     * @param bucket The bucket name
+     * @param key The object key
+     * @param identity The user's normalized identity
+     * @return A Mono containing the object metadata
+     */
+    default Mono<ObjectMetadata> headObjectMetadata(String bucket, String key, NormalizedIdentity identity) {
+        return headObject(bucket, key, identity)
+                .map(eTag -> new ObjectMetadata(eTag, -1L, null, null, null));
+    }
+
+    /**
+     * HEAD an object at the backend, bypassing any cached or in-flight result.
+     * Used where a decision must not act on a stale view, such as write preconditions.
+     * 
+     * The default implementation delegates to {@link #headObjectMetadata}.
+     */
+    default Mono<ObjectMetadata> headObjectMetadataUncached(String bucket, String key, NormalizedIdentity identity) {
+        return headObjectMetadata(bucket, key, identity);
+    }
+
     Mono<String> headBucket(String bucket, NormalizedIdentity identity);
     
     /**
@@ -55,6 +179,32 @@ public interface S3ProxyService {
      * @return A Mono containing the requested bytes
      */
     Mono<byte[]> getObjectRange(String bucket, String key, long start, long end, NormalizedIdentity identity);
+
+    /**
+     * Stream a range of bytes from an object without buffering it in memory.
+     * 
+     * The range is only served from the given version of the object, so
+     * headers taken from an earlier HEAD describe the bytes that are sent.
+     * The default implementation adapts {@link #getObjectRange} and is only
+     * meant for small ranges; backend implementations should override it.
+     * 
+     * @param eTag ETag the object must still have, or null for any version
+     * @param start Start byte offset
+     * @param end End byte offset, inclusive
+     * @param bufferFactory Factory used to allocate the outgoing buffers
+     * @return A Mono containing the range's length and its body stream
+     */
+    default Mono<StreamedObject> getObjectRangeStream(
+            String bucket,
+            String key,
+            String eTag,
+            long start,
+            long end,
+            DataBufferFactory bufferFactory,
+            NormalizedIdentity identity) {
+        return getObjectRange(bucket, key, start, end, identity)
+                .map(bytes -> new StreamedObject(bytes.length, null, eTag, Flux.just(bufferFactory.wrap(bytes))));
+    }
     
     /**
      * Put (upload) an object to a bucket.
@@ -66,6 +216,68 @@ public interface S3ProxyService {
      * @return A Mono containing the ETag response
      */
     Mono<String> putObject(String bucket, String key, byte[] content, NormalizedIdentity identity);
+
+    /**
+     * Put (upload) an object by piping the request body straight to the backend.
+     * 
+     * The default implementation joins the body and delegates to {@link #putObject};
+     * backend implementations should override it to keep memory per request bounded.
+     * 
+     * @param bucket The bucket name
+     * @param key The object key
+     * @param content The object content as a stream of buffers
+     * @param contentLength The declared content length, or -1 when unknown
+     * @param identity The user's normalized identity
+     * @return A Mono containing the ETag response
+     */
+    default Mono<String> putObjectStream(String bucket, String key, Flux<DataBuffer> content, long contentLength, NormalizedIdentity identity) {
+        return DataBufferUtils.join(content)
+                .map(buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    DataBufferUtils.release(buffer);
+                    return bytes;
+                })
+                .defaultIfEmpty(new byte[0])
+                .flatMap(bytes -> putObject(bucket, key, bytes, identity));
+    }
+
+    /**
+     * Put an object by streaming, verifying it against client-supplied checksums on the way.
+     * 
+     * The default implementation ignores the checksums and delegates to
+     * {@link #putObjectStream(String, String, Flux, long, NormalizedIdentity)}.
+     * 
+     * @param checksums Expected checksums of the whole body, may be empty
+     */
+    default Mono<String> putObjectStream(
+            String bucket,
+            String key,
+            Flux<DataBuffer> content,
+            long contentLength,
+            Map<ChecksumAlgorithm, String> checksums,
+            NormalizedIdentity identity) {
+        return putObjectStream(bucket, key, content, contentLength, identity);
+    }
+
+    /**
+     * Put an object by streaming, as above, for a body whose client checksum
+     * follows it in an aws-chunked trailer and is verified as the body streams.
+     * 
+     * The default implementation ignores the trailing checksum.
+     * 
+     * @param trailingChecksum Algorithm of the trailer checksum, or null when there is none
+     */
+    default Mono<String> putObjectStream(
+            String bucket,
+            String key,
+            Flux<DataBuffer> content,
+            long contentLength,
+            Map<ChecksumAlgorithm, String> checksums,
+            ChecksumAlgorithm trailingChecksum,
+            NormalizedIdentity identity) {
+        return putObjectStream(bucket, key, content, contentLength, checksums, identity);
+    }
     
     /**
      * Delete an object from a bucket.
@@ -77,6 +289,23 @@ public interface S3ProxyService {
      */
     Mono<Void> deleteObject(String bucket, String key, NormalizedIdentity identity);
 
+    /**
+     * Delete many objects, reporting the outcome per key.
+     * 
+     * The default implementation deletes one key at a time with {@link #deleteObject};
+     * backend implementations should override it with batched multi-object deletes.
+     * 
+     * @param bucket The bucket name
+     * @param keys The keys to delete
+     * @param identity The user's normalized identity
+     * @return A Flux with one result per key
+     */
+    default Flux<DeleteResult> deleteObjects(String bucket, Flux<String> keys, NormalizedIdentity identity) {
+        return keys.concatMap(key -> deleteObject(bucket, key, identity)
+                .thenReturn(DeleteResult.deleted(key, null))
+                .onErrorResume(error -> Mono.just(DeleteResult.failed(key, "InternalError", error.getMessage()))));
+    }
+
     Mono<Void> deleteObjectVersion(String bucket, String key, String versionId, NormalizedIdentity identity);
 
     Mono<byte[]> getObjectVersion(String bucket, String key, String versionId, NormalizedIdentity identity);
@@ -95,6 +324,61 @@ public interface S3ProxyService {
 
     Mono<String> uploadPart(String bucket, String key, String uploadId, int partNumber, byte[] content, NormalizedIdentity identity);
 
+    /**
+     * Upload one part from the first length bytes of content.
+     * 
+     * The default implementation copies that region and delegates to {@link #uploadPart};
+     * backend implementations should override it to send the region without a copy.
+     * The caller must not modify content until the returned Mono terminates.
+     * 
+     * @param content The part buffer
+     * @param length The number of bytes of content that belong to the part
+     * @return A Mono containing the part ETag
+     */
+    default Mono<String> uploadPart(
+            String bucket,
+            String key,
+            String uploadId,
+            int partNumber,
+            byte[] content,
+            int length,
+            NormalizedIdentity identity) {
+        byte[] part = length == content.length ? content : Arrays.copyOf(content, length);
+        return uploadPart(bucket, key, uploadId, partNumber, part, identity);
+    }
+
+    /**
+     * Upload one part by piping the request body straight to the backend.
+     * 
+     * The default implementation joins the body and delegates to {@link #uploadPart};
+     * backend implementations should override it to keep memory per request bounded.
+     * 
+     * @param contentLength The declared part length
+     * @param checksums Checksums of the part sent with the request, passed to the backend
+     * @param trailingChecksum Algorithm of an aws-chunked trailer checksum, or null when there is none
+     * @return A Mono containing the part ETag
+     */
+    default Mono<String> uploadPartStream(
+            String bucket,
+            String key,
+            String uploadId,
+            int partNumber,
+            Flux<DataBuffer> content,
+            long contentLength,
+            Map<ChecksumAlgorithm, String> checksums,
+            ChecksumAlgorithm trailingChecksum,
+            NormalizedIdentity identity) {
+        return DataBufferUtils.join(content)
+                .map(buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    DataBufferUtils.release(buffer);
+                    return bytes;
+                })
+                .defaultIfEmpty(new byte[0])
+                .flatMap(bytes -> uploadPart(bucket, key, uploadId, partNumber, bytes, identity));
+    }
+
     Mono<String> completeMultipartUpload(String bucket, String key, String uploadId, List<CompletedPart> parts, NormalizedIdentity identity);
 
     Mono<Void> abortMultipartUpload(String bucket, String key, String uploadId, NormalizedIdentity identity);
@@ -1,66 +1,161 @@
 package com.ironbucket.brazznossel.service;
 
+import com.ironbucket.brazznossel.bulk.BulkDeleteEngine;
+import com.ironbucket.brazznossel.bulkhead.TenantBulkhead;
+import com.ironbucket.brazznossel.cache.HotObjectCache;
+import com.ironbucket.brazznossel.checksum.ChecksumAlgorithm;
+import com.ironbucket.brazznossel.checksum.ChecksumTranslator;
+import com.ironbucket.brazznossel.checksum.StreamingChecksumVerifier;
+import com.ironbucket.brazznossel.coalesce.RequestCoalescer;
+import com.ironbucket.brazznossel.cache.ObjectMetadataCache;
+import com.ironbucket.brazznossel.cache.TenantBucketIndex;
+import com.ironbucket.brazznossel.config.S3BackendProperties;
+import com.ironbucket.brazznossel.copy.CopyEngine;
+import com.ironbucket.brazznossel.cutover.DualWriteService;
+import com.ironbucket.brazznossel.download.ParallelRangeDownloader;
+import com.ironbucket.brazznossel.multipart.AutoMultipartUploader;
+import com.ironbucket.brazznossel.multipart.MultipartCleanupJob;
+import com.ironbucket.brazznossel.quota.QuotaEnforcementService;
+import com.ironbucket.brazznossel.quota.QuotaUsageLedger;
+import com.ironbucket.brazznossel.replication.AsyncReplicator;
+import com.ironbucket.brazznossel.replication.ReplicationEntry;
+import com.ironbucket.brazznossel.model.BucketSummary;
+import com.ironbucket.brazznossel.model.DeleteResult;
+import com.ironbucket.brazznossel.model.ListObjectsQuery;
+import com.ironbucket.brazznossel.model.ListingEntry;
 import com.ironbucket.brazznossel.model.NormalizedIdentity;
+import com.ironbucket.brazznossel.model.ObjectListingPage;
+import com.ironbucket.brazznossel.model.ObjectMetadata;
+import com.ironbucket.brazznossel.model.StreamedObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
-import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import reactor.core.publisher.Signal;
+import reactor.core.scheduler.Scheduler;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
 import software.amazon.awssdk.core.sync.RequestBody;
-import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
 
-import java.net.URI;
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.time.Instant;
 import java.util.ArrayList;
-import java.util.EnumSet;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
  * S3ProxyServiceImpl - Real S3 proxy implementation using AWS SDK
  * 
  * Proxies S3 operations to MinIO/S3 backend with tenant isolation
- * and policy enforcement.
+ * and policy enforcement. Backend calls run on a non-blocking S3AsyncClient
+ * by default; app.s3.client-mode=sync falls back to the blocking S3Client.
+ * Each backend provider can have its own client and connection pool, and
+ * requests go to the client of the provider they are routed to.
+ * Every backend call holds a permit from the caller's tenant bulkhead.
+ * HEAD, tagging, ACL and versioning reads are served from the metadata cache
+ * and evicted by writes through this service. Writes are checked against the
+ * tenant quota and recorded in its usage ledger. While a tenant is being
+ * migrated to another backend, its writes are mirrored to the cutover target.
+ * With replication enabled, object mutations are journaled and copied to the
+ * secondary backend in the background.
  */
 @Service
 public class S3ProxyServiceImpl implements S3ProxyService {
     
     private static final Logger logger = LoggerFactory.getLogger(S3ProxyServiceImpl.class);
+
+    /**
+     * Previous size of an object whose size could not be looked up; counted as a new object.
+     */
+    private static final long UNKNOWN_SIZE = -2L;
     
-    private final S3Client s3Client;
-    private final Map<String, BackendProvider> tenantDefaultProviders;
-    private final Map<String, BackendProvider> bucketOverrides;
+    private final S3BackendPool backendPool;
+    private final TenantBulkhead bulkhead;
+    private final TenantBucketIndex bucketIndex;
+    private final ObjectMetadataCache metadataCache;
+    private final BackendRouter router;
+    private final AutoMultipartUploader multipartUploader;
+    private final ParallelRangeDownloader rangeDownloader;
+    private final CopyEngine copyEngine;
+    private final BulkDeleteEngine bulkDeleteEngine;
+    private final QuotaEnforcementService quota;
+    private final MultipartCleanupJob multipartCleanupJob;
+    private final DualWriteService cutover;
+    private final AsyncReplicator replicator;
+    private final StreamingChecksumVerifier checksumVerifier;
+    private final RequestCoalescer coalescer;
+    private final HotObjectCache hotCache;
+    private final Set<String> replicaBuckets = ConcurrentHashMap.newKeySet();
+    private final Set<String> reconcilingBuckets = ConcurrentHashMap.newKeySet();
     
+    @Autowired
     public S3ProxyServiceImpl(
             @Value("${app.s3.endpoint:http://localhost:9000}") String endpoint,
             @Value("${app.s3.access-key}") String accessKey,
             @Value("${app.s3.secret-key}") String secretKey,
             @Value("${app.s3.region:us-east-1}") String region,
-            @Value("${app.s3.routing.tenant-defaults:}") String tenantDefaults,
-            @Value("${app.s3.routing.bucket-overrides:}") String bucketOverrides) {
+            @Value("${app.s3.client-mode:async}") String clientMode,
+            @Value("${app.s3.async.max-connections:200}") int maxConnections,
+            @Value("${app.s3.async.max-pending-connection-acquires:10000}") int maxPendingConnectionAcquires,
+            @Value("${app.s3.zero-copy-get.enabled:false}") boolean zeroCopyGet,
+            Scheduler s3BlockingScheduler,
+            BackendRouter router,
+            S3BackendProperties backendProperties,
+            S3ProxyCollaborators collaborators) {
         
         if (accessKey == null || accessKey.isBlank() || secretKey == null || secretKey.isBlank()) {
             throw new IllegalStateException("Vault-backed S3 credentials are required: app.s3.access-key and app.s3.secret-key must be set");
         }
 
-        logger.info("Initializing S3 Proxy Service with endpoint: {}", endpoint);
+        S3BackendClient.Mode mode = S3BackendClient.Mode.parse(clientMode);
+        logger.info("Initializing S3 Proxy Service with endpoint: {} (client mode: {})", endpoint, mode);
         
-        this.s3Client = S3Client.builder()
-                .endpointOverride(URI.create(endpoint))
-                .credentialsProvider(StaticCredentialsProvider.create(
-                        AwsBasicCredentials.create(accessKey, secretKey)))
-                .region(Region.of(region))
-                .forcePathStyle(true) // Required for MinIO
-                .build();
-
-        this.tenantDefaultProviders = parseRoutingMap(tenantDefaults, false);
-        this.bucketOverrides = parseRoutingMap(bucketOverrides, true);
+        S3BackendPool.BackendSettings defaults = new S3BackendPool.BackendSettings(
+                endpoint, accessKey, secretKey, region, maxConnections, maxPendingConnectionAcquires, zeroCopyGet);
+        this.backendPool = S3BackendPool.create(mode, defaults, backendProperties.getBackends(), s3BlockingScheduler);
+        this.router = router;
+        this.bulkhead = collaborators.bulkhead();
+        this.bucketIndex = collaborators.bucketIndex();
+        this.metadataCache = collaborators.metadataCache();
+        this.multipartUploader = collaborators.multipartUploader();
+        this.rangeDownloader = collaborators.rangeDownloader();
+        this.copyEngine = collaborators.copyEngine();
+        this.bulkDeleteEngine = collaborators.bulkDeleteEngine();
+        this.quota = collaborators.quota();
+        this.multipartCleanupJob = collaborators.multipartCleanupJob();
+        this.cutover = collaborators.cutover();
+        this.replicator = collaborators.replicator();
+        this.checksumVerifier = collaborators.checksumVerifier();
+        this.coalescer = collaborators.coalescer();
+        this.hotCache = collaborators.hotCache();
+        // A tenant's usage is rebuilt in the background the first time it writes after a restart
+        quota.reconcileWith(this::reconcileTenantUsage);
     }
 
     enum BackendProvider {
@@ -78,109 +173,385 @@ public class S3ProxyServiceImpl implements S3ProxyService {
         VERSIONING
     }
 
-    private Map<String, BackendProvider> parseRoutingMap(String raw, boolean expectBucketKey) {
-        Map<String, BackendProvider> parsed = new HashMap<>();
-        if (raw == null || raw.isBlank()) {
-            return parsed;
-        }
+    BackendProvider resolveProviderForRequest(NormalizedIdentity identity, String bucket, RequiredCapability capability) {
+        return router.resolve(identity.getTenantId(), bucket, capability);
+    }
 
-        for (String entry : raw.split(",")) {
-            String token = entry.trim();
-            if (token.isBlank()) {
-                continue;
-            }
+    private S3BackendClient routedClient(NormalizedIdentity identity, String bucket, RequiredCapability capability) {
+        return backendPool.client(resolveProviderForRequest(identity, bucket, capability));
+    }
 
-            String[] parts = token.split("=", 2);
-            if (parts.length != 2) {
-                logger.warn("Ignoring malformed routing token: {}", token);
-                continue;
-            }
+    /**
+     * Check tenant access, resolve the backend and dispatch the call lazily on
+     * subscription, holding a tenant bulkhead permit for its duration.
+     */
+    private <T> Mono<T> call(
+            NormalizedIdentity identity,
+            String bucket,
+            RequiredCapability capability,
+            Function<S3Client, T> syncCall,
+            Function<S3AsyncClient, CompletableFuture<T>> asyncCall) {
+        return Mono.defer(() -> {
+            assertTenantBucketAccess(bucket, identity);
+            S3BackendClient client = routedClient(identity, bucket, capability);
+            return bulkhead.execute(identity.getTenantId(), client.execute(syncCall, asyncCall));
+        });
+    }
 
-            String key = parts[0].trim();
-            String providerRaw = parts[1].trim();
-            if (key.isBlank() || providerRaw.isBlank()) {
-                logger.warn("Ignoring malformed routing token: {}", token);
-                continue;
-            }
+    /**
+     * Like {@link #call}, but while the tenant is migrating the write is also
+     * sent to the cutover target. The caller gets the outcome of the backend
+     * the bucket is routed to.
+     *
+     * @param key The object written, or null for a bucket-level write
+     */
+    private <T> Mono<T> write(
+            NormalizedIdentity identity,
+            String bucket,
+            String key,
+            RequiredCapability capability,
+            Function<S3Client, T> syncCall,
+            Function<S3AsyncClient, CompletableFuture<T>> asyncCall) {
+        return writeBatch(identity, bucket, Collections.singletonList(key), capability, syncCall, asyncCall);
+    }
 
-            if (expectBucketKey && !key.contains("/")) {
-                logger.warn("Bucket override must use tenant/bucket key, ignoring token: {}", token);
-                continue;
+    /**
+     * A write of several objects in one backend call; a divergence is recorded for each of them.
+     */
+    private <T> Mono<T> writeBatch(
+            NormalizedIdentity identity,
+            String bucket,
+            List<String> keys,
+            RequiredCapability capability,
+            Function<S3Client, T> syncCall,
+            Function<S3AsyncClient, CompletableFuture<T>> asyncCall) {
+        return Mono.defer(() -> {
+            assertTenantBucketAccess(bucket, identity);
+            S3BackendClient client = routedClient(identity, bucket, capability);
+            Mono<T> primary = bulkhead.execute(identity.getTenantId(), client.execute(syncCall, asyncCall));
+            S3BackendClient target = cutoverTarget(identity, client);
+            if (target == null) {
+                return primary;
             }
+            return dualWrite(identity, bucket, keys, primary, target.execute(syncCall, asyncCall));
+        });
+    }
 
-            if (!expectBucketKey && key.contains("/")) {
-                logger.warn("Tenant default must use tenant key only, ignoring token: {}", token);
-                continue;
-            }
+    /**
+     * Client of the tenant's cutover target, or null when the tenant is not
+     * migrating or the target is the backend it already uses.
+     */
+    private S3BackendClient cutoverTarget(NormalizedIdentity identity, S3BackendClient primary) {
+        String target = cutover.dualWriteTarget(identity.getTenantId());
+        if (target == null) {
+            return null;
+        }
+        S3BackendClient client = backendPool.client(BackendRouter.parseProvider(target));
+        return client == primary ? null : client;
+    }
 
-            try {
-                parsed.put(key, parseProvider(providerRaw));
-            } catch (IllegalArgumentException illegalArgumentException) {
-                logger.warn("Ignoring unknown provider '{}' in routing token: {}", providerRaw, token);
-            }
+    /**
+     * Run both writes concurrently and record a divergence when only one of them succeeds.
+     */
+    private <T, U> Mono<T> dualWrite(NormalizedIdentity identity, String bucket, List<String> keys, Mono<T> primary, Mono<U> mirror) {
+        return Mono.zip(primary.materialize(), mirror.materialize())
+                .flatMap(outcomes -> {
+                    Signal<T> result = outcomes.getT1();
+                    Signal<U> mirrored = outcomes.getT2();
+                    if (result.isOnError() != mirrored.isOnError()
+                            && !(mirrored.isOnError() && isPendingBackfill(mirrored.getThrowable()))) {
+                        Throwable error = result.isOnError() ? result.getThrowable() : mirrored.getThrowable();
+                        String reason = (result.isOnError() ? "source" : "target") + " write failed: " + error.getMessage();
+                        keys.forEach(key -> cutover.recordWriteDivergence(identity.getTenantId(), bucket, key, reason));
+                    }
+                    return result.isOnError() ? Mono.error(result.getThrowable()) : Mono.justOrEmpty(result.get());
+                });
+    }
+
+    /**
+     * A mirrored write that failed because the backfill has not created the
+     * bucket on the target yet, or already has, loses nothing: the backfill
+     * lists the bucket after creating it and copies the object then.
+     */
+    private static boolean isPendingBackfill(Throwable error) {
+        return error instanceof NoSuchBucketException
+                || error instanceof BucketAlreadyOwnedByYouException;
+    }
+
+    /**
+     * Mirror a write whose body cannot be replayed (a streamed PUT, a completed
+     * multipart upload or a server-side copy) by copying the stored object to
+     * the cutover target once the write has succeeded. Runs in the background
+     * under a tenant permit so the caller does not wait for the second copy.
+     */
+    private void mirrorStoredObject(NormalizedIdentity identity, String bucket, String key, String eTag) {
+        if (cutover.dualWriteTarget(identity.getTenantId()) == null) {
+            return;
         }
+        Mono.defer(() -> {
+                    S3BackendClient source = routedClient(identity, bucket, RequiredCapability.OBJECT_READ);
+                    S3BackendClient target = cutoverTarget(identity, source);
+                    return target == null
+                            ? Mono.<DualWriteService.CopyOutcome>empty()
+                            : bulkhead.execute(identity.getTenantId(), copyToTarget(source, target, bucket, key, eTag));
+                })
+                .subscribe(
+                        outcome -> {
+                            if (outcome == DualWriteService.CopyOutcome.DIVERGED) {
+                                cutover.recordWriteDivergence(identity.getTenantId(), bucket, key, "changed on the source while being mirrored");
+                            }
+                        },
+                        error -> cutover.recordWriteDivergence(identity.getTenantId(), bucket, key, "mirror failed: " + error.getMessage()));
+    }
 
-        return parsed;
+    /**
+     * Stream one object version from source to target. If-Match pins the read
+     * to the version being copied; re-reading the source ETag afterwards
+     * catches a write that landed on the target before this copy finished.
+     */
+    private Mono<DualWriteService.CopyOutcome> copyToTarget(
+            S3BackendClient source,
+            S3BackendClient target,
+            String bucket,
+            String key,
+            String eTag) {
+        GetObjectRequest get = GetObjectRequest.builder().bucket(bucket).key(key).ifMatch(eTag).build();
+        return source.getObjectStream(get, DefaultDataBufferFactory.sharedInstance)
+                .flatMap(object -> storeOnBackend(source, target, bucket, key, object))
+                .then(headETag(source, bucket, key))
+                .map(current -> current.equals(eTag)
+                        ? DualWriteService.CopyOutcome.COPIED
+                        : DualWriteService.CopyOutcome.DIVERGED)
+                // Changed or deleted before the read: that later write is mirrored on its own
+                .onErrorResume(S3Exception.class, error -> error.statusCode() == 412 || error.statusCode() == 404
+                        ? Mono.just(DualWriteService.CopyOutcome.SKIPPED)
+                        : Mono.error(error));
     }
 
-    private BackendProvider parseProvider(String rawProvider) {
-        return BackendProvider.valueOf(rawProvider.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+    /**
+     * Store an object opened on one backend under the same name on another.
+     * A single PUT takes at most 5 GB, so objects at or above the copy multipart
+     * threshold are stored in parts instead: each part is a ranged GET, pinned
+     * to the opened version by If-Match, piped into an UploadPart, and the
+     * opened body is dropped unread.
+     */
+    private Mono<Void> storeOnBackend(S3BackendClient source, S3BackendClient target, String bucket, String key, StreamedObject object) {
+        if (!copyEngine.requiresMultipart(object.contentLength())) {
+            return target.putObjectStream(
+                            PutObjectRequest.builder()
+                                    .bucket(bucket)
+                                    .key(key)
+                                    .contentLength(object.contentLength())
+                                    .contentType(object.contentType())
+                                    .metadata(ChecksumTranslator.toMetadata(object.checksums()))
+                                    .build(),
+                            object.body(),
+                            object.contentLength())
+                    .then();
+        }
+        object.body().subscribe(DataBufferUtils::release).dispose();
+        return copyEngine.multipartCopy(object.contentLength(), rangedCopyTarget(source, target, bucket, key, object)).then();
     }
 
-    private boolean supports(BackendProvider provider, RequiredCapability capability) {
-        return switch (provider) {
-            case AWS_S3 -> true;
-            case GCS -> true;
-            case AZURE_BLOB -> capability != RequiredCapability.VERSIONING;
-            case LOCAL_FILESYSTEM -> EnumSet.of(
-                RequiredCapability.OBJECT_READ,
-                RequiredCapability.OBJECT_WRITE,
-                RequiredCapability.OBJECT_DELETE
-            ).contains(capability);
+    private CopyEngine.MultipartCopyTarget rangedCopyTarget(
+            S3BackendClient source,
+            S3BackendClient target,
+            String bucket,
+            String key,
+            StreamedObject object) {
+        return new CopyEngine.MultipartCopyTarget() {
+
+            @Override
+            public Mono<String> initiate() {
+                CreateMultipartUploadRequest request = CreateMultipartUploadRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .contentType(object.contentType())
+                        .metadata(ChecksumTranslator.toMetadata(object.checksums()))
+                        .build();
+                return target.execute(client -> client.createMultipartUpload(request), client -> client.createMultipartUpload(request))
+                        .map(CreateMultipartUploadResponse::uploadId);
+            }
+
+            @Override
+            public Mono<String> copyPart(String uploadId, int partNumber, long start, long end) {
+                long length = end - start + 1;
+                GetObjectRequest range = GetObjectRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .range(String.format("bytes=%d-%d", start, end))
+                        .ifMatch(object.eTag())
+                        .build();
+                UploadPartRequest part = UploadPartRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .uploadId(uploadId)
+                        .partNumber(partNumber)
+                        .contentLength(length)
+                        .build();
+                return source.getObjectStream(range, DefaultDataBufferFactory.sharedInstance)
+                        .flatMap(slice -> target.uploadPartStream(part, slice.body(), length))
+                        .map(UploadPartResponse::eTag);
+            }
+
+            @Override
+            public Mono<String> complete(String uploadId, List<CompletedPart> parts) {
+                CompleteMultipartUploadRequest request = CompleteMultipartUploadRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .uploadId(uploadId)
+                        .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                        .build();
+                return target.execute(client -> client.completeMultipartUpload(request), client -> client.completeMultipartUpload(request))
+                        .map(CompleteMultipartUploadResponse::eTag);
+            }
+
+            @Override
+            public Mono<Void> abort(String uploadId) {
+                AbortMultipartUploadRequest request = AbortMultipartUploadRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .uploadId(uploadId)
+                        .build();
+                return target.execute(client -> client.abortMultipartUpload(request), client -> client.abortMultipartUpload(request))
+                        .then();
+            }
         };
     }
 
-    BackendProvider resolveProviderForRequest(NormalizedIdentity identity, String bucket, RequiredCapability capability) {
-        List<BackendProvider> candidates = new ArrayList<>();
-        String tenantBucketKey = identity.getTenantId() + "/" + bucket;
+    /**
+     * Current ETag of the object, or an empty string when it does not exist.
+     */
+    private static Mono<String> headETag(S3BackendClient backend, String bucket, String key) {
+        HeadObjectRequest request = HeadObjectRequest.builder().bucket(bucket).key(key).build();
+        return backend.execute(client -> client.headObject(request), client -> client.headObject(request))
+                .map(HeadObjectResponse::eTag)
+                .onErrorResume(S3Exception.class, error -> error.statusCode() == 404 ? Mono.just("") : Mono.error(error));
+    }
 
-        BackendProvider bucketOverride = bucketOverrides.get(tenantBucketKey);
-        if (bucketOverride != null) {
-            candidates.add(bucketOverride);
+    /**
+     * Compare a sampled read against the cutover target in the background.
+     * Multipart ETags depend on how the object was uploaded, so for those only
+     * the length is compared.
+     */
+    private void shadowRead(NormalizedIdentity identity, String bucket, String key, String eTag, long contentLength) {
+        if (!cutover.sampleShadowRead(identity.getTenantId())) {
+            return;
         }
+        HeadObjectRequest request = HeadObjectRequest.builder().bucket(bucket).key(key).build();
+        Mono.defer(() -> {
+                    S3BackendClient target = cutoverTarget(identity, routedClient(identity, bucket, RequiredCapability.OBJECT_READ));
+                    return target == null
+                            ? Mono.<Boolean>empty()
+                            : target.execute(client -> client.headObject(request), client -> client.headObject(request))
+                                    .map(response -> sameObject(eTag, contentLength, response.eTag(),
+                                            response.contentLength() == null ? -1L : response.contentLength()));
+                })
+                .onErrorResume(S3Exception.class, error -> error.statusCode() == 404 ? Mono.just(false) : Mono.empty())
+                .subscribe(
+                        matched -> cutover.recordShadowRead(identity.getTenantId(), bucket, key, matched),
+                        error -> logger.debug("Shadow read of {}/{} failed: {}", bucket, key, error.getMessage()));
+    }
 
-        BackendProvider tenantDefault = tenantDefaultProviders.get(identity.getTenantId());
-        if (tenantDefault != null) {
-            candidates.add(tenantDefault);
+    private static boolean sameObject(String eTag, long contentLength, String otherETag, long otherContentLength) {
+        if (Objects.equals(eTag, otherETag)) {
+            return true;
         }
+        boolean multipart = (eTag != null && eTag.contains("-")) || (otherETag != null && otherETag.contains("-"));
+        return multipart && contentLength == otherContentLength;
+    }
 
-        for (BackendProvider fallback : BackendProvider.values()) {
-            if (!candidates.contains(fallback)) {
-                candidates.add(fallback);
+    /**
+     * Serve a metadata read from the cache, checking tenant access first so a
+     * cached entry is never returned to a caller that could not load it.
+     */
+    private <T> Mono<T> cached(
+            ObjectMetadataCache.Kind kind,
+            NormalizedIdentity identity,
+            String bucket,
+            String key,
+            Supplier<Mono<T>> loader) {
+        return Mono.defer(() -> {
+            assertTenantBucketAccess(bucket, identity);
+            return metadataCache.get(kind, identity.getTenantId(), bucket, key, null, loader);
+        });
+    }
+
+    /**
+     * Size of the object a write is about to replace or delete, for quota
+     * accounting: from the metadata cache when it holds the object, otherwise
+     * from a HEAD. Emits -1 when there is no such object, and
+     * {@link #UNKNOWN_SIZE} when the HEAD failed, in which case the caller
+     * reconciles the bucket once its write is done.
+     */
+    private Mono<Long> previousSize(NormalizedIdentity identity, String bucket, String key) {
+        return Mono.defer(() -> {
+            assertTenantBucketAccess(bucket, identity);
+            long cached = cachedSize(identity, bucket, key);
+            if (cached != UNKNOWN_SIZE) {
+                return Mono.just(cached);
             }
+            if (!quota.isEnabled()) {
+                // Without limits the scheduled reconcile is enough, so writes skip the HEAD
+                return Mono.just(-1L);
+            }
+            return backendHead(bucket, key, identity)
+                    .map(ObjectMetadata::contentLength)
+                    .onErrorResume(error -> {
+                        if (error instanceof S3Exception s3Error && s3Error.statusCode() == 404) {
+                            return Mono.just(-1L);
+                        }
+                        logger.debug("Size of {}/{} could not be looked up: {}", bucket, key, error.getMessage());
+                        return Mono.just(UNKNOWN_SIZE);
+                    });
+        });
+    }
+
+    /**
+     * Size of the object as last seen by the metadata cache, or {@link #UNKNOWN_SIZE}.
+     * Batch deletes use it so that a thousand keys do not cost a thousand HEADs.
+     */
+    private long cachedSize(NormalizedIdentity identity, String bucket, String key) {
+        ObjectMetadata metadata = metadataCache.peek(ObjectMetadataCache.Kind.HEAD, identity.getTenantId(), bucket, key);
+        return metadata == null ? UNKNOWN_SIZE : metadata.contentLength();
+    }
+
+    private void reconcileIfUnknown(NormalizedIdentity identity, String bucket, long previousBytes) {
+        if (previousBytes == UNKNOWN_SIZE) {
+            reconcileBucketInBackground(identity, bucket);
         }
+    }
 
-        for (BackendProvider candidate : candidates) {
-            if (supports(candidate, capability)) {
-                logger.debug(
-                    "Resolved provider '{}' for tenant='{}', bucket='{}', capability='{}'",
-                    candidate,
-                    identity.getTenantId(),
-                    bucket,
-                    capability
-                );
-                return candidate;
-            }
+    /**
+     * Rebuild the bucket's usage in the background after a write whose effect on
+     * the ledger is not known; a bucket is reconciled at most once at a time.
+     */
+    private void reconcileBucketInBackground(NormalizedIdentity identity, String bucket) {
+        String tenantBucket = identity.getTenantId() + "/" + bucket;
+        if (!reconcilingBuckets.add(tenantBucket)) {
+            return;
         }
+        reconcileBucketUsage(bucket, serviceIdentity(identity.getTenantId(), "quota-reconciler"))
+                .doFinally(signal -> reconcilingBuckets.remove(tenantBucket))
+                .subscribe(null, error -> logger.warn("Quota reconcile failed for bucket {}: {}", tenantBucket, error.getMessage()));
+    }
+
+    /**
+     * Forget what is cached or being fetched for an object that has just changed.
+     */
+    private void invalidateObject(NormalizedIdentity identity, String bucket, String key, String versionId) {
+        metadataCache.invalidateObject(identity.getTenantId(), bucket, key, versionId);
+        coalescer.forget(identity.getTenantId(), bucket, key);
+        hotCache.invalidate(identity.getTenantId(), bucket, key);
+    }
 
-        throw new IllegalStateException(
-            "No provider supports capability " + capability + " for tenant " + identity.getTenantId() + " and bucket " + bucket
-        );
+    private void invalidateObject(NormalizedIdentity identity, String bucket, String key) {
+        invalidateObject(identity, bucket, key, null);
     }
 
-    private S3Client routedClient(NormalizedIdentity identity, String bucket, RequiredCapability capability) {
-        resolveProviderForRequest(identity, bucket, capability);
-        return s3Client;
+    @PreDestroy
+    void close() {
+        backendPool.close();
     }
 
     private void assertTenantBucketAccess(String bucket, NormalizedIdentity identity) {
@@ -191,446 +562,1209 @@ public class S3ProxyServiceImpl implements S3ProxyService {
     
     @Override
     public Mono<String> listBuckets(NormalizedIdentity identity) {
-        return Mono.fromCallable(() -> {
-            logger.info("Listing buckets for user: {}, tenant: {}", 
-                    identity.getPreferredUsername(), identity.getTenantId());
-            
-            ListBucketsResponse response = s3Client.listBuckets();
-            
-            // Filter buckets by tenant prefix
-            String tenantPrefix = identity.getTenantId() + "-";
-            StringBuilder result = new StringBuilder("Buckets for tenant " + identity.getTenantId() + ":\n");
-            
-            response.buckets().stream()
-                    .filter(bucket -> bucket.name().startsWith(tenantPrefix))
-                    .forEach(bucket -> result.append("  - ")
+        logger.info("Listing buckets for user: {}, tenant: {}", 
+                identity.getPreferredUsername(), identity.getTenantId());
+
+        return bucketIndex.get(identity.getTenantId(), () -> loadTenantBuckets(identity))
+                .map(buckets -> {
+                    StringBuilder result = new StringBuilder("Buckets for tenant " + identity.getTenantId() + ":\n");
+                    buckets.forEach(bucket -> result.append("  - ")
                             .append(bucket.name())
                             .append(" (created: ")
                             .append(bucket.creationDate())
                             .append(")\n"));
-            
-            return result.toString();
+                    return result.toString();
+                });
+    }
+
+    @Override
+    public Flux<BucketSummary> listBucketSummaries(NormalizedIdentity identity) {
+        return bucketIndex.get(identity.getTenantId(), () -> loadTenantBuckets(identity))
+                .flatMapIterable(buckets -> buckets);
+    }
+
+    private Mono<List<BucketSummary>> loadTenantBuckets(NormalizedIdentity identity) {
+        // Filter buckets by tenant prefix
+        String tenantPrefix = identity.getTenantId() + "-";
+        return bulkhead.execute(identity.getTenantId(), listAllBuckets())
+                .map(buckets -> buckets.stream()
+                        .filter(bucket -> bucket.name().startsWith(tenantPrefix))
+                        .toList());
+    }
+
+    /**
+     * List buckets on every backend; a bucket present on more than one is reported once.
+     */
+    private Mono<List<BucketSummary>> listAllBuckets() {
+        return Flux.fromIterable(backendPool.distinctClients())
+                .flatMap(backend -> backend.execute(client -> client.listBuckets(), client -> client.listBuckets()))
+                .flatMapIterable(ListBucketsResponse::buckets)
+                .distinct(Bucket::name)
+                .map(bucket -> new BucketSummary(bucket.name(), bucket.creationDate()))
+                .collectList();
+    }
+
+    /**
+     * Rebuild the cached tenant bucket lists from one backend listing, picking up
+     * buckets created or deleted outside this proxy.
+     */
+    @Scheduled(
+            fixedDelayString = "${app.s3.bucket-index.refresh-interval:60s}",
+            initialDelayString = "${app.s3.bucket-index.refresh-interval:60s}")
+    public Mono<Void> refreshBucketIndex() {
+        if (bucketIndex.cachedTenants().isEmpty()) {
+            return Mono.empty();
+        }
+        long generation = bucketIndex.generation();
+        return listAllBuckets()
+                .doOnNext(buckets -> bucketIndex.refreshFrom(buckets, generation))
+                .doOnError(error -> logger.warn("Bucket index refresh failed: {}", error.getMessage()))
+                .onErrorComplete()
+                .then();
+    }
+
+    /**
+     * Correct the quota usage ledger of every tenant seen so far from backend
+     * listings, one bucket at a time so a reconcile never floods the backend.
+     */
+    @Scheduled(
+            fixedDelayString = "${app.s3.quota.reconcile-interval:5m}",
+            initialDelayString = "${app.s3.quota.reconcile-initial-delay:30s}")
+    public Mono<Void> reconcileQuotaUsage() {
+        return Flux.fromIterable(quota.ledger().trackedTenants())
+                .concatMap(this::reconcileTenantUsage)
+                .then();
+    }
+
+    private Mono<Void> reconcileTenantUsage(String tenantId) {
+        NormalizedIdentity identity = serviceIdentity(tenantId, "quota-reconciler");
+        return bucketIndex.get(tenantId, () -> loadTenantBuckets(identity))
+                .flatMap(buckets -> {
+                    List<String> listed = buckets.stream().map(BucketSummary::name).toList();
+                    // Buckets the ledger knows but the backend no longer lists were deleted elsewhere
+                    quota.ledger().trackedBuckets(tenantId).stream()
+                            .filter(bucket -> !listed.contains(bucket))
+                            .forEach(bucket -> quota.ledger().removeBucket(tenantId, bucket));
+                    return Flux.fromIterable(listed)
+                            .concatMap(bucket -> reconcileBucketUsage(bucket, identity))
+                            .then(Mono.fromRunnable(() -> quota.ledger().markReconciled(tenantId)));
+                })
+                .doOnError(error -> logger.warn("Quota reconcile failed for tenant {}: {}", tenantId, error.getMessage()))
+                .onErrorComplete()
+                .then();
+    }
+
+    private Mono<Void> reconcileBucketUsage(String bucket, NormalizedIdentity identity) {
+        return Mono.defer(() -> {
+            QuotaUsageLedger.Snapshot snapshot = quota.ledger().snapshot(identity.getTenantId(), bucket);
+            ListObjectsQuery query = new ListObjectsQuery(null, null, null, ListObjectsQuery.MAX_KEYS_LIMIT, null);
+            return listObjectsStream(bucket, query, identity)
+                    .reduce(new long[2], (totals, entry) -> {
+                        totals[0] += entry.size() == null ? 0 : entry.size();
+                        totals[1]++;
+                        return totals;
+                    })
+                    .doOnNext(totals -> quota.ledger().reconcile(snapshot, totals[0], totals[1]))
+                    .then();
+        });
+    }
+
+    private static NormalizedIdentity serviceIdentity(String tenantId, String name) {
+        return NormalizedIdentity.builder()
+                .userId(name)
+                .tenantId(tenantId)
+                .preferredUsername(name)
+                .build();
+    }
+
+    /**
+     * Start the backfill of tenants whose backend cutover has just begun.
+     */
+    @Scheduled(fixedDelayString = "${app.s3.cutover.backfill-poll-interval:10s}")
+    public Mono<Void> startCutoverBackfills() {
+        return cutover.runPendingBackfills(cutoverBackfillTarget());
+    }
+
+    private DualWriteService.BackfillTarget cutoverBackfillTarget() {
+        return new DualWriteService.BackfillTarget() {
+
+            @Override
+            public Flux<String> buckets(String tenantId) {
+                return loadTenantBuckets(serviceIdentity(tenantId, "cutover-backfill"))
+                        .flatMapIterable(buckets -> buckets)
+                        .map(BucketSummary::name);
+            }
+
+            @Override
+            public Mono<Void> prepareBucket(String tenantId, String bucket, String targetProvider) {
+                CreateBucketRequest request = CreateBucketRequest.builder().bucket(bucket).build();
+                return backendPool.client(BackendRouter.parseProvider(targetProvider))
+                        .execute(client -> client.createBucket(request), client -> client.createBucket(request))
+                        .onErrorResume(BucketAlreadyOwnedByYouException.class, error -> Mono.empty())
+                        .then();
+            }
+
+            @Override
+            public Flux<ListingEntry> objects(String tenantId, String bucket) {
+                ListObjectsQuery query = new ListObjectsQuery(null, null, null, ListObjectsQuery.MAX_KEYS_LIMIT, null);
+                return listObjectsStream(bucket, query, serviceIdentity(tenantId, "cutover-backfill"));
+            }
+
+            @Override
+            public Mono<DualWriteService.CopyOutcome> copy(String tenantId, String bucket, ListingEntry object, String targetProvider) {
+                return Mono.defer(() -> {
+                    NormalizedIdentity identity = serviceIdentity(tenantId, "cutover-backfill");
+                    S3BackendClient source = routedClient(identity, bucket, RequiredCapability.OBJECT_READ);
+                    S3BackendClient target = backendPool.client(BackendRouter.parseProvider(targetProvider));
+                    if (source == target) {
+                        return Mono.just(DualWriteService.CopyOutcome.SKIPPED);
+                    }
+                    HeadObjectRequest request = HeadObjectRequest.builder().bucket(bucket).key(object.key()).build();
+                    long size = object.size() == null ? -1L : object.size();
+                    // Objects mirrored since the migration started, or copied by an earlier run, are already there
+                    return target.execute(client -> client.headObject(request), client -> client.headObject(request))
+                            .map(head -> sameObject(object.eTag(), size, head.eTag(), head.contentLength() == null ? -1L : head.contentLength()))
+                            .onErrorResume(S3Exception.class, error -> error.statusCode() == 404 ? Mono.just(false) : Mono.error(error))
+                            .flatMap(present -> present
+                                    ? Mono.just(DualWriteService.CopyOutcome.SKIPPED)
+                                    : bulkhead.execute(tenantId, copyToTarget(source, target, bucket, object.key(), object.eTag())));
+                });
+            }
+        };
+    }
+
+    /**
+     * Apply journaled mutations to the secondary backend.
+     */
+    @Scheduled(fixedDelayString = "${app.s3.replication.interval:1s}")
+    public Mono<Void> replicatePending() {
+        if (!replicator.isEnabled()) {
+            return Mono.empty();
+        }
+        return replicator.drain(replicationTarget())
+                .doOnError(error -> logger.warn("Replication drain failed: {}", error.getMessage()))
+                .onErrorComplete()
+                .then();
+    }
+
+    private AsyncReplicator.ReplicationTarget replicationTarget() {
+        S3BackendClient secondary = backendPool.client(BackendRouter.parseProvider(replicator.targetProvider()));
+        return entry -> Mono.defer(() -> {
+            String bucket = entry.bucket();
+            String key = entry.key();
+            return switch (entry.operation()) {
+                case PUT -> {
+                    S3BackendClient primary = routedClient(serviceIdentity(entry.tenantId(), "replicator"), bucket, RequiredCapability.OBJECT_READ);
+                    yield primary == secondary ? Mono.<Void>empty() : replicateObject(primary, secondary, bucket, key);
+                }
+                case DELETE -> {
+                    DeleteObjectRequest request = DeleteObjectRequest.builder().bucket(bucket).key(key).build();
+                    yield secondary.execute(client -> client.deleteObject(request), client -> client.deleteObject(request))
+                            .onErrorResume(NoSuchBucketException.class, error -> Mono.empty())
+                            .then();
+                }
+                case PUT_TAGGING -> {
+                    PutObjectTaggingRequest request = PutObjectTaggingRequest.builder()
+                            .bucket(bucket)
+                            .key(key)
+                            .tagging(Tagging.builder().tagSet(entry.tags().entrySet().stream()
+                                    .map(tag -> Tag.builder().key(tag.getKey()).value(tag.getValue()).build())
+                                    .toList()).build())
+                            .build();
+                    yield secondary.execute(client -> client.putObjectTagging(request), client -> client.putObjectTagging(request)).then();
+                }
+                case DELETE_TAGGING -> {
+                    DeleteObjectTaggingRequest request = DeleteObjectTaggingRequest.builder().bucket(bucket).key(key).build();
+                    yield secondary.execute(client -> client.deleteObjectTagging(request), client -> client.deleteObjectTagging(request)).then();
+                }
+            };
         });
     }
 
+    /**
+     * Copy the object as it is now from primary to secondary, creating the
+     * bucket on the secondary the first time it is needed. An object or bucket
+     * deleted on the primary since the PUT is skipped; its DELETE is further
+     * along in the journal.
+     */
+    private Mono<Void> replicateObject(S3BackendClient primary, S3BackendClient secondary, String bucket, String key) {
+        GetObjectRequest get = GetObjectRequest.builder().bucket(bucket).key(key).build();
+        return ensureReplicaBucket(secondary, bucket)
+                .then(primary.getObjectStream(get, DefaultDataBufferFactory.sharedInstance)
+                        .onErrorResume(error -> error instanceof NoSuchKeyException || error instanceof NoSuchBucketException,
+                                error -> Mono.empty()))
+                .flatMap(object -> storeOnBackend(primary, secondary, bucket, key, object))
+                // Removed on the secondary behind our back; create it again on the retry
+                .doOnError(NoSuchBucketException.class, error -> replicaBuckets.remove(bucket))
+                .then();
+    }
+
+    private Mono<Void> ensureReplicaBucket(S3BackendClient secondary, String bucket) {
+        if (replicaBuckets.contains(bucket)) {
+            return Mono.empty();
+        }
+        CreateBucketRequest request = CreateBucketRequest.builder().bucket(bucket).build();
+        return secondary.execute(client -> client.createBucket(request), client -> client.createBucket(request))
+                .then()
+                .onErrorResume(BucketAlreadyOwnedByYouException.class, error -> Mono.empty())
+                .doOnSuccess(done -> replicaBuckets.add(bucket));
+    }
+
+    /**
+     * Abort stale multipart uploads on every backend. Runs per backend client
+     * rather than per tenant, so each upload is listed and aborted on the
+     * backend that actually stores it. Only buckets of tenants in the bucket
+     * index are swept: a shared backend also holds other applications' uploads.
+     */
+    @Scheduled(
+            fixedDelayString = "${app.s3.multipart.cleanup.interval:1h}",
+            initialDelayString = "${app.s3.multipart.cleanup.initial-delay:5m}")
+    public Mono<Void> sweepStaleMultipartUploads() {
+        if (!multipartCleanupJob.isEnabled()) {
+            return Mono.empty();
+        }
+        return Flux.fromIterable(backendPool.distinctClients())
+                .concatMap(backend -> multipartCleanupJob.sweep(multipartSweepTarget(backend))
+                        .doOnError(error -> logger.warn("Multipart cleanup sweep failed: {}", error.getMessage()))
+                        .onErrorComplete())
+                .then();
+    }
+
+    private static boolean ownedByAnyOf(Set<String> tenants, String bucket) {
+        // Tenant ids may contain dashes themselves, so any dash can end the tenant prefix
+        for (int dash = bucket.indexOf('-'); dash > 0; dash = bucket.indexOf('-', dash + 1)) {
+            if (tenants.contains(bucket.substring(0, dash))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private MultipartCleanupJob.SweepTarget multipartSweepTarget(S3BackendClient backend) {
+        return new MultipartCleanupJob.SweepTarget() {
+
+            @Override
+            public Flux<String> buckets() {
+                return Flux.defer(() -> {
+                    Set<String> tenants = bucketIndex.cachedTenants();
+                    return backend.execute(client -> client.listBuckets(), client -> client.listBuckets())
+                            .flatMapIterable(ListBucketsResponse::buckets)
+                            .map(Bucket::name)
+                            .filter(bucket -> ownedByAnyOf(tenants, bucket));
+                });
+            }
+
+            @Override
+            public Mono<MultipartCleanupJob.UploadPage> listUploads(String bucket, String keyMarker, String uploadIdMarker) {
+                ListMultipartUploadsRequest request = ListMultipartUploadsRequest.builder()
+                        .bucket(bucket)
+                        .keyMarker(keyMarker)
+                        .uploadIdMarker(uploadIdMarker)
+                        .build();
+                return backend.execute(client -> client.listMultipartUploads(request), client -> client.listMultipartUploads(request))
+                        .map(response -> new MultipartCleanupJob.UploadPage(
+                                response.uploads().stream()
+                                        .map(upload -> new MultipartCleanupJob.PendingUpload(
+                                                bucket, upload.key(), upload.uploadId(), upload.initiated()))
+                                        .toList(),
+                                Boolean.TRUE.equals(response.isTruncated()),
+                                response.nextKeyMarker(),
+                                response.nextUploadIdMarker()));
+            }
+
+            @Override
+            public Mono<Long> uploadedBytes(MultipartCleanupJob.PendingUpload upload) {
+                return listParts(upload, null)
+                        .expand(response -> Boolean.TRUE.equals(response.isTruncated())
+                                ? listParts(upload, response.nextPartNumberMarker())
+                                : Mono.empty())
+                        .flatMapIterable(ListPartsResponse::parts)
+                        .map(part -> part.size() == null ? 0L : part.size())
+                        .reduce(0L, Long::sum);
+            }
+
+            private Mono<ListPartsResponse> listParts(MultipartCleanupJob.PendingUpload upload, Integer partNumberMarker) {
+                ListPartsRequest request = ListPartsRequest.builder()
+                        .bucket(upload.bucket())
+                        .key(upload.key())
+                        .uploadId(upload.uploadId())
+                        .partNumberMarker(partNumberMarker)
+                        .build();
+                return backend.execute(client -> client.listParts(request), client -> client.listParts(request));
+            }
+
+            @Override
+            public Mono<Void> abort(MultipartCleanupJob.PendingUpload upload) {
+                AbortMultipartUploadRequest request = AbortMultipartUploadRequest.builder()
+                        .bucket(upload.bucket())
+                        .key(upload.key())
+                        .uploadId(upload.uploadId())
+                        .build();
+                return backend.execute(client -> client.abortMultipartUpload(request), client -> client.abortMultipartUpload(request))
+                        .doOnSuccess(response -> quota.ledger().recordMultipartAbort(upload.uploadId()))
+                        .then();
+            }
+        };
+    }
+
     @Override
     public Mono<String> createBucket(String bucket, NormalizedIdentity identity) {
-        return Mono.fromCallable(() -> {
-            assertTenantBucketAccess(bucket, identity);
-            CreateBucketRequest request = CreateBucketRequest.builder().bucket(bucket).build();
-            routedClient(identity, bucket, RequiredCapability.OBJECT_WRITE).createBucket(request);
-            return bucket;
-        });
+        CreateBucketRequest request = CreateBucketRequest.builder().bucket(bucket).build();
+        return write(identity, bucket, null, RequiredCapability.OBJECT_WRITE,
+                client -> client.createBucket(request),
+                client -> client.createBucket(request))
+                .doOnSuccess(response -> bucketIndex.onBucketCreated(identity.getTenantId(), bucket, Instant.now()))
+                .thenReturn(bucket);
     }
 
     @Override
     public Mono<Void> deleteBucket(String bucket, NormalizedIdentity identity) {
-        return Mono.fromRunnable(() -> {
-            assertTenantBucketAccess(bucket, identity);
-            DeleteBucketRequest request = DeleteBucketRequest.builder().bucket(bucket).build();
-            routedClient(identity, bucket, RequiredCapability.OBJECT_DELETE).deleteBucket(request);
-        });
+        DeleteBucketRequest request = DeleteBucketRequest.builder().bucket(bucket).build();
+        return write(identity, bucket, null, RequiredCapability.OBJECT_DELETE,
+                client -> client.deleteBucket(request),
+                client -> client.deleteBucket(request))
+                .doOnSuccess(response -> {
+                    bucketIndex.onBucketDeleted(identity.getTenantId(), bucket);
+                    quota.ledger().removeBucket(identity.getTenantId(), bucket);
+                })
+                .then();
     }
 
     @Override
     public Mono<String> listObjects(String bucket, NormalizedIdentity identity) {
-        return Mono.fromCallable(() -> {
-            assertTenantBucketAccess(bucket, identity);
-            ListObjectsV2Request request = ListObjectsV2Request.builder().bucket(bucket).build();
-            ListObjectsV2Response response = routedClient(identity, bucket, RequiredCapability.OBJECT_READ).listObjectsV2(request);
-            return response.contents().stream().map(S3Object::key).collect(Collectors.joining("\n"));
-        });
+        // Follows continuation tokens so buckets with more than one page are listed completely
+        return listObjectsStream(bucket, ListObjectsQuery.all(), identity)
+                .map(ListingEntry::key)
+                .collect(Collectors.joining("\n"));
+    }
+
+    @Override
+    public Mono<ObjectListingPage> listObjectsPage(String bucket, ListObjectsQuery query, NormalizedIdentity identity) {
+        ListObjectsV2Request request = ListObjectsV2Request.builder()
+                .bucket(bucket)
+                .prefix(query.prefix())
+                .delimiter(query.delimiter())
+                .startAfter(query.startAfter())
+                .maxKeys(query.maxKeys())
+                .continuationToken(query.continuationToken())
+                .build();
+        return call(identity, bucket, RequiredCapability.OBJECT_READ,
+                client -> client.listObjectsV2(request),
+                client -> client.listObjectsV2(request))
+                .map(response -> new ObjectListingPage(
+                        response.contents().stream()
+                                .map(object -> ListingEntry.object(
+                                        object.key(),
+                                        object.size(),
+                                        object.eTag(),
+                                        object.lastModified(),
+                                        object.storageClassAsString()))
+                                .toList(),
+                        response.commonPrefixes().stream().map(CommonPrefix::prefix).toList(),
+                        Boolean.TRUE.equals(response.isTruncated()),
+                        response.nextContinuationToken()));
     }
     
     @Override
     public Mono<byte[]> getObject(String bucket, String key, NormalizedIdentity identity) {
-        return Mono.fromCallable(() -> {
-            logger.info("Getting object: {}/{} for user: {}", bucket, key, identity.getPreferredUsername());
-            
+        logger.info("Getting object: {}/{} for user: {}", bucket, key, identity.getPreferredUsername());
+        
+        GetObjectRequest request = GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .build();
+        
+        return call(identity, bucket, RequiredCapability.OBJECT_READ,
+                client -> client.getObjectAsBytes(request),
+                client -> client.getObject(request, AsyncResponseTransformer.toBytes()))
+                .map(bytes -> bytes.asByteArray());
+    }
+
+    @Override
+    public Mono<StreamedObject> getObjectStream(String bucket, String key, DataBufferFactory bufferFactory, NormalizedIdentity identity) {
+        return getObjectStream(bucket, key, bufferFactory, false, identity);
+    }
+
+    @Override
+    public Mono<StreamedObject> getObjectStream(
+            String bucket,
+            String key,
+            DataBufferFactory bufferFactory,
+            boolean verifyChecksum,
+            NormalizedIdentity identity) {
+        if (!hotCache.isEnabled()) {
+            return backendObjectStream(bucket, key, bufferFactory, verifyChecksum, identity);
+        }
+        // The current ETag comes from a HEAD, which is usually answered by the metadata cache
+        return headObjectMetadata(bucket, key, identity).flatMap(metadata -> {
+            StreamedObject cached = hotCache.get(identity.getTenantId(), bucket, key, metadata.eTag(), bufferFactory);
+            if (cached != null) {
+                return Mono.just(verifyChecksum ? verifyDownload(cached) : cached);
+            }
+            return backendObjectStream(bucket, key, bufferFactory, verifyChecksum, identity)
+                    .map(object -> hotCache.fill(identity.getTenantId(), bucket, key, object));
+        });
+    }
+
+    private Mono<StreamedObject> backendObjectStream(
+            String bucket,
+            String key,
+            DataBufferFactory bufferFactory,
+            boolean verifyChecksum,
+            NormalizedIdentity identity) {
+        if (verifyChecksum) {
+            // The stored checksum covers the whole object, so verify a single sequential stream
+            return streamObject(bucket, key, bufferFactory, identity).map(this::verifyDownload);
+        }
+        if (!rangeDownloader.isEnabled()) {
+            return streamObject(bucket, key, bufferFactory, identity);
+        }
+        // The length comes from a HEAD, which is usually answered by the metadata cache
+        return headObjectMetadata(bucket, key, identity).flatMap(metadata -> {
+            if (!rangeDownloader.appliesTo(metadata.contentLength())) {
+                return streamObject(bucket, key, bufferFactory, identity);
+            }
+            logger.info("Parallel ranged GET: {}/{} ({} bytes) for user: {}",
+                    bucket, key, metadata.contentLength(), identity.getPreferredUsername());
+            Flux<DataBuffer> body = rangeDownloader.download(metadata.contentLength(),
+                            (start, end) -> getObjectRangeBuffer(bucket, key, metadata.eTag(), start, end, bufferFactory, identity))
+                    // A failed range usually means the object changed; do not keep serving the stale length
+                    .doOnError(error -> invalidateObject(identity, bucket, key));
+            return Mono.just(new StreamedObject(metadata.contentLength(), metadata.contentType(), metadata.eTag(), body));
+        });
+    }
+
+    private StreamedObject verifyDownload(StreamedObject object) {
+        return object.checksums().isEmpty()
+                ? object
+                : object.withBody(checksumVerifier.verify(object.body(), object.checksums(),
+                        StreamingChecksumVerifier.Direction.DOWNLOAD));
+    }
+
+    /**
+     * Fetch one range of a parallel GET. If-Match pins every range to the same
+     * object version, so a concurrent overwrite fails the download instead of
+     * mixing bytes from two versions.
+     */
+    private Mono<DataBuffer> getObjectRangeBuffer(
+            String bucket,
+            String key,
+            String eTag,
+            long start,
+            long end,
+            DataBufferFactory bufferFactory,
+            NormalizedIdentity identity) {
+        GetObjectRequest request = GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .range(String.format("bytes=%d-%d", start, end))
+                .ifMatch(eTag)
+                .build();
+        return call(identity, bucket, RequiredCapability.OBJECT_READ,
+                client -> client.getObjectAsBytes(request),
+                client -> client.getObject(request, AsyncResponseTransformer.toBytes()))
+                .map(bytes -> bufferFactory.wrap(bytes.asByteArrayUnsafe()));
+    }
+
+    /**
+     * Stream the object, sharing the backend fetch with concurrent GETs of the same object.
+     */
+    private Mono<StreamedObject> streamObject(String bucket, String key, DataBufferFactory bufferFactory, NormalizedIdentity identity) {
+        return Mono.defer(() -> {
             assertTenantBucketAccess(bucket, identity);
-            
+            return coalescer.get(identity.getTenantId(), bucket, key, bufferFactory,
+                    () -> fetchObject(bucket, key, bufferFactory, identity));
+        });
+    }
+
+    private Mono<StreamedObject> fetchObject(String bucket, String key, DataBufferFactory bufferFactory, NormalizedIdentity identity) {
+        return Mono.defer(() -> {
+            logger.info("Streaming object: {}/{} for user: {}", bucket, key, identity.getPreferredUsername());
+
             GetObjectRequest request = GetObjectRequest.builder()
                     .bucket(bucket)
                     .key(key)
                     .build();
-            
-            return routedClient(identity, bucket, RequiredCapability.OBJECT_READ).getObjectAsBytes(request).asByteArray();
+
+            return streamFromBackend(request, bufferFactory, identity)
+                    .doOnNext(object -> shadowRead(identity, bucket, key, object.eTag(), object.contentLength()));
         });
     }
 
+    private Mono<StreamedObject> streamFromBackend(GetObjectRequest request, DataBufferFactory bufferFactory, NormalizedIdentity identity) {
+        S3BackendClient client = routedClient(identity, request.bucket(), RequiredCapability.OBJECT_READ);
+
+        // The permit is held until the body has been fully streamed, not just until headers arrive
+        return bulkhead.acquire(identity.getTenantId()).flatMap(permit -> client.getObjectStream(request, bufferFactory)
+                .map(object -> object.withBody(object.body().doFinally(signal -> permit.release())))
+                .doOnError(error -> permit.release())
+                .doOnCancel(permit::release));
+    }
+
     @Override
     public Mono<String> headObject(String bucket, String key, NormalizedIdentity identity) {
-        return Mono.fromCallable(() -> {
-            assertTenantBucketAccess(bucket, identity);
-            HeadObjectRequest request = HeadObjectRequest.builder().bucket(bucket).key(key).build();
-            HeadObjectResponse response = routedClient(identity, bucket, RequiredCapability.OBJECT_READ).headObject(request);
-            return response.eTag();
-        });
+        return headObjectMetadata(bucket, key, identity).map(ObjectMetadata::eTag);
+    }
+
+    @Override
+    public Mono<ObjectMetadata> headObjectMetadata(String bucket, String key, NormalizedIdentity identity) {
+        return cached(ObjectMetadataCache.Kind.HEAD, identity, bucket, key,
+                // Concurrent misses for the same object share one backend HEAD
+                () -> coalescer.head(identity.getTenantId(), bucket, key, () -> backendHead(bucket, key, identity)
+                        .doOnNext(metadata -> shadowRead(identity, bucket, key, metadata.eTag(), metadata.contentLength()))));
+    }
+
+    @Override
+    public Mono<ObjectMetadata> headObjectMetadataUncached(String bucket, String key, NormalizedIdentity identity) {
+        return backendHead(bucket, key, identity);
+    }
+
+    private Mono<ObjectMetadata> backendHead(String bucket, String key, NormalizedIdentity identity) {
+        HeadObjectRequest request = HeadObjectRequest.builder().bucket(bucket).key(key).build();
+        return call(identity, bucket, RequiredCapability.OBJECT_READ,
+                client -> client.headObject(request),
+                client -> client.headObject(request))
+                .map(response -> new ObjectMetadata(
+                        response.eTag(),
+                        response.contentLength() == null ? -1L : response.contentLength(),
+                        response.contentType(),
+                        response.lastModified(),
+                        response.versionId()));
     }
 
     @Override
     public Mono<String> headBucket(String bucket, NormalizedIdentity identity) {
-        return Mono.fromCallable(() -> {
-            assertTenantBucketAccess(bucket, identity);
-            HeadBucketRequest request = HeadBucketRequest.builder().bucket(bucket).build();
-            routedClient(identity, bucket, RequiredCapability.OBJECT_READ).headBucket(request);
-            return bucket;
-        });
+        HeadBucketRequest request = HeadBucketRequest.builder().bucket(bucket).build();
+        return call(identity, bucket, RequiredCapability.OBJECT_READ,
+                client -> client.headBucket(request),
+                client -> client.headBucket(request))
+                .thenReturn(bucket);
     }
     
     @Override
     public Mono<byte[]> getObjectRange(String bucket, String key, long start, long end, NormalizedIdentity identity) {
-        return Mono.fromCallable(() -> {
-            logger.info("Getting object range: {}/{}[{}-{}] for user: {}", 
-                    bucket, key, start, end, identity.getPreferredUsername());
-            
+        if (!hotCache.isEnabled()) {
+            return backendObjectRange(bucket, key, start, end, identity);
+        }
+        return headObjectMetadata(bucket, key, identity)
+                .flatMap(metadata -> Mono.justOrEmpty(
+                        hotCache.getRange(identity.getTenantId(), bucket, key, metadata.eTag(), start, end)))
+                .switchIfEmpty(Mono.defer(() -> backendObjectRange(bucket, key, start, end, identity)));
+    }
+
+    @Override
+    public Mono<StreamedObject> getObjectRangeStream(
+            String bucket,
+            String key,
+            String eTag,
+            long start,
+            long end,
+            DataBufferFactory bufferFactory,
+            NormalizedIdentity identity) {
+        return Mono.defer(() -> {
             assertTenantBucketAccess(bucket, identity);
-            
+            StreamedObject cached = hotCache.getRangeStream(identity.getTenantId(), bucket, key, eTag, start, end, bufferFactory);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+            logger.info("Streaming object range: {}/{}[{}-{}] for user: {}",
+                    bucket, key, start, end, identity.getPreferredUsername());
+
             GetObjectRequest request = GetObjectRequest.builder()
                     .bucket(bucket)
                     .key(key)
                     .range(String.format("bytes=%d-%d", start, end))
+                    .ifMatch(eTag)
                     .build();
-            
-            return routedClient(identity, bucket, RequiredCapability.OBJECT_READ).getObjectAsBytes(request).asByteArray();
+            return streamFromBackend(request, bufferFactory, identity);
         });
     }
+
+    private Mono<byte[]> backendObjectRange(String bucket, String key, long start, long end, NormalizedIdentity identity) {
+        logger.info("Getting object range: {}/{}[{}-{}] for user: {}", 
+                bucket, key, start, end, identity.getPreferredUsername());
+        
+        GetObjectRequest request = GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .range(String.format("bytes=%d-%d", start, end))
+                .build();
+        
+        return call(identity, bucket, RequiredCapability.OBJECT_READ,
+                client -> client.getObjectAsBytes(request),
+                client -> client.getObject(request, AsyncResponseTransformer.toBytes()))
+                .map(bytes -> bytes.asByteArray());
+    }
     
     @Override
     public Mono<String> putObject(String bucket, String key, byte[] content, NormalizedIdentity identity) {
-        return Mono.fromCallable(() -> {
-            logger.info("Putting object: {}/{} ({} bytes) for user: {}", 
-                    bucket, key, content.length, identity.getPreferredUsername());
-            
+        logger.info("Putting object: {}/{} ({} bytes) for user: {}", 
+                bucket, key, content.length, identity.getPreferredUsername());
+        
+        PutObjectRequest request = PutObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .metadata(java.util.Map.of(
+                        "uploaded-by", identity.getPreferredUsername(),
+                        "tenant", identity.getTenantId()
+                ))
+                .build();
+        
+        return Mono.defer(() -> {
+            assertTenantBucketAccess(bucket, identity);
+            return previousSize(identity, bucket, key).flatMap(previousBytes -> quota.enforcePut(
+                    identity.getTenantId(), bucket, content.length, previousBytes,
+                    write(identity, bucket, key, RequiredCapability.OBJECT_WRITE,
+                            client -> client.putObject(request, syncBody(content, content.length)),
+                            client -> client.putObject(request, asyncBody(content, content.length))))
+                    .doFinally(signal -> reconcileIfUnknown(identity, bucket, previousBytes)));
+        })
+                .map(PutObjectResponse::eTag)
+                .flatMap(eTag -> replicator.record(ReplicationEntry.Operation.PUT, identity.getTenantId(), bucket, key).thenReturn(eTag))
+                .doFinally(signal -> invalidateObject(identity, bucket, key));
+    }
+
+    @Override
+    public Mono<String> putObjectStream(String bucket, String key, Flux<DataBuffer> content, long contentLength, NormalizedIdentity identity) {
+        return putObjectStream(bucket, key, content, contentLength, Map.of(), identity);
+    }
+
+    @Override
+    public Mono<String> putObjectStream(
+            String bucket,
+            String key,
+            Flux<DataBuffer> body,
+            long contentLength,
+            Map<ChecksumAlgorithm, String> checksums,
+            NormalizedIdentity identity) {
+        return putObjectStream(bucket, key, body, contentLength, checksums, null, identity);
+    }
+
+    @Override
+    public Mono<String> putObjectStream(
+            String bucket,
+            String key,
+            Flux<DataBuffer> body,
+            long contentLength,
+            Map<ChecksumAlgorithm, String> checksums,
+            ChecksumAlgorithm trailingChecksum,
+            NormalizedIdentity identity) {
+        // A mismatch errors the body before its last buffer, which aborts the backend upload;
+        // single PUTs also carry the checksums, so the backend checks the stored bytes itself
+        Flux<DataBuffer> content = checksums.isEmpty()
+                ? body
+                : checksumVerifier.verify(body, checksums, StreamingChecksumVerifier.Direction.UPLOAD);
+        if (multipartUploader.appliesTo(contentLength)) {
+            // Large or unsized bodies are split into parts and uploaded in parallel
+            return multipartUploader.upload(this, bucket, key, content, contentLength, identity);
+        }
+        if (contentLength < 0) {
+            return Mono.error(new ResponseStatusException(HttpStatus.LENGTH_REQUIRED, "Content-Length is required for streaming uploads"));
+        }
+        return Mono.defer(() -> {
+            logger.info("Streaming object upload: {}/{} ({} bytes) for user: {}",
+                    bucket, key, contentLength, identity.getPreferredUsername());
+
             assertTenantBucketAccess(bucket, identity);
-            
-            PutObjectRequest request = PutObjectRequest.builder()
+
+            Map<String, String> metadata = new HashMap<>(ChecksumTranslator.toMetadata(checksums));
+            metadata.put("uploaded-by", identity.getPreferredUsername());
+            metadata.put("tenant", identity.getTenantId());
+            PutObjectRequest.Builder builder = ChecksumTranslator.applyTo(PutObjectRequest.builder(), checksums);
+            PutObjectRequest request = ChecksumTranslator.applyTrailing(builder, trailingChecksum)
                     .bucket(bucket)
                     .key(key)
-                    .metadata(java.util.Map.of(
-                            "uploaded-by", identity.getPreferredUsername(),
-                            "tenant", identity.getTenantId()
-                    ))
+                    .contentLength(contentLength)
+                    .metadata(metadata)
                     .build();
-            
-                PutObjectResponse response = routedClient(identity, bucket, RequiredCapability.OBJECT_WRITE)
-                    .putObject(request, RequestBody.fromBytes(content));
-            return response.eTag();
+
+            S3BackendClient client = routedClient(identity, bucket, RequiredCapability.OBJECT_WRITE);
+            return previousSize(identity, bucket, key).flatMap(previousBytes -> quota.enforcePut(
+                            identity.getTenantId(), bucket, contentLength, previousBytes,
+                            bulkhead.execute(identity.getTenantId(), client.putObjectStream(request, content, contentLength)))
+                            .doFinally(signal -> reconcileIfUnknown(identity, bucket, previousBytes)))
+                    .map(PutObjectResponse::eTag)
+                    .doOnNext(eTag -> mirrorStoredObject(identity, bucket, key, eTag))
+                    .flatMap(eTag -> replicator.record(ReplicationEntry.Operation.PUT, identity.getTenantId(), bucket, key).thenReturn(eTag))
+                    .doFinally(signal -> invalidateObject(identity, bucket, key));
         });
     }
     
     @Override
     public Mono<Void> deleteObject(String bucket, String key, NormalizedIdentity identity) {
-        return Mono.fromRunnable(() -> {
-            logger.info("Deleting object: {}/{} for user: {}", bucket, key, identity.getPreferredUsername());
-            
+        logger.info("Deleting object: {}/{} for user: {}", bucket, key, identity.getPreferredUsername());
+        
+        DeleteObjectRequest request = DeleteObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .build();
+        
+        return previousSize(identity, bucket, key).flatMap(previousBytes ->
+                write(identity, bucket, key, RequiredCapability.OBJECT_DELETE,
+                        client -> client.deleteObject(request),
+                        client -> client.deleteObject(request))
+                        .doOnSuccess(response -> quota.ledger().recordDelete(identity.getTenantId(), bucket, previousBytes))
+                        .doFinally(signal -> reconcileIfUnknown(identity, bucket, previousBytes))
+                        .flatMap(response -> replicator.record(ReplicationEntry.Operation.DELETE, identity.getTenantId(), bucket, key)
+                                .thenReturn(response)))
+                .doOnSuccess(response -> logger.info("Object deleted successfully: {}/{}", bucket, key))
+                .doFinally(signal -> invalidateObject(identity, bucket, key))
+                .then();
+    }
+
+    @Override
+    public Flux<DeleteResult> deleteObjects(String bucket, Flux<String> keys, NormalizedIdentity identity) {
+        return Flux.defer(() -> {
+            // Fail before reading any keys when the bucket is not the caller's; each batch is checked again
             assertTenantBucketAccess(bucket, identity);
-            
-            DeleteObjectRequest request = DeleteObjectRequest.builder()
-                    .bucket(bucket)
-                    .key(key)
-                    .build();
-            
-            routedClient(identity, bucket, RequiredCapability.OBJECT_DELETE).deleteObject(request);
-            logger.info("Object deleted successfully: {}/{}", bucket, key);
+            logger.info("Bulk delete in bucket {} for user: {}", bucket, identity.getPreferredUsername());
+            return bulkDeleteEngine.delete(keys, batch -> deleteBatch(bucket, batch, identity));
         });
     }
 
+    private Flux<DeleteResult> deleteBatch(String bucket, List<String> keys, NormalizedIdentity identity) {
+        DeleteObjectsRequest request = DeleteObjectsRequest.builder()
+                .bucket(bucket)
+                .delete(Delete.builder()
+                        .objects(keys.stream().map(key -> ObjectIdentifier.builder().key(key).build()).toList())
+                        .quiet(false)
+                        .build())
+                .build();
+        Map<String, Long> previousBytes = new HashMap<>();
+        return writeBatch(identity, bucket, keys, RequiredCapability.OBJECT_DELETE,
+                client -> client.deleteObjects(request),
+                client -> client.deleteObjects(request))
+                .doOnSubscribe(subscription -> keys.forEach(key -> previousBytes.put(key, cachedSize(identity, bucket, key))))
+                .doFinally(signal -> keys.forEach(key -> invalidateObject(identity, bucket, key)))
+                .flatMapMany(response -> {
+                    List<DeleteResult> results = new ArrayList<>(keys.size());
+                    boolean unknownSizes = false;
+                    for (DeletedObject deleted : response.deleted()) {
+                        // S3 reports keys that never existed as deleted too, so uncached keys are left to a reconcile
+                        long bytes = previousBytes.getOrDefault(deleted.key(), UNKNOWN_SIZE);
+                        unknownSizes |= bytes == UNKNOWN_SIZE;
+                        quota.ledger().recordDelete(identity.getTenantId(), bucket, bytes);
+                        results.add(DeleteResult.deleted(deleted.key(), deleted.versionId()));
+                    }
+                    if (unknownSizes) {
+                        reconcileBucketInBackground(identity, bucket);
+                    }
+                    response.errors().forEach(error -> results.add(DeleteResult.failed(error.key(), error.code(), error.message())));
+                    return Flux.fromIterable(response.deleted())
+                            .concatMap(deleted -> replicator.record(ReplicationEntry.Operation.DELETE, identity.getTenantId(), bucket, deleted.key()))
+                            .thenMany(Flux.fromIterable(results));
+                });
+    }
+
     @Override
     public Mono<Void> deleteObjectVersion(String bucket, String key, String versionId, NormalizedIdentity identity) {
-        return Mono.fromRunnable(() -> {
-            assertTenantBucketAccess(bucket, identity);
-            DeleteObjectRequest request = DeleteObjectRequest.builder()
-                    .bucket(bucket)
-                    .key(key)
-                    .versionId(versionId)
-                    .build();
-            routedClient(identity, bucket, RequiredCapability.VERSIONING).deleteObject(request);
-        });
+        DeleteObjectRequest request = DeleteObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .versionId(versionId)
+                .build();
+        // Version ids differ between backends, so the cutover target and the replica
+        // follow whatever the key resolves to once the version is gone
+        return previousSize(identity, bucket, key).flatMap(previousBytes ->
+                call(identity, bucket, RequiredCapability.VERSIONING,
+                        client -> client.deleteObject(request),
+                        client -> client.deleteObject(request))
+                        .then(backendHead(bucket, key, identity)
+                                .map(Optional::of)
+                                .onErrorResume(S3Exception.class, error -> error.statusCode() == 404
+                                        ? Mono.just(Optional.empty())
+                                        : Mono.error(error)))
+                        .flatMap(current -> followCurrentObject(identity, bucket, key, previousBytes, current))
+                        .doFinally(signal -> reconcileIfUnknown(identity, bucket, previousBytes)))
+                .doFinally(signal -> invalidateObject(identity, bucket, key, versionId))
+                .then();
+    }
+
+    /**
+     * Bring the quota ledger, the cutover target and the replica in line with
+     * what a key resolves to after one of its versions was deleted.
+     *
+     * @param previousBytes Size the key resolved to before the delete, as from {@link #previousSize}
+     * @param current What the key resolves to now, empty when no version is left or a delete marker is current
+     */
+    private Mono<Void> followCurrentObject(
+            NormalizedIdentity identity,
+            String bucket,
+            String key,
+            long previousBytes,
+            Optional<ObjectMetadata> current) {
+        String tenantId = identity.getTenantId();
+        if (current.isEmpty()) {
+            quota.ledger().recordDelete(tenantId, bucket, previousBytes);
+            mirrorDelete(identity, bucket, key);
+            return replicator.record(ReplicationEntry.Operation.DELETE, tenantId, bucket, key);
+        }
+        if (previousBytes != UNKNOWN_SIZE) {
+            quota.ledger().recordPut(tenantId, bucket, current.get().contentLength(), previousBytes);
+        }
+        mirrorStoredObject(identity, bucket, key, current.get().eTag());
+        return replicator.record(ReplicationEntry.Operation.PUT, tenantId, bucket, key);
+    }
+
+    /**
+     * Delete the key on the cutover target in the background, like
+     * {@link #mirrorStoredObject} does for a stored object.
+     */
+    private void mirrorDelete(NormalizedIdentity identity, String bucket, String key) {
+        if (cutover.dualWriteTarget(identity.getTenantId()) == null) {
+            return;
+        }
+        DeleteObjectRequest request = DeleteObjectRequest.builder().bucket(bucket).key(key).build();
+        Mono.defer(() -> {
+                    S3BackendClient target = cutoverTarget(identity, routedClient(identity, bucket, RequiredCapability.OBJECT_DELETE));
+                    return target == null
+                            ? Mono.<DeleteObjectResponse>empty()
+                            : bulkhead.execute(identity.getTenantId(),
+                                    target.execute(client -> client.deleteObject(request), client -> client.deleteObject(request)));
+                })
+                .subscribe(
+                        response -> { },
+                        error -> {
+                            if (!isPendingBackfill(error)) {
+                                cutover.recordWriteDivergence(identity.getTenantId(), bucket, key, "mirror failed: " + error.getMessage());
+                            }
+                        });
     }
 
     @Override
     public Mono<byte[]> getObjectVersion(String bucket, String key, String versionId, NormalizedIdentity identity) {
-        return Mono.fromCallable(() -> {
-            assertTenantBucketAccess(bucket, identity);
-            GetObjectRequest request = GetObjectRequest.builder()
-                    .bucket(bucket)
-                    .key(key)
-                    .versionId(versionId)
-                    .build();
-            return routedClient(identity, bucket, RequiredCapability.VERSIONING).getObjectAsBytes(request).asByteArray();
-        });
+        GetObjectRequest request = GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .versionId(versionId)
+                .build();
+        return call(identity, bucket, RequiredCapability.VERSIONING,
+                client -> client.getObjectAsBytes(request),
+                client -> client.getObject(request, AsyncResponseTransformer.toBytes()))
+                .map(bytes -> bytes.asByteArray());
     }
 
     @Override
     public Mono<String> listObjectVersions(String bucket, NormalizedIdentity identity) {
-        return Mono.fromCallable(() -> {
-            assertTenantBucketAccess(bucket, identity);
-            ListObjectVersionsRequest request = ListObjectVersionsRequest.builder().bucket(bucket).build();
-                ListObjectVersionsResponse response = routedClient(identity, bucket, RequiredCapability.VERSIONING)
-                    .listObjectVersions(request);
-            return response.versions().stream()
-                    .map(v -> v.key() + ":" + v.versionId())
-                    .collect(Collectors.joining("\n"));
-        });
+        ListObjectVersionsRequest request = ListObjectVersionsRequest.builder().bucket(bucket).build();
+        return call(identity, bucket, RequiredCapability.VERSIONING,
+                client -> client.listObjectVersions(request),
+                client -> client.listObjectVersions(request))
+                .map(response -> response.versions().stream()
+                        .map(v -> v.key() + ":" + v.versionId())
+                        .collect(Collectors.joining("\n")));
     }
     
     @Override
     public Mono<String> initiateMultipartUpload(String bucket, String key, NormalizedIdentity identity) {
-        return Mono.fromCallable(() -> {
-            logger.info("Initiating multipart upload: {}/{} for user: {}", 
-                    bucket, key, identity.getPreferredUsername());
-            
-            assertTenantBucketAccess(bucket, identity);
-            
-            CreateMultipartUploadRequest request = CreateMultipartUploadRequest.builder()
-                    .bucket(bucket)
-                    .key(key)
-                    .metadata(java.util.Map.of(
-                            "uploaded-by", identity.getPreferredUsername(),
-                            "tenant", identity.getTenantId()
-                    ))
-                    .build();
-            
-                CreateMultipartUploadResponse response = routedClient(identity, bucket, RequiredCapability.MULTIPART_UPLOAD)
-                    .createMultipartUpload(request);
-            logger.info("Multipart upload initiated: uploadId={}", response.uploadId());
-            return response.uploadId();
-        });
+        logger.info("Initiating multipart upload: {}/{} for user: {}", 
+                bucket, key, identity.getPreferredUsername());
+        
+        CreateMultipartUploadRequest request = CreateMultipartUploadRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .metadata(java.util.Map.of(
+                        "uploaded-by", identity.getPreferredUsername(),
+                        "tenant", identity.getTenantId()
+                ))
+                .build();
+        
+        return call(identity, bucket, RequiredCapability.MULTIPART_UPLOAD,
+                client -> client.createMultipartUpload(request),
+                client -> client.createMultipartUpload(request))
+                .map(response -> {
+                    logger.info("Multipart upload initiated: uploadId={}", response.uploadId());
+                    return response.uploadId();
+                });
     }
 
     @Override
     public Mono<String> uploadPart(String bucket, String key, String uploadId, int partNumber, byte[] content, NormalizedIdentity identity) {
-        return Mono.fromCallable(() -> {
+        return uploadPart(bucket, key, uploadId, partNumber, content, content.length, identity);
+    }
+
+    @Override
+    public Mono<String> uploadPart(
+            String bucket,
+            String key,
+            String uploadId,
+            int partNumber,
+            byte[] content,
+            int length,
+            NormalizedIdentity identity) {
+        UploadPartRequest request = UploadPartRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .uploadId(uploadId)
+                .partNumber(partNumber)
+                .build();
+        return Mono.defer(() -> {
             assertTenantBucketAccess(bucket, identity);
-            UploadPartRequest request = UploadPartRequest.builder()
-                    .bucket(bucket)
-                    .key(key)
-                    .uploadId(uploadId)
-                    .partNumber(partNumber)
-                    .build();
-                UploadPartResponse response = routedClient(identity, bucket, RequiredCapability.MULTIPART_UPLOAD)
-                    .uploadPart(request, RequestBody.fromBytes(content));
-            return response.eTag();
-        });
+            return quota.enforcePart(identity.getTenantId(), bucket, uploadId, length,
+                    call(identity, bucket, RequiredCapability.MULTIPART_UPLOAD,
+                            client -> client.uploadPart(request, syncBody(content, length)),
+                            client -> client.uploadPart(request, asyncBody(content, length))));
+        })
+                .map(UploadPartResponse::eTag);
+    }
+
+    // The SDK's fromBytes bodies copy the array; these read the first length bytes in place
+    private static RequestBody syncBody(byte[] content, int length) {
+        return RequestBody.fromContentProvider(() -> new ByteArrayInputStream(content, 0, length), length, "application/octet-stream");
+    }
+
+    private static AsyncRequestBody asyncBody(byte[] content, int length) {
+        return AsyncRequestBody.fromByteBufferUnsafe(ByteBuffer.wrap(content, 0, length));
     }
 
     @Override
-    public Mono<String> completeMultipartUpload(String bucket, String key, String uploadId, List<CompletedPart> parts, NormalizedIdentity identity) {
-        return Mono.fromCallable(() -> {
+    public Mono<String> uploadPartStream(
+            String bucket,
+            String key,
+            String uploadId,
+            int partNumber,
+            Flux<DataBuffer> content,
+            long contentLength,
+            Map<ChecksumAlgorithm, String> checksums,
+            ChecksumAlgorithm trailingChecksum,
+            NormalizedIdentity identity) {
+        if (contentLength < 0) {
+            return Mono.error(new ResponseStatusException(HttpStatus.LENGTH_REQUIRED, "Content-Length is required for streaming part uploads"));
+        }
+        UploadPartRequest.Builder builder = ChecksumTranslator.applyTo(UploadPartRequest.builder(), checksums);
+        UploadPartRequest request = ChecksumTranslator.applyTrailing(builder, trailingChecksum)
+                .bucket(bucket)
+                .key(key)
+                .uploadId(uploadId)
+                .partNumber(partNumber)
+                .contentLength(contentLength)
+                .build();
+        return Mono.defer(() -> {
             assertTenantBucketAccess(bucket, identity);
-            CompletedMultipartUpload completed = CompletedMultipartUpload.builder().parts(parts).build();
-            CompleteMultipartUploadRequest request = CompleteMultipartUploadRequest.builder()
-                    .bucket(bucket)
-                    .key(key)
-                    .uploadId(uploadId)
-                    .multipartUpload(completed)
-                    .build();
-                CompleteMultipartUploadResponse response = routedClient(identity, bucket, RequiredCapability.MULTIPART_UPLOAD)
-                    .completeMultipartUpload(request);
-            return response.eTag();
-        });
+            S3BackendClient client = routedClient(identity, bucket, RequiredCapability.MULTIPART_UPLOAD);
+            return quota.enforcePart(identity.getTenantId(), bucket, uploadId, contentLength,
+                    bulkhead.execute(identity.getTenantId(), client.uploadPartStream(request, content, contentLength)));
+        })
+                .map(UploadPartResponse::eTag);
+    }
+
+    @Override
+    public Mono<String> completeMultipartUpload(String bucket, String key, String uploadId, List<CompletedPart> parts, NormalizedIdentity identity) {
+        CompletedMultipartUpload completed = CompletedMultipartUpload.builder().parts(parts).build();
+        CompleteMultipartUploadRequest request = CompleteMultipartUploadRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .uploadId(uploadId)
+                .multipartUpload(completed)
+                .build();
+        return previousSize(identity, bucket, key).flatMap(previousBytes ->
+                call(identity, bucket, RequiredCapability.MULTIPART_UPLOAD,
+                        client -> client.completeMultipartUpload(request),
+                        client -> client.completeMultipartUpload(request))
+                        .doOnSuccess(response -> quota.ledger().recordMultipartComplete(identity.getTenantId(), bucket, uploadId, previousBytes))
+                        .doFinally(signal -> reconcileIfUnknown(identity, bucket, previousBytes)))
+                .map(CompleteMultipartUploadResponse::eTag)
+                .doOnNext(eTag -> mirrorStoredObject(identity, bucket, key, eTag))
+                .flatMap(eTag -> replicator.record(ReplicationEntry.Operation.PUT, identity.getTenantId(), bucket, key).thenReturn(eTag))
+                .doFinally(signal -> invalidateObject(identity, bucket, key));
     }
 
     @Override
     public Mono<Void> abortMultipartUpload(String bucket, String key, String uploadId, NormalizedIdentity identity) {
-        return Mono.fromRunnable(() -> {
-            assertTenantBucketAccess(bucket, identity);
-            AbortMultipartUploadRequest request = AbortMultipartUploadRequest.builder()
-                    .bucket(bucket)
-                    .key(key)
-                    .uploadId(uploadId)
-                    .build();
-            routedClient(identity, bucket, RequiredCapability.MULTIPART_UPLOAD).abortMultipartUpload(request);
-        });
+        AbortMultipartUploadRequest request = AbortMultipartUploadRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .uploadId(uploadId)
+                .build();
+        return call(identity, bucket, RequiredCapability.MULTIPART_UPLOAD,
+                client -> client.abortMultipartUpload(request),
+                client -> client.abortMultipartUpload(request))
+                .doOnSuccess(response -> quota.ledger().recordMultipartAbort(identity.getTenantId(), bucket, uploadId))
+                .then();
     }
 
     @Override
     public Mono<String> listMultipartUploads(String bucket, NormalizedIdentity identity) {
-        return Mono.fromCallable(() -> {
-            assertTenantBucketAccess(bucket, identity);
-            ListMultipartUploadsRequest request = ListMultipartUploadsRequest.builder().bucket(bucket).build();
-                ListMultipartUploadsResponse response = routedClient(identity, bucket, RequiredCapability.MULTIPART_UPLOAD)
-                    .listMultipartUploads(request);
-            return response.uploads().stream()
-                    .map(upload -> upload.key() + ":" + upload.uploadId())
-                    .collect(Collectors.joining("\n"));
-        });
+        ListMultipartUploadsRequest request = ListMultipartUploadsRequest.builder().bucket(bucket).build();
+        return call(identity, bucket, RequiredCapability.MULTIPART_UPLOAD,
+                client -> client.listMultipartUploads(request),
+                client -> client.listMultipartUploads(request))
+                .map(response -> response.uploads().stream()
+                        .map(upload -> upload.key() + ":" + upload.uploadId())
+                        .collect(Collectors.joining("\n")));
     }
 
     @Override
     public Mono<String> listParts(String bucket, String key, String uploadId, NormalizedIdentity identity) {
-        return Mono.fromCallable(() -> {
-            assertTenantBucketAccess(bucket, identity);
-            ListPartsRequest request = ListPartsRequest.builder()
-                    .bucket(bucket)
-                    .key(key)
-                    .uploadId(uploadId)
-                    .build();
-                ListPartsResponse response = routedClient(identity, bucket, RequiredCapability.MULTIPART_UPLOAD)
-                    .listParts(request);
-            return response.parts().stream()
-                    .map(part -> part.partNumber() + ":" + part.eTag())
-                    .collect(Collectors.joining("\n"));
-        });
+        ListPartsRequest request = ListPartsRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .uploadId(uploadId)
+                .build();
+        return call(identity, bucket, RequiredCapability.MULTIPART_UPLOAD,
+                client -> client.listParts(request),
+                client -> client.listParts(request))
+                .map(response -> response.parts().stream()
+                        .map(part -> part.partNumber() + ":" + part.eTag())
+                        .collect(Collectors.joining("\n")));
     }
 
     @Override
     public Mono<String> getBucketVersioning(String bucket, NormalizedIdentity identity) {
-        return Mono.fromCallable(() -> {
-            assertTenantBucketAccess(bucket, identity);
-            GetBucketVersioningRequest request = GetBucketVersioningRequest.builder().bucket(bucket).build();
-            GetBucketVersioningResponse response = routedClient(identity, bucket, RequiredCapability.VERSIONING)
-                    .getBucketVersioning(request);
-            return response.statusAsString();
-        });
+        GetBucketVersioningRequest request = GetBucketVersioningRequest.builder().bucket(bucket).build();
+        return cached(ObjectMetadataCache.Kind.BUCKET_VERSIONING, identity, bucket, null,
+                () -> call(identity, bucket, RequiredCapability.VERSIONING,
+                        client -> client.getBucketVersioning(request),
+                        client -> client.getBucketVersioning(request))
+                        .map(GetBucketVersioningResponse::statusAsString));
     }
 
     @Override
     public Mono<String> putBucketVersioning(String bucket, String status, NormalizedIdentity identity) {
-        return Mono.fromCallable(() -> {
-            assertTenantBucketAccess(bucket, identity);
-            BucketVersioningStatus targetStatus = "Enabled".equalsIgnoreCase(status)
-                    ? BucketVersioningStatus.ENABLED
-                    : BucketVersioningStatus.SUSPENDED;
-            VersioningConfiguration versioning = VersioningConfiguration.builder().status(targetStatus).build();
-            PutBucketVersioningRequest request = PutBucketVersioningRequest.builder()
-                    .bucket(bucket)
-                    .versioningConfiguration(versioning)
-                    .build();
-            routedClient(identity, bucket, RequiredCapability.VERSIONING).putBucketVersioning(request);
-            return targetStatus.toString();
-        });
+        BucketVersioningStatus targetStatus = "Enabled".equalsIgnoreCase(status)
+                ? BucketVersioningStatus.ENABLED
+                : BucketVersioningStatus.SUSPENDED;
+        VersioningConfiguration versioning = VersioningConfiguration.builder().status(targetStatus).build();
+        PutBucketVersioningRequest request = PutBucketVersioningRequest.builder()
+                .bucket(bucket)
+                .versioningConfiguration(versioning)
+                .build();
+        return write(identity, bucket, null, RequiredCapability.VERSIONING,
+                client -> client.putBucketVersioning(request),
+                client -> client.putBucketVersioning(request))
+                .doFinally(signal -> metadataCache.invalidateBucket(identity.getTenantId(), bucket))
+                .thenReturn(targetStatus.toString());
     }
 
     @Override
     public Mono<String> putObjectTagging(String bucket, String key, Map<String, String> tags, NormalizedIdentity identity) {
-        return Mono.fromCallable(() -> {
-            assertTenantBucketAccess(bucket, identity);
-            List<Tag> tagSet = tags == null ? List.of() : tags.entrySet().stream()
-                    .map(entry -> Tag.builder().key(entry.getKey()).value(entry.getValue()).build())
-                    .toList();
-            PutObjectTaggingRequest request = PutObjectTaggingRequest.builder()
-                    .bucket(bucket)
-                    .key(key)
-                    .tagging(Tagging.builder().tagSet(tagSet).build())
-                    .build();
-            routedClient(identity, bucket, RequiredCapability.OBJECT_WRITE).putObjectTagging(request);
-            return "OK";
-        });
+        List<Tag> tagSet = tags == null ? List.of() : tags.entrySet().stream()
+                .map(entry -> Tag.builder().key(entry.getKey()).value(entry.getValue()).build())
+                .toList();
+        PutObjectTaggingRequest request = PutObjectTaggingRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .tagging(Tagging.builder().tagSet(tagSet).build())
+                .build();
+        return write(identity, bucket, key, RequiredCapability.OBJECT_WRITE,
+                client -> client.putObjectTagging(request),
+                client -> client.putObjectTagging(request))
+                .flatMap(response -> replicator.record(ReplicationEntry.Operation.PUT_TAGGING,
+                        identity.getTenantId(), bucket, key, tags == null ? Map.of() : tags))
+                .doFinally(signal -> invalidateObject(identity, bucket, key))
+                .thenReturn("OK");
     }
 
     @Override
     public Mono<Map<String, String>> getObjectTagging(String bucket, String key, NormalizedIdentity identity) {
-        return Mono.fromCallable(() -> {
-            assertTenantBucketAccess(bucket, identity);
-            GetObjectTaggingRequest request = GetObjectTaggingRequest.builder()
-                    .bucket(bucket)
-                    .key(key)
-                    .build();
-            GetObjectTaggingResponse response = routedClient(identity, bucket, RequiredCapability.OBJECT_READ)
-                    .getObjectTagging(request);
-            return response.tagSet().stream().collect(Collectors.toMap(Tag::key, Tag::value));
-        });
+        GetObjectTaggingRequest request = GetObjectTaggingRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .build();
+        return cached(ObjectMetadataCache.Kind.TAGGING, identity, bucket, key,
+                () -> call(identity, bucket, RequiredCapability.OBJECT_READ,
+                        client -> client.getObjectTagging(request),
+                        client -> client.getObjectTagging(request))
+                        .map(response -> response.tagSet().stream()
+                                .collect(Collectors.toUnmodifiableMap(Tag::key, Tag::value))));
     }
 
     @Override
     public Mono<Void> deleteObjectTagging(String bucket, String key, NormalizedIdentity identity) {
-        return Mono.fromRunnable(() -> {
-            assertTenantBucketAccess(bucket, identity);
-            DeleteObjectTaggingRequest request = DeleteObjectTaggingRequest.builder()
-                    .bucket(bucket)
-                    .key(key)
-                    .build();
-            routedClient(identity, bucket, RequiredCapability.OBJECT_DELETE).deleteObjectTagging(request);
-        });
+        DeleteObjectTaggingRequest request = DeleteObjectTaggingRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .build();
+        return write(identity, bucket, key, RequiredCapability.OBJECT_DELETE,
+                client -> client.deleteObjectTagging(request),
+                client -> client.deleteObjectTagging(request))
+                .flatMap(response -> replicator.record(ReplicationEntry.Operation.DELETE_TAGGING, identity.getTenantId(), bucket, key))
+                .doFinally(signal -> invalidateObject(identity, bucket, key))
+                .then();
     }
 
     @Override
     public Mono<String> getBucketPolicy(String bucket, NormalizedIdentity identity) {
-        return Mono.fromCallable(() -> {
-            assertTenantBucketAccess(bucket, identity);
-            GetBucketPolicyRequest request = GetBucketPolicyRequest.builder().bucket(bucket).build();
-            GetBucketPolicyResponse response = routedClient(identity, bucket, RequiredCapability.OBJECT_READ)
-                    .getBucketPolicy(request);
-            return response.policy();
-        });
+        GetBucketPolicyRequest request = GetBucketPolicyRequest.builder().bucket(bucket).build();
+        return call(identity, bucket, RequiredCapability.OBJECT_READ,
+                client -> client.getBucketPolicy(request),
+                client -> client.getBucketPolicy(request))
+                .map(GetBucketPolicyResponse::policy);
     }
 
     @Override
     public Mono<String> putBucketPolicy(String bucket, String policyJson, NormalizedIdentity identity) {
-        return Mono.fromCallable(() -> {
-            assertTenantBucketAccess(bucket, identity);
-            PutBucketPolicyRequest request = PutBucketPolicyRequest.builder()
-                    .bucket(bucket)
-                    .policy(policyJson)
-                    .build();
-            routedClient(identity, bucket, RequiredCapability.OBJECT_WRITE).putBucketPolicy(request);
-            return "OK";
-        });
+        PutBucketPolicyRequest request = PutBucketPolicyRequest.builder()
+                .bucket(bucket)
+                .policy(policyJson)
+                .build();
+        return write(identity, bucket, null, RequiredCapability.OBJECT_WRITE,
+                client -> client.putBucketPolicy(request),
+                client -> client.putBucketPolicy(request))
+                .thenReturn("OK");
     }
 
     @Override
     public Mono<Void> deleteBucketPolicy(String bucket, NormalizedIdentity identity) {
-        return Mono.fromRunnable(() -> {
-            assertTenantBucketAccess(bucket, identity);
-            DeleteBucketPolicyRequest request = DeleteBucketPolicyRequest.builder().bucket(bucket).build();
-            routedClient(identity, bucket, RequiredCapability.OBJECT_DELETE).deleteBucketPolicy(request);
-        });
+        DeleteBucketPolicyRequest request = DeleteBucketPolicyRequest.builder().bucket(bucket).build();
+        return write(identity, bucket, null, RequiredCapability.OBJECT_DELETE,
+                client -> client.deleteBucketPolicy(request),
+                client -> client.deleteBucketPolicy(request))
+                .then();
     }
 
     @Override
     public Mono<String> getObjectAcl(String bucket, String key, NormalizedIdentity identity) {
-        return Mono.fromCallable(() -> {
-            assertTenantBucketAccess(bucket, identity);
-            GetObjectAclRequest request = GetObjectAclRequest.builder().bucket(bucket).key(key).build();
-            GetObjectAclResponse response = routedClient(identity, bucket, RequiredCapability.OBJECT_READ)
-                    .getObjectAcl(request);
-            return response.grants().stream()
-                    .map(grant -> grant.permissionAsString())
-                    .collect(Collectors.joining(","));
-        });
+        GetObjectAclRequest request = GetObjectAclRequest.builder().bucket(bucket).key(key).build();
+        return cached(ObjectMetadataCache.Kind.ACL, identity, bucket, key,
+                () -> call(identity, bucket, RequiredCapability.OBJECT_READ,
+                        client -> client.getObjectAcl(request),
+                        client -> client.getObjectAcl(request))
+                        .map(response -> response.grants().stream()
+                                .map(grant -> grant.permissionAsString())
+                                .collect(Collectors.joining(","))));
     }
 
     @Override
     public Mono<String> putObjectAcl(String bucket, String key, String acl, NormalizedIdentity identity) {
-        return Mono.fromCallable(() -> {
-            assertTenantBucketAccess(bucket, identity);
+        return Mono.defer(() -> {
             ObjectCannedACL cannedAcl = ObjectCannedACL.fromValue(acl.toLowerCase(Locale.ROOT));
             PutObjectAclRequest request = PutObjectAclRequest.builder()
                     .bucket(bucket)
                     .key(key)
                     .acl(cannedAcl)
                     .build();
-            routedClient(identity, bucket, RequiredCapability.OBJECT_WRITE).putObjectAcl(request);
-            return cannedAcl.toString();
+            return write(identity, bucket, key, RequiredCapability.OBJECT_WRITE,
+                    client -> client.putObjectAcl(request),
+                    client -> client.putObjectAcl(request))
+                    .doFinally(signal -> invalidateObject(identity, bucket, key))
+                    .thenReturn(cannedAcl.toString());
         });
     }
 
     @Override
     public Mono<String> getBucketAcl(String bucket, NormalizedIdentity identity) {
-        return Mono.fromCallable(() -> {
-            assertTenantBucketAccess(bucket, identity);
-            GetBucketAclRequest request = GetBucketAclRequest.builder().bucket(bucket).build();
-            GetBucketAclResponse response = routedClient(identity, bucket, RequiredCapability.OBJECT_READ)
-                    .getBucketAcl(request);
-            return response.grants().stream()
-                    .map(grant -> grant.permissionAsString())
-                    .collect(Collectors.joining(","));
-        });
+        GetBucketAclRequest request = GetBucketAclRequest.builder().bucket(bucket).build();
+        return call(identity, bucket, RequiredCapability.OBJECT_READ,
+                client -> client.getBucketAcl(request),
+                client -> client.getBucketAcl(request))
+                .map(response -> response.grants().stream()
+                        .map(grant -> grant.permissionAsString())
+                        .collect(Collectors.joining(",")));
     }
 
     @Override
     public Mono<String> putBucketAcl(String bucket, String acl, NormalizedIdentity identity) {
-        return Mono.fromCallable(() -> {
-            assertTenantBucketAccess(bucket, identity);
+        return Mono.defer(() -> {
             BucketCannedACL cannedAcl = BucketCannedACL.fromValue(acl.toLowerCase(Locale.ROOT));
             PutBucketAclRequest request = PutBucketAclRequest.builder()
                     .bucket(bucket)
                     .acl(cannedAcl)
                     .build();
-            routedClient(identity, bucket, RequiredCapability.OBJECT_WRITE).putBucketAcl(request);
-            return cannedAcl.toString();
+            return write(identity, bucket, null, RequiredCapability.OBJECT_WRITE,
+                    client -> client.putBucketAcl(request),
+                    client -> client.putBucketAcl(request))
+                    .thenReturn(cannedAcl.toString());
         });
     }
 
@@ -642,29 +1776,136 @@ public class S3ProxyServiceImpl implements S3ProxyService {
         String destinationKey,
         NormalizedIdentity identity
     ) {
-        return Mono.fromCallable(() -> {
+        return Mono.defer(() -> {
             assertTenantBucketAccess(sourceBucket, identity);
             assertTenantBucketAccess(destinationBucket, identity);
-            CopyObjectRequest request = CopyObjectRequest.builder()
-                    .copySource(sourceBucket + "/" + sourceKey)
-                    .destinationBucket(destinationBucket)
-                    .destinationKey(destinationKey)
-                    .build();
-            CopyObjectResponse response = routedClient(identity, destinationBucket, RequiredCapability.OBJECT_WRITE)
-                    .copyObject(request);
-            return response.copyObjectResult().eTag();
-        });
+
+            S3BackendClient source = routedClient(identity, sourceBucket, RequiredCapability.OBJECT_READ);
+            S3BackendClient destination = routedClient(identity, destinationBucket, RequiredCapability.OBJECT_WRITE);
+            if (source != destination) {
+                return copyAcrossBackends(sourceBucket, sourceKey, destinationBucket, destinationKey, identity);
+            }
+
+            return headObjectMetadata(sourceBucket, sourceKey, identity).flatMap(metadata -> {
+                if (!copyEngine.requiresMultipart(metadata.contentLength())) {
+                    return previousSize(identity, destinationBucket, destinationKey).flatMap(previousBytes -> quota.enforcePut(
+                            identity.getTenantId(), destinationBucket, metadata.contentLength(), previousBytes,
+                            copyInPlace(sourceBucket, sourceKey, destinationBucket, destinationKey, identity))
+                            .doFinally(signal -> reconcileIfUnknown(identity, destinationBucket, previousBytes)));
+                }
+                // Part copies must land on the backend that holds the source
+                if (routedClient(identity, destinationBucket, RequiredCapability.MULTIPART_UPLOAD) != source) {
+                    return copyAcrossBackends(sourceBucket, sourceKey, destinationBucket, destinationKey, identity);
+                }
+                return copyEngine.multipartCopy(metadata.contentLength(),
+                        multipartCopyTarget(sourceBucket, sourceKey, destinationBucket, destinationKey, metadata, identity));
+            });
+        })
+                .doFinally(signal -> invalidateObject(identity, destinationBucket, destinationKey));
+    }
+
+    private Mono<String> copyInPlace(
+            String sourceBucket,
+            String sourceKey,
+            String destinationBucket,
+            String destinationKey,
+            NormalizedIdentity identity) {
+        CopyObjectRequest request = CopyObjectRequest.builder()
+                .copySource(sourceBucket + "/" + sourceKey)
+                .destinationBucket(destinationBucket)
+                .destinationKey(destinationKey)
+                .build();
+        return call(identity, destinationBucket, RequiredCapability.OBJECT_WRITE,
+                client -> client.copyObject(request),
+                client -> client.copyObject(request))
+                .map(response -> response.copyObjectResult().eTag())
+                .doOnNext(eTag -> mirrorStoredObject(identity, destinationBucket, destinationKey, eTag))
+                .flatMap(eTag -> replicator.record(ReplicationEntry.Operation.PUT, identity.getTenantId(), destinationBucket, destinationKey).thenReturn(eTag));
+    }
+
+    /**
+     * Copy between two backends by piping a streamed GET into a streamed PUT.
+     * Backpressure from the upload paces the download, so only a few buffers
+     * (or, for large objects, the multipart parts in flight) are held at once.
+     */
+    private Mono<String> copyAcrossBackends(
+            String sourceBucket,
+            String sourceKey,
+            String destinationBucket,
+            String destinationKey,
+            NormalizedIdentity identity) {
+        logger.info("Streaming copy across backends: {}/{} -> {}/{}", sourceBucket, sourceKey, destinationBucket, destinationKey);
+        return streamObject(sourceBucket, sourceKey, DefaultDataBufferFactory.sharedInstance, identity)
+                .flatMap(object -> putObjectStream(destinationBucket, destinationKey, object.body(), object.contentLength(), identity));
+    }
+
+    private CopyEngine.MultipartCopyTarget multipartCopyTarget(
+            String sourceBucket,
+            String sourceKey,
+            String destinationBucket,
+            String destinationKey,
+            ObjectMetadata sourceMetadata,
+            NormalizedIdentity identity) {
+        return new CopyEngine.MultipartCopyTarget() {
+
+            @Override
+            public Mono<String> initiate() {
+                CreateMultipartUploadRequest request = CreateMultipartUploadRequest.builder()
+                        .bucket(destinationBucket)
+                        .key(destinationKey)
+                        .contentType(sourceMetadata.contentType())
+                        .metadata(java.util.Map.of(
+                                "uploaded-by", identity.getPreferredUsername(),
+                                "tenant", identity.getTenantId()
+                        ))
+                        .build();
+                return call(identity, destinationBucket, RequiredCapability.MULTIPART_UPLOAD,
+                        client -> client.createMultipartUpload(request),
+                        client -> client.createMultipartUpload(request))
+                        .map(CreateMultipartUploadResponse::uploadId);
+            }
+
+            @Override
+            public Mono<String> copyPart(String uploadId, int partNumber, long start, long end) {
+                // If-Match keeps every part on the source version that was measured
+                UploadPartCopyRequest request = UploadPartCopyRequest.builder()
+                        .sourceBucket(sourceBucket)
+                        .sourceKey(sourceKey)
+                        .destinationBucket(destinationBucket)
+                        .destinationKey(destinationKey)
+                        .uploadId(uploadId)
+                        .partNumber(partNumber)
+                        .copySourceRange(String.format("bytes=%d-%d", start, end))
+                        .copySourceIfMatch(sourceMetadata.eTag())
+                        .build();
+                return quota.enforcePart(identity.getTenantId(), destinationBucket, uploadId, end - start + 1,
+                        call(identity, destinationBucket, RequiredCapability.MULTIPART_UPLOAD,
+                                client -> client.uploadPartCopy(request),
+                                client -> client.uploadPartCopy(request)))
+                        .map(response -> response.copyPartResult().eTag());
+            }
+
+            @Override
+            public Mono<String> complete(String uploadId, List<CompletedPart> parts) {
+                return completeMultipartUpload(destinationBucket, destinationKey, uploadId, parts, identity);
+            }
+
+            @Override
+            public Mono<Void> abort(String uploadId) {
+                return abortMultipartUpload(destinationBucket, destinationKey, uploadId, identity);
+            }
+        };
     }
 
     @Override
     public Mono<String> getBucketLocation(String bucket, NormalizedIdentity identity) {
-        return Mono.fromCallable(() -> {
-            assertTenantBucketAccess(bucket, identity);
-            GetBucketLocationRequest request = GetBucketLocationRequest.builder().bucket(bucket).build();
-            GetBucketLocationResponse response = routedClient(identity, bucket, RequiredCapability.OBJECT_READ)
-                    .getBucketLocation(request);
-            String location = response.locationConstraintAsString();
-            return location == null || location.isBlank() ? "us-east-1" : location;
-        });
+        GetBucketLocationRequest request = GetBucketLocationRequest.builder().bucket(bucket).build();
+        return call(identity, bucket, RequiredCapability.OBJECT_READ,
+                client -> client.getBucketLocation(request),
+                client -> client.getBucketLocation(request))
+                .map(response -> {
+                    String location = response.locationConstraintAsString();
+                    return location == null || location.isBlank() ? "us-east-1" : location;
+                });
     }
 }
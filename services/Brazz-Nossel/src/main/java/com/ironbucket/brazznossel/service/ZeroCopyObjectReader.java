@@ -0,0 +1,275 @@
+package com.ironbucket.brazznossel.service;
+
+import com.ironbucket.brazznossel.checksum.ChecksumTranslator;
+import com.ironbucket.brazznossel.model.StreamedObject;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelOption;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import io.netty.handler.timeout.WriteTimeoutHandler;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.http.SdkHttpMethod;
+import software.amazon.awssdk.http.SdkHttpRequest;
+import software.amazon.awssdk.http.auth.aws.signer.AwsV4HttpSigner;
+import software.amazon.awssdk.identity.spi.AwsCredentialsIdentity;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.NoSuchBucketException;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.utils.http.SdkHttpUtils;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.StringReader;
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ZeroCopyObjectReader - GETs object bodies without copying them onto the heap.
+ *
+ * The AWS SDK hands a GET body over as heap ByteBuffers copied out of its
+ * Netty buffers, and the server then copies them back into direct memory to
+ * write the response. This reader signs the GET with SigV4 itself and sends it
+ * through a reactor-netty client instead, so the pooled direct buffers read
+ * from the backend are wrapped as they are and written straight to the client
+ * connection, which releases them once they are flushed. Bytes are copied only
+ * when the caller's buffer factory is not Netty based.
+ *
+ * Only plain, ranged and conditional GETs are supported; anything else keeps
+ * going through the SDK. Error responses are mapped to the same S3 exceptions
+ * the SDK raises, so callers cannot tell the two paths apart. Timeouts match
+ * the SDK's Netty client defaults: 2 seconds to connect, and 30 seconds for
+ * the response to start and between any two reads or writes after that, so a
+ * backend that stalls mid-body fails the GET instead of holding the
+ * connection and the client's response open.
+ */
+final class ZeroCopyObjectReader implements AutoCloseable {
+
+    private static final GetObjectRequest SUPPORTED_SHAPE = GetObjectRequest.builder().build();
+    private static final int CONNECT_TIMEOUT_MS = 2_000;
+    private static final int READ_TIMEOUT_MS = 30_000;
+    private static final int WRITE_TIMEOUT_MS = 30_000;
+    private static final XMLInputFactory XML_INPUT = xmlInputFactory();
+    private static final String METADATA_PREFIX = "x-amz-meta-";
+
+    private final URI endpoint;
+    private final String region;
+    private final AwsCredentialsIdentity credentials;
+    private final AwsV4HttpSigner signer = AwsV4HttpSigner.create();
+    private final ConnectionProvider connections;
+    private final HttpClient http;
+
+    ZeroCopyObjectReader(
+            String endpoint,
+            String accessKey,
+            String secretKey,
+            String region,
+            int maxConnections,
+            int maxPendingConnectionAcquires) {
+        this.endpoint = URI.create(endpoint);
+        this.region = region;
+        this.credentials = AwsCredentialsIdentity.create(accessKey, secretKey);
+        this.connections = ConnectionProvider.builder("s3-zero-copy-get")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(maxPendingConnectionAcquires)
+                .pendingAcquireTimeout(Duration.ofSeconds(10))
+                .build();
+        this.http = HttpClient.create(connections)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, CONNECT_TIMEOUT_MS)
+                .responseTimeout(Duration.ofMillis(READ_TIMEOUT_MS))
+                .doOnConnected(connection -> connection
+                        .addHandlerLast(new ReadTimeoutHandler(READ_TIMEOUT_MS, TimeUnit.MILLISECONDS))
+                        .addHandlerLast(new WriteTimeoutHandler(WRITE_TIMEOUT_MS, TimeUnit.MILLISECONDS)));
+    }
+
+    /**
+     * Whether the request only uses options this reader sends.
+     */
+    static boolean supports(GetObjectRequest request) {
+        return request.toBuilder()
+                .bucket(null)
+                .key(null)
+                .versionId(null)
+                .range(null)
+                .ifMatch(null)
+                .ifNoneMatch(null)
+                .build()
+                .equals(SUPPORTED_SHAPE);
+    }
+
+    Mono<StreamedObject> getObjectStream(GetObjectRequest request, DataBufferFactory bufferFactory) {
+        return Mono.defer(() -> {
+            SdkHttpRequest signed = sign(request);
+            return http
+                    .headers(headers -> signed.forEachHeader((name, values) -> values.forEach(value -> headers.add(name, value))))
+                    .get()
+                    .uri(signed.getUri())
+                    .responseConnection((response, connection) -> {
+                        int status = response.status().code();
+                        HttpHeaders headers = response.responseHeaders();
+                        if (status == 200 || status == 206) {
+                            Flux<DataBuffer> body = connection.inbound().receive()
+                                    .retain()
+                                    .map(buffer -> toDataBuffer(buffer, bufferFactory));
+                            return Mono.just(toStreamedObject(headers, body));
+                        }
+                        // Error bodies are a few hundred bytes of XML, and 304/412 have none
+                        return connection.inbound().receive().aggregate().asString()
+                                .defaultIfEmpty("")
+                                .flatMap(error -> Mono.<StreamedObject>error(toException(status, error, headers)));
+                    })
+                    .single();
+        });
+    }
+
+    @Override
+    public void close() {
+        connections.dispose();
+    }
+
+    private SdkHttpRequest sign(GetObjectRequest request) {
+        String basePath = endpoint.getRawPath() == null ? "" : endpoint.getRawPath().replaceAll("/+$", "");
+        SdkHttpRequest.Builder unsigned = SdkHttpRequest.builder()
+                .method(SdkHttpMethod.GET)
+                .protocol(endpoint.getScheme())
+                .host(endpoint.getHost())
+                .port(endpoint.getPort() < 0 ? null : endpoint.getPort())
+                // Path style, like the SDK clients, which MinIO requires
+                .encodedPath(basePath + "/" + SdkHttpUtils.urlEncode(request.bucket())
+                        + "/" + SdkHttpUtils.urlEncodeIgnoreSlashes(request.key()));
+        if (request.versionId() != null) {
+            unsigned.putRawQueryParameter("versionId", request.versionId());
+        }
+        if (request.range() != null) {
+            unsigned.putHeader("Range", request.range());
+        }
+        if (request.ifMatch() != null) {
+            unsigned.putHeader("If-Match", request.ifMatch());
+        }
+        if (request.ifNoneMatch() != null) {
+            unsigned.putHeader("If-None-Match", request.ifNoneMatch());
+        }
+        return signer.sign(sign -> sign
+                        .identity(credentials)
+                        .request(unsigned.build())
+                        .putProperty(AwsV4HttpSigner.SERVICE_SIGNING_NAME, "s3")
+                        .putProperty(AwsV4HttpSigner.REGION_NAME, region)
+                        // S3 signs the path as sent, without the double encoding other services use
+                        .putProperty(AwsV4HttpSigner.DOUBLE_URL_ENCODE, false)
+                        .putProperty(AwsV4HttpSigner.NORMALIZE_PATH, false)
+                        .putProperty(AwsV4HttpSigner.PAYLOAD_SIGNING_ENABLED, false))
+                .request();
+    }
+
+    private static DataBuffer toDataBuffer(ByteBuf buffer, DataBufferFactory bufferFactory) {
+        if (bufferFactory instanceof NettyDataBufferFactory netty) {
+            // Ownership of the retained buffer passes to the response, which releases it after the write
+            return netty.wrap(buffer);
+        }
+        try {
+            DataBuffer copy = bufferFactory.allocateBuffer(buffer.readableBytes());
+            copy.write(buffer.nioBuffer());
+            return copy;
+        } finally {
+            buffer.release();
+        }
+    }
+
+    private static StreamedObject toStreamedObject(HttpHeaders headers, Flux<DataBuffer> body) {
+        String length = headers.get(HttpHeaderNames.CONTENT_LENGTH);
+        Map<String, String> metadata = new HashMap<>();
+        headers.forEach(header -> {
+            String name = header.getKey().toLowerCase(Locale.ROOT);
+            if (name.startsWith(METADATA_PREFIX)) {
+                metadata.put(name.substring(METADATA_PREFIX.length()), header.getValue());
+            }
+        });
+        return new StreamedObject(
+                length == null ? -1L : Long.parseLong(length),
+                headers.get(HttpHeaderNames.CONTENT_TYPE),
+                headers.get(HttpHeaderNames.ETAG),
+                body,
+                ChecksumTranslator.fromMetadata(metadata));
+    }
+
+    private static S3Exception toException(int status, String body, HttpHeaders headers) {
+        Map<String, String> error = errorFields(body);
+        String code = error.get("Code");
+        String message = error.get("Message");
+        AwsErrorDetails details = AwsErrorDetails.builder()
+                .errorCode(code)
+                .errorMessage(message)
+                .serviceName("S3")
+                .build();
+        S3Exception.Builder builder = "NoSuchKey".equals(code) ? NoSuchKeyException.builder()
+                : "NoSuchBucket".equals(code) ? NoSuchBucketException.builder()
+                : S3Exception.builder();
+        return (S3Exception) builder
+                .statusCode(status)
+                .requestId(headers.get("x-amz-request-id"))
+                .awsErrorDetails(details)
+                .message((message == null ? "Status " + status : message) + " (Service: S3, Status Code: " + status + ")")
+                .build();
+    }
+
+    /**
+     * Reads the Code and Message of an S3 error document; an empty or
+     * malformed body yields no fields, and the status code alone describes the error.
+     */
+    static Map<String, String> errorFields(String body) {
+        Map<String, String> fields = new HashMap<>();
+        if (body.isBlank()) {
+            return fields;
+        }
+        XMLStreamReader reader = null;
+        try {
+            reader = XML_INPUT.createXMLStreamReader(new StringReader(body));
+            // Only the direct children of <Error> are read, so a nested <Code> cannot shadow the real one
+            int depth = 0;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamReader.START_ELEMENT) {
+                    depth++;
+                    String name = reader.getLocalName();
+                    if (depth == 2 && ("Code".equals(name) || "Message".equals(name))) {
+                        fields.putIfAbsent(name, reader.getElementText());
+                        depth--;
+                    }
+                } else if (event == XMLStreamReader.END_ELEMENT) {
+                    depth--;
+                }
+            }
+        } catch (XMLStreamException e) {
+            // Keep whatever was read before the document broke off
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                    // Nothing is held open by a reader over a string
+                }
+            }
+        }
+        return fields;
+    }
+
+    private static XMLInputFactory xmlInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+}
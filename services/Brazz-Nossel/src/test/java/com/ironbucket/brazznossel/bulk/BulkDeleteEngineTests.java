@@ -0,0 +1,51 @@
+package com.ironbucket.brazznossel.bulk;
+
+import com.ironbucket.brazznossel.model.DeleteResult;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BulkDeleteEngineTests {
+
+    @Test
+    void keysAreDeletedInBoundedParallelBatchesOfAtMostOneThousand() {
+        BulkDeleteEngine engine = new BulkDeleteEngine(2);
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+
+        Flux<String> keys = Flux.range(0, 3500).map(i -> "logs/" + i);
+
+        StepVerifier.create(engine.delete(keys, batch -> Mono.delay(Duration.ofMillis(20))
+                .doOnSubscribe(subscription -> {
+                    batchSizes.add(batch.size());
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                })
+                .doFinally(signal -> inFlight.decrementAndGet())
+                .flatMapMany(tick -> Flux.fromIterable(batch).map(key -> DeleteResult.deleted(key, null)))))
+            .expectNextCount(3500)
+            .verifyComplete();
+
+        assertEquals(List.of(1000, 1000, 1000, 500), batchSizes.stream().sorted((a, b) -> b - a).toList());
+        assertTrue(maxInFlight.get() <= 2, "at most two batches may run at once, saw " + maxInFlight.get());
+    }
+
+    @Test
+    void failedBatchIsReportedPerKey() {
+        BulkDeleteEngine engine = new BulkDeleteEngine(1);
+
+        StepVerifier.create(engine.delete(Flux.just("a", "b", ""), batch -> Flux.error(new SecurityException("not yours"))))
+            .expectNext(DeleteResult.failed("a", "AccessDenied", "not yours"))
+            .expectNext(DeleteResult.failed("b", "AccessDenied", "not yours"))
+            .verifyComplete();
+    }
+}
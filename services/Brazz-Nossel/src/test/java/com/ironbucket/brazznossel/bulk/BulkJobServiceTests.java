@@ -0,0 +1,253 @@
+package com.ironbucket.brazznossel.bulk;
+
+import com.ironbucket.brazznossel.model.BulkJob;
+import com.ironbucket.brazznossel.model.BulkJobRequest;
+import com.ironbucket.brazznossel.model.DeleteResult;
+import com.ironbucket.brazznossel.model.ListObjectsQuery;
+import com.ironbucket.brazznossel.model.ListingEntry;
+import com.ironbucket.brazznossel.model.NormalizedIdentity;
+import com.ironbucket.brazznossel.model.ObjectListingPage;
+import com.ironbucket.brazznossel.service.S3ProxyService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BulkJobServiceTests {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2026-01-01T00:00:00Z"), ZoneOffset.UTC);
+
+    private final NormalizedIdentity alice = NormalizedIdentity.builder()
+        .userId("alice")
+        .tenantId("acme")
+        .preferredUsername("alice")
+        .roles(List.of("s3:write"))
+        .build();
+
+    @Test
+    void deleteJobWalksEveryPageAndCheckpointsProgress(@TempDir Path stateDir) {
+        S3ProxyService s3 = mock(S3ProxyService.class);
+        when(s3.headBucket(eq("acme-logs"), any())).thenReturn(Mono.just("ok"));
+        when(s3.listObjectsPage(eq("acme-logs"), argThat(query -> query != null && query.continuationToken() == null), any()))
+            .thenReturn(Mono.just(page(List.of("2025/a", "2025/b"), "t1")));
+        when(s3.listObjectsPage(eq("acme-logs"), argThat(query -> query != null && "t1".equals(query.continuationToken())), any()))
+            .thenReturn(Mono.just(page(List.of("2025/c"), null)));
+        when(s3.deleteObjects(eq("acme-logs"), any(), any())).thenAnswer(invocation -> {
+            Flux<String> keys = invocation.getArgument(1);
+            return keys.map(key -> key.equals("2025/b")
+                ? DeleteResult.failed(key, "AccessDenied", "locked")
+                : DeleteResult.deleted(key, null));
+        });
+
+        BulkJobStore store = new BulkJobStore(stateDir.toString());
+        BulkJobService service = new BulkJobService(s3, store, 4, 1000, CLOCK);
+
+        BulkJob submitted = service.submit("acme-logs", new BulkJobRequest(BulkJob.Operation.DELETE, "2025/", null, null, null), alice).block();
+
+        BulkJob finished = awaitFinished(service, submitted.id());
+        assertEquals(BulkJob.State.COMPLETED, finished.state());
+        assertEquals(3, finished.objectsProcessed());
+        assertEquals(1, finished.objectsFailed());
+        assertNull(finished.continuationToken());
+
+        List<BulkJob> persisted = store.loadAll();
+        assertEquals(1, persisted.size());
+        assertEquals(BulkJob.State.COMPLETED, persisted.get(0).state());
+    }
+
+    @Test
+    void copyJobRewritesPrefixIntoTargetBucket() {
+        S3ProxyService s3 = mock(S3ProxyService.class);
+        when(s3.headBucket(anyString(), any())).thenReturn(Mono.just("ok"));
+        when(s3.listObjectsPage(eq("acme-src"), any(), any())).thenReturn(Mono.just(page(List.of("in/x", "in/y"), null)));
+        when(s3.copyObject(anyString(), anyString(), anyString(), anyString(), any())).thenReturn(Mono.just("etag"));
+
+        BulkJobService service = new BulkJobService(s3, new BulkJobStore(""), 4, 1000, CLOCK);
+        BulkJob submitted = service.submit("acme-src", new BulkJobRequest(BulkJob.Operation.COPY, "in/", "acme-dst", "out/", null), alice).block();
+
+        assertEquals(BulkJob.State.COMPLETED, awaitFinished(service, submitted.id()).state());
+        verify(s3).copyObject(eq("acme-src"), eq("in/x"), eq("acme-dst"), eq("out/x"), any());
+        verify(s3).copyObject(eq("acme-src"), eq("in/y"), eq("acme-dst"), eq("out/y"), any());
+    }
+
+    @Test
+    void lastPageCompletesTheJobInTheSameCheckpoint() {
+        S3ProxyService s3 = mock(S3ProxyService.class);
+        when(s3.headBucket(eq("acme-logs"), any())).thenReturn(Mono.just("ok"));
+        when(s3.listObjectsPage(eq("acme-logs"), argThat(query -> query != null && query.continuationToken() == null), any()))
+            .thenReturn(Mono.just(page(List.of("2025/a"), "t1")));
+        when(s3.listObjectsPage(eq("acme-logs"), argThat(query -> query != null && "t1".equals(query.continuationToken())), any()))
+            .thenReturn(Mono.just(page(List.of("2025/b"), null)));
+        when(s3.putObjectTagging(anyString(), anyString(), anyMap(), any())).thenReturn(Mono.just("ok"));
+        List<BulkJob> saved = new CopyOnWriteArrayList<>();
+        BulkJobStore store = new BulkJobStore("") {
+            @Override
+            public void save(BulkJob job) {
+                saved.add(job);
+            }
+        };
+
+        BulkJobService service = new BulkJobService(s3, store, 4, 1000, CLOCK);
+        BulkJob submitted = service.submit("acme-logs", new BulkJobRequest(BulkJob.Operation.TAG, "2025/", null, null, Map.of("tier", "cold")), alice).block();
+        awaitFinished(service, submitted.id());
+
+        // A running job without a token would be restarted from the first key after a crash
+        assertFalse(saved.stream().anyMatch(job -> job.state() == BulkJob.State.RUNNING
+            && job.continuationToken() == null && job.objectsProcessed() > 0));
+        BulkJob last = saved.get(saved.size() - 1);
+        assertEquals(BulkJob.State.COMPLETED, last.state());
+        assertEquals(2, last.objectsProcessed());
+    }
+
+    @Test
+    void interruptedJobResumesFromItsCheckpoint(@TempDir Path stateDir) {
+        BulkJobStore store = new BulkJobStore(stateDir.toString());
+        store.save(new BulkJob("job-1", BulkJob.Operation.TAG, BulkJob.State.RUNNING, "acme", "alice", "alice",
+            List.of("s3:write"), "acme-logs", "2025/", null, null, Map.of("tier", "cold"), "t1", 1000, 0,
+            CLOCK.instant(), CLOCK.instant(), null));
+
+        S3ProxyService s3 = mock(S3ProxyService.class);
+        when(s3.listObjectsPage(eq("acme-logs"), argThat(query -> query != null && "t1".equals(query.continuationToken())), any()))
+            .thenReturn(Mono.just(page(List.of("2025/z"), null)));
+        when(s3.putObjectTagging(anyString(), anyString(), anyMap(), any())).thenReturn(Mono.just("ok"));
+
+        BulkJobService service = new BulkJobService(s3, store, 4, 1000, CLOCK);
+        service.resumeInterruptedJobs();
+
+        BulkJob finished = awaitFinished(service, "job-1");
+        assertEquals(BulkJob.State.COMPLETED, finished.state());
+        assertEquals(1001, finished.objectsProcessed());
+        verify(s3).putObjectTagging(eq("acme-logs"), eq("2025/z"), eq(Map.of("tier", "cold")), any());
+        verify(s3, never()).listObjectsPage(eq("acme-logs"), argThat(query -> query != null && query.continuationToken() == null), any());
+    }
+
+    @Test
+    void runningJobCheckpointedAfterItsLastPageIsNotRestarted(@TempDir Path stateDir) {
+        BulkJobStore store = new BulkJobStore(stateDir.toString());
+        store.save(new BulkJob("job-2", BulkJob.Operation.DELETE, BulkJob.State.RUNNING, "acme", "alice", "alice",
+            List.of("s3:write"), "acme-logs", "2025/", null, null, null, null, 3, 0,
+            CLOCK.instant(), CLOCK.instant(), null));
+
+        S3ProxyService s3 = mock(S3ProxyService.class);
+        BulkJobService service = new BulkJobService(s3, store, 4, 1000, CLOCK);
+        service.resumeInterruptedJobs();
+
+        assertEquals(BulkJob.State.COMPLETED, service.get("job-2", alice).block().state());
+        assertEquals(BulkJob.State.COMPLETED, store.loadAll().get(0).state());
+        verify(s3, never()).listObjectsPage(anyString(), any(), any());
+    }
+
+    @Test
+    void copyIntoAnOverlappingPrefixOfTheSameBucketIsRejected() {
+        S3ProxyService s3 = mock(S3ProxyService.class);
+        BulkJobService service = new BulkJobService(s3, new BulkJobStore(""), 4, 1000, CLOCK);
+
+        StepVerifier.create(service.submit("acme-src", new BulkJobRequest(BulkJob.Operation.COPY, "in/", "acme-src", "in/copy/", null), alice))
+            .expectError(IllegalArgumentException.class)
+            .verify();
+        StepVerifier.create(service.submit("acme-src", new BulkJobRequest(BulkJob.Operation.COPY, "in/", "acme-src", null, null), alice))
+            .expectError(IllegalArgumentException.class)
+            .verify();
+        verify(s3, never()).headBucket(anyString(), any());
+    }
+
+    @Test
+    void oldestFinishedJobsAreEvicted(@TempDir Path stateDir) {
+        S3ProxyService s3 = mock(S3ProxyService.class);
+        when(s3.headBucket(anyString(), any())).thenReturn(Mono.just("ok"));
+        when(s3.listObjectsPage(anyString(), any(ListObjectsQuery.class), any())).thenReturn(Mono.just(page(List.of(), null)));
+        AtomicLong ticks = new AtomicLong();
+        Clock clock = mock(Clock.class);
+        when(clock.instant()).thenAnswer(invocation -> CLOCK.instant().plusSeconds(ticks.incrementAndGet()));
+        BulkJobStore store = new BulkJobStore(stateDir.toString());
+
+        BulkJobService service = new BulkJobService(s3, store, 4, 1000, 1, clock);
+        BulkJob first = service.submit("acme-logs", new BulkJobRequest(BulkJob.Operation.DELETE, "a/", null, null, null), alice).block();
+        awaitFinished(service, first.id());
+        BulkJob second = service.submit("acme-logs", new BulkJobRequest(BulkJob.Operation.DELETE, "b/", null, null, null), alice).block();
+        awaitFinished(service, second.id());
+
+        StepVerifier.create(service.get(first.id(), alice))
+            .expectError(ResponseStatusException.class)
+            .verify();
+        assertEquals(List.of(second.id()), service.list(alice).map(BulkJob::id).collectList().block());
+        assertEquals(List.of(second.id()), store.loadAll().stream().map(BulkJob::id).toList());
+    }
+
+    @Test
+    void invalidRequestsAreRejectedBeforeTouchingTheBackend() {
+        S3ProxyService s3 = mock(S3ProxyService.class);
+        BulkJobService service = new BulkJobService(s3, new BulkJobStore(""), 4, 1000, CLOCK);
+
+        StepVerifier.create(service.submit("acme-logs", new BulkJobRequest(BulkJob.Operation.DELETE, "", null, null, null), alice))
+            .expectError(IllegalArgumentException.class)
+            .verify();
+        StepVerifier.create(service.submit("acme-logs", new BulkJobRequest(BulkJob.Operation.COPY, "a/", null, null, null), alice))
+            .expectError(IllegalArgumentException.class)
+            .verify();
+        verify(s3, never()).headBucket(anyString(), any());
+    }
+
+    @Test
+    void jobsOfOtherTenantsAreNotVisible() {
+        S3ProxyService s3 = mock(S3ProxyService.class);
+        when(s3.headBucket(anyString(), any())).thenReturn(Mono.just("ok"));
+        when(s3.listObjectsPage(anyString(), any(ListObjectsQuery.class), any())).thenReturn(Mono.just(page(List.of(), null)));
+
+        BulkJobService service = new BulkJobService(s3, new BulkJobStore(""), 4, 1000, CLOCK);
+        BulkJob submitted = service.submit("acme-logs", new BulkJobRequest(BulkJob.Operation.DELETE, "tmp/", null, null, null), alice).block();
+
+        NormalizedIdentity mallory = NormalizedIdentity.builder().userId("mallory").tenantId("evil").build();
+        StepVerifier.create(service.get(submitted.id(), mallory))
+            .expectError(ResponseStatusException.class)
+            .verify();
+        StepVerifier.create(service.list(mallory)).verifyComplete();
+        assertTrue(service.list(alice).collectList().block().stream().anyMatch(job -> job.id().equals(submitted.id())));
+    }
+
+    private static ObjectListingPage page(List<String> keys, String nextToken) {
+        return new ObjectListingPage(
+            keys.stream().map(key -> ListingEntry.object(key, 1L, null, null, null)).toList(),
+            List.of(),
+            nextToken != null,
+            nextToken);
+    }
+
+    private BulkJob awaitFinished(BulkJobService service, String id) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (System.nanoTime() < deadline) {
+            BulkJob job = service.get(id, alice).block();
+            if (job.state() != BulkJob.State.RUNNING) {
+                return job;
+            }
+            Thread.onSpinWait();
+        }
+        throw new AssertionError("Bulk job " + id + " did not finish");
+    }
+}
@@ -0,0 +1,70 @@
+package com.ironbucket.brazznossel.bulkhead;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TenantBulkheadTests {
+
+    @Test
+    void saturatedTenantIsRejectedWithoutAffectingOtherTenants() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TenantBulkhead bulkhead = new TenantBulkhead(1, 1, Duration.ofSeconds(5), registry);
+        Sinks.One<String> running = Sinks.one();
+        Sinks.One<String> queued = Sinks.one();
+
+        bulkhead.execute("tenant-a", running.asMono()).subscribe();
+        bulkhead.execute("tenant-a", queued.asMono()).subscribe();
+
+        assertEquals(1, bulkhead.activeCalls("tenant-a"));
+        assertEquals(1, bulkhead.queueDepth("tenant-a"));
+
+        StepVerifier.create(bulkhead.execute("tenant-a", Mono.just("rejected")))
+            .expectError(TenantBulkheadFullException.class)
+            .verify();
+
+        StepVerifier.create(bulkhead.execute("tenant-b", Mono.just("other-tenant")))
+            .expectNext("other-tenant")
+            .verifyComplete();
+
+        running.tryEmitValue("done");
+        assertEquals(1, bulkhead.activeCalls("tenant-a"));
+        assertEquals(0, bulkhead.queueDepth("tenant-a"));
+
+        queued.tryEmitValue("done");
+        assertEquals(0, bulkhead.activeCalls("tenant-a"));
+
+        assertEquals(1.0, registry.get("ironbucket.s3.bulkhead.rejected").tag("tenant", "tenant-a").counter().count());
+        assertEquals(0.0, registry.get("ironbucket.s3.bulkhead.queue.depth").tag("tenant", "tenant-a").gauge().value());
+    }
+
+    @Test
+    void queuedCallIsRejectedAfterMaxWait() {
+        TenantBulkhead bulkhead = new TenantBulkhead(1, 4, Duration.ofMillis(50), new SimpleMeterRegistry());
+        Sinks.One<String> running = Sinks.one();
+
+        bulkhead.execute("tenant-a", running.asMono()).subscribe();
+
+        StepVerifier.create(bulkhead.execute("tenant-a", Mono.just("late")))
+            .expectError(TenantBulkheadFullException.class)
+            .verify(Duration.ofSeconds(2));
+
+        assertEquals(0, bulkhead.queueDepth("tenant-a"));
+
+        running.tryEmitValue("done");
+        assertEquals(0, bulkhead.activeCalls("tenant-a"));
+    }
+
+    @Test
+    void disabledBulkheadPassesCallsThrough() {
+        StepVerifier.create(new TenantBulkhead(0, 0, Duration.ZERO, new SimpleMeterRegistry()).execute("tenant-a", Mono.just("value")))
+            .expectNext("value")
+            .verifyComplete();
+    }
+}
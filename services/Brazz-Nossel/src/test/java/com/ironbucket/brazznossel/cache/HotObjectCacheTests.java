@@ -0,0 +1,141 @@
+package com.ironbucket.brazznossel.cache;
+
+import com.ironbucket.brazznossel.model.StreamedObject;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class HotObjectCacheTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void objectIsServedFromMemoryOnceItsBodyHasStreamedThrough() {
+        HotObjectCache cache = cache(null);
+
+        assertNull(cache.get("acme", "acme-data", "key", "\"v1\"", DefaultDataBufferFactory.sharedInstance));
+        assertEquals("hello world", text(cache.fill("acme", "acme-data", "key", object("\"v1\"", "hello ", "world"))));
+
+        StreamedObject cached = cache.get("acme", "acme-data", "key", "\"v1\"", DefaultDataBufferFactory.sharedInstance);
+        assertNotNull(cached);
+        assertEquals(11, cached.contentLength());
+        assertEquals("hello world", text(cached));
+        assertArrayEquals("world".getBytes(StandardCharsets.UTF_8),
+                cache.getRange("acme", "acme-data", "key", "\"v1\"", 6, 100));
+        assertEquals("o w", text(cache.getRangeStream("acme", "acme-data", "key", "\"v1\"", 4, 6,
+                DefaultDataBufferFactory.sharedInstance)));
+        assertEquals(3.0, meterRegistry.counter("ironbucket.s3.hot-cache.requests", "result", "hit").count());
+    }
+
+    @Test
+    void staleOrInvalidatedEntriesAreNotServed() {
+        HotObjectCache cache = cache(null);
+        text(cache.fill("acme", "acme-data", "key", object("\"v1\"", "hello")));
+
+        assertNull(cache.get("acme", "acme-data", "key", "\"v2\"", DefaultDataBufferFactory.sharedInstance));
+        assertNull(cache.get("acme", "acme-data", "key", "\"v1\"", DefaultDataBufferFactory.sharedInstance));
+
+        text(cache.fill("acme", "acme-data", "key", object("\"v2\"", "hello")));
+        cache.invalidate("acme", "acme-data", "key");
+        assertNull(cache.getRange("acme", "acme-data", "key", "\"v2\"", 0, 1));
+    }
+
+    @Test
+    void interruptedBodyLeavesNothingBehind() {
+        HotObjectCache cache = cache(null);
+        StreamedObject failing = new StreamedObject(10, "text/plain", "\"v1\"",
+                Flux.concat(Flux.just(buffer("hello")), Flux.error(new IllegalStateException("backend reset"))));
+
+        DataBufferUtils.join(cache.fill("acme", "acme-data", "key", failing).body())
+                .onErrorResume(error -> Mono.empty())
+                .block();
+
+        assertNull(cache.get("acme", "acme-data", "key", "\"v1\"", DefaultDataBufferFactory.sharedInstance));
+        assertEquals(0.0, meterRegistry.get("ironbucket.s3.hot-cache.bytes").tag("tier", "memory").gauge().value());
+    }
+
+    @Test
+    void unsubscribedBodyTakesNoSpaceAndDoesNotBlockALaterFill() {
+        HotObjectCache cache = cache(null);
+        cache.fill("acme", "acme-data", "key", object("\"v1\"", "hello"));
+
+        assertEquals(0.0, meterRegistry.get("ironbucket.s3.hot-cache.bytes").tag("tier", "memory").gauge().value());
+
+        text(cache.fill("acme", "acme-data", "key", object("\"v1\"", "hello")));
+        assertNotNull(cache.get("acme", "acme-data", "key", "\"v1\"", DefaultDataBufferFactory.sharedInstance));
+    }
+
+    @Test
+    void tenantsFillingTheTierMakeRoomForAnotherTenant() {
+        HotObjectCache cache = cache(null);
+        String object = "x".repeat(32);
+        // Two tenants at their full share of half the tier each
+        for (int i = 0; i < 16; i++) {
+            text(cache.fill("acme", "acme-data", "key-" + i, object("\"v1\"", object)));
+            text(cache.fill("globex", "globex-data", "key-" + i, object("\"v1\"", object)));
+        }
+
+        text(cache.fill("initech", "initech-data", "key", object("\"v1\"", object)));
+
+        assertEquals(object, text(cache.get("initech", "initech-data", "key", "\"v1\"", DefaultDataBufferFactory.sharedInstance)));
+        assertEquals(0.0, meterRegistry.counter("ironbucket.s3.hot-cache.rejected", "tier", "memory").count());
+        assertEquals(1.0, meterRegistry.counter("ironbucket.s3.hot-cache.evictions", "tier", "memory").count());
+    }
+
+    @Test
+    void largerObjectsGoToMappedFilesThatAreDeletedOnEviction(@TempDir Path directory) throws Exception {
+        HotObjectCache cache = cache(directory);
+        String large = "x".repeat(64);
+
+        assertEquals(large, text(cache.fill("acme", "acme-data", "large", object("\"v1\"", large))));
+        assertEquals(1, files(directory));
+        assertEquals(large, text(cache.get("acme", "acme-data", "large", "\"v1\"", DefaultDataBufferFactory.sharedInstance)));
+
+        cache.invalidate("acme", "acme-data", "large");
+        assertEquals(0, files(directory));
+    }
+
+    private HotObjectCache cache(Path directory) {
+        return new HotObjectCache(true, DataSize.ofKilobytes(1), DataSize.ofBytes(32),
+                directory == null ? "" : directory.toString(), DataSize.ofKilobytes(1), DataSize.ofKilobytes(1), 0.5,
+                meterRegistry);
+    }
+
+    private static StreamedObject object(String eTag, String... chunks) {
+        long length = Stream.of(chunks).mapToLong(chunk -> chunk.getBytes(StandardCharsets.UTF_8).length).sum();
+        return new StreamedObject(length, "text/plain", eTag, Flux.fromArray(chunks).map(HotObjectCacheTests::buffer));
+    }
+
+    private static DataBuffer buffer(String text) {
+        return DefaultDataBufferFactory.sharedInstance.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String text(StreamedObject object) {
+        DataBuffer joined = DataBufferUtils.join(object.body()).block();
+        String text = joined.toString(StandardCharsets.UTF_8);
+        DataBufferUtils.release(joined);
+        return text;
+    }
+
+    private static long files(Path directory) throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+}
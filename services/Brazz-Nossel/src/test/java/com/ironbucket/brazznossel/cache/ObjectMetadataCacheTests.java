@@ -0,0 +1,79 @@
+package com.ironbucket.brazznossel.cache;
+
+import com.ironbucket.brazznossel.cache.ObjectMetadataCache.Kind;
+import com.ironbucket.brazznossel.model.ObjectMetadata;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ObjectMetadataCacheTests {
+
+    private static final ObjectMetadata METADATA = new ObjectMetadata("\"etag-1\"", 42L, "text/plain", null, null);
+
+    @Test
+    void repeatedHeadIsServedFromCacheUntilAWriteInvalidatesIt() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ObjectMetadataCache cache = new ObjectMetadataCache(new CaffeineCacheManager(ObjectMetadataCache.CACHE_NAME), registry);
+        AtomicInteger backendCalls = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            StepVerifier.create(cache.get(Kind.HEAD, "tenant-a", "tenant-a-logs", "app.log", null, () -> {
+                    backendCalls.incrementAndGet();
+                    return Mono.just(METADATA);
+                }))
+                .expectNext(METADATA)
+                .verifyComplete();
+        }
+        assertEquals(1, backendCalls.get());
+
+        cache.invalidateObject("tenant-a", "tenant-a-logs", "app.log");
+
+        StepVerifier.create(cache.get(Kind.HEAD, "tenant-a", "tenant-a-logs", "app.log", null, () -> {
+                backendCalls.incrementAndGet();
+                return Mono.just(METADATA);
+            }))
+            .expectNext(METADATA)
+            .verifyComplete();
+
+        assertEquals(2, backendCalls.get());
+        assertEquals(2.0, registry.get("ironbucket.s3.metadata-cache.requests").tag("kind", "head").tag("result", "hit").counter().count());
+        assertEquals(2.0, registry.get("ironbucket.s3.metadata-cache.requests").tag("kind", "head").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void loadStartedBeforeAnInvalidationIsNotWrittenBack() {
+        ObjectMetadataCache cache = new ObjectMetadataCache(new ConcurrentMapCacheManager(ObjectMetadataCache.CACHE_NAME), new SimpleMeterRegistry());
+        Sinks.One<ObjectMetadata> backend = Sinks.one();
+
+        // A HEAD is in flight when a PUT replaces the object
+        StepVerifier.create(cache.get(Kind.HEAD, "tenant-a", "tenant-a-logs", "app.log", null, backend::asMono))
+            .then(() -> cache.invalidateObject("tenant-a", "tenant-a-logs", "app.log"))
+            .then(() -> backend.tryEmitValue(METADATA))
+            .expectNext(METADATA)
+            .verifyComplete();
+
+        assertNull(cache.peek(Kind.HEAD, "tenant-a", "tenant-a-logs", "app.log"));
+    }
+
+    @Test
+    void entriesAreScopedByTenantAndKind() {
+        ObjectMetadataCache cache = new ObjectMetadataCache(new ConcurrentMapCacheManager(ObjectMetadataCache.CACHE_NAME), new SimpleMeterRegistry());
+        cache.get(Kind.ACL, "tenant-a", "tenant-a-logs", "app.log", null, () -> Mono.just("READ")).block();
+
+        StepVerifier.create(cache.get(Kind.ACL, "tenant-b", "tenant-a-logs", "app.log", null, () -> Mono.just("FULL_CONTROL")))
+            .expectNext("FULL_CONTROL")
+            .verifyComplete();
+        StepVerifier.create(cache.get(Kind.TAGGING, "tenant-a", "tenant-a-logs", "app.log", null, () -> Mono.just("tags")))
+            .expectNext("tags")
+            .verifyComplete();
+    }
+}
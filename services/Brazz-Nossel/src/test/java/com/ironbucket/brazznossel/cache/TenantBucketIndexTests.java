@@ -0,0 +1,138 @@
+package com.ironbucket.brazznossel.cache;
+
+import com.ironbucket.brazznossel.model.BucketSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TenantBucketIndexTests {
+
+    private static final Instant CREATED = Instant.parse("2026-01-01T00:00:00Z");
+
+    private static TenantBucketIndex inMemoryIndex() {
+        return new TenantBucketIndex(new ConcurrentMapCacheManager(TenantBucketIndex.CACHE_NAME), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void backendIsOnlyCalledOnMissAndWritesUpdateTheEntry() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TenantBucketIndex index = new TenantBucketIndex(new CaffeineCacheManager(TenantBucketIndex.CACHE_NAME), registry);
+        AtomicInteger backendCalls = new AtomicInteger();
+
+        StepVerifier.create(index.get("tenant-a", () -> {
+                backendCalls.incrementAndGet();
+                return Mono.just(List.of(new BucketSummary("tenant-a-logs", CREATED)));
+            }))
+            .expectNext(List.of(new BucketSummary("tenant-a-logs", CREATED)))
+            .verifyComplete();
+
+        index.onBucketCreated("tenant-a", "tenant-a-files", CREATED);
+        index.onBucketDeleted("tenant-a", "tenant-a-logs");
+
+        StepVerifier.create(index.get("tenant-a", () -> Mono.error(new AssertionError("backend must not be called"))))
+            .expectNext(List.of(new BucketSummary("tenant-a-files", CREATED)))
+            .verifyComplete();
+
+        assertEquals(1, backendCalls.get());
+        assertEquals(1.0, registry.get("ironbucket.s3.bucket-index.requests").tag("result", "miss").counter().count());
+        assertEquals(1.0, registry.get("ironbucket.s3.bucket-index.requests").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    void refreshRebuildsOnlyCachedTenantsFromOneListing() {
+        TenantBucketIndex index = inMemoryIndex();
+        index.replace("tenant-a", List.of());
+
+        index.refreshFrom(List.of(
+            new BucketSummary("tenant-a-orders", CREATED),
+            new BucketSummary("tenant-b-orders", CREATED)
+        ), index.generation());
+
+        assertEquals(Set.of("tenant-a"), index.cachedTenants());
+        StepVerifier.create(index.get("tenant-a", Mono::empty))
+            .expectNext(List.of(new BucketSummary("tenant-a-orders", CREATED)))
+            .verifyComplete();
+    }
+
+    @Test
+    void refreshKeepsEntriesChangedWhileItWasListing() {
+        TenantBucketIndex index = inMemoryIndex();
+        index.replace("tenant-a", List.of(new BucketSummary("tenant-a-orders", CREATED)));
+        index.replace("tenant-b", List.of());
+
+        long listedAt = index.generation();
+        // Created through the proxy after the backend listing was taken
+        index.onBucketCreated("tenant-a", "tenant-a-new", CREATED);
+        index.refreshFrom(List.of(
+            new BucketSummary("tenant-a-orders", CREATED),
+            new BucketSummary("tenant-b-orders", CREATED)
+        ), listedAt);
+
+        StepVerifier.create(index.get("tenant-a", Mono::empty))
+            .expectNext(List.of(new BucketSummary("tenant-a-new", CREATED), new BucketSummary("tenant-a-orders", CREATED)))
+            .verifyComplete();
+        StepVerifier.create(index.get("tenant-b", Mono::empty))
+            .expectNext(List.of(new BucketSummary("tenant-b-orders", CREATED)))
+            .verifyComplete();
+
+        // The next refresh lists the new bucket and takes over again
+        index.refreshFrom(List.of(new BucketSummary("tenant-a-new", CREATED)), index.generation());
+        StepVerifier.create(index.get("tenant-a", Mono::empty))
+            .expectNext(List.of(new BucketSummary("tenant-a-new", CREATED)))
+            .verifyComplete();
+    }
+
+    @Test
+    void loadOnAMissDoesNotCacheOverABucketCreatedMeanwhile() {
+        TenantBucketIndex index = inMemoryIndex();
+        AtomicInteger loads = new AtomicInteger();
+
+        StepVerifier.create(index.get("acme", () -> Mono.fromSupplier(() -> {
+                loads.incrementAndGet();
+                // Created through the proxy while the listing was on its way
+                index.onBucketCreated("acme", "acme-new", CREATED);
+                return List.<BucketSummary>of();
+            })))
+            .expectNext(List.of())
+            .verifyComplete();
+        StepVerifier.create(index.get("acme", () -> Mono.fromSupplier(() -> {
+                loads.incrementAndGet();
+                return List.of(new BucketSummary("acme-new", CREATED));
+            })))
+            .expectNext(List.of(new BucketSummary("acme-new", CREATED)))
+            .verifyComplete();
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void refreshMatchesTenantIdsContainingDashes() {
+        TenantBucketIndex index = inMemoryIndex();
+        index.replace("acme", List.of());
+        index.replace("acme-eu", List.of());
+
+        index.refreshFrom(List.of(
+            new BucketSummary("acme-eu-logs", CREATED),
+            new BucketSummary("acme-data", CREATED),
+            new BucketSummary("globex-data", CREATED)
+        ), index.generation());
+
+        // Bucket names cannot tell "acme" + "eu-logs" from "acme-eu" + "logs", so both tenants see it
+        StepVerifier.create(index.get("acme", Mono::empty))
+            .expectNext(List.of(new BucketSummary("acme-data", CREATED), new BucketSummary("acme-eu-logs", CREATED)))
+            .verifyComplete();
+        StepVerifier.create(index.get("acme-eu", Mono::empty))
+            .expectNext(List.of(new BucketSummary("acme-eu-logs", CREATED)))
+            .verifyComplete();
+    }
+}
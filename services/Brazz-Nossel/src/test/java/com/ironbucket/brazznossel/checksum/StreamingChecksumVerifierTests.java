@@ -0,0 +1,104 @@
+package com.ironbucket.brazznossel.checksum;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingChecksumVerifierTests {
+
+    // Digests of "123456789", the standard check input
+    private static final String CRC32C = "4waSgw==";
+    private static final String SHA256 = "FeKw08M4keuw8e9gnsQZQgwg4yDOlMZfvIwzEkSOsiU=";
+    private static final String MD5 = "JfnnlDI7RTiF9RgfG2JNCw==";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final StreamingChecksumVerifier verifier = new StreamingChecksumVerifier(meterRegistry);
+
+    @Test
+    void matchingChecksumsPassEveryBufferThroughUnchanged() {
+        Flux<DataBuffer> body = verifier.verify(body("1234", "5", "6789"),
+                Map.of(ChecksumAlgorithm.CRC32C, CRC32C, ChecksumAlgorithm.SHA256, SHA256, ChecksumAlgorithm.MD5, MD5),
+                StreamingChecksumVerifier.Direction.UPLOAD);
+
+        StepVerifier.create(body.map(StreamingChecksumVerifierTests::text))
+                .expectNext("1234", "5", "6789")
+                .verifyComplete();
+        assertEquals(1.0, meterRegistry.counter("ironbucket.s3.checksum.streams",
+                "direction", "upload", "result", "verified").count());
+    }
+
+    @Test
+    void mismatchFailsTheStreamWithoutEmittingTheLastBuffer() {
+        Flux<DataBuffer> body = verifier.verify(body("1234", "5678"),
+                Map.of(ChecksumAlgorithm.CRC32C, CRC32C),
+                StreamingChecksumVerifier.Direction.DOWNLOAD);
+
+        // The final buffer is held until the digests match, so a Content-Length framed
+        // upload or download never sees its complete body
+        StepVerifier.create(body.map(StreamingChecksumVerifierTests::text))
+                .expectNext("1234")
+                .expectErrorSatisfies(error -> {
+                    assertTrue(error instanceof ChecksumMismatchException);
+                    assertEquals(ChecksumAlgorithm.CRC32C, ((ChecksumMismatchException) error).getAlgorithm());
+                })
+                .verify();
+        assertEquals(1.0, meterRegistry.counter("ironbucket.s3.checksum.streams",
+                "direction", "download", "result", "mismatch").count());
+    }
+
+    @Test
+    void eachSubscriptionStartsFromAnEmptyDigest() {
+        Flux<DataBuffer> body = verifier.verify(Flux.defer(() -> body("123456789")),
+                Map.of(ChecksumAlgorithm.SHA256, SHA256),
+                StreamingChecksumVerifier.Direction.UPLOAD);
+
+        StepVerifier.create(body.map(StreamingChecksumVerifierTests::text)).expectNextCount(1).verifyComplete();
+        StepVerifier.create(body.map(StreamingChecksumVerifierTests::text)).expectNextCount(1).verifyComplete();
+    }
+
+    @Test
+    void suppliedHeadersAreParsedAndOnlyStoredAlgorithmsBecomeMetadata() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("x-amz-checksum-crc32c", CRC32C);
+        headers.add("Content-MD5", MD5);
+
+        Map<ChecksumAlgorithm, String> checksums = ChecksumTranslator.fromHeaders(headers);
+
+        assertEquals(Map.of(ChecksumAlgorithm.CRC32C, CRC32C, ChecksumAlgorithm.MD5, MD5), checksums);
+        assertEquals(Map.of("checksum-crc32c", CRC32C), ChecksumTranslator.toMetadata(checksums));
+        assertEquals(Map.of(ChecksumAlgorithm.CRC32C, CRC32C),
+                ChecksumTranslator.fromMetadata(ChecksumTranslator.toMetadata(checksums)));
+    }
+
+    @Test
+    void malformedChecksumHeaderIsRejected() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("x-amz-checksum-sha256", CRC32C);
+
+        assertThrows(ResponseStatusException.class, () -> ChecksumTranslator.fromHeaders(headers));
+    }
+
+    private static Flux<DataBuffer> body(String... chunks) {
+        return Flux.fromArray(chunks)
+                .map(chunk -> DefaultDataBufferFactory.sharedInstance.wrap(chunk.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String text(DataBuffer buffer) {
+        String text = buffer.toString(StandardCharsets.UTF_8);
+        DataBufferUtils.release(buffer);
+        return text;
+    }
+}
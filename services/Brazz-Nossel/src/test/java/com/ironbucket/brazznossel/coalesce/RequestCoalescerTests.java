@@ -0,0 +1,152 @@
+package com.ironbucket.brazznossel.coalesce;
+
+import com.ironbucket.brazznossel.model.StreamedObject;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RequestCoalescerTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RequestCoalescer coalescer = new RequestCoalescer(true, DataSize.ofKilobytes(1), meterRegistry);
+
+    @Test
+    void concurrentHeadsShareOneBackendCall() {
+        AtomicInteger calls = new AtomicInteger();
+        Sinks.One<String> backend = Sinks.one();
+
+        Mono<String> first = coalescer.head("acme", "acme-data", "key", () -> {
+            calls.incrementAndGet();
+            return backend.asMono();
+        });
+        Mono<String> second = coalescer.head("acme", "acme-data", "key", () -> {
+            calls.incrementAndGet();
+            return Mono.just("other");
+        });
+
+        StepVerifier.create(Flux.merge(first, second))
+                .then(() -> backend.tryEmitValue("etag"))
+                .expectNext("etag", "etag")
+                .verifyComplete();
+        assertEquals(1, calls.get());
+        assertEquals(1.0, count("head", "joined"));
+
+        // The flight has landed, so the next HEAD goes to the backend again
+        StepVerifier.create(coalescer.head("acme", "acme-data", "key", () -> Mono.just("fresh")))
+                .expectNext("fresh")
+                .verifyComplete();
+    }
+
+    @Test
+    void concurrentGetsShareOneBackendStream() {
+        AtomicInteger calls = new AtomicInteger();
+        Sinks.One<Boolean> opened = Sinks.one();
+        Sinks.Many<DataBuffer> body = Sinks.many().unicast().onBackpressureBuffer();
+        Mono<StreamedObject> loader = opened.asMono().map(ignored -> {
+            calls.incrementAndGet();
+            return new StreamedObject(10, "text/plain", "etag", body.asFlux());
+        });
+
+        Mono<String> first = read(coalescer.get("acme", "acme-data", "key", DefaultDataBufferFactory.sharedInstance, () -> loader));
+        Mono<String> second = read(coalescer.get("acme", "acme-data", "key", DefaultDataBufferFactory.sharedInstance, () -> loader));
+
+        StepVerifier.create(Flux.merge(first, second))
+                .then(() -> {
+                    opened.tryEmitValue(true);
+                    body.tryEmitNext(buffer("hello"));
+                    body.tryEmitNext(buffer("world"));
+                    body.tryEmitComplete();
+                })
+                .expectNext("helloworld", "helloworld")
+                .verifyComplete();
+        assertEquals(1, calls.get());
+        assertEquals(1.0, count("get", "leader"));
+        assertEquals(1.0, count("get", "joined"));
+    }
+
+    @Test
+    void getThatNobodyJoinedStreamsTheBackendBuffersStraightThrough() {
+        DataBuffer chunk = buffer("hello");
+        AtomicInteger calls = new AtomicInteger();
+        Mono<StreamedObject> loader = Mono.fromSupplier(() -> {
+            calls.incrementAndGet();
+            return new StreamedObject(5, "text/plain", "etag", Flux.just(chunk));
+        });
+
+        StepVerifier.create(coalescer.get("acme", "acme-data", "key", DefaultDataBufferFactory.sharedInstance, () -> loader)
+                        .flatMapMany(StreamedObject::body))
+                .expectNextMatches(buffer -> buffer == chunk)
+                .verifyComplete();
+
+        // The flight ended when the leader took the body, so a later GET starts its own
+        StepVerifier.create(coalescer.get("acme", "acme-data", "key", DefaultDataBufferFactory.sharedInstance, () -> loader)
+                        .flatMapMany(StreamedObject::body))
+                .expectNextCount(1)
+                .verifyComplete();
+        assertEquals(2, calls.get());
+        assertEquals(2.0, count("get", "leader"));
+        assertEquals(0.0, count("get", "joined"));
+    }
+
+    @Test
+    void objectsAboveTheLimitAreFetchedSeparately() {
+        AtomicInteger calls = new AtomicInteger();
+        Sinks.One<Long> opened = Sinks.one();
+        Mono<StreamedObject> loader = opened.asMono()
+                .map(length -> {
+                    calls.incrementAndGet();
+                    return new StreamedObject(length, null, "etag", Flux.defer(() -> Flux.just(buffer("big"))));
+                });
+
+        Mono<String> first = read(coalescer.get("acme", "acme-data", "big", DefaultDataBufferFactory.sharedInstance, () -> loader));
+        Mono<String> second = read(coalescer.get("acme", "acme-data", "big", DefaultDataBufferFactory.sharedInstance, () -> loader));
+
+        StepVerifier.create(Flux.merge(first, second))
+                .then(() -> opened.tryEmitValue(DataSize.ofMegabytes(1).toBytes()))
+                .expectNext("big", "big")
+                .verifyComplete();
+        assertEquals(2, calls.get());
+        assertEquals(1.0, count("get", "bypassed"));
+    }
+
+    @Test
+    void disabledCoalescerCallsTheBackendEveryTime() {
+        RequestCoalescer disabled = new RequestCoalescer(false, DataSize.ofBytes(0), meterRegistry);
+        AtomicInteger calls = new AtomicInteger();
+
+        Flux.range(0, 3)
+                .flatMap(i -> disabled.head("acme", "acme-data", "key", () -> Mono.fromSupplier(calls::incrementAndGet)))
+                .blockLast();
+
+        assertEquals(3, calls.get());
+    }
+
+    private double count(String operation, String result) {
+        return meterRegistry.counter("ironbucket.s3.coalescing.requests", "operation", operation, "result", result).count();
+    }
+
+    private static Mono<String> read(Mono<StreamedObject> object) {
+        return object.flatMap(streamed -> DataBufferUtils.join(streamed.body()))
+                .map(joined -> {
+                    String text = joined.toString(StandardCharsets.UTF_8);
+                    DataBufferUtils.release(joined);
+                    return text;
+                });
+    }
+
+    private static DataBuffer buffer(String text) {
+        return DefaultDataBufferFactory.sharedInstance.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
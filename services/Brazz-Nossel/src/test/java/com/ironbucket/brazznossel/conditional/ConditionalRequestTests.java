@@ -0,0 +1,64 @@
+package com.ironbucket.brazznossel.conditional;
+
+import com.ironbucket.brazznossel.conditional.ConditionalRequest.Outcome;
+import com.ironbucket.brazznossel.model.ObjectMetadata;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class ConditionalRequestTests {
+
+    private static final Instant MODIFIED = Instant.parse("2026-03-01T10:15:30.250Z");
+    private static final ObjectMetadata CURRENT = new ObjectMetadata("\"abc\"", 5, "text/plain", MODIFIED, null);
+
+    @Test
+    void revalidationWithCurrentTagOrDateIsNotModified() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch("\"abc\"");
+        assertEquals(Outcome.NOT_MODIFIED, ConditionalRequest.fromHeaders(headers).evaluate(CURRENT, true));
+
+        // The sub-second part of the backend timestamp cannot be expressed in an HTTP date
+        headers = new HttpHeaders();
+        headers.setIfModifiedSince(Instant.parse("2026-03-01T10:15:30Z"));
+        assertEquals(Outcome.NOT_MODIFIED, ConditionalRequest.fromHeaders(headers).evaluate(CURRENT, true));
+
+        headers = new HttpHeaders();
+        headers.setIfNoneMatch("\"older\"");
+        headers.setIfModifiedSince(Instant.parse("2026-03-01T10:15:30Z"));
+        // If-None-Match takes precedence over the date
+        assertEquals(Outcome.PROCEED, ConditionalRequest.fromHeaders(headers).evaluate(CURRENT, true));
+    }
+
+    @Test
+    void ifMatchGivesOptimisticConcurrencyOnWrites() {
+        assertEquals(Outcome.PROCEED,
+            new ConditionalRequest(List.of("abc"), null, null, null).evaluate(CURRENT, false));
+        assertEquals(Outcome.PRECONDITION_FAILED,
+            new ConditionalRequest(List.of("\"other\""), null, null, null).evaluate(CURRENT, false));
+        assertEquals(Outcome.PRECONDITION_FAILED,
+            new ConditionalRequest(List.of("W/\"abc\""), null, null, null).evaluate(CURRENT, false));
+        assertEquals(Outcome.PRECONDITION_FAILED, new ConditionalRequest(List.of("*"), null, null, null).evaluateMissing());
+    }
+
+    @Test
+    void createOnlyWriteFailsWhenTheObjectExists() {
+        ConditionalRequest createOnly = new ConditionalRequest(null, List.of("*"), null, null);
+
+        assertEquals(Outcome.PRECONDITION_FAILED, createOnly.evaluate(CURRENT, false));
+        assertEquals(Outcome.PROCEED, createOnly.evaluateMissing());
+        assertFalse(new ConditionalRequest(null, null, null, null).isPresent());
+    }
+
+    @Test
+    void ifUnmodifiedSinceFailsForLaterChanges() {
+        assertEquals(Outcome.PRECONDITION_FAILED,
+            new ConditionalRequest(null, null, null, Instant.parse("2026-03-01T10:00:00Z")).evaluate(CURRENT, true));
+        assertEquals(Outcome.PROCEED,
+            new ConditionalRequest(null, null, null, Instant.parse("2026-03-01T10:15:30Z")).evaluate(CURRENT, true));
+    }
+}
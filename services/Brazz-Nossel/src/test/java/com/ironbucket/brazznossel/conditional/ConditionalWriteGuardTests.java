@@ -0,0 +1,88 @@
+package com.ironbucket.brazznossel.conditional;
+
+import com.ironbucket.brazznossel.model.ObjectMetadata;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ConditionalWriteGuardTests {
+
+    private static final ConditionalRequest CREATE_ONLY = new ConditionalRequest(null, List.of("*"), null, null);
+
+    @Test
+    void concurrentCreateOnlyWritesLetExactlyOneThrough() {
+        ConditionalWriteGuard guard = new ConditionalWriteGuard();
+        AtomicReference<ObjectMetadata> stored = new AtomicReference<>();
+        Sinks.Empty<Void> firstUpload = Sinks.empty();
+
+        Mono<String> first = guard.write("tenant-a", "tenant-a-logs", "app.log", CREATE_ONLY,
+                () -> current(stored),
+                () -> firstUpload.asMono().then(Mono.fromCallable(() -> {
+                    stored.set(new ObjectMetadata("\"first\"", 1, null, null, null));
+                    return "\"first\"";
+                })));
+        Mono<String> second = guard.write("tenant-a", "tenant-a-logs", "app.log", CREATE_ONLY,
+                () -> current(stored),
+                () -> Mono.just("\"second\""));
+
+        // Both are checked while the object is still missing; the second must wait for the first upload
+        StepVerifier.create(Mono.zip(first, second.onErrorResume(PreconditionFailedException.class, error -> Mono.just("412"))))
+                .then(firstUpload::tryEmitEmpty)
+                .assertNext(results -> {
+                    assertEquals("\"first\"", results.getT1());
+                    assertEquals("412", results.getT2());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void deleteCannotLandBetweenACheckAndItsUpload() {
+        ConditionalWriteGuard guard = new ConditionalWriteGuard();
+        AtomicReference<ObjectMetadata> stored = new AtomicReference<>(new ObjectMetadata("\"v1\"", 1, null, null, null));
+        Sinks.Empty<Void> upload = Sinks.empty();
+        List<String> order = new CopyOnWriteArrayList<>();
+
+        Mono<String> overwrite = guard.write("tenant-a", "tenant-a-logs", "app.log",
+                new ConditionalRequest(List.of("\"v1\""), null, null, null),
+                () -> current(stored),
+                () -> upload.asMono().then(Mono.fromCallable(() -> {
+                    order.add("put");
+                    return "\"v2\"";
+                })));
+        Mono<Void> delete = guard.write("tenant-a", "tenant-a-logs", "app.log", () -> Mono.fromRunnable(() -> order.add("delete")));
+
+        StepVerifier.create(Mono.when(overwrite, delete))
+                .then(() -> assertEquals(List.of(), order))
+                .then(upload::tryEmitEmpty)
+                .verifyComplete();
+        assertEquals(List.of("put", "delete"), order);
+    }
+
+    @Test
+    void writesToOtherKeysDoNotWait() {
+        ConditionalWriteGuard guard = new ConditionalWriteGuard();
+        Sinks.Empty<Void> blocked = Sinks.empty();
+        guard.write("tenant-a", "tenant-a-logs", "app.log", CREATE_ONLY, Mono::empty, blocked::asMono).subscribe();
+
+        StepVerifier.create(guard.write("tenant-a", "tenant-a-logs", "other.log", CREATE_ONLY,
+                        () -> Mono.error(S3Exception.builder().statusCode(404).build()),
+                        () -> Mono.just("\"other\"")))
+                .expectNext("\"other\"")
+                .verifyComplete();
+        blocked.tryEmitEmpty();
+    }
+
+    private static Mono<ObjectMetadata> current(AtomicReference<ObjectMetadata> stored) {
+        return Mono.defer(() -> stored.get() == null
+                ? Mono.error(S3Exception.builder().statusCode(404).build())
+                : Mono.just(stored.get()));
+    }
+}
@@ -1,24 +1,53 @@
 package com.ironbucket.brazznossel.controller;
 
+import com.ironbucket.brazznossel.conditional.PreconditionFailedException;
+import com.ironbucket.brazznossel.model.BucketSummary;
+import com.ironbucket.brazznossel.model.ListObjectsQuery;
+import com.ironbucket.brazznossel.model.ListingEntry;
 import com.ironbucket.brazznossel.model.NormalizedIdentity;
+import com.ironbucket.brazznossel.model.ObjectListingPage;
 import com.ironbucket.brazznossel.service.S3ProxyService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.ReactiveAdapterRegistry;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
 import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.security.web.reactive.result.method.annotation.AuthenticationPrincipalArgumentResolver;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
 
 import software.amazon.awssdk.services.s3.model.CompletedPart;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 class S3ControllerTests {
 
+    private static final List<String> LISTED_KEYS = List.of("logs/a.log", "logs/b.log", "logs/c.log", "other/d.log");
+
     private WebTestClient client;
     private S3Controller controller;
+    private final List<ListObjectsQuery> pageRequests = new ArrayList<>();
 
     @BeforeEach
     void setUp() {
@@ -28,6 +57,11 @@ class S3ControllerTests {
                 return Mono.just("[]");
             }
 
+            @Override
+            public Flux<BucketSummary> listBucketSummaries(NormalizedIdentity identity) {
+                return Flux.empty();
+            }
+
             @Override
             public Mono<String> createBucket(String bucket, NormalizedIdentity identity) {
                 return Mono.just("ok");
@@ -43,6 +77,25 @@ class S3ControllerTests {
                 return Mono.just("[]");
             }
 
+            @Override
+            public Mono<ObjectListingPage> listObjectsPage(String bucket, ListObjectsQuery query, NormalizedIdentity identity) {
+                // Pages over LISTED_KEYS; the continuation token is the index of the next key
+                pageRequests.add(query);
+                List<String> matching = LISTED_KEYS.stream()
+                        .filter(key -> query.prefix() == null || key.startsWith(query.prefix()))
+                        .toList();
+                int from = query.continuationToken() == null ? 0 : Integer.parseInt(query.continuationToken());
+                int to = Math.min(matching.size(), from + (query.maxKeys() == null ? ListObjectsQuery.MAX_KEYS_LIMIT : query.maxKeys()));
+                boolean truncated = to < matching.size();
+                return Mono.just(new ObjectListingPage(
+                        matching.subList(from, to).stream()
+                                .map(key -> ListingEntry.object(key, 1L, "\"" + key + "\"", null, "STANDARD"))
+                                .toList(),
+                        List.of(),
+                        truncated,
+                        truncated ? Integer.toString(to) : null));
+            }
+
             @Override
             public Mono<byte[]> getObject(String bucket, String key, NormalizedIdentity identity) {
                 return Mono.just(new byte[0]);
@@ -244,7 +297,9 @@ class S3ControllerTests {
             .expectNext("{}")
             .verifyComplete();
 
-        StepVerifier.create(controller.headObject("tenant-a-files", "a.txt", jwt))
+        MockServerWebExchange headExchange = MockServerWebExchange.from(
+            MockServerHttpRequest.head("/s3/object/tenant-a-files/a.txt"));
+        StepVerifier.create(controller.headObject("tenant-a-files", "a.txt", headExchange, jwt))
             .expectNext("{}")
             .verifyComplete();
 
@@ -303,6 +358,119 @@ class S3ControllerTests {
             .verifyComplete();
     }
 
+    @Test
+    void objectGetAndPutAreStreamedThroughTheController() {
+        Jwt jwt = jwtPrincipal();
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+            MockServerHttpRequest.get("/s3/object/tenant-a-files/a.txt"));
+
+        StepVerifier.create(controller.getObject("tenant-a-files", "a.txt", exchange, jwt))
+            .assertNext(response -> {
+                org.junit.jupiter.api.Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+                org.junit.jupiter.api.Assertions.assertEquals(0, response.getHeaders().getContentLength());
+            })
+            .verifyComplete();
+
+        MockServerHttpRequest upload = MockServerHttpRequest.post("/s3/object/tenant-a-files/a.txt")
+            .contentLength(4)
+            .body("data");
+
+        StepVerifier.create(controller.putObject("tenant-a-files", "a.txt", upload, jwt))
+            .expectNext("ok")
+            .verifyComplete();
+    }
+
+    @Test
+    void preconditionsAreAnsweredFromObjectMetadataWithoutTheBody() {
+        Jwt jwt = jwtPrincipal();
+        MockServerWebExchange revalidation = MockServerWebExchange.from(
+            MockServerHttpRequest.get("/s3/object/tenant-a-files/a.txt").ifNoneMatch("\"{}\""));
+
+        StepVerifier.create(controller.getObject("tenant-a-files", "a.txt", revalidation, jwt))
+            .assertNext(response -> {
+                org.junit.jupiter.api.Assertions.assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+                org.junit.jupiter.api.Assertions.assertNull(response.getBody());
+            })
+            .verifyComplete();
+
+        MockServerHttpRequest staleUpload = MockServerHttpRequest.post("/s3/object/tenant-a-files/a.txt")
+            .header("If-Match", "\"stale\"")
+            .contentLength(4)
+            .body("data");
+
+        StepVerifier.create(controller.putObject("tenant-a-files", "a.txt", staleUpload, jwt))
+            .expectError(PreconditionFailedException.class)
+            .verify();
+    }
+
+    @Test
+    void listingPagesFollowContinuationTokens() {
+        Jwt jwt = jwtPrincipal();
+
+        StepVerifier.create(controller.listObjectsPage("tenant-a-files", "logs/", null, null, 2, null, jwt))
+            .assertNext(page -> {
+                assertEquals(List.of("logs/a.log", "logs/b.log"), page.objects().stream().map(ListingEntry::key).toList());
+                assertTrue(page.truncated());
+                assertEquals("2", page.nextContinuationToken());
+            })
+            .verifyComplete();
+
+        StepVerifier.create(controller.listObjectsPage("tenant-a-files", "logs/", null, null, 2, "2", jwt))
+            .assertNext(page -> {
+                assertEquals(List.of("logs/c.log"), page.objects().stream().map(ListingEntry::key).toList());
+                assertFalse(page.truncated());
+                assertNull(page.nextContinuationToken());
+            })
+            .verifyComplete();
+    }
+
+    @Test
+    void maxKeysMustBeBetweenOneAndAThousand() {
+        Jwt jwt = jwtPrincipal();
+
+        assertThrows(IllegalArgumentException.class,
+            () -> controller.listObjectsPage("tenant-a-files", null, null, null, 0, null, jwt));
+        assertThrows(IllegalArgumentException.class,
+            () -> controller.listObjectsPage("tenant-a-files", null, null, null, ListObjectsQuery.MAX_KEYS_LIMIT + 1, null, jwt));
+        assertThrows(IllegalArgumentException.class,
+            () -> controller.listObjectsStream("tenant-a-files", null, null, null, -1, jwt));
+
+        StepVerifier.create(controller.listObjectsPage("tenant-a-files", null, null, null, ListObjectsQuery.MAX_KEYS_LIMIT, null, jwt))
+            .assertNext(page -> assertEquals(4, page.objects().size()))
+            .verifyComplete();
+    }
+
+    @Test
+    void listingStreamIsFramedAsOneJsonEntryPerLine() {
+        WebTestClient authenticated = WebTestClient.bindToController(controller)
+            .argumentResolvers(resolvers -> resolvers.addCustomResolver(
+                new AuthenticationPrincipalArgumentResolver(ReactiveAdapterRegistry.getSharedInstance())))
+            .webFilter((exchange, chain) -> chain.filter(exchange)
+                .contextWrite(ReactiveSecurityContextHolder.withAuthentication(new JwtAuthenticationToken(jwtPrincipal()))))
+            .build();
+
+        String body = authenticated.get()
+            .uri("/s3/objects/tenant-a-files/stream?prefix=logs/&max-keys=2")
+            .accept(MediaType.APPLICATION_NDJSON)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+            .expectBody(String.class)
+            .returnResult()
+            .getResponseBody();
+
+        assertTrue(body.endsWith("\n"), "every entry ends with a newline");
+        String[] lines = body.split("\n");
+        assertEquals(3, lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            assertTrue(lines[i].startsWith("{") && lines[i].endsWith("}"), "one JSON object per line: " + lines[i]);
+            assertTrue(lines[i].contains("\"key\":\"" + LISTED_KEYS.get(i) + "\""), lines[i]);
+        }
+        // Entries were fetched two at a time, following the continuation token
+        assertEquals(List.of(2, 2), pageRequests.stream().map(ListObjectsQuery::maxKeys).toList());
+        assertEquals(Arrays.asList(null, "2"), pageRequests.stream().map(ListObjectsQuery::continuationToken).toList());
+    }
+
     @Test
     void tenantExtractionUsesTenantIdAliasesAndFallbacks() {
         AtomicReference<NormalizedIdentity> capturedIdentity = new AtomicReference<>();
@@ -313,9 +481,11 @@ class S3ControllerTests {
                 return Mono.just("[]");
             }
 
+            @Override public Flux<BucketSummary> listBucketSummaries(NormalizedIdentity identity) { return Flux.empty(); }
             @Override public Mono<String> createBucket(String bucket, NormalizedIdentity identity) { return Mono.just("ok"); }
             @Override public Mono<Void> deleteBucket(String bucket, NormalizedIdentity identity) { return Mono.empty(); }
             @Override public Mono<String> listObjects(String bucket, NormalizedIdentity identity) { return Mono.just("[]"); }
+            @Override public Mono<ObjectListingPage> listObjectsPage(String bucket, ListObjectsQuery query, NormalizedIdentity identity) { return Mono.just(new ObjectListingPage(List.of(), List.of(), false, null)); }
             @Override public Mono<byte[]> getObject(String bucket, String key, NormalizedIdentity identity) { return Mono.just(new byte[0]); }
             @Override public Mono<String> headObject(String bucket, String key, NormalizedIdentity identity) { return Mono.just("{}"); }
             @Override public Mono<String> headBucket(String bucket, NormalizedIdentity identity) { return Mono.just("{}"); }
@@ -347,28 +517,28 @@ class S3ControllerTests {
             @Override public Mono<String> getBucketLocation(String bucket, NormalizedIdentity identity) { return Mono.just("us-east-1"); }
         });
 
-        StepVerifier.create(tenantAwareController.listBuckets(jwtWithClaims(Map.of("tenant_id", "tenant-snake"))))
-            .expectNext("[]")
+        StepVerifier.create(tenantAwareController.listBuckets(listingExchange(), jwtWithClaims(Map.of("tenant_id", "tenant-snake"))))
+            .assertNext(response -> org.junit.jupiter.api.Assertions.assertEquals("[]", text(response)))
             .verifyComplete();
         org.junit.jupiter.api.Assertions.assertEquals("tenant-snake", capturedIdentity.get().getTenantId());
 
-        StepVerifier.create(tenantAwareController.listBuckets(jwtWithClaims(Map.of("tenantId", "tenant-camel"))))
-            .expectNext("[]")
+        StepVerifier.create(tenantAwareController.listBuckets(listingExchange(), jwtWithClaims(Map.of("tenantId", "tenant-camel"))))
+            .assertNext(response -> org.junit.jupiter.api.Assertions.assertEquals("[]", text(response)))
             .verifyComplete();
         org.junit.jupiter.api.Assertions.assertEquals("tenant-camel", capturedIdentity.get().getTenantId());
 
-        StepVerifier.create(tenantAwareController.listBuckets(jwtWithClaims(Map.of("organization", "org-fallback"))))
-            .expectNext("[]")
+        StepVerifier.create(tenantAwareController.listBuckets(listingExchange(), jwtWithClaims(Map.of("organization", "org-fallback"))))
+            .assertNext(response -> org.junit.jupiter.api.Assertions.assertEquals("[]", text(response)))
             .verifyComplete();
         org.junit.jupiter.api.Assertions.assertEquals("org-fallback", capturedIdentity.get().getTenantId());
 
-        StepVerifier.create(tenantAwareController.listBuckets(jwtWithClaims(Map.of("groups", List.of("org:group-org")))))
-            .expectNext("[]")
+        StepVerifier.create(tenantAwareController.listBuckets(listingExchange(), jwtWithClaims(Map.of("groups", List.of("org:group-org")))))
+            .assertNext(response -> org.junit.jupiter.api.Assertions.assertEquals("[]", text(response)))
             .verifyComplete();
         org.junit.jupiter.api.Assertions.assertEquals("group-org", capturedIdentity.get().getTenantId());
 
-        StepVerifier.create(tenantAwareController.listBuckets(jwtWithClaims(Map.of())))
-            .expectNext("[]")
+        StepVerifier.create(tenantAwareController.listBuckets(listingExchange(), jwtWithClaims(Map.of())))
+            .assertNext(response -> org.junit.jupiter.api.Assertions.assertEquals("[]", text(response)))
             .verifyComplete();
         org.junit.jupiter.api.Assertions.assertEquals("default", capturedIdentity.get().getTenantId());
     }
@@ -380,6 +550,17 @@ class S3ControllerTests {
             .verify();
     }
 
+    private MockServerWebExchange listingExchange() {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/s3/buckets"));
+    }
+
+    private static String text(ResponseEntity<Flux<DataBuffer>> response) {
+        DataBuffer joined = DataBufferUtils.join(response.getBody()).block();
+        String text = joined.toString(StandardCharsets.UTF_8);
+        DataBufferUtils.release(joined);
+        return text;
+    }
+
     private Jwt jwtPrincipal() {
         return Jwt.withTokenValue("test-token")
             .header("alg", "none")
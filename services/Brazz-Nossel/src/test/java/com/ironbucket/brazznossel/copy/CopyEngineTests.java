@@ -0,0 +1,103 @@
+package com.ironbucket.brazznossel.copy;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CopyEngineTests {
+
+    private static final long MIB = 1024 * 1024;
+
+    @Test
+    void largeObjectIsCopiedAsContiguousPartRanges() {
+        CopyEngine engine = new CopyEngine(DataSize.ofMegabytes(64), DataSize.ofMegabytes(32), 4);
+        RecordingTarget target = new RecordingTarget(-1);
+        long length = 100 * MIB;
+
+        assertTrue(engine.requiresMultipart(length));
+        assertFalse(engine.requiresMultipart(10 * MIB));
+
+        StepVerifier.create(engine.multipartCopy(length, target))
+            .expectNext("copy-etag")
+            .verifyComplete();
+
+        assertEquals(Map.of(
+            1, "bytes=0-33554431",
+            2, "bytes=33554432-67108863",
+            3, "bytes=67108864-100663295",
+            4, "bytes=100663296-104857599"
+        ), target.ranges);
+        assertEquals(List.of(1, 2, 3, 4), target.completed.get().stream().map(CompletedPart::partNumber).toList());
+        assertNull(target.aborted.get());
+    }
+
+    @Test
+    void objectsOverFiveGigabytesAlwaysUseMultipart() {
+        CopyEngine engine = new CopyEngine(DataSize.ofTerabytes(1), DataSize.ofMegabytes(256), 4);
+
+        assertTrue(engine.requiresMultipart(5 * 1024 * MIB + 1));
+    }
+
+    @Test
+    void failedPartAbortsTheCopy() {
+        CopyEngine engine = new CopyEngine(DataSize.ofMegabytes(64), DataSize.ofMegabytes(32), 2);
+        RecordingTarget target = new RecordingTarget(3);
+
+        StepVerifier.create(engine.multipartCopy(100 * MIB, target))
+            .expectErrorMessage("part 3 failed")
+            .verify();
+
+        assertEquals("upload-1", target.aborted.get());
+        assertNull(target.completed.get());
+    }
+
+    private static final class RecordingTarget implements CopyEngine.MultipartCopyTarget {
+
+        private final int failingPart;
+        private final Map<Integer, String> ranges = new ConcurrentHashMap<>();
+        private final AtomicReference<List<CompletedPart>> completed = new AtomicReference<>();
+        private final AtomicReference<String> aborted = new AtomicReference<>();
+
+        private RecordingTarget(int failingPart) {
+            this.failingPart = failingPart;
+        }
+
+        @Override
+        public Mono<String> initiate() {
+            return Mono.just("upload-1");
+        }
+
+        @Override
+        public Mono<String> copyPart(String uploadId, int partNumber, long start, long end) {
+            if (partNumber == failingPart) {
+                return Mono.error(new IllegalStateException("part " + partNumber + " failed"));
+            }
+            ranges.put(partNumber, "bytes=" + start + "-" + end);
+            return Mono.just("etag-" + partNumber);
+        }
+
+        @Override
+        public Mono<String> complete(String uploadId, List<CompletedPart> parts) {
+            completed.set(parts);
+            return Mono.just("copy-etag");
+        }
+
+        @Override
+        public Mono<Void> abort(String uploadId) {
+            aborted.set(uploadId);
+            return Mono.empty();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.ironbucket.brazznossel.cutover;
+
+import com.ironbucket.brazznossel.model.CutoverRequest;
+import com.ironbucket.brazznossel.model.CutoverStatus;
+import com.ironbucket.brazznossel.model.ListingEntry;
+import com.ironbucket.brazznossel.service.BackendRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DualWriteServiceTests {
+
+    private static final Instant NOW = Instant.parse("2026-03-01T00:00:00Z");
+
+    @Test
+    void cutoverRequiresBothACompleteBackfillAndNoDivergences() {
+        DualWriteService service = service(new BackendRouter("", ""));
+
+        assertTrue(service.validateDualWriteCutover(true, true));
+        assertFalse(service.validateDualWriteCutover(true, false));
+        assertFalse(service.validateDualWriteCutover(false, true));
+    }
+
+    @Test
+    void startingAMigrationMirrorsWritesUntilItIsAborted() {
+        DualWriteService service = service(new BackendRouter("acme=aws-s3", ""));
+
+        CutoverStatus status = service.start("acme", new CutoverRequest("gcs", true));
+
+        assertEquals("AWS_S3", status.sourceProvider());
+        assertEquals(CutoverStatus.Phase.DUAL_WRITE, status.phase());
+        assertEquals("GCS", service.dualWriteTarget("acme"));
+        assertNull(service.dualWriteTarget("other"));
+        assertThrows(ResponseStatusException.class, () -> service.start("acme", new CutoverRequest("azure-blob", null)));
+
+        service.abort("acme");
+
+        assertNull(service.dualWriteTarget("acme"));
+        assertEquals(CutoverStatus.Phase.ABORTED, service.status("acme").phase());
+    }
+
+    @Test
+    void unknownOrUnchangedTargetIsRejected() {
+        DualWriteService service = service(new BackendRouter("acme=gcs", ""));
+
+        assertThrows(IllegalArgumentException.class, () -> service.start("acme", new CutoverRequest("tape", null)));
+        assertThrows(IllegalArgumentException.class, () -> service.start("acme", new CutoverRequest("gcs", null)));
+    }
+
+    @Test
+    void backfillCopiesMissingObjectsAndCutoverMovesTheTenantRouting() {
+        BackendRouter router = new BackendRouter("acme=aws-s3,other=aws-s3", "acme/acme-logs=azure-blob,other/other-a=gcs");
+        DualWriteService service = service(router);
+        FakeBackfill backfill = new FakeBackfill();
+        backfill.present.add("b.txt");
+
+        service.start("acme", new CutoverRequest("gcs", false));
+        assertThrows(ResponseStatusException.class, () -> service.cutover("acme", false));
+
+        StepVerifier.create(service.runPendingBackfills(backfill)).verifyComplete();
+
+        CutoverStatus backfilled = service.status("acme");
+        assertEquals(CutoverStatus.BackfillState.COMPLETED, backfilled.backfill());
+        assertEquals(2, backfilled.objectsCopied());
+        assertEquals(1, backfilled.objectsSkipped());
+        assertEquals(30, backfilled.bytesCopied());
+        assertEquals(Set.of("acme-data", "acme-logs"), backfill.prepared);
+
+        CutoverStatus cutOver = service.cutover("acme", false);
+
+        assertEquals(CutoverStatus.Phase.CUT_OVER, cutOver.phase());
+        assertEquals(Map.of("acme", "GCS", "other", "AWS_S3"), router.rules().tenantDefaults());
+        assertEquals(Map.of("other/other-a", "GCS"), router.rules().bucketOverrides());
+        assertNull(service.dualWriteTarget("acme"));
+    }
+
+    @Test
+    void divergenceBlocksCutoverUnlessForced() {
+        BackendRouter router = new BackendRouter("", "");
+        DualWriteService service = service(router);
+        FakeBackfill backfill = new FakeBackfill();
+        backfill.diverging.add("c.txt");
+
+        service.start("acme", new CutoverRequest("gcs", false));
+        StepVerifier.create(service.runPendingBackfills(backfill)).verifyComplete();
+        service.recordWriteDivergence("acme", "acme-data", "d.txt", "target write failed");
+
+        assertEquals(2, service.status("acme").writeDivergences());
+        assertThrows(ResponseStatusException.class, () -> service.cutover("acme", false));
+
+        service.cutover("acme", true);
+
+        assertEquals(Map.of("acme", "GCS"), router.rules().tenantDefaults());
+    }
+
+    @Test
+    void failedBackfillIsReported() {
+        DualWriteService service = service(new BackendRouter("", ""));
+        FakeBackfill backfill = new FakeBackfill();
+        backfill.listingError = new IllegalStateException("listing failed");
+
+        service.start("acme", new CutoverRequest("gcs", false));
+        StepVerifier.create(service.runPendingBackfills(backfill)).verifyComplete();
+
+        CutoverStatus status = service.status("acme");
+        assertEquals(CutoverStatus.BackfillState.FAILED, status.backfill());
+        assertEquals("listing failed", status.error());
+    }
+
+    @Test
+    void shadowReadsAreOnlySampledWhenRequested() {
+        DualWriteService service = new DualWriteService(
+            new BackendRouter("", ""), true, 1, 1.0, new SimpleMeterRegistry(), Clock.fixed(NOW, ZoneOffset.UTC));
+
+        service.start("acme", new CutoverRequest("gcs", true));
+        service.start("other", new CutoverRequest("gcs", false));
+        service.recordShadowRead("acme", "acme-data", "a.txt", false);
+
+        assertTrue(service.sampleShadowRead("acme"));
+        assertFalse(service.sampleShadowRead("other"));
+        assertEquals(1, service.status("acme").shadowReadMismatches());
+    }
+
+    @Test
+    void disabledServiceRefusesToStart() {
+        DualWriteService service = new DualWriteService(null, false, 1, 0.0, new SimpleMeterRegistry());
+
+        assertThrows(ResponseStatusException.class, () -> service.start("acme", new CutoverRequest("gcs", null)));
+        assertNull(service.dualWriteTarget("acme"));
+    }
+
+    private static DualWriteService service(BackendRouter router) {
+        return new DualWriteService(router, true, 2, 0.0, new SimpleMeterRegistry(), Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    private static final class FakeBackfill implements DualWriteService.BackfillTarget {
+
+        final Set<String> present = ConcurrentHashMap.newKeySet();
+        final Set<String> diverging = ConcurrentHashMap.newKeySet();
+        final Set<String> prepared = ConcurrentHashMap.newKeySet();
+        RuntimeException listingError;
+
+        @Override
+        public Flux<String> buckets(String tenantId) {
+            return listingError != null ? Flux.error(listingError) : Flux.just("acme-data", "acme-logs");
+        }
+
+        @Override
+        public Mono<Void> prepareBucket(String tenantId, String bucket, String targetProvider) {
+            return Mono.fromRunnable(() -> prepared.add(bucket));
+        }
+
+        @Override
+        public Flux<ListingEntry> objects(String tenantId, String bucket) {
+            if (bucket.equals("acme-logs")) {
+                return Flux.just(ListingEntry.object("c.txt", 20L, "\"c\"", NOW, "STANDARD"));
+            }
+            return Flux.just(
+                ListingEntry.object("a.txt", 10L, "\"a\"", NOW, "STANDARD"),
+                ListingEntry.object("b.txt", 5L, "\"b\"", NOW, "STANDARD"));
+        }
+
+        @Override
+        public Mono<DualWriteService.CopyOutcome> copy(String tenantId, String bucket, ListingEntry object, String targetProvider) {
+            if (present.contains(object.key())) {
+                return Mono.just(DualWriteService.CopyOutcome.SKIPPED);
+            }
+            return Mono.just(diverging.contains(object.key())
+                ? DualWriteService.CopyOutcome.DIVERGED
+                : DualWriteService.CopyOutcome.COPIED);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.ironbucket.brazznossel.download;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParallelRangeDownloaderTests {
+
+    @Test
+    void rangesAreFetchedConcurrentlyAndReassembledInOrder() {
+        ParallelRangeDownloader downloader = new ParallelRangeDownloader(
+            true, DataSize.ofBytes(100), DataSize.ofBytes(10), 3);
+        byte[] object = new byte[95];
+        for (int i = 0; i < object.length; i++) {
+            object[i] = (byte) i;
+        }
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+
+        assertFalse(downloader.appliesTo(object.length));
+        assertTrue(downloader.appliesTo(100));
+
+        // Earlier ranges answer slower than later ones, so reordering is exercised
+        Mono<byte[]> body = DataBufferUtils.join(downloader.download(object.length, (start, end) -> Mono.defer(() -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                return Mono.delay(Duration.ofMillis(30 - start / 5))
+                    .map(tick -> DefaultDataBufferFactory.sharedInstance.wrap(Arrays.copyOfRange(object, (int) start, (int) end + 1)));
+            })
+            .doFinally(signal -> inFlight.decrementAndGet())))
+            .map(buffer -> {
+                byte[] bytes = new byte[buffer.readableByteCount()];
+                buffer.read(bytes);
+                DataBufferUtils.release(buffer);
+                return bytes;
+            });
+
+        StepVerifier.create(body)
+            .assertNext(bytes -> assertArrayEquals(object, bytes))
+            .verifyComplete();
+        assertEquals(3, maxInFlight.get());
+    }
+
+    @Test
+    void failedRangeFailsTheBody() {
+        ParallelRangeDownloader downloader = new ParallelRangeDownloader(
+            true, DataSize.ofBytes(1), DataSize.ofBytes(10), 2);
+
+        StepVerifier.create(downloader.download(30, (start, end) -> start == 10
+                ? Mono.<DataBuffer>error(new IllegalStateException("precondition failed"))
+                : Mono.just(DefaultDataBufferFactory.sharedInstance.wrap(new byte[(int) (end - start + 1)]))))
+            .expectNextCount(1)
+            .expectErrorMessage("precondition failed")
+            .verify();
+    }
+}
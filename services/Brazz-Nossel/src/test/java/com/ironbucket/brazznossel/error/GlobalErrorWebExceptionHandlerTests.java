@@ -0,0 +1,48 @@
+package com.ironbucket.brazznossel.error;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ironbucket.brazznossel.ratelimit.SlowDownException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GlobalErrorWebExceptionHandlerTests {
+
+    private final GlobalErrorWebExceptionHandler handler = new GlobalErrorWebExceptionHandler(new ObjectMapper());
+
+    @Test
+    void throttledRequestsGetAnS3SlowDownError() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+            MockServerHttpRequest.get("/s3/object/acme-data/a.txt").header("X-Request-ID", "req-1"));
+
+        StepVerifier.create(handler.handle(exchange, new SlowDownException("acme", Duration.ofMillis(1500))))
+            .verifyComplete();
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exchange.getResponse().getStatusCode());
+        assertEquals("2", exchange.getResponse().getHeaders().getFirst("Retry-After"));
+        assertTrue(MediaType.APPLICATION_XML.isCompatibleWith(exchange.getResponse().getHeaders().getContentType()));
+        String body = exchange.getResponse().getBodyAsString().block();
+        assertTrue(body.contains("<Error><Code>SlowDown</Code><Message>Please reduce your request rate.</Message>"), body);
+        assertTrue(body.contains("<Resource>/s3/object/acme-data/a.txt</Resource><RequestId>req-1</RequestId>"), body);
+    }
+
+    @Test
+    void otherErrorsKeepTheJsonBody() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/s3/objects/acme-data/page"));
+
+        StepVerifier.create(handler.handle(exchange, new IllegalArgumentException("max-keys must be between 1 and 1000")))
+            .verifyComplete();
+
+        assertEquals(HttpStatus.BAD_REQUEST, exchange.getResponse().getStatusCode());
+        assertTrue(MediaType.APPLICATION_JSON.isCompatibleWith(exchange.getResponse().getHeaders().getContentType()));
+        assertTrue(exchange.getResponse().getBodyAsString().block().contains("max-keys must be between 1 and 1000"));
+    }
+}
@@ -0,0 +1,116 @@
+package com.ironbucket.brazznossel.listing;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ironbucket.brazznossel.model.BucketSummary;
+import com.ironbucket.brazznossel.model.ListObjectsQuery;
+import com.ironbucket.brazznossel.model.ListingEntry;
+import com.ironbucket.brazznossel.model.ObjectListingPage;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.w3c.dom.Document;
+import reactor.core.publisher.Flux;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class S3ListingWriterTests {
+
+    private static final Instant MODIFIED = Instant.parse("2026-03-13T12:00:00Z");
+
+    @Test
+    void objectListingIsOneListBucketResultWrittenPageByPage() throws Exception {
+        AtomicInteger pagesRead = new AtomicInteger();
+        Flux<ObjectListingPage> pages = Flux.just(
+                new ObjectListingPage(List.of(ListingEntry.object("a.txt", 5L, "\"e1\"", MODIFIED, "STANDARD")),
+                        List.of("logs/"), true, "token-2"),
+                new ObjectListingPage(List.of(ListingEntry.object("b <&>.txt", 7L, "\"e2\"", MODIFIED, "STANDARD")),
+                        List.of(), false, null))
+                .doOnNext(page -> pagesRead.incrementAndGet());
+
+        List<String> chunks = S3ListingWriter.objects(ListingFormat.XML, "tenant-a-files",
+                        new ListObjectsQuery("", "/", null, null, null), pages, DefaultDataBufferFactory.sharedInstance)
+                .map(S3ListingWriterTests::text)
+                .collectList()
+                .block();
+
+        // One chunk per page, then the closing elements
+        assertEquals(3, chunks.size());
+        Document xml = parse(String.join("", chunks));
+        assertEquals("ListBucketResult", xml.getDocumentElement().getTagName());
+        assertEquals("http://s3.amazonaws.com/doc/2006-03-01/", xml.getDocumentElement().getNamespaceURI());
+        assertEquals("b <&>.txt", xml.getElementsByTagName("Key").item(1).getTextContent());
+        assertEquals("2026-03-13T12:00:00.000Z", xml.getElementsByTagName("LastModified").item(0).getTextContent());
+        assertEquals("logs/", xml.getElementsByTagName("CommonPrefixes").item(0).getTextContent());
+        assertEquals("3", xml.getElementsByTagName("KeyCount").item(0).getTextContent());
+        assertEquals("false", xml.getElementsByTagName("IsTruncated").item(0).getTextContent());
+        assertEquals(2, pagesRead.get());
+    }
+
+    @Test
+    void jsonListingsCarryTheSameFields() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+
+        JsonNode buckets = mapper.readTree(join(S3ListingWriter.buckets(ListingFormat.JSON, "tenant-a", "alice",
+                Flux.just(new BucketSummary("tenant-a-files", MODIFIED), new BucketSummary("tenant-a-logs", null)),
+                DefaultDataBufferFactory.sharedInstance)));
+        assertEquals("tenant-a", buckets.path("owner").path("id").asText());
+        assertEquals("tenant-a-files", buckets.path("buckets").get(0).path("name").asText());
+        assertEquals("2026-03-13T12:00:00Z", buckets.path("buckets").get(0).path("creationDate").asText());
+        assertEquals(2, buckets.path("buckets").size());
+
+        JsonNode objects = mapper.readTree(join(S3ListingWriter.objects(ListingFormat.JSON, "tenant-a-files",
+                ListObjectsQuery.all(), Flux.empty(), DefaultDataBufferFactory.sharedInstance)));
+        assertEquals(0, objects.path("entries").size());
+        assertEquals(0, objects.path("keyCount").asLong());
+    }
+
+    @Test
+    void bucketListingIsListAllMyBucketsResult() throws Exception {
+        String listing = join(S3ListingWriter.buckets(ListingFormat.XML, "tenant-a", "alice",
+                Flux.just(new BucketSummary("tenant-a-files", MODIFIED)), DefaultDataBufferFactory.sharedInstance));
+
+        Document xml = parse(listing);
+        assertEquals("ListAllMyBucketsResult", xml.getDocumentElement().getTagName());
+        assertEquals("tenant-a", xml.getElementsByTagName("ID").item(0).getTextContent());
+        assertEquals("tenant-a-files", xml.getElementsByTagName("Name").item(0).getTextContent());
+    }
+
+    @Test
+    void formatIsNegotiatedFromExplicitAcceptTypes() {
+        HttpHeaders headers = new HttpHeaders();
+        assertEquals(ListingFormat.TEXT, ListingFormat.negotiate(headers));
+
+        headers.setAccept(List.of(MediaType.ALL, MediaType.APPLICATION_JSON));
+        assertEquals(ListingFormat.JSON, ListingFormat.negotiate(headers));
+
+        headers.setAccept(List.of(MediaType.TEXT_XML));
+        assertEquals(ListingFormat.XML, ListingFormat.negotiate(headers));
+    }
+
+    private static Document parse(String xml) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        return factory.newDocumentBuilder().parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String join(Flux<DataBuffer> chunks) {
+        return text(DataBufferUtils.join(chunks).block());
+    }
+
+    private static String text(DataBuffer buffer) {
+        String text = buffer.toString(StandardCharsets.UTF_8);
+        DataBufferUtils.release(buffer);
+        return text;
+    }
+}
@@ -0,0 +1,121 @@
+package com.ironbucket.brazznossel.multipart;
+
+import com.ironbucket.brazznossel.model.NormalizedIdentity;
+import com.ironbucket.brazznossel.service.S3ProxyService;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+
+class AutoMultipartUploaderTests {
+
+    private static final int CHUNK = 64 * 1024;
+    private static final long PART = AutoMultipartUploader.MIN_PART_SIZE;
+
+    private final NormalizedIdentity identity = NormalizedIdentity.builder()
+        .userId("user-1")
+        .tenantId("tenant-a")
+        .preferredUsername("alice")
+        .roles(List.of("s3:write"))
+        .build();
+
+    @Test
+    void largeBodyIsUploadedAsBoundedParallelParts() {
+        AutoMultipartUploader uploader = new AutoMultipartUploader(
+            true, DataSize.ofMegabytes(8), DataSize.ofBytes(PART), 2, DataSize.ofBytes(PART * 4));
+        S3ProxyService service = Mockito.mock(S3ProxyService.class);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+
+        Mockito.when(service.initiateMultipartUpload("tenant-a-big", "blob", identity)).thenReturn(Mono.just("upload-1"));
+        Mockito.when(service.uploadPart(eq("tenant-a-big"), eq("blob"), eq("upload-1"), anyInt(), any(byte[].class), anyInt(), eq(identity)))
+            .thenAnswer(invocation -> Mono.defer(() -> {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    return Mono.delay(Duration.ofMillis(20)).thenReturn("etag-" + invocation.getArgument(3));
+                })
+                .doFinally(signal -> inFlight.decrementAndGet()));
+        Mockito.when(service.completeMultipartUpload(eq("tenant-a-big"), eq("blob"), eq("upload-1"), anyList(), eq(identity)))
+            .thenReturn(Mono.just("final-etag"));
+
+        long length = PART * 3 + 1024;
+        assertTrue(uploader.appliesTo(length));
+
+        StepVerifier.create(uploader.upload(service, "tenant-a-big", "blob", body(length), length, identity))
+            .expectNext("final-etag")
+            .verifyComplete();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<CompletedPart>> parts = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(service).completeMultipartUpload(eq("tenant-a-big"), eq("blob"), eq("upload-1"), parts.capture(), eq(identity));
+        assertEquals(List.of(1, 2, 3, 4), parts.getValue().stream().map(CompletedPart::partNumber).toList());
+        assertEquals("etag-4", parts.getValue().get(3).eTag());
+        // The trailing part is sent from its part buffer rather than a trimmed copy
+        Mockito.verify(service).uploadPart(eq("tenant-a-big"), eq("blob"), eq("upload-1"), eq(4), any(byte[].class), eq(1024), eq(identity));
+        assertTrue(maxInFlight.get() <= 2, "at most two parts may upload at once, saw " + maxInFlight.get());
+        Mockito.verify(service, Mockito.never()).abortMultipartUpload(any(), any(), any(), any());
+    }
+
+    @Test
+    void failedPartAbortsTheUpload() {
+        AutoMultipartUploader uploader = new AutoMultipartUploader(
+            true, DataSize.ofMegabytes(8), DataSize.ofBytes(PART), 4, DataSize.ofMegabytes(64));
+        S3ProxyService service = Mockito.mock(S3ProxyService.class);
+
+        Mockito.when(service.initiateMultipartUpload(any(), any(), any())).thenReturn(Mono.just("upload-2"));
+        Mockito.when(service.uploadPart(any(), any(), any(), anyInt(), any(byte[].class), anyInt(), any()))
+            .thenAnswer(invocation -> (int) invocation.getArgument(3) == 2
+                ? Mono.error(new IllegalStateException("backend reset"))
+                : Mono.just("etag"));
+        Mockito.when(service.abortMultipartUpload("tenant-a-big", "blob", "upload-2", identity)).thenReturn(Mono.empty());
+
+        long length = PART * 3;
+        StepVerifier.create(uploader.upload(service, "tenant-a-big", "blob", body(length), length, identity))
+            .expectErrorMessage("backend reset")
+            .verify();
+
+        Mockito.verify(service).abortMultipartUpload("tenant-a-big", "blob", "upload-2", identity);
+        Mockito.verify(service, Mockito.never()).completeMultipartUpload(any(), any(), any(), anyList(), any());
+    }
+
+    @Test
+    void smallSizedBodiesStayOnSinglePut() {
+        AutoMultipartUploader uploader = new AutoMultipartUploader(
+            true, DataSize.ofMegabytes(64), DataSize.ofMegabytes(16), 4, DataSize.ofMegabytes(128));
+
+        assertFalse(uploader.appliesTo(1024));
+        assertTrue(uploader.appliesTo(-1));
+        assertFalse(new AutoMultipartUploader(false, DataSize.ofMegabytes(64), DataSize.ofMegabytes(16), 1, DataSize.ofMegabytes(16)).appliesTo(-1));
+        assertEquals(3, uploader.concurrencyFor((int) DataSize.ofMegabytes(32).toBytes()));
+    }
+
+    private static Flux<DataBuffer> body(long length) {
+        DefaultDataBufferFactory factory = DefaultDataBufferFactory.sharedInstance;
+        return Flux.generate(() -> 0L, (offset, sink) -> {
+            int size = (int) Math.min(CHUNK, length - offset);
+            if (size <= 0) {
+                sink.complete();
+                return offset;
+            }
+            sink.next(factory.wrap(new byte[size]));
+            return offset + size;
+        });
+    }
+}
@@ -0,0 +1,103 @@
+package com.ironbucket.brazznossel.multipart;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MultipartCleanupJobTests {
+
+    private static final Instant NOW = Instant.parse("2026-03-01T00:00:00Z");
+
+    @Test
+    void uploadsOlderThanTheTtlAreAbortedAcrossPagesAndBuckets() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MultipartCleanupJob job = new MultipartCleanupJob(true, Duration.ofDays(7), 2, registry, Clock.fixed(NOW, ZoneOffset.UTC));
+        FakeBackend backend = new FakeBackend();
+
+        StepVerifier.create(job.sweep(backend))
+            .expectNext(new MultipartCleanupJob.SweepResult(3, 300, 0))
+            .verifyComplete();
+
+        assertEquals(Set.of("old-1", "old-2", "old-3"), backend.aborted);
+        assertEquals(3.0, registry.get("ironbucket.s3.multipart.cleanup.aborted").counter().count());
+        assertEquals(300.0, registry.get("ironbucket.s3.multipart.cleanup.reclaimed").counter().count());
+        assertEquals(1, registry.get("ironbucket.s3.multipart.cleanup.duration").timer().count());
+        assertTrue(backend.maxInFlight.get() <= 2, "at most two aborts may run at once, saw " + backend.maxInFlight.get());
+    }
+
+    @Test
+    void failedAbortIsCountedAndTheSweepContinues() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MultipartCleanupJob job = new MultipartCleanupJob(true, Duration.ofDays(7), 1, registry, Clock.fixed(NOW, ZoneOffset.UTC));
+        FakeBackend backend = new FakeBackend();
+        backend.failing.add("old-2");
+
+        StepVerifier.create(job.sweep(backend))
+            .expectNext(new MultipartCleanupJob.SweepResult(2, 200, 1))
+            .verifyComplete();
+
+        assertEquals(1.0, registry.get("ironbucket.s3.multipart.cleanup.failed").counter().count());
+    }
+
+    private static final class FakeBackend implements MultipartCleanupJob.SweepTarget {
+
+        final Set<String> aborted = ConcurrentHashMap.newKeySet();
+        final Set<String> failing = ConcurrentHashMap.newKeySet();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+
+        @Override
+        public Flux<String> buckets() {
+            return Flux.just("acme-a", "acme-b");
+        }
+
+        @Override
+        public Mono<MultipartCleanupJob.UploadPage> listUploads(String bucket, String keyMarker, String uploadIdMarker) {
+            if (bucket.equals("acme-b")) {
+                return Mono.just(new MultipartCleanupJob.UploadPage(
+                    List.of(upload(bucket, "old-3", 30)), false, null, null));
+            }
+            if (keyMarker == null) {
+                return Mono.just(new MultipartCleanupJob.UploadPage(
+                    List.of(upload(bucket, "old-1", 8), upload(bucket, "fresh-1", 1)), true, "k", "fresh-1"));
+            }
+            return Mono.just(new MultipartCleanupJob.UploadPage(
+                List.of(upload(bucket, "old-2", 10), upload(bucket, "fresh-2", 6)), false, null, null));
+        }
+
+        @Override
+        public Mono<Long> uploadedBytes(MultipartCleanupJob.PendingUpload upload) {
+            return Mono.just(100L);
+        }
+
+        @Override
+        public Mono<Void> abort(MultipartCleanupJob.PendingUpload upload) {
+            if (failing.contains(upload.uploadId())) {
+                return Mono.error(new IllegalStateException("backend refused"));
+            }
+            return Mono.delay(Duration.ofMillis(10))
+                .doOnSubscribe(subscription -> maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max))
+                .doFinally(signal -> inFlight.decrementAndGet())
+                .doOnNext(tick -> aborted.add(upload.uploadId()))
+                .then();
+        }
+
+        private static MultipartCleanupJob.PendingUpload upload(String bucket, String uploadId, int daysOld) {
+            return new MultipartCleanupJob.PendingUpload(bucket, "key-" + uploadId, uploadId, NOW.minus(Duration.ofDays(daysOld)));
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.ironbucket.brazznossel.quota;
+
+import com.ironbucket.brazznossel.config.QuotaProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuotaEnforcementServiceTests {
+
+    @Test
+    void tenantQuotaComparisonTreatsNegativeLimitsAsUnlimited() {
+        QuotaEnforcementService quota = new QuotaEnforcementService(new QuotaUsageLedger(), new QuotaProperties(), new SimpleMeterRegistry());
+
+        assertTrue(quota.enforceTenantQuota("acme", 10, 10));
+        assertFalse(quota.enforceTenantQuota("acme", 11, 10));
+        assertTrue(quota.enforceTenantQuota("acme", Long.MAX_VALUE, -1));
+        assertFalse(quota.enforceTenantQuota("", 0, 10));
+    }
+
+    @Test
+    void putPastTheByteLimitIsRejectedWithoutRunningTheWrite() {
+        QuotaUsageLedger ledger = new QuotaUsageLedger();
+        QuotaEnforcementService quota = new QuotaEnforcementService(ledger, limits(100, -1), new SimpleMeterRegistry());
+
+        StepVerifier.create(quota.enforcePut("acme", "acme-a", 80, -1, Mono.just("etag")))
+            .expectNext("etag")
+            .verifyComplete();
+        StepVerifier.create(quota.enforcePut("acme", "acme-a", 30, -1, Mono.error(new AssertionError("must not run"))))
+            .expectError(QuotaExceededException.class)
+            .verify();
+
+        assertEquals(new QuotaUsageLedger.Usage(80, 1, false), ledger.tenantUsage("acme"));
+    }
+
+    @Test
+    void failedWriteGivesItsReservationBack() {
+        QuotaUsageLedger ledger = new QuotaUsageLedger();
+        QuotaEnforcementService quota = new QuotaEnforcementService(ledger, limits(100, -1), new SimpleMeterRegistry());
+
+        StepVerifier.create(quota.enforcePut("acme", "acme-a", 60, -1, Mono.error(new IllegalStateException("backend down"))))
+            .expectError(IllegalStateException.class)
+            .verify();
+        StepVerifier.create(quota.enforcePart("acme", "acme-a", "u1", 60, Mono.error(new IllegalStateException("backend down"))))
+            .expectError(IllegalStateException.class)
+            .verify();
+
+        assertEquals(new QuotaUsageLedger.Usage(0, 0, false), ledger.tenantUsage("acme"));
+    }
+
+    @Test
+    void overwriteIsCheckedOnlyForItsGrowthAndObjectLimitsApplyToNewObjects() {
+        QuotaUsageLedger ledger = new QuotaUsageLedger();
+        QuotaEnforcementService quota = new QuotaEnforcementService(ledger, limits(100, 1), new SimpleMeterRegistry());
+        ledger.recordPut("acme", "acme-a", 90, -1);
+
+        StepVerifier.create(quota.enforcePut("acme", "acme-a", 95, 90, Mono.just("etag")))
+            .expectNext("etag")
+            .verifyComplete();
+        StepVerifier.create(quota.enforcePut("acme", "acme-a", 1, -1, Mono.just("etag")))
+            .expectError(QuotaExceededException.class)
+            .verify();
+    }
+
+    @Test
+    void perTenantLimitsOverrideTheDefault() {
+        QuotaProperties properties = limits(10, -1);
+        QuotaProperties.Limit big = new QuotaProperties.Limit();
+        big.setMaxBytes(1_000L);
+        properties.setTenants(Map.of("acme", big));
+        QuotaEnforcementService quota = new QuotaEnforcementService(new QuotaUsageLedger(), properties, new SimpleMeterRegistry());
+
+        StepVerifier.create(quota.enforcePut("acme", "acme-a", 500, -1, Mono.just("etag")))
+            .expectNext("etag")
+            .verifyComplete();
+        StepVerifier.create(quota.enforcePut("globex", "globex-a", 500, -1, Mono.just("etag")))
+            .expectError(QuotaExceededException.class)
+            .verify();
+    }
+
+    @Test
+    void firstWriteAfterARestartIsAdmittedAndReconcilesTheTenantInTheBackground() {
+        QuotaUsageLedger ledger = new QuotaUsageLedger();
+        QuotaEnforcementService quota = new QuotaEnforcementService(ledger, limits(100, -1), new SimpleMeterRegistry());
+        AtomicInteger reconciles = new AtomicInteger();
+        Sinks.Empty<Void> listing = Sinks.empty();
+        // The backend already holds 90 bytes the fresh ledger does not know about
+        quota.reconcileWith(tenantId -> {
+            reconciles.incrementAndGet();
+            QuotaUsageLedger.Snapshot snapshot = ledger.snapshot(tenantId, "acme-a");
+            return listing.asMono().then(Mono.fromRunnable(() -> {
+                ledger.reconcile(snapshot, 90, 3);
+                ledger.markReconciled(tenantId);
+            }));
+        });
+
+        StepVerifier.create(quota.enforcePut("acme", "acme-a", 30, -1, Mono.just("etag")))
+            .expectNext("etag")
+            .verifyComplete();
+        StepVerifier.create(quota.enforcePut("acme", "acme-a", 10, -1, Mono.just("etag")))
+            .expectNext("etag")
+            .verifyComplete();
+        assertEquals(1, reconciles.get());
+
+        listing.tryEmitEmpty();
+
+        // The listing replaces what the ledger held when it started, writes admitted meanwhile stay counted
+        assertEquals(new QuotaUsageLedger.Usage(130, 5, true), ledger.tenantUsage("acme"));
+        StepVerifier.create(quota.enforcePut("acme", "acme-a", 1, -1, Mono.error(new AssertionError("must not run"))))
+            .expectError(QuotaExceededException.class)
+            .verify();
+    }
+
+    @Test
+    void failedReconcileDoesNotBlockWritesAndIsRetried() {
+        QuotaEnforcementService quota = new QuotaEnforcementService(new QuotaUsageLedger(), limits(100, -1), new SimpleMeterRegistry());
+        AtomicInteger reconciles = new AtomicInteger();
+        quota.reconcileWith(tenantId -> {
+            reconciles.incrementAndGet();
+            return Mono.error(new IllegalStateException("backend down"));
+        });
+
+        StepVerifier.create(quota.enforcePart("acme", "acme-a", "u1", 10, Mono.just("etag")))
+            .expectNext("etag")
+            .verifyComplete();
+        StepVerifier.create(quota.enforcePut("acme", "acme-a", 10, -1, Mono.just("etag")))
+            .expectNext("etag")
+            .verifyComplete();
+
+        assertEquals(2, reconciles.get());
+    }
+
+    private static QuotaProperties limits(long maxBytes, long maxObjects) {
+        QuotaProperties properties = new QuotaProperties();
+        properties.setEnabled(true);
+        properties.setMaxBytes(maxBytes);
+        properties.setMaxObjects(maxObjects);
+        return properties;
+    }
+}
@@ -0,0 +1,95 @@
+package com.ironbucket.brazznossel.quota;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuotaUsageLedgerTests {
+
+    @Test
+    void putsOverwritesAndDeletesAdjustTenantAndBucketUsage() {
+        QuotaUsageLedger ledger = new QuotaUsageLedger();
+
+        ledger.recordPut("acme", "acme-a", 100, -1);
+        ledger.recordPut("acme", "acme-b", 50, -1);
+        ledger.recordPut("acme", "acme-a", 30, 100);
+        ledger.recordDelete("acme", "acme-b", 50);
+
+        assertEquals(new QuotaUsageLedger.Usage(30, 1, false), ledger.tenantUsage("acme"));
+        assertEquals(new QuotaUsageLedger.Usage(30, 1, false), ledger.bucketUsage("acme", "acme-a"));
+        assertEquals(new QuotaUsageLedger.Usage(0, 0, false), ledger.bucketUsage("acme", "acme-b"));
+    }
+
+    @Test
+    void deletingAnObjectThatDidNotExistChangesNothing() {
+        QuotaUsageLedger ledger = new QuotaUsageLedger();
+        ledger.recordPut("acme", "acme-a", 100, -1);
+
+        ledger.recordDelete("acme", "acme-a", -1);
+
+        assertEquals(new QuotaUsageLedger.Usage(100, 1, false), ledger.tenantUsage("acme"));
+    }
+
+    @Test
+    void multipartPartsCountUntilAbortedAndTheObjectCountsOnComplete() {
+        QuotaUsageLedger ledger = new QuotaUsageLedger();
+
+        ledger.recordPartUpload("acme", "acme-a", "u1", 10);
+        ledger.recordPartUpload("acme", "acme-a", "u1", 10);
+        ledger.recordPartUpload("acme", "acme-a", "u2", 7);
+        assertEquals(new QuotaUsageLedger.Usage(27, 0, false), ledger.tenantUsage("acme"));
+
+        ledger.recordMultipartComplete("acme", "acme-a", "u1", -1);
+        ledger.recordMultipartAbort("acme", "acme-a", "u2");
+
+        assertEquals(new QuotaUsageLedger.Usage(20, 1, false), ledger.tenantUsage("acme"));
+    }
+
+    @Test
+    void reconcileKeepsWritesRecordedWhileTheListingRan() {
+        QuotaUsageLedger ledger = new QuotaUsageLedger();
+        ledger.recordPut("acme", "acme-a", 100, -1);
+
+        QuotaUsageLedger.Snapshot snapshot = ledger.snapshot("acme", "acme-a");
+        // Concurrent write during the listing, not included in the listed totals
+        ledger.recordPut("acme", "acme-a", 5, -1);
+        ledger.recordPartUpload("acme", "acme-a", "u1", 8);
+        ledger.reconcile(snapshot, 1_000, 10);
+        ledger.markReconciled("acme");
+
+        assertEquals(new QuotaUsageLedger.Usage(1_013, 11, true), ledger.tenantUsage("acme"));
+    }
+
+    @Test
+    void removingABucketDropsItsUsage() {
+        QuotaUsageLedger ledger = new QuotaUsageLedger();
+        ledger.recordPut("acme", "acme-a", 100, -1);
+        ledger.recordPut("acme", "acme-b", 1, -1);
+
+        ledger.removeBucket("acme", "acme-a");
+
+        assertEquals(1, ledger.tenantUsage("acme").bytes());
+        assertFalse(ledger.trackedBuckets("acme").contains("acme-a"));
+        assertTrue(ledger.trackedTenants().contains("acme"));
+    }
+
+    @Test
+    void concurrentPutsAreAllCounted() throws InterruptedException {
+        QuotaUsageLedger ledger = new QuotaUsageLedger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 10_000; i++) {
+            String bucket = "acme-" + (i % 4);
+            executor.execute(() -> ledger.recordPut("acme", bucket, 3, -1));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(new QuotaUsageLedger.Usage(30_000, 10_000, false), ledger.tenantUsage("acme"));
+    }
+}
@@ -0,0 +1,78 @@
+package com.ironbucket.brazznossel.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TenantRateLimiterTests {
+
+    @Test
+    void requestsBeyondTheTenantRateGetSlowDownWithoutAffectingOtherTenants() {
+        AtomicLong clock = new AtomicLong();
+        TenantRateLimiter limiter = new TenantRateLimiter(true, 2, 2, 0, 0, Duration.ofSeconds(1),
+            new SimpleMeterRegistry(), clock::get);
+
+        limiter.checkRequest("acme");
+        limiter.checkRequest("acme");
+        SlowDownException slowDown = assertThrows(SlowDownException.class, () -> limiter.checkRequest("acme"));
+        assertEquals(Duration.ofMillis(500), slowDown.getRetryAfter());
+        assertEquals("1", slowDown.getHeaders().getFirst("Retry-After"));
+
+        assertDoesNotThrow(() -> limiter.checkRequest("globex"));
+
+        clock.addAndGet(Duration.ofMillis(500).toNanos());
+        assertDoesNotThrow(() -> limiter.checkRequest("acme"));
+    }
+
+    @Test
+    void bodiesArePacedToTheTenantBandwidth() {
+        // The limiter clock stands still, so each buffer also waits for the ones reserved before it
+        TenantRateLimiter limiter = new TenantRateLimiter(true, 0, 0, 1_000, 100, Duration.ofSeconds(10),
+            new SimpleMeterRegistry(), () -> 0L);
+
+        Flux<DataBuffer> body = Flux.range(0, 3).map(i -> DefaultDataBufferFactory.sharedInstance.wrap(new byte[100]));
+
+        // The burst covers the first buffer; each further 100 bytes costs 100 ms at 1000 B/s
+        StepVerifier.withVirtualTime(() -> limiter.shape("acme", body))
+            .expectSubscription()
+            .expectNextCount(1)
+            .expectNoEvent(Duration.ofMillis(99))
+            .thenAwait(Duration.ofMillis(1))
+            .expectNextCount(1)
+            .expectNoEvent(Duration.ofMillis(199))
+            .thenAwait(Duration.ofMillis(1))
+            .expectNextCount(1)
+            .verifyComplete();
+    }
+
+    @Test
+    void bufferThatWouldWaitTooLongFailsTheTransfer() {
+        TenantRateLimiter limiter = new TenantRateLimiter(true, 0, 0, 10, 10, Duration.ofMillis(100),
+            new SimpleMeterRegistry(), System::nanoTime);
+
+        StepVerifier.create(limiter.shape("acme", Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(new byte[1_000]))))
+            .expectError(SlowDownException.class)
+            .verify();
+    }
+
+    @Test
+    void disabledLimiterPassesEverythingThrough() {
+        TenantRateLimiter limiter = new TenantRateLimiter(false, 0, 0, 0, 0, Duration.ZERO, new SimpleMeterRegistry(), System::nanoTime);
+        Flux<DataBuffer> body = Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(new byte[10]));
+
+        for (int i = 0; i < 1_000; i++) {
+            limiter.checkRequest("acme");
+        }
+        assertEquals(body, limiter.shape("acme", body));
+    }
+}
@@ -0,0 +1,58 @@
+package com.ironbucket.brazznossel.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTests {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void burstIsAvailableAtOnceAndThenTokensRefillAtTheRate() {
+        TokenBucket bucket = new TokenBucket(10, 5);
+        long now = 0;
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, bucket.tryAcquire(1, now));
+        }
+        assertEquals(SECOND / 10, bucket.tryAcquire(1, now));
+
+        assertEquals(0, bucket.tryAcquire(1, now + SECOND / 10));
+        assertTrue(bucket.tryAcquire(1, now + SECOND / 10) > 0);
+    }
+
+    @Test
+    void reservationsGoIntoDebtUpToTheMaxWait() {
+        TokenBucket bucket = new TokenBucket(1_000, 1_000);
+
+        assertEquals(0, bucket.reserve(1_000, 0, SECOND));
+        assertEquals(SECOND / 2, bucket.reserve(500, 0, SECOND));
+        assertEquals(SECOND, bucket.reserve(500, 0, SECOND));
+        assertEquals(-1, bucket.reserve(1, 0, SECOND));
+    }
+
+    @Test
+    void concurrentCallersNeverTakeMoreThanTheBurst() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1, 100);
+        AtomicInteger granted = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 1_000; i++) {
+            executor.execute(() -> {
+                if (bucket.tryAcquire(1, 0) == 0) {
+                    granted.incrementAndGet();
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(100, granted.get());
+    }
+}
@@ -0,0 +1,151 @@
+package com.ironbucket.brazznossel.replication;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncReplicatorTests {
+
+    private static final Instant NOW = Instant.parse("2026-03-01T00:00:00Z");
+
+    @Test
+    void entriesOfOneObjectAreAppliedInSequenceOrder() {
+        ReplicationJournal journal = new ReplicationJournal("", false);
+        AsyncReplicator replicator = replicator(journal, 2, new SimpleMeterRegistry());
+        RecordingTarget target = new RecordingTarget();
+
+        replicator.record(ReplicationEntry.Operation.PUT, "acme", "acme-data", "a.txt").block();
+        replicator.record(ReplicationEntry.Operation.PUT, "acme", "acme-data", "b.txt").block();
+        replicator.record(ReplicationEntry.Operation.PUT_TAGGING, "acme", "acme-data", "a.txt", java.util.Map.of("k", "v")).block();
+        replicator.record(ReplicationEntry.Operation.DELETE_TAGGING, "acme", "acme-data", "a.txt").block();
+        replicator.record(ReplicationEntry.Operation.DELETE, "acme", "acme-data", "b.txt").block();
+
+        StepVerifier.create(replicator.drain(target))
+            .expectNext(5L)
+            .verifyComplete();
+
+        assertEquals(List.of(1L, 3L, 4L), target.sequencesFor("acme-data/a.txt"));
+        assertEquals(0, journal.size());
+    }
+
+    @Test
+    void putSupersededByALaterPutOrDeleteIsNotReplicated() {
+        ReplicationJournal journal = new ReplicationJournal("", false);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AsyncReplicator replicator = replicator(journal, 100, registry);
+        RecordingTarget target = new RecordingTarget();
+
+        replicator.record(ReplicationEntry.Operation.PUT, "acme", "acme-data", "a.txt").block();
+        replicator.record(ReplicationEntry.Operation.PUT, "acme", "acme-data", "a.txt").block();
+        replicator.record(ReplicationEntry.Operation.DELETE, "acme", "acme-data", "a.txt").block();
+
+        StepVerifier.create(replicator.drain(target))
+            .expectNext(3L)
+            .verifyComplete();
+
+        assertEquals(List.of(3L), target.sequencesFor("acme-data/a.txt"));
+        assertEquals(3.0, registry.get("ironbucket.s3.replication.replicated").counter().count());
+    }
+
+    @Test
+    void failureHoldsBackLaterEntriesOfThatObjectOnly() {
+        ReplicationJournal journal = new ReplicationJournal("", false);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AsyncReplicator replicator = replicator(journal, 100, registry);
+        RecordingTarget target = new RecordingTarget();
+        target.failing.add(1L);
+
+        replicator.record(ReplicationEntry.Operation.PUT_TAGGING, "acme", "acme-data", "a.txt", java.util.Map.of("k", "v")).block();
+        replicator.record(ReplicationEntry.Operation.PUT, "acme", "acme-data", "b.txt").block();
+        replicator.record(ReplicationEntry.Operation.DELETE, "acme", "acme-data", "a.txt").block();
+
+        StepVerifier.create(replicator.drain(target))
+            .expectNext(1L)
+            .verifyComplete();
+
+        assertEquals(List.of(1L, 3L), journal.pendingSequences());
+        assertEquals(List.of(), target.sequencesFor("acme-data/a.txt"));
+        assertEquals(1.0, registry.get("ironbucket.s3.replication.failed").counter().count());
+
+        target.failing.clear();
+        StepVerifier.create(replicator.drain(target))
+            .expectNext(2L)
+            .verifyComplete();
+
+        assertEquals(List.of(1L, 3L), target.sequencesFor("acme-data/a.txt"));
+    }
+
+    @Test
+    void lagIsTheAgeOfTheOldestPendingEntry() {
+        ReplicationJournal journal = new ReplicationJournal("", false);
+        journal.append(ReplicationEntry.Operation.PUT, "acme", "acme-data", "a.txt", java.util.Map.of(), NOW.minus(Duration.ofSeconds(30)));
+        journal.append(ReplicationEntry.Operation.PUT, "acme", "acme-data", "b.txt", java.util.Map.of(), NOW.minus(Duration.ofSeconds(5)));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        replicator(journal, 100, registry);
+
+        assertEquals(30.0, registry.get("ironbucket.s3.replication.lag").gauge().value());
+        assertEquals(2.0, registry.get("ironbucket.s3.replication.pending").gauge().value());
+    }
+
+    @Test
+    void disabledReplicatorRecordsNothing() {
+        AsyncReplicator replicator = new AsyncReplicator(new ReplicationJournal("", false), false, "", 1, 1, new SimpleMeterRegistry(), Clock.systemUTC(), Schedulers.immediate());
+
+        replicator.record(ReplicationEntry.Operation.PUT, "acme", "acme-data", "a.txt").block();
+
+        StepVerifier.create(replicator.drain(entry -> Mono.error(new AssertionError("must not replicate"))))
+            .expectNext(0L)
+            .verifyComplete();
+    }
+
+    @Test
+    void enabledReplicatorRequiresATargetProvider() {
+        assertThrows(IllegalStateException.class, () -> new AsyncReplicator(
+            new ReplicationJournal("", false), true, "", 10, 1, new SimpleMeterRegistry(), Clock.systemUTC(), Schedulers.immediate()));
+    }
+
+    private static AsyncReplicator replicator(ReplicationJournal journal, int batchSize, SimpleMeterRegistry registry) {
+        return new AsyncReplicator(journal, true, "gcs", batchSize, 4, registry, Clock.fixed(NOW, ZoneOffset.UTC), Schedulers.immediate());
+    }
+
+    private static final class RecordingTarget implements AsyncReplicator.ReplicationTarget {
+
+        final List<ReplicationEntry> applied = Collections.synchronizedList(new ArrayList<>());
+        final Set<Long> failing = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public Mono<Void> apply(ReplicationEntry entry) {
+            if (failing.contains(entry.sequence())) {
+                return Mono.error(new IllegalStateException("secondary unavailable"));
+            }
+            return Mono.fromRunnable(() -> applied.add(entry));
+        }
+
+        List<Long> sequencesFor(String objectKey) {
+            synchronized (applied) {
+                List<Long> sequences = applied.stream()
+                    .filter(entry -> entry.objectKey().equals(objectKey))
+                    .map(ReplicationEntry::sequence)
+                    .toList();
+                assertTrue(new ReplicationOrderingValidator().validateOrdering(sequences) || sequences.isEmpty());
+                return sequences;
+            }
+        }
+    }
+}
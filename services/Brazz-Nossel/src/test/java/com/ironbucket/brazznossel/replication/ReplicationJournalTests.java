@@ -0,0 +1,102 @@
+package com.ironbucket.brazznossel.replication;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReplicationJournalTests {
+
+    private static final Instant NOW = Instant.parse("2026-03-01T00:00:00Z");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void pendingEntriesSurviveARestart() {
+        ReplicationJournal journal = new ReplicationJournal(directory.toString(), false);
+        journal.append(ReplicationEntry.Operation.PUT, "acme", "acme-data", "a b.txt", Map.of(), NOW);
+        journal.append(ReplicationEntry.Operation.PUT_TAGGING, "acme", "acme-data", "a b.txt", Map.of("env", "prod&test"), NOW);
+        journal.append(ReplicationEntry.Operation.DELETE, "acme", "acme-data", "c.txt", Map.of(), NOW);
+        journal.acknowledge(List.of(1L));
+        journal.close();
+
+        ReplicationJournal reopened = new ReplicationJournal(directory.toString(), false);
+
+        assertEquals(1, reopened.checkpoint());
+        List<ReplicationEntry> pending = reopened.pending(10);
+        assertEquals(List.of(2L, 3L), pending.stream().map(ReplicationEntry::sequence).toList());
+        assertEquals("a b.txt", pending.get(0).key());
+        assertEquals(Map.of("env", "prod&test"), pending.get(0).tags());
+        assertEquals(NOW, pending.get(0).recordedAt());
+        assertEquals(4, reopened.append(ReplicationEntry.Operation.PUT, "acme", "acme-data", "d.txt", Map.of(), NOW).sequence());
+        reopened.close();
+    }
+
+    @Test
+    void checkpointStopsAtTheOldestPendingEntry() {
+        ReplicationJournal journal = new ReplicationJournal("", false);
+        for (int i = 0; i < 4; i++) {
+            journal.append(ReplicationEntry.Operation.PUT, "acme", "acme-data", "k" + i, Map.of(), NOW.plusSeconds(i));
+        }
+
+        journal.acknowledge(List.of(1L, 3L, 4L));
+
+        assertEquals(1, journal.checkpoint());
+        assertEquals(List.of(2L), journal.pendingSequences());
+        assertEquals(NOW.plusSeconds(1), journal.oldestPending());
+
+        journal.acknowledge(List.of(2L));
+
+        assertEquals(4, journal.checkpoint());
+        assertNull(journal.oldestPending());
+    }
+
+    @Test
+    void tornLastLineIsSkippedAndDoesNotSwallowTheNextAppend() throws IOException {
+        ReplicationJournal journal = new ReplicationJournal(directory.toString(), false);
+        journal.append(ReplicationEntry.Operation.PUT, "acme", "acme-data", "a.txt", Map.of(), NOW);
+        journal.close();
+        Files.writeString(directory.resolve("journal.log"), "2\tPUT\tacme\tacme-da", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        ReplicationJournal reopened = new ReplicationJournal(directory.toString(), false);
+        reopened.append(ReplicationEntry.Operation.DELETE, "acme", "acme-data", "b.txt", Map.of(), NOW);
+        reopened.close();
+
+        ReplicationJournal recovered = new ReplicationJournal(directory.toString(), false);
+        assertEquals(List.of("a.txt", "b.txt"), recovered.pending(10).stream().map(ReplicationEntry::key).toList());
+        recovered.close();
+    }
+
+    @Test
+    void entryThatKeepsFailingDoesNotStopTheLogFromBeingCompacted() throws IOException {
+        ReplicationJournal journal = new ReplicationJournal(directory.toString(), true, 512);
+        // Sequence 1 never replicates, everything after it does
+        journal.append(ReplicationEntry.Operation.PUT, "acme", "acme-data", "huge.bin", Map.of(), NOW);
+        for (int i = 0; i < 50; i++) {
+            long sequence = journal.append(ReplicationEntry.Operation.PUT, "acme", "acme-data", "k" + i, Map.of(), NOW).sequence();
+            journal.acknowledge(List.of(sequence));
+        }
+
+        assertEquals(List.of(1L), journal.pendingSequences());
+        assertTrue(Files.size(directory.resolve("journal.log")) < 512);
+        journal.close();
+
+        ReplicationJournal reopened = new ReplicationJournal(directory.toString(), true, 512);
+        // Entries acknowledged since the last compaction may be replayed, the stuck one always is
+        assertEquals("huge.bin", reopened.pending(1).getFirst().key());
+        assertEquals(52, reopened.append(ReplicationEntry.Operation.PUT, "acme", "acme-data", "next", Map.of(), NOW).sequence());
+        reopened.close();
+    }
+}
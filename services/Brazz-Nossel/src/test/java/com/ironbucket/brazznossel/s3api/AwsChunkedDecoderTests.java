@@ -0,0 +1,148 @@
+package com.ironbucket.brazznossel.s3api;
+
+import com.ironbucket.brazznossel.checksum.ChecksumAlgorithm;
+import com.ironbucket.brazznossel.checksum.ChecksumMismatchException;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AwsChunkedDecoderTests {
+
+    // The chunked PUT example from the AWS SigV4 documentation: 65536 + 1024 bytes of 'a'
+    private static final SigV4Verifier.SigningContext SIGNING = new SigV4Verifier.SigningContext(
+            SigV4Verifier.signingKey("wJalrXUtnFEMI/K7MDENG/bPxRfiCYEXAMPLEKEY", "20130524", "us-east-1"),
+            "20130524T000000Z",
+            "20130524/us-east-1/s3/aws4_request",
+            "4f232c4386841ef735655705268965c44a0e4690baa4adea153f7db9fa80a0a9");
+    private static final String[] CHUNK_SIGNATURES = {
+            "ad80c730a21e5b8d04586a2213dd63b9a0e99e0e2307b0ade35a65485a288648",
+            "0055627c9e194cb4542bae2aa5492e3c1575bbb81b612b7d234b86a503ef5497",
+            "b6c6ea8a5354eaf15b3cb7646744f4275b71ea724fed81ceb9323e279d449df9"};
+
+    @Test
+    void signedChunksAreDecodedAcrossArbitraryBufferBoundaries() {
+        byte[] body = signedExample((byte) 'a');
+
+        // 1000-byte buffers split chunk headers, data and CRLFs at every possible place
+        DataBuffer decoded = DataBufferUtils.join(
+                AwsChunkedDecoder.decode(buffers(body, 1000), SIGNING, false, null, 66_560)).block();
+
+        byte[] bytes = new byte[decoded.readableByteCount()];
+        decoded.read(bytes);
+        DataBufferUtils.release(decoded);
+        assertEquals(66_560, bytes.length);
+        byte[] expected = new byte[66_560];
+        Arrays.fill(expected, (byte) 'a');
+        assertTrue(Arrays.equals(expected, bytes));
+    }
+
+    @Test
+    void alteredDataFailsItsChunkSignature() {
+        StepVerifier.create(AwsChunkedDecoder.decode(buffers(signedExample((byte) 'b'), 4096), SIGNING, false, null, 66_560)
+                        .doOnNext(DataBufferUtils::release))
+                .expectErrorSatisfies(error -> assertEquals("SignatureDoesNotMatch", ((S3ApiException) error).getCode()))
+                .verify();
+    }
+
+    @Test
+    void bodyEndingBeforeTheFinalChunkIsIncomplete() {
+        byte[] body = signedExample((byte) 'a');
+        byte[] truncated = Arrays.copyOf(body, body.length - 100);
+
+        StepVerifier.create(AwsChunkedDecoder.decode(buffers(truncated, 8192), SIGNING, false, null, 66_560)
+                        .doOnNext(DataBufferUtils::release))
+                .expectErrorSatisfies(error -> assertEquals("IncompleteBody", ((S3ApiException) error).getCode()))
+                .verify();
+    }
+
+    @Test
+    void unsignedTrailerChecksumIsVerified() {
+        // CRC32C of "123456789" is 4waSgw==
+        byte[] valid = ("5\r\n12345\r\n4\r\n6789\r\n0\r\nx-amz-checksum-crc32c:4waSgw==\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+        StepVerifier.create(AwsChunkedDecoder.decode(buffers(valid, 3), null, false, ChecksumAlgorithm.CRC32C, 9)
+                        .map(AwsChunkedDecoderTests::text)
+                        .reduce(String::concat))
+                .expectNext("123456789")
+                .verifyComplete();
+
+        byte[] wrong = ("9\r\n123456780\r\n0\r\nx-amz-checksum-crc32c:4waSgw==\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+        StepVerifier.create(AwsChunkedDecoder.decode(buffers(wrong, 7), null, false, ChecksumAlgorithm.CRC32C, 9)
+                        .doOnNext(DataBufferUtils::release))
+                .expectError(ChecksumMismatchException.class)
+                .verify();
+    }
+
+    @Test
+    void crc32TrailerIsVerified() {
+        // CRC32 of "123456789" is y/Q5Jg==
+        byte[] valid = ("9\r\n123456789\r\n0\r\nx-amz-checksum-crc32:y/Q5Jg==\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+        StepVerifier.create(AwsChunkedDecoder.decode(buffers(valid, 5), null, false, ChecksumAlgorithm.CRC32, 9)
+                        .map(AwsChunkedDecoderTests::text)
+                        .reduce(String::concat))
+                .expectNext("123456789")
+                .verifyComplete();
+
+        // The CRC32C of the same data is not accepted as its CRC32
+        byte[] wrong = ("9\r\n123456789\r\n0\r\nx-amz-checksum-crc32:4waSgw==\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+        StepVerifier.create(AwsChunkedDecoder.decode(buffers(wrong, 5), null, false, ChecksumAlgorithm.CRC32, 9)
+                        .doOnNext(DataBufferUtils::release))
+                .expectError(ChecksumMismatchException.class)
+                .verify();
+    }
+
+    @Test
+    void lastSliceIsHeldBackUntilTheTrailerIsVerified() {
+        byte[] wrong = ("5\r\n12345\r\n4\r\n6780\r\n0\r\nx-amz-checksum-crc32c:4waSgw==\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+
+        // The backend upload is framed by the decoded length, so it must never see all 9 bytes
+        StepVerifier.create(AwsChunkedDecoder.decode(buffers(wrong, wrong.length), null, false, ChecksumAlgorithm.CRC32C, 9)
+                        .map(AwsChunkedDecoderTests::text))
+                .expectNext("12345")
+                .expectError(ChecksumMismatchException.class)
+                .verify();
+    }
+
+    static byte[] signedExample(byte fill) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        int[] sizes = {65_536, 1024, 0};
+        for (int i = 0; i < sizes.length; i++) {
+            body.writeBytes((Integer.toHexString(sizes[i]) + ";chunk-signature=" + CHUNK_SIGNATURES[i] + "\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            byte[] data = new byte[sizes[i]];
+            Arrays.fill(data, fill);
+            body.writeBytes(data);
+            if (sizes[i] > 0) {
+                body.writeBytes("\r\n".getBytes(StandardCharsets.US_ASCII));
+            }
+        }
+        body.writeBytes("\r\n".getBytes(StandardCharsets.US_ASCII));
+        return body.toByteArray();
+    }
+
+    private static Flux<DataBuffer> buffers(byte[] body, int size) {
+        List<DataBuffer> buffers = new ArrayList<>();
+        for (int offset = 0; offset < body.length; offset += size) {
+            buffers.add(DefaultDataBufferFactory.sharedInstance.wrap(
+                    Arrays.copyOfRange(body, offset, Math.min(body.length, offset + size))));
+        }
+        return Flux.fromIterable(buffers);
+    }
+
+    private static String text(DataBuffer buffer) {
+        String text = buffer.toString(StandardCharsets.US_ASCII);
+        DataBufferUtils.release(buffer);
+        return text;
+    }
+}
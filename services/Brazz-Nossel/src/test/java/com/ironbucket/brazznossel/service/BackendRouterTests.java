@@ -0,0 +1,57 @@
+package com.ironbucket.brazznossel.service;
+
+import com.ironbucket.brazznossel.model.RoutingRules;
+import com.ironbucket.brazznossel.service.S3ProxyServiceImpl.BackendProvider;
+import com.ironbucket.brazznossel.service.S3ProxyServiceImpl.RequiredCapability;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BackendRouterTests {
+
+    @Test
+    void replacedRulesApplyToTheNextLookup() {
+        BackendRouter router = new BackendRouter("tenant-a=gcs", "");
+
+        assertEquals(BackendProvider.GCS, router.resolve("tenant-a", "tenant-a-orders", RequiredCapability.OBJECT_READ));
+
+        router.replace(new RoutingRules(
+            Map.of("tenant-a", "aws_s3"),
+            Map.of("tenant-a/tenant-a-orders", "local-filesystem")
+        ));
+
+        assertEquals(BackendProvider.LOCAL_FILESYSTEM, router.resolve("tenant-a", "tenant-a-orders", RequiredCapability.OBJECT_READ));
+        assertEquals(BackendProvider.AWS_S3, router.resolve("tenant-a", "tenant-a-orders", RequiredCapability.MULTIPART_UPLOAD));
+        assertEquals(BackendProvider.AWS_S3, router.resolve("tenant-a", "tenant-a-logs", RequiredCapability.OBJECT_READ));
+        assertEquals(Map.of("tenant-a/tenant-a-orders", "LOCAL_FILESYSTEM"), router.rules().bucketOverrides());
+    }
+
+    @Test
+    void unknownTenantsUseTheFallbackOrder() {
+        BackendRouter router = new BackendRouter("", "tenant-a/tenant-a-orders=azure_blob");
+
+        assertEquals(BackendProvider.AWS_S3, router.resolve("tenant-z", "tenant-z-data", RequiredCapability.OBJECT_WRITE));
+        assertEquals(BackendProvider.AWS_S3, router.resolve(null, "bucket", RequiredCapability.OBJECT_READ));
+        assertEquals(BackendProvider.AZURE_BLOB, router.resolve("tenant-a", "tenant-a-orders", RequiredCapability.OBJECT_WRITE));
+        assertEquals(BackendProvider.AWS_S3, router.resolve("tenant-a", "tenant-a-orders", RequiredCapability.VERSIONING));
+    }
+
+    @Test
+    void malformedAdminUpdateKeepsTheCurrentTable() {
+        BackendRouter router = new BackendRouter("tenant-a=gcs", "");
+
+        assertThrows(IllegalArgumentException.class, () -> router.replace(new RoutingRules(
+            Map.of("tenant-a", "gcs"),
+            Map.of("tenant-a-orders", "aws_s3")
+        )));
+        assertThrows(IllegalArgumentException.class, () -> router.replace(new RoutingRules(
+            Map.of("tenant-a", "dropbox"),
+            Map.of()
+        )));
+
+        assertEquals(BackendProvider.GCS, router.resolve("tenant-a", "tenant-a-orders", RequiredCapability.OBJECT_READ));
+    }
+}
@@ -0,0 +1,123 @@
+package com.ironbucket.brazznossel.service;
+
+import com.ironbucket.brazznossel.model.StreamedObject;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the heap allocated per served MiB by the SDK GET path with the
+ * zero-copy path through {@link ZeroCopyObjectReader}.
+ *
+ * Both paths run the real {@link S3BackendClient} in ASYNC mode against a
+ * local reactor-netty server that answers every GET with the same 1 MiB
+ * object, so one operation is a full signed GET: the S3AsyncClient with
+ * zeroCopyGet off, the reader with it on. Each body buffer is then handed to
+ * what the server transport does before the socket write, which copies heap
+ * content into a direct buffer. The stand-in backend allocates the same in
+ * both runs, so the difference between them is the GET path itself.
+ *
+ * Run with {@code mvn test-compile} and then the main method on the test
+ * classpath; gc.alloc.rate.norm times 1024 is the allocation per GB served.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GetPathAllocationBenchmark {
+
+    private static final int OBJECT_SIZE = 1024 * 1024;
+
+    @Param({"false", "true"})
+    public boolean zeroCopyGet;
+
+    private final PooledByteBufAllocator allocator = PooledByteBufAllocator.DEFAULT;
+    private final NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(allocator);
+    private final GetObjectRequest request = GetObjectRequest.builder().bucket("bench").key("object.bin").build();
+    private ByteBuf object;
+    private DisposableServer backend;
+    private S3BackendClient client;
+
+    @Setup
+    public void setUp() {
+        object = allocator.directBuffer(OBJECT_SIZE);
+        for (int i = 0; i < OBJECT_SIZE; i++) {
+            object.writeByte(i);
+        }
+        backend = HttpServer.create()
+            .port(0)
+            .handle((get, response) -> response.status(200)
+                .header("Content-Type", "application/octet-stream")
+                .header("Content-Length", Integer.toString(OBJECT_SIZE))
+                .header("ETag", "\"bench\"")
+                .send(Mono.fromSupplier(object::retainedDuplicate))
+                .then())
+            .bindNow();
+        client = S3BackendClient.create(S3BackendClient.Mode.ASYNC, "http://localhost:" + backend.port(),
+            "minioadmin", "minioadmin", "us-east-1", 8, 100, zeroCopyGet, Schedulers.immediate());
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+        backend.disposeNow();
+        object.release();
+    }
+
+    @Benchmark
+    public long getObject() {
+        return client.getObjectStream(request, bufferFactory)
+            .flatMapMany(StreamedObject::body)
+            .map(this::writeToClient)
+            .reduce(0L, Long::sum)
+            .block();
+    }
+
+    // What the server transport does: heap content is copied into a direct buffer before the socket write
+    private long writeToClient(DataBuffer response) {
+        ByteBuf content = NettyDataBufferFactory.toByteBuf(response);
+        ByteBuf outbound = content;
+        if (!content.isDirect()) {
+            outbound = allocator.directBuffer(content.readableBytes());
+            outbound.writeBytes(content);
+            DataBufferUtils.release(response);
+        }
+        int written = outbound.readableBytes();
+        outbound.release();
+        return written;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(GetPathAllocationBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build()).run();
+    }
+}
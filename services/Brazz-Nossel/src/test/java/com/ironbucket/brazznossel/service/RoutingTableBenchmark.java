@@ -0,0 +1,127 @@
+package com.ironbucket.brazznossel.service;
+
+import com.ironbucket.brazznossel.service.S3ProxyServiceImpl.BackendProvider;
+import com.ironbucket.brazznossel.service.S3ProxyServiceImpl.RequiredCapability;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares provider resolution through the precomputed routing table with the
+ * per-request candidate list it replaced.
+ *
+ * Run with {@code mvn test-compile} and then the main method on the test
+ * classpath; the GC profiler reports gc.alloc.rate.norm, which should be 0 B/op
+ * for the table lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoutingTableBenchmark {
+
+    private static final int TENANTS = 1_000;
+
+    private Map<String, BackendProvider> tenantDefaults;
+    private Map<String, BackendProvider> bucketOverrides;
+    private RoutingTable table;
+    private String[] tenantIds;
+    private String[] buckets;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        tenantDefaults = new HashMap<>();
+        bucketOverrides = new HashMap<>();
+        tenantIds = new String[TENANTS];
+        buckets = new String[TENANTS];
+        BackendProvider[] providers = BackendProvider.values();
+        for (int i = 0; i < TENANTS; i++) {
+            tenantIds[i] = "tenant-" + i;
+            buckets[i] = tenantIds[i] + "-data";
+            tenantDefaults.put(tenantIds[i], providers[i % providers.length]);
+            if (i % 3 == 0) {
+                bucketOverrides.put(tenantIds[i] + "/" + buckets[i], providers[(i + 1) % providers.length]);
+            }
+        }
+        table = RoutingTable.compile(tenantDefaults, bucketOverrides);
+    }
+
+    @Benchmark
+    public BackendProvider precomputedTable() {
+        int i = next();
+        return table.resolve(tenantIds[i], buckets[i], RequiredCapability.VERSIONING);
+    }
+
+    @Benchmark
+    public BackendProvider perRequestCandidates() {
+        int i = next();
+        return legacyResolve(tenantIds[i], buckets[i], RequiredCapability.VERSIONING);
+    }
+
+    private int next() {
+        int i = cursor;
+        cursor = i + 1 == TENANTS ? 0 : i + 1;
+        return i;
+    }
+
+    // The resolution logic as it ran before the routing table existed
+    private BackendProvider legacyResolve(String tenantId, String bucket, RequiredCapability capability) {
+        List<BackendProvider> candidates = new ArrayList<>();
+        BackendProvider bucketOverride = bucketOverrides.get(tenantId + "/" + bucket);
+        if (bucketOverride != null) {
+            candidates.add(bucketOverride);
+        }
+        BackendProvider tenantDefault = tenantDefaults.get(tenantId);
+        if (tenantDefault != null) {
+            candidates.add(tenantDefault);
+        }
+        for (BackendProvider fallback : BackendProvider.values()) {
+            if (!candidates.contains(fallback)) {
+                candidates.add(fallback);
+            }
+        }
+        for (BackendProvider candidate : candidates) {
+            boolean supported = switch (candidate) {
+                case AWS_S3, GCS -> true;
+                case AZURE_BLOB -> capability != RequiredCapability.VERSIONING;
+                case LOCAL_FILESYSTEM -> EnumSet.of(
+                    RequiredCapability.OBJECT_READ,
+                    RequiredCapability.OBJECT_WRITE,
+                    RequiredCapability.OBJECT_DELETE
+                ).contains(capability);
+            };
+            if (supported) {
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("No provider supports " + capability);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(RoutingTableBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build()).run();
+    }
+}
@@ -0,0 +1,55 @@
+package com.ironbucket.brazznossel.service;
+
+import com.ironbucket.brazznossel.config.S3BackendProperties;
+import com.ironbucket.brazznossel.service.S3ProxyServiceImpl.BackendProvider;
+import org.junit.jupiter.api.Test;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class S3BackendPoolTests {
+
+    private static final S3BackendPool.BackendSettings DEFAULTS = new S3BackendPool.BackendSettings(
+        "http://localhost:9000", "minioadmin", "minioadmin", "us-east-1", 200, 10_000, false
+    );
+
+    @Test
+    void configuredProvidersGetTheirOwnClient() {
+        S3BackendProperties.Backend hot = new S3BackendProperties.Backend();
+        hot.setEndpoint("http://minio-hot:9000");
+        hot.setMaxConnections(500);
+
+        try (S3BackendPool pool = S3BackendPool.create(
+            S3BackendClient.Mode.ASYNC, DEFAULTS, Map.of("gcs", hot), Schedulers.immediate())) {
+
+            assertNotSame(pool.defaultClient(), pool.client(BackendProvider.GCS));
+            assertSame(pool.defaultClient(), pool.client(BackendProvider.AWS_S3));
+            assertSame(pool.defaultClient(), pool.client(BackendProvider.AZURE_BLOB));
+            assertEquals(2, pool.distinctClients().size());
+        }
+    }
+
+    @Test
+    void unsetFieldsFallBackToTheDefaultBackend() {
+        S3BackendProperties.Backend partial = new S3BackendProperties.Backend();
+        partial.setEndpoint("http://minio-hot:9000");
+        partial.setMaxPendingConnectionAcquires(50);
+
+        S3BackendPool.BackendSettings settings = DEFAULTS.overriddenBy(partial);
+
+        assertEquals(new S3BackendPool.BackendSettings(
+            "http://minio-hot:9000", "minioadmin", "minioadmin", "us-east-1", 200, 50, false
+        ), settings);
+    }
+
+    @Test
+    void unknownProviderNameFailsAtStartup() {
+        assertThrows(IllegalStateException.class, () -> S3BackendPool.create(
+            S3BackendClient.Mode.ASYNC, DEFAULTS, Map.of("dropbox", new S3BackendProperties.Backend()), Schedulers.immediate()));
+    }
+}
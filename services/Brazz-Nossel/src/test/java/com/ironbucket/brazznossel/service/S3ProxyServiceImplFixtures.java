@@ -0,0 +1,73 @@
+package com.ironbucket.brazznossel.service;
+
+import com.ironbucket.brazznossel.bulk.BulkDeleteEngine;
+import com.ironbucket.brazznossel.bulkhead.TenantBulkhead;
+import com.ironbucket.brazznossel.cache.HotObjectCache;
+import com.ironbucket.brazznossel.cache.ObjectMetadataCache;
+import com.ironbucket.brazznossel.cache.TenantBucketIndex;
+import com.ironbucket.brazznossel.checksum.StreamingChecksumVerifier;
+import com.ironbucket.brazznossel.coalesce.RequestCoalescer;
+import com.ironbucket.brazznossel.config.QuotaProperties;
+import com.ironbucket.brazznossel.config.S3BackendProperties;
+import com.ironbucket.brazznossel.copy.CopyEngine;
+import com.ironbucket.brazznossel.cutover.DualWriteService;
+import com.ironbucket.brazznossel.download.ParallelRangeDownloader;
+import com.ironbucket.brazznossel.multipart.AutoMultipartUploader;
+import com.ironbucket.brazznossel.multipart.MultipartCleanupJob;
+import com.ironbucket.brazznossel.quota.QuotaEnforcementService;
+import com.ironbucket.brazznossel.quota.QuotaUsageLedger;
+import com.ironbucket.brazznossel.replication.AsyncReplicator;
+import com.ironbucket.brazznossel.replication.ReplicationJournal;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.util.unit.DataSize;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+
+/**
+ * S3ProxyServiceImplFixtures - A service wired without Spring: every optional
+ * capability off, caches in memory, quotas unlimited.
+ */
+final class S3ProxyServiceImplFixtures {
+
+    private S3ProxyServiceImplFixtures() {
+    }
+
+    static S3ProxyServiceImpl standalone(String endpoint, String tenantDefaults, String bucketOverrides) {
+        return standalone(endpoint, tenantDefaults, bucketOverrides, "async", 200, 10_000);
+    }
+
+    static S3ProxyServiceImpl standalone(
+            String endpoint,
+            String tenantDefaults,
+            String bucketOverrides,
+            String clientMode,
+            int maxConnections,
+            int maxPendingConnectionAcquires) {
+        return new S3ProxyServiceImpl(endpoint, "minioadmin", "minioadmin", "us-east-1", clientMode,
+                maxConnections, maxPendingConnectionAcquires, false, Schedulers.boundedElastic(),
+                new BackendRouter(tenantDefaults, bucketOverrides), new S3BackendProperties(), standaloneCollaborators());
+    }
+
+    static S3ProxyCollaborators standaloneCollaborators() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        DataSize none = DataSize.ofBytes(0);
+        return new S3ProxyCollaborators(
+                new TenantBulkhead(0, 0, Duration.ZERO, registry),
+                new TenantBucketIndex(new ConcurrentMapCacheManager(TenantBucketIndex.CACHE_NAME), registry),
+                new ObjectMetadataCache(new ConcurrentMapCacheManager(ObjectMetadataCache.CACHE_NAME), registry),
+                new AutoMultipartUploader(false, DataSize.ofBytes(Long.MAX_VALUE), DataSize.ofMegabytes(5), 1, DataSize.ofMegabytes(5)),
+                new ParallelRangeDownloader(false, DataSize.ofBytes(Long.MAX_VALUE), DataSize.ofBytes(1), 1),
+                new CopyEngine(DataSize.ofGigabytes(1), DataSize.ofMegabytes(256), 8),
+                new BulkDeleteEngine(4),
+                new QuotaEnforcementService(new QuotaUsageLedger(), new QuotaProperties(), registry),
+                new MultipartCleanupJob(false, Duration.ofDays(7), 1, registry),
+                new DualWriteService(null, false, 1, 0.0, registry),
+                new AsyncReplicator(new ReplicationJournal("", false), false, "", 1, 1, registry, Schedulers.immediate()),
+                new StreamingChecksumVerifier(registry),
+                new RequestCoalescer(false, none, registry),
+                new HotObjectCache(false, none, none, "", none, none, 0.0, registry));
+    }
+}
@@ -0,0 +1,108 @@
+package com.ironbucket.brazznossel.service;
+
+import com.ironbucket.brazznossel.model.ListObjectsQuery;
+import com.ironbucket.brazznossel.model.ListingEntry;
+import com.ironbucket.brazznossel.model.NormalizedIdentity;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class S3ProxyServiceImplListingTests {
+
+    private final List<String> listRequests = new CopyOnWriteArrayList<>();
+    private DisposableServer backend;
+
+    @BeforeEach
+    void startBackend() {
+        // Minimal S3 stand-in: ListObjectsV2 answers with two pages of logs/ keys, the second one behind the "page-2" token
+        backend = HttpServer.create()
+            .port(0)
+            .handle((request, response) -> {
+                listRequests.add(request.uri());
+                String page = request.uri().contains("continuation-token=page-2")
+                    ? listing(false, null, "logs/c.log")
+                    : listing(true, "page-2", "logs/a.log", "logs/b.log");
+                return response.status(200)
+                    .header("Content-Type", "application/xml")
+                    .sendString(Mono.just(page))
+                    .then();
+            })
+            .bindNow();
+    }
+
+    @AfterEach
+    void stopBackend() {
+        backend.disposeNow();
+    }
+
+    @Test
+    void listingPagesFollowTheBackendContinuationToken() {
+        S3ProxyServiceImpl service = S3ProxyServiceImplFixtures.standalone("http://localhost:" + backend.port(), "", "");
+        NormalizedIdentity identity = identity("tenant-a");
+        ListObjectsQuery query = new ListObjectsQuery("logs/", null, null, 2, null);
+
+        try {
+            StepVerifier.create(service.listObjectPages("tenant-a-logs", query, identity))
+                .assertNext(page -> {
+                    assertEquals(List.of("logs/a.log", "logs/b.log"), page.objects().stream().map(ListingEntry::key).toList());
+                    assertEquals(2L, page.objects().get(0).size());
+                    assertEquals("\"etag-logs/a.log\"", page.objects().get(0).eTag());
+                    assertTrue(page.truncated());
+                    assertEquals("page-2", page.nextContinuationToken());
+                })
+                .assertNext(page -> {
+                    assertEquals(List.of("logs/c.log"), page.objects().stream().map(ListingEntry::key).toList());
+                    assertFalse(page.truncated());
+                    assertNull(page.nextContinuationToken());
+                })
+                .verifyComplete();
+
+            // Each page was asked for with the caller's page size, the second with the token from the first
+            assertEquals(2, listRequests.size());
+            assertTrue(listRequests.stream().allMatch(uri -> uri.contains("list-type=2") && uri.contains("max-keys=2")
+                && uri.contains("prefix=logs")));
+            assertFalse(listRequests.get(0).contains("continuation-token"));
+            assertTrue(listRequests.get(1).contains("continuation-token=page-2"));
+        } finally {
+            service.close();
+        }
+    }
+
+    private static String listing(boolean truncated, String nextToken, String... keys) {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>")
+            .append("<ListBucketResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">")
+            .append("<Name>tenant-a-logs</Name><Prefix>logs/</Prefix><MaxKeys>2</MaxKeys>")
+            .append("<KeyCount>").append(keys.length).append("</KeyCount>")
+            .append("<IsTruncated>").append(truncated).append("</IsTruncated>");
+        if (nextToken != null) {
+            xml.append("<NextContinuationToken>").append(nextToken).append("</NextContinuationToken>");
+        }
+        for (String key : keys) {
+            xml.append("<Contents><Key>").append(key).append("</Key><Size>2</Size>")
+                .append("<ETag>&quot;etag-").append(key).append("&quot;</ETag>")
+                .append("<StorageClass>STANDARD</StorageClass></Contents>");
+        }
+        return xml.append("</ListBucketResult>").toString();
+    }
+
+    private static NormalizedIdentity identity(String tenantId) {
+        return NormalizedIdentity.builder()
+            .userId("user-1")
+            .tenantId(tenantId)
+            .preferredUsername("alice")
+            .roles(List.of("s3:read"))
+            .build();
+    }
+}
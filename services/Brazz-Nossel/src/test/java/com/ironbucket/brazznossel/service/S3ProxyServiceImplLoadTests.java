@@ -0,0 +1,109 @@
+package com.ironbucket.brazznossel.service;
+
+import com.ironbucket.brazznossel.model.NormalizedIdentity;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class S3ProxyServiceImplLoadTests {
+
+    private static final Duration SLOW_BACKEND_DELAY = Duration.ofMillis(500);
+    private static final int SLOW_REQUESTS = 200;
+    private static final int FAST_REQUESTS = 200;
+
+    private DisposableServer backend;
+
+    @BeforeEach
+    void startBackend() {
+        // Minimal S3 stand-in: HEAD on any key in a "-slow" bucket is delayed, everything else answers immediately
+        backend = HttpServer.create()
+            .port(0)
+            .handle((request, response) -> {
+                Mono<Long> delay = request.uri().contains("-slow/")
+                    ? Mono.delay(SLOW_BACKEND_DELAY)
+                    : Mono.just(0L);
+                return delay.then(response.status(200)
+                    .header("ETag", "\"etag-1\"")
+                    .header("Content-Length", "0")
+                    .send()
+                    .then());
+            })
+            .bindNow();
+    }
+
+    @AfterEach
+    void stopBackend() {
+        backend.disposeNow();
+    }
+
+    @Test
+    void fastRequestP99HoldsWhileBackendIsSlowedDown() {
+        S3ProxyServiceImpl service = S3ProxyServiceImplFixtures.standalone(
+            "http://localhost:" + backend.port(), "", "", "async", 1000, 10_000);
+        NormalizedIdentity identity = identity("tenant-a");
+
+        try {
+            long baselineP99 = p99(runFast(service, identity, "baseline"));
+
+            CompletableFuture<List<Long>> slowLatencies = Flux.range(0, SLOW_REQUESTS)
+                .flatMap(i -> timed(service.headObject("tenant-a-slow", "key-" + i, identity)), SLOW_REQUESTS)
+                .collectList()
+                .toFuture();
+
+            // Distinct keys so the loaded round cannot be answered from the metadata cache
+            long loadedP99 = p99(runFast(service, identity, "loaded"));
+
+            assertEquals(SLOW_REQUESTS, slowLatencies.join().size());
+            assertTrue(
+                loadedP99 < SLOW_BACKEND_DELAY.toMillis() / 2,
+                "Fast p99 was " + loadedP99 + "ms under slow backend load (baseline " + baselineP99 + "ms)"
+            );
+        } finally {
+            service.close();
+        }
+    }
+
+    private static List<Long> runFast(S3ProxyServiceImpl service, NormalizedIdentity identity, String round) {
+        return Flux.range(0, FAST_REQUESTS)
+            .delayElements(Duration.ofMillis(1))
+            .flatMap(i -> timed(service.headObject("tenant-a-fast", round + "-key-" + i, identity)))
+            .collectList()
+            .block(Duration.ofSeconds(30));
+    }
+
+    private static Mono<Long> timed(Mono<String> call) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call.map(etag -> Duration.ofNanos(System.nanoTime() - start).toMillis());
+        });
+    }
+
+    private static long p99(List<Long> latencies) {
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        int index = (int) Math.ceil(sorted.size() * 0.99) - 1;
+        return sorted.get(Math.max(index, 0));
+    }
+
+    private static NormalizedIdentity identity(String tenantId) {
+        return NormalizedIdentity.builder()
+            .userId("user-1")
+            .tenantId(tenantId)
+            .preferredUsername("alice")
+            .roles(List.of("s3:read"))
+            .build();
+    }
+}
@@ -11,14 +11,7 @@ class S3ProxyServiceImplRoutingTests {
 
     @Test
     void bucketOverrideIsPreferredWhenCapabilitySupported() {
-        S3ProxyServiceImpl service = new S3ProxyServiceImpl(
-            "http://localhost:9000",
-            "minioadmin",
-            "minioadmin",
-            "us-east-1",
-            "tenant-a=aws_s3",
-            "tenant-a/tenant-a-orders=gcs"
-        );
+        S3ProxyServiceImpl service = S3ProxyServiceImplFixtures.standalone("http://localhost:9000", "tenant-a=aws_s3", "tenant-a/tenant-a-orders=gcs");
 
         NormalizedIdentity identity = identity("tenant-a");
 
@@ -33,14 +26,7 @@ class S3ProxyServiceImplRoutingTests {
 
     @Test
     void tenantDefaultIsUsedWhenNoBucketOverrideExists() {
-        S3ProxyServiceImpl service = new S3ProxyServiceImpl(
-            "http://localhost:9000",
-            "minioadmin",
-            "minioadmin",
-            "us-east-1",
-            "tenant-a=azure_blob",
-            ""
-        );
+        S3ProxyServiceImpl service = S3ProxyServiceImplFixtures.standalone("http://localhost:9000", "tenant-a=azure_blob", "");
 
         NormalizedIdentity identity = identity("tenant-a");
 
@@ -55,14 +41,7 @@ class S3ProxyServiceImplRoutingTests {
 
     @Test
     void fallbackSkipsUnsupportedVersioningProvider() {
-        S3ProxyServiceImpl service = new S3ProxyServiceImpl(
-            "http://localhost:9000",
-            "minioadmin",
-            "minioadmin",
-            "us-east-1",
-            "tenant-a=local_filesystem",
-            "tenant-a/tenant-a-orders=azure_blob"
-        );
+        S3ProxyServiceImpl service = S3ProxyServiceImplFixtures.standalone("http://localhost:9000", "tenant-a=local_filesystem", "tenant-a/tenant-a-orders=azure_blob");
 
         NormalizedIdentity identity = identity("tenant-a");
 
@@ -0,0 +1,121 @@
+package com.ironbucket.brazznossel.service;
+
+import com.ironbucket.brazznossel.checksum.ChecksumAlgorithm;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.test.StepVerifier;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ZeroCopyObjectReaderTests {
+
+    private final AtomicReference<String> requestedPath = new AtomicReference<>();
+    private final AtomicReference<String> authorization = new AtomicReference<>();
+    private DisposableServer backend;
+    private ZeroCopyObjectReader reader;
+
+    @BeforeEach
+    void startBackend() {
+        // Minimal S3 stand-in: "missing" keys answer with an S3 error document, everything else with "hello"
+        backend = HttpServer.create()
+            .port(0)
+            .handle((request, response) -> {
+                requestedPath.set(request.uri());
+                authorization.set(request.requestHeaders().get("Authorization"));
+                if (request.uri().endsWith("/missing")) {
+                    return response.status(404)
+                        .header("Content-Type", "application/xml")
+                        .sendString(Mono.just(
+                            "<Error><Code>NoSuchKey</Code><Message>The specified key does not exist.</Message></Error>"))
+                        .then();
+                }
+                return response.status(200)
+                    .header("ETag", "\"etag-1\"")
+                    .header("Content-Type", "text/plain")
+                    .header("Content-Length", "5")
+                    .header("x-amz-meta-checksum-crc32c", "mnG7TA==")
+                    .sendString(Mono.just("hello"))
+                    .then();
+            })
+            .bindNow();
+        reader = new ZeroCopyObjectReader("http://localhost:" + backend.port(), "minioadmin", "minioadmin", "us-east-1", 10, 100);
+    }
+
+    @AfterEach
+    void stopBackend() {
+        reader.close();
+        backend.disposeNow();
+    }
+
+    @Test
+    void bodyIsHandedOverInNettyBuffersWithSignedPathStyleRequest() {
+        NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+        GetObjectRequest request = GetObjectRequest.builder().bucket("acme-data").key("dir/a b.txt").build();
+
+        StepVerifier.create(reader.getObjectStream(request, bufferFactory)
+                .flatMap(object -> {
+                    assertEquals(5, object.contentLength());
+                    assertEquals("\"etag-1\"", object.eTag());
+                    assertEquals(Map.of(ChecksumAlgorithm.CRC32C, "mnG7TA=="), object.checksums());
+                    return DataBufferUtils.join(object.body());
+                }))
+            .assertNext(buffer -> {
+                assertTrue(buffer instanceof NettyDataBuffer);
+                assertEquals("hello", buffer.toString(StandardCharsets.UTF_8));
+                DataBufferUtils.release(buffer);
+            })
+            .verifyComplete();
+
+        assertEquals("/acme-data/dir/a%20b.txt", requestedPath.get());
+        assertTrue(authorization.get().startsWith("AWS4-HMAC-SHA256 Credential=minioadmin/"));
+    }
+
+    @Test
+    void errorResponsesBecomeTheSdkExceptions() {
+        GetObjectRequest request = GetObjectRequest.builder().bucket("acme-data").key("missing").build();
+
+        StepVerifier.create(reader.getObjectStream(request, new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT)))
+            .expectErrorSatisfies(error -> {
+                assertTrue(error instanceof NoSuchKeyException);
+                assertEquals(404, ((S3Exception) error).statusCode());
+            })
+            .verify();
+    }
+
+    @Test
+    void errorDocumentsAreReadAsXml() {
+        Map<String, String> fields = ZeroCopyObjectReader.errorFields(
+            "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<Error><Code>SlowDown</Code>"
+                + "<Message>Please reduce your request rate &amp; retry.</Message><Resource>/acme-data/key</Resource></Error>");
+
+        assertEquals("SlowDown", fields.get("Code"));
+        assertEquals("Please reduce your request rate & retry.", fields.get("Message"));
+        assertTrue(ZeroCopyObjectReader.errorFields("").isEmpty());
+        assertTrue(ZeroCopyObjectReader.errorFields("<html>Bad Gateway").isEmpty());
+    }
+
+    @Test
+    void onlyPlainRangedAndConditionalGetsAreSupported() {
+        assertTrue(ZeroCopyObjectReader.supports(GetObjectRequest.builder()
+            .bucket("acme-data").key("key").range("bytes=0-9").ifMatch("\"etag-1\"").build()));
+        assertFalse(ZeroCopyObjectReader.supports(GetObjectRequest.builder()
+            .bucket("acme-data").key("key").partNumber(2).build()));
+    }
+}
@@ -15,14 +15,11 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class IronBucketS3Service {
 
     private static final String ROUTED_PROVIDER = "CLAIMSPINDEL";
     private static final String ROUTED_REASON = "sentinel-gear-gateway;claimspindel-policy-route";
-    private static final Pattern CREATED_PATTERN = Pattern.compile("\\(created:\\s*([^\\)]+)\\)");
     private static final Set<String> SUPPORTED_CAPABILITIES = Set.of(
         "OBJECT_READ",
         "OBJECT_WRITE",
@@ -57,14 +54,27 @@ public class IronBucketS3Service {
     }
 
     public List<S3Bucket> listBuckets(String jwtToken) {
-        String response = webClient.get()
+        BucketListing listing = webClient.get()
             .uri("/s3/buckets")
             .header("Authorization", authorizationHeader(jwtToken))
+            .accept(MediaType.APPLICATION_JSON)
             .retrieve()
-            .bodyToMono(String.class)
+            .bodyToMono(BucketListing.class)
             .block();
 
-        return parseBuckets(response == null ? "" : response);
+        if (listing == null || listing.buckets() == null) {
+            return List.of();
+        }
+        String ownerTenant = listing.owner() == null ? null : listing.owner().id();
+        return listing.buckets().stream()
+            .map(bucket -> new S3Bucket(
+                bucket.name(),
+                bucket.creationDate() == null ? Instant.now() : bucket.creationDate(),
+                ownerTenant == null || ownerTenant.isBlank() ? tenantForBucket(bucket.name()) : ownerTenant,
+                ROUTED_PROVIDER,
+                ROUTED_REASON
+            ))
+            .toList();
     }
 
     public S3Bucket getBucket(String jwtToken, String bucketName) {
@@ -106,27 +116,32 @@ public class IronBucketS3Service {
     }
 
     public List<S3Object> listObjects(String jwtToken, String bucketName, String prefix) {
-        String body = webClient.get()
-            .uri("/s3/objects/{bucket}", bucketName)
+        ObjectListing listing = webClient.get()
+            .uri(uriBuilder -> {
+                uriBuilder.path("/s3/objects/{bucket}");
+                if (prefix != null && !prefix.isBlank()) {
+                    uriBuilder.queryParam("prefix", "{prefix}");
+                }
+                return uriBuilder.build(bucketName, prefix);
+            })
             .header("Authorization", authorizationHeader(jwtToken))
+            .accept(MediaType.APPLICATION_JSON)
             .retrieve()
-            .bodyToMono(String.class)
+            .bodyToMono(ObjectListing.class)
             .block();
 
-        if (body == null || body.isBlank()) {
+        if (listing == null || listing.entries() == null) {
             return List.of();
         }
 
         Instant now = Instant.now();
-        return body.lines()
-            .map(String::trim)
-            .filter(line -> !line.isBlank())
-            .filter(line -> prefix == null || prefix.isBlank() || line.startsWith(prefix))
-            .map(key -> new S3Object(
-                key,
+        return listing.entries().stream()
+            .filter(entry -> !entry.commonPrefix())
+            .map(entry -> new S3Object(
+                entry.key(),
                 bucketName,
-                0L,
-                now,
+                entry.size() == null ? 0L : entry.size(),
+                entry.lastModified() == null ? now : entry.lastModified(),
                 "application/octet-stream",
                 Map.of(),
                 ROUTED_PROVIDER,
@@ -333,59 +348,19 @@ public class IronBucketS3Service {
         return UriUtils.encodePathSegment(pathSegment, StandardCharsets.UTF_8);
     }
 
-    private List<S3Bucket> parseBuckets(String responseBody) {
-        if (responseBody.isBlank()) {
-            return List.of();
-        }
-
-        List<String> lines = responseBody.lines().map(String::trim).toList();
-        String responseTenant = lines.stream()
-            .filter(line -> line.toLowerCase(Locale.ROOT).startsWith("buckets for tenant "))
-            .findFirst()
-            .map(this::extractTenantFromHeading)
-            .orElse(null);
-
-        return lines.stream()
-            .filter(line -> line.startsWith("-"))
-            .map(line -> line.substring(1).trim())
-            .map(line -> toBucket(line, responseTenant))
-            .toList();
+    // JSON listings served by Brazz-Nossel; fields that are not needed here are ignored
+    record BucketListing(Owner owner, List<BucketEntry> buckets) {
     }
 
-    private String extractTenantFromHeading(String heading) {
-        String prefix = "Buckets for tenant ";
-        if (!heading.startsWith(prefix)) {
-            return "default";
-        }
+    record Owner(String id, String displayName) {
+    }
 
-        String tenant = heading.substring(prefix.length()).trim();
-        if (tenant.endsWith(":")) {
-            tenant = tenant.substring(0, tenant.length() - 1);
-        }
-        return tenant.isBlank() ? "default" : tenant;
+    record BucketEntry(String name, Instant creationDate) {
     }
 
-    private S3Bucket toBucket(String rawBucketLine, String responseTenant) {
-        Matcher createdMatcher = CREATED_PATTERN.matcher(rawBucketLine);
-        Instant creationDate = Instant.now();
-        String bucketName = rawBucketLine;
-
-        if (createdMatcher.find()) {
-            String timestamp = createdMatcher.group(1);
-            try {
-                creationDate = Instant.parse(timestamp);
-            } catch (RuntimeException ignored) {
-                creationDate = Instant.now();
-            }
-            bucketName = rawBucketLine.substring(0, createdMatcher.start()).trim();
-        }
+    record ObjectListing(String name, List<ObjectEntry> entries, boolean isTruncated) {
+    }
 
-        return new S3Bucket(
-            bucketName,
-            creationDate,
-            responseTenant == null || responseTenant.isBlank() ? tenantForBucket(bucketName) : responseTenant,
-            ROUTED_PROVIDER,
-            ROUTED_REASON
-        );
+    record ObjectEntry(String key, Long size, Instant lastModified, boolean commonPrefix) {
     }
 }
@@ -11,6 +11,7 @@ import org.junit.jupiter.api.Test;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -35,10 +36,11 @@ class IronBucketS3ServiceRoutingTest {
                 return;
             }
 
-            String body = "Buckets for tenant tenant-a:\n"
-                + "  - tenant-a-files (created: 2026-03-13T12:00:00Z)\n"
-                + "  - tenant-a-logs (created: 2026-03-13T12:10:00Z)\n";
-            writeString(exchange, 200, body);
+            assertEquals("application/json", exchange.getRequestHeaders().getFirst("Accept"));
+            String body = "{\"owner\":{\"id\":\"tenant-a\",\"displayName\":\"alice\"},\"buckets\":["
+                + "{\"name\":\"tenant-a-files\",\"creationDate\":\"2026-03-13T12:00:00Z\"},"
+                + "{\"name\":\"tenant-a-logs\",\"creationDate\":\"2026-03-13T12:10:00Z\"}]}";
+            writeJson(exchange, body);
         });
 
         server.createContext("/s3/bucket/tenant-a-files", exchange -> {
@@ -56,7 +58,12 @@ class IronBucketS3ServiceRoutingTest {
                 exchange.sendResponseHeaders(405, -1);
                 return;
             }
-            writeString(exchange, 200, "a.txt\nb.txt\n");
+            assertEquals("application/json", exchange.getRequestHeaders().getFirst("Accept"));
+            // Filtering by prefix is left to the gateway
+            assertEquals("prefix=a", exchange.getRequestURI().getRawQuery());
+            writeJson(exchange, "{\"name\":\"tenant-a-files\",\"prefix\":\"a\",\"entries\":["
+                + "{\"key\":\"a.txt\",\"size\":5,\"eTag\":\"\\\"e1\\\"\",\"lastModified\":\"2026-03-13T12:00:00Z\","
+                + "\"storageClass\":\"STANDARD\",\"commonPrefix\":false}],\"keyCount\":1,\"isTruncated\":false}");
         });
 
         server.createContext("/s3/object/tenant-a-files/a.txt", exchange -> {
@@ -109,6 +116,8 @@ class IronBucketS3ServiceRoutingTest {
         assertEquals("sentinel-gear-gateway;claimspindel-policy-route", fetched.routingReason());
         assertEquals("tenant-a-files", listed.getFirst().name());
         assertEquals("tenant-a", listed.getFirst().ownerTenant());
+        assertEquals(Instant.parse("2026-03-13T12:00:00Z"), listed.getFirst().creationDate());
+        assertEquals(2, listed.size());
     }
 
     @Test
@@ -118,6 +127,7 @@ class IronBucketS3ServiceRoutingTest {
 
         assertEquals(1, listed.size());
         assertEquals("a.txt", listed.getFirst().key());
+        assertEquals(5L, listed.getFirst().size());
         assertEquals("CLAIMSPINDEL", listed.getFirst().selectedProvider());
         assertEquals(5L, fetched.size());
         assertEquals("CLAIMSPINDEL", fetched.selectedProvider());
@@ -166,6 +176,11 @@ class IronBucketS3ServiceRoutingTest {
         assertEquals("Bearer jwt", auth);
     }
 
+    private void writeJson(HttpExchange exchange, String body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        writeString(exchange, 200, body);
+    }
+
     private void writeString(HttpExchange exchange, int status, String body) throws IOException {
         byte[] payload = body.getBytes(StandardCharsets.UTF_8);
         exchange.sendResponseHeaders(status, payload.length);